@@ -0,0 +1,7 @@
+package com.lambrk.badge;
+
+/** The unread counters shown as navigation badges. */
+public enum BadgeKind {
+  NOTIFICATIONS,
+  MESSAGES
+}
@@ -0,0 +1,46 @@
+package com.lambrk.badge;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.badges")
+public class BadgeProperties {
+
+  private String store = "in-memory";
+  private long ttlMs = 86_400_000;
+  private long maxEntries = 500_000;
+  private long reconcileIntervalMs = 300_000;
+
+  public String getStore() {
+    return store;
+  }
+
+  public void setStore(String store) {
+    this.store = store;
+  }
+
+  public long getTtlMs() {
+    return ttlMs;
+  }
+
+  public void setTtlMs(long ttlMs) {
+    this.ttlMs = ttlMs;
+  }
+
+  public long getMaxEntries() {
+    return maxEntries;
+  }
+
+  public void setMaxEntries(long maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public long getReconcileIntervalMs() {
+    return reconcileIntervalMs;
+  }
+
+  public void setReconcileIntervalMs(long reconcileIntervalMs) {
+    this.reconcileIntervalMs = reconcileIntervalMs;
+  }
+}
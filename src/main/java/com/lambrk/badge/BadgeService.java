@@ -0,0 +1,138 @@
+package com.lambrk.badge;
+
+import com.lambrk.dto.BadgesResponse;
+import com.lambrk.message.ChatMessageStore;
+import com.lambrk.repository.NotificationRepository;
+import com.lambrk.user.UserIdentity;
+import com.lambrk.user.UserIdentityCache;
+import com.lambrk.util.AfterCommit;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import com.lambrk.websocket.LocalUserSessions;
+import com.lambrk.websocket.UserNodeRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Unread notification and message counts served from counters instead of a COUNT per badge request.
+ * Writers report each change with {@link #adjust} or {@link #reset}. The change lands in the {@link
+ * UnreadCounterStore} after commit, and the new badges are pushed to the user's sessions on every
+ * node at {@code /user/queue/badges}. Counters that are not held are recounted on first read.
+ * Connected users' counters are also recounted every {@code reconcile-interval-ms}, which repairs
+ * drift from races between a recount and a concurrent change.
+ */
+@Service
+@Lazy(false)
+public class BadgeService {
+
+  private static final Logger log = LoggerFactory.getLogger(BadgeService.class);
+
+  private final UnreadCounterStore store;
+  private final NotificationRepository notificationRepository;
+  private final ChatMessageStore chatMessageStore;
+  private final LocalUserSessions sessions;
+  private final UserIdentityCache identities;
+  private final UserNodeRegistry registry;
+  private final ClusterMessagingTemplate messagingTemplate;
+
+  public BadgeService(
+      UnreadCounterStore store,
+      NotificationRepository notificationRepository,
+      ChatMessageStore chatMessageStore,
+      LocalUserSessions sessions,
+      UserIdentityCache identities,
+      UserNodeRegistry registry,
+      ClusterMessagingTemplate messagingTemplate) {
+    this.store = store;
+    this.notificationRepository = notificationRepository;
+    this.chatMessageStore = chatMessageStore;
+    this.sessions = sessions;
+    this.identities = identities;
+    this.registry = registry;
+    this.messagingTemplate = messagingTemplate;
+  }
+
+  public BadgesResponse getBadges(UUID userId) {
+    return new BadgesResponse(
+        count(userId, BadgeKind.NOTIFICATIONS), count(userId, BadgeKind.MESSAGES));
+  }
+
+  public long count(UUID userId, BadgeKind kind) {
+    Long held = store.get(userId, kind);
+    if (held != null) {
+      return held;
+    }
+    long counted = recount(userId, kind);
+    store.put(userId, kind, counted);
+    return counted;
+  }
+
+  /** Adds {@code delta} unread items once the current transaction commits. */
+  public void adjust(UUID userId, BadgeKind kind, long delta) {
+    if (delta == 0) {
+      return;
+    }
+    afterCommit(userId, () -> store.add(userId, kind, delta));
+  }
+
+  /** Sets the counter to zero once the current transaction commits. */
+  public void reset(UUID userId, BadgeKind kind) {
+    afterCommit(userId, () -> store.put(userId, kind, 0));
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.badges.reconcile-interval-ms:300000}",
+      initialDelayString = "${lambrk.badges.reconcile-interval-ms:300000}")
+  public void reconcile() {
+    for (UUID userId : sessions.userIds()) {
+      try {
+        boolean drifted = false;
+        for (BadgeKind kind : BadgeKind.values()) {
+          Long held = store.get(userId, kind);
+          long actual = recount(userId, kind);
+          store.put(userId, kind, actual);
+          drifted |= held != null && held != actual;
+        }
+        if (drifted) {
+          push(userId);
+        }
+      } catch (RuntimeException e) {
+        log.warn("Failed to reconcile unread counters for {}", userId, e);
+      }
+    }
+  }
+
+  /** Sends the user's current badges to their sessions on any node, if they have any. */
+  public void push(UUID userId) {
+    Optional<String> username =
+        sessions.username(userId).or(() -> identities.byId(userId).map(UserIdentity::username));
+    // Counting badges for a user with no session anywhere would be wasted work
+    if (username.isPresent() && !registry.nodesOf(username.get()).isEmpty()) {
+      messagingTemplate.convertAndSendToUser(username.get(), "/queue/badges", getBadges(userId));
+    }
+  }
+
+  // A failing counter store must not fail the write that was already committed
+  private void afterCommit(UUID userId, Runnable change) {
+    AfterCommit.run(
+        () -> {
+          try {
+            change.run();
+            push(userId);
+          } catch (RuntimeException e) {
+            log.warn("Failed to update unread counters for {}", userId, e);
+          }
+        });
+  }
+
+  private long recount(UUID userId, BadgeKind kind) {
+    return switch (kind) {
+      case NOTIFICATIONS -> notificationRepository.countUnreadNotifications(userId);
+      case MESSAGES -> chatMessageStore.countUnread(userId);
+    };
+  }
+}
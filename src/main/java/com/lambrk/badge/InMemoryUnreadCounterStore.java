@@ -0,0 +1,58 @@
+package com.lambrk.badge;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.cloud.CloudPlatform;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/** Unread counters in a bounded local cache, for single-node deployments. */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.badges",
+    name = "store",
+    havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryUnreadCounterStore implements UnreadCounterStore {
+
+  private record Key(UUID userId, BadgeKind kind) {}
+
+  private static final Logger log = LoggerFactory.getLogger(InMemoryUnreadCounterStore.class);
+
+  private final Cache<Key, Long> counters;
+
+  public InMemoryUnreadCounterStore(BadgeProperties properties, Environment environment) {
+    if (CloudPlatform.KUBERNETES.isActive(environment)) {
+      log.warn(
+          "In-memory badge counters on Kubernetes: each pod keeps its own and they drift apart."
+              + " Set lambrk.badges.store to redis unless this is the only replica");
+    }
+    this.counters =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(Duration.ofMillis(properties.getTtlMs()))
+            .build();
+  }
+
+  @Override
+  public Long get(UUID userId, BadgeKind kind) {
+    return counters.getIfPresent(new Key(userId, kind));
+  }
+
+  @Override
+  public void put(UUID userId, BadgeKind kind, long value) {
+    counters.put(new Key(userId, kind), Math.max(0, value));
+  }
+
+  @Override
+  public Long add(UUID userId, BadgeKind kind, long delta) {
+    return counters
+        .asMap()
+        .computeIfPresent(new Key(userId, kind), (key, value) -> Math.max(0, value + delta));
+  }
+}
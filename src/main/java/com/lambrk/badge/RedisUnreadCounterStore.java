@@ -0,0 +1,61 @@
+package com.lambrk.badge;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Unread counters in Redis, shared by all nodes, enabled with {@code lambrk.badges.store=redis}.
+ * Keys are {@code badge:<kind>:<userId>} and expire {@code ttl-ms} after they were last recounted.
+ */
+@Component
+@ConditionalOnProperty(prefix = "lambrk.badges", name = "store", havingValue = "redis")
+public class RedisUnreadCounterStore implements UnreadCounterStore {
+
+  // Only touches existing keys, and clamps at zero without resetting the expiry
+  private static final RedisScript<Long> ADD =
+      RedisScript.of(
+          """
+          if redis.call('EXISTS', KEYS[1]) == 0 then return nil end
+          local value = redis.call('INCRBY', KEYS[1], ARGV[1])
+          if value < 0 then
+            redis.call('SET', KEYS[1], 0, 'KEEPTTL')
+            value = 0
+          end
+          return value
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final Duration ttl;
+
+  public RedisUnreadCounterStore(StringRedisTemplate redisTemplate, BadgeProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.ttl = Duration.ofMillis(properties.getTtlMs());
+  }
+
+  @Override
+  public Long get(UUID userId, BadgeKind kind) {
+    String value = redisTemplate.opsForValue().get(key(userId, kind));
+    return value != null ? Long.valueOf(value) : null;
+  }
+
+  @Override
+  public void put(UUID userId, BadgeKind kind, long value) {
+    redisTemplate.opsForValue().set(key(userId, kind), Long.toString(Math.max(0, value)), ttl);
+  }
+
+  @Override
+  public Long add(UUID userId, BadgeKind kind, long delta) {
+    return redisTemplate.execute(ADD, List.of(key(userId, kind)), Long.toString(delta));
+  }
+
+  private static String key(UUID userId, BadgeKind kind) {
+    return "badge:" + kind.name().toLowerCase(Locale.ROOT) + ":" + userId;
+  }
+}
@@ -0,0 +1,25 @@
+package com.lambrk.badge;
+
+import java.util.UUID;
+
+/**
+ * Holds each user's unread counters. A counter that is not held (never read, expired or evicted) is
+ * unknown rather than zero: {@link #add} leaves it alone and the next read recounts it from the
+ * source of truth, so a missed update can never go below the real value for long.
+ */
+public interface UnreadCounterStore {
+
+  /**
+   * @return the counter, or null when it is not held
+   */
+  Long get(UUID userId, BadgeKind kind);
+
+  void put(UUID userId, BadgeKind kind, long value);
+
+  /**
+   * Adds {@code delta} to a held counter, never going below zero.
+   *
+   * @return the new value, or null when the counter is not held and nothing changed
+   */
+  Long add(UUID userId, BadgeKind kind, long delta);
+}
@@ -0,0 +1,146 @@
+package com.lambrk.comment;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.dto.CommentResponse;
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.CommentScoreChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.PostChangedEvent;
+import com.lambrk.exception.ResourceNotFoundException;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Viewer-independent comment caches: single comments by ID and one {@link CommentTreeSnapshot} per
+ * post. After a change commits, the affected post's snapshot is patched in place rather than
+ * dropped, and only the changed comment (and its parent, whose reply count moved) is evicted.
+ *
+ * <p>Each patch reads the committed comment first and then applies it inside Caffeine's per-key
+ * compute, so it waits for an in-flight load of the same post and then applies to it without
+ * holding the entry locked across a database call. Applying the committed row is idempotent when
+ * the load already saw the change. Trees are only cached for posts that exist.
+ */
+@Component
+public class CommentCache {
+
+  public static final String TREES = "commentTrees";
+  public static final String COMMENTS = "comments";
+
+  private final Cache trees;
+  private final Cache comments;
+  private final CommentRepository commentRepository;
+  private final PostRepository postRepository;
+  private final CommentTreeProperties properties;
+
+  public CommentCache(
+      CacheManager cacheManager,
+      CommentRepository commentRepository,
+      PostRepository postRepository,
+      CommentTreeProperties properties) {
+    this.trees = cacheManager.getCache(TREES);
+    this.comments = cacheManager.getCache(COMMENTS);
+    this.commentRepository = commentRepository;
+    this.postRepository = postRepository;
+    this.properties = properties;
+  }
+
+  /** The post's comment tree; throws {@link ResourceNotFoundException} if the post is gone. */
+  public CommentTreeSnapshot tree(UUID postId) {
+    return unwrapped(() -> trees.get(postId, () -> loadTree(postId)));
+  }
+
+  public CommentResponse comment(UUID commentId, Supplier<CommentResponse> loader) {
+    return unwrapped(() -> comments.get(commentId, loader::get));
+  }
+
+  // Let not-found and similar errors from a loader reach the exception handler unwrapped
+  private static <T> T unwrapped(Supplier<T> lookup) {
+    try {
+      return lookup.get();
+    } catch (Cache.ValueRetrievalException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private CommentTreeSnapshot loadTree(UUID postId) {
+    int limit = properties.getCacheMaxComments();
+    List<Comment> rows =
+        commentRepository.findTreeByPostId(
+            postId, properties.getMaxDepth(), properties.getChildrenPerNode(), limit + 1);
+    // An empty tree is only worth caching for a post that exists
+    if (rows.isEmpty() && !postRepository.existsById(postId)) {
+      throw new ResourceNotFoundException("Post", "id", postId);
+    }
+    return rows.size() > limit
+        ? CommentTreeSnapshot.oversized()
+        : CommentTreeSnapshot.of(rows, properties.getMaxDepth(), properties.getChildrenPerNode());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentChanged(CommentChangedEvent event) {
+    comments.evict(event.commentId());
+    if (event.parentId() != null) {
+      comments.evict(event.parentId());
+    }
+    patchTree(event.postId(), event.commentId(), event.changeType() == ContentChangeType.CREATED);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentScoreChanged(CommentScoreChangedEvent event) {
+    comments.evict(event.commentId());
+    patchTree(event.postId(), event.commentId(), false);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostChanged(PostChangedEvent event) {
+    if (event.changeType() == ContentChangeType.DELETED) {
+      trees.evict(event.postId());
+    }
+  }
+
+  private void patchTree(UUID postId, UUID commentId, boolean created) {
+    if (!(trees.getNativeCache()
+        instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine)) {
+      trees.evict(postId);
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    com.github.benmanes.caffeine.cache.Cache<Object, Object> cache =
+        (com.github.benmanes.caffeine.cache.Cache<Object, Object>) caffeine;
+    // Most votes land on posts whose tree is not cached; don't load the comment for those
+    if (!(cache.getIfPresent(postId) instanceof CommentTreeSnapshot present)
+        || present.isOversized()) {
+      return;
+    }
+    Optional<CommentResponse> comment =
+        commentRepository.findWithAuthorById(commentId).map(CommentResponse::from);
+    cache
+        .asMap()
+        .computeIfPresent(
+            postId,
+            (key, cached) -> {
+              CommentTreeSnapshot snapshot = (CommentTreeSnapshot) cached;
+              if (snapshot.isOversized()) {
+                return snapshot;
+              }
+              // Hard-deleted rows take their subtree with them; rebuild on next read
+              if (comment.isEmpty()) {
+                return null;
+              }
+              return created
+                  ? snapshot.withComment(comment.get())
+                  : snapshot.withChanged(comment.get());
+            });
+  }
+}
@@ -0,0 +1,88 @@
+package com.lambrk.comment;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.exception.InvalidRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+/**
+ * Continuation token for a list of sibling comments: the replies of {@code parentId}, or a post's
+ * top-level comments when it is null. It holds the last returned comment's sort key and its UUIDv7
+ * ID as tie-break, so the next batch starts right after it in the sort's index no matter how deep
+ * the list goes or what was inserted meanwhile.
+ */
+public record CommentCursor(
+    CommentSort sort, UUID postId, UUID parentId, Object sortKey, UUID lastId) {
+
+  private static final String NO_PARENT = "-";
+
+  /** The position right after {@code last}. */
+  public static CommentCursor after(CommentSort sort, UUID postId, UUID parentId, Comment last) {
+    Object sortKey =
+        switch (sort) {
+          case BEST -> last.getBestScore();
+          case TOP -> last.getScore();
+          case CONTROVERSIAL -> last.getControversyScore();
+          case NEW, OLD -> last.getCreatedAt();
+        };
+    return new CommentCursor(sort, postId, parentId, sortKey, last.getId());
+  }
+
+  public String encode() {
+    String token =
+        String.join(
+            "|",
+            sort.name(),
+            postId.toString(),
+            parentId != null ? parentId.toString() : NO_PARENT,
+            sortKey.toString(),
+            lastId.toString());
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static CommentCursor decode(String token) {
+    try {
+      String[] parts =
+          new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+      if (parts.length != 5) {
+        throw new IllegalArgumentException("Expected 5 fields");
+      }
+      CommentSort sort = CommentSort.valueOf(parts[0]);
+      Object sortKey =
+          switch (sort) {
+            case BEST, CONTROVERSIAL -> Double.valueOf(parts[3]);
+            case TOP -> Integer.valueOf(parts[3]);
+            case NEW, OLD -> Instant.parse(parts[3]);
+          };
+      return new CommentCursor(
+          sort,
+          UUID.fromString(parts[1]),
+          NO_PARENT.equals(parts[2]) ? null : UUID.fromString(parts[2]),
+          sortKey,
+          UUID.fromString(parts[4]));
+    } catch (RuntimeException e) {
+      throw new InvalidRequestException("Invalid continuation token");
+    }
+  }
+
+  /**
+   * Scroll position to continue from, after checking the token was issued for the same list and
+   * order.
+   */
+  public KeysetScrollPosition resume(CommentSort sort, UUID postId, UUID parentId) {
+    if (this.sort != sort
+        || !this.postId.equals(postId)
+        || (this.parentId == null ? parentId != null : !this.parentId.equals(parentId))) {
+      throw new InvalidRequestException("Continuation token belongs to a different comment list");
+    }
+    String property = sort.toSort().iterator().next().getProperty();
+    return ScrollPosition.forward(Map.of(property, sortKey, "id", lastId));
+  }
+}
@@ -0,0 +1,51 @@
+package com.lambrk.comment;
+
+import com.lambrk.domain.Comment;
+import java.util.Comparator;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Orders for the comments of a post. Each one ends with the comment ID so pages are stable, and
+ * each matches one of the {@code (post_id, parent_id, ...)} indexes on {@code comments}, so a page
+ * of siblings is read straight off the index instead of sorting the whole thread.
+ */
+public enum CommentSort {
+  /** Wilson lower bound of the like ratio. */
+  BEST(
+      Sort.by(Sort.Order.desc("bestScore"), Sort.Order.asc("id")),
+      Comparator.comparingDouble(Comment::getBestScore).reversed()),
+  /** Likes minus dislikes. */
+  TOP(
+      Sort.by(Sort.Order.desc("score"), Sort.Order.asc("id")),
+      Comparator.comparingInt(Comment::getScore).reversed()),
+  NEW(
+      Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")),
+      Comparator.comparing(Comment::getCreatedAt).reversed()),
+  OLD(
+      Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id")),
+      Comparator.comparing(Comment::getCreatedAt)),
+  /** Many votes, evenly split. */
+  CONTROVERSIAL(
+      Sort.by(Sort.Order.desc("controversyScore"), Sort.Order.asc("id")),
+      Comparator.comparingDouble(Comment::getControversyScore).reversed());
+
+  private final Sort sort;
+  private final Comparator<Comment> comparator;
+
+  CommentSort(Sort sort, Comparator<Comment> key) {
+    this.sort = sort;
+    Comparator<Comment> byId = Comparator.comparing(Comment::getId);
+    this.comparator =
+        key.thenComparing(sort.getOrderFor("id").isDescending() ? byId.reversed() : byId);
+  }
+
+  /** Database order, for repository queries. */
+  public Sort toSort() {
+    return sort;
+  }
+
+  /** The same order in memory, for sorting replies that were loaded together. */
+  public Comparator<Comment> comparator() {
+    return comparator;
+  }
+}
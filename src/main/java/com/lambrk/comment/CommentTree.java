@@ -0,0 +1,85 @@
+package com.lambrk.comment;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.dto.CommentResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A page of top-level comments with their replies, assembled from path-ordered rows. Every node
+ * keeps at most {@code childrenPerNode} replies, first by the requested sort. The tree holds no
+ * viewer state; {@link #withVotes} overlays one viewer's votes when it is rendered.
+ */
+public final class CommentTree {
+
+  private final List<CommentResponse> roots;
+  private final List<UUID> commentIds;
+
+  CommentTree(List<CommentResponse> roots, List<UUID> commentIds) {
+    this.roots = roots;
+    this.commentIds = commentIds;
+  }
+
+  /**
+   * Links {@code descendants} (sorted by path, so parents precede children) under {@code roots} in
+   * one pass. Replies whose parent was trimmed are dropped with it.
+   */
+  public static CommentTree assemble(
+      List<Comment> roots, List<Comment> descendants, int childrenPerNode, CommentSort sort) {
+    Map<UUID, List<Comment>> children = new HashMap<>();
+    for (Comment comment : descendants) {
+      children
+          .computeIfAbsent(comment.getParent().getId(), parentId -> new ArrayList<>())
+          .add(comment);
+    }
+    List<UUID> commentIds = new ArrayList<>();
+    List<CommentResponse> responses = new ArrayList<>(roots.size());
+    for (Comment root : roots) {
+      responses.add(toResponse(root, children, childrenPerNode, sort.comparator(), commentIds));
+    }
+    return new CommentTree(List.copyOf(responses), List.copyOf(commentIds));
+  }
+
+  private static CommentResponse toResponse(
+      Comment comment,
+      Map<UUID, List<Comment>> children,
+      int childrenPerNode,
+      Comparator<Comment> order,
+      List<UUID> commentIds) {
+    commentIds.add(comment.getId());
+    List<Comment> replies = children.getOrDefault(comment.getId(), List.of());
+    List<CommentResponse> kept =
+        replies.stream()
+            .sorted(order)
+            .limit(childrenPerNode)
+            .map(reply -> toResponse(reply, children, childrenPerNode, order, commentIds))
+            .toList();
+    return CommentResponse.from(comment, null, kept);
+  }
+
+  public List<CommentResponse> roots() {
+    return roots;
+  }
+
+  /** IDs of every comment in the tree, for loading a viewer's votes in one query. */
+  public List<UUID> commentIds() {
+    return commentIds;
+  }
+
+  public List<CommentResponse> withVotes(Map<UUID, String> votes) {
+    if (votes.isEmpty()) {
+      return roots;
+    }
+    return roots.stream().map(root -> overlay(root, votes)).toList();
+  }
+
+  private static CommentResponse overlay(CommentResponse comment, Map<UUID, String> votes) {
+    List<CommentResponse> replies =
+        comment.replies().stream().map(reply -> overlay(reply, votes)).toList();
+    return comment.withViewer(votes.get(comment.id()), replies);
+  }
+}
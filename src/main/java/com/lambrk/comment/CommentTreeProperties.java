@@ -0,0 +1,54 @@
+package com.lambrk.comment;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.comments.tree")
+public class CommentTreeProperties {
+
+  private int maxDepth = 3;
+  private int childrenPerNode = 3;
+  private int cacheMaxComments = 5_000;
+  // Most comments per "load more" request, by depth of the comments being loaded (0 = top-level);
+  // the last entry applies to every deeper level
+  private List<Integer> pageLimits = new ArrayList<>(List.of(50, 25, 10));
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public void setMaxDepth(int maxDepth) {
+    this.maxDepth = maxDepth;
+  }
+
+  public int getChildrenPerNode() {
+    return childrenPerNode;
+  }
+
+  public void setChildrenPerNode(int childrenPerNode) {
+    this.childrenPerNode = childrenPerNode;
+  }
+
+  public int getCacheMaxComments() {
+    return cacheMaxComments;
+  }
+
+  public void setCacheMaxComments(int cacheMaxComments) {
+    this.cacheMaxComments = cacheMaxComments;
+  }
+
+  public List<Integer> getPageLimits() {
+    return pageLimits;
+  }
+
+  public void setPageLimits(List<Integer> pageLimits) {
+    this.pageLimits = pageLimits;
+  }
+
+  public int pageLimit(int depth) {
+    return pageLimits.get(Math.min(depth, pageLimits.size() - 1));
+  }
+}
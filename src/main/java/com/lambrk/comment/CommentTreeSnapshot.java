@@ -0,0 +1,278 @@
+package com.lambrk.comment;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.dto.CommentResponse;
+import com.lambrk.util.CommentRanking;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable copy of one post's comments down to a fixed depth, with each sibling list kept in
+ * {@link CommentSort#BEST} order. Every top-level comment is held, but only the best {@code
+ * childrenPerNode} replies of each comment, as loaded by the tree query. Changes return a new
+ * snapshot that shares every untouched node and sibling list with this one, so readers never see a
+ * half-applied update. Nodes carry no viewer state.
+ *
+ * <p>A reply that drops below an uncached sibling keeps its place until the tree is reloaded.
+ */
+public final class CommentTreeSnapshot {
+
+  // Same order as CommentSort.BEST, from the counts since responses carry no ranking columns
+  static final Comparator<CommentResponse> BEST_FIRST =
+      Comparator.comparingDouble(
+              (CommentResponse comment) ->
+                  CommentRanking.best(comment.likeCount(), comment.dislikeCount()))
+          .reversed()
+          .thenComparing(CommentResponse::id);
+
+  private static final CommentTreeSnapshot OVERSIZED =
+      new CommentTreeSnapshot(Map.of(), Map.of(), List.of(), 0, 0, true);
+
+  private final Map<UUID, CommentResponse> nodes; // replies always empty
+  private final Map<UUID, List<UUID>> children;
+  private final List<UUID> roots;
+  private final int maxDepth;
+  private final int childrenPerNode;
+  private final boolean oversized;
+
+  private CommentTreeSnapshot(
+      Map<UUID, CommentResponse> nodes,
+      Map<UUID, List<UUID>> children,
+      List<UUID> roots,
+      int maxDepth,
+      int childrenPerNode,
+      boolean oversized) {
+    this.nodes = nodes;
+    this.children = children;
+    this.roots = roots;
+    this.maxDepth = maxDepth;
+    this.childrenPerNode = childrenPerNode;
+    this.oversized = oversized;
+  }
+
+  /** Marker for posts with too many comments to hold in memory; they are read from the database. */
+  public static CommentTreeSnapshot oversized() {
+    return OVERSIZED;
+  }
+
+  /**
+   * Builds a snapshot from a post's comments sorted by path, so parents precede replies. Replies
+   * past the best {@code childrenPerNode} of their parent are dropped with their subtrees.
+   */
+  public static CommentTreeSnapshot of(
+      List<Comment> pathOrdered, int maxDepth, int childrenPerNode) {
+    Map<UUID, CommentResponse> nodes = new HashMap<>();
+    Map<UUID, List<UUID>> children = new HashMap<>();
+    List<UUID> roots = new ArrayList<>();
+    for (Comment comment : pathOrdered) {
+      CommentResponse node = CommentResponse.from(comment, null, List.of());
+      nodes.put(node.id(), node);
+      if (node.parentId() == null) {
+        roots.add(node.id());
+      } else if (nodes.containsKey(node.parentId())) {
+        children.computeIfAbsent(node.parentId(), parentId -> new ArrayList<>()).add(node.id());
+      }
+    }
+    Comparator<UUID> order = Comparator.comparing(nodes::get, BEST_FIRST);
+    for (Map.Entry<UUID, List<UUID>> siblings : List.copyOf(children.entrySet())) {
+      if (!nodes.containsKey(siblings.getKey())) {
+        continue; // pruned with an ancestor
+      }
+      List<UUID> sorted = siblings.getValue().stream().sorted(order).toList();
+      children.put(siblings.getKey(), keepBest(sorted, childrenPerNode, nodes, children));
+    }
+    return new CommentTreeSnapshot(
+        nodes, children, roots.stream().sorted(order).toList(), maxDepth, childrenPerNode, false);
+  }
+
+  public boolean isOversized() {
+    return oversized;
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  public int rootCount() {
+    return roots.size();
+  }
+
+  /** One page of top-level comments with up to {@code childrenPerNode} replies per node. */
+  public CommentTree page(int page, int size, int childrenPerNode) {
+    int from = (int) Math.min((long) page * size, roots.size());
+    int to = Math.min(from + size, roots.size());
+    List<UUID> commentIds = new ArrayList<>();
+    List<CommentResponse> pageRoots = new ArrayList<>(to - from);
+    for (UUID rootId : roots.subList(from, to)) {
+      pageRoots.add(render(rootId, childrenPerNode, commentIds));
+    }
+    return new CommentTree(List.copyOf(pageRoots), List.copyOf(commentIds));
+  }
+
+  private CommentResponse render(UUID id, int childrenPerNode, List<UUID> commentIds) {
+    commentIds.add(id);
+    List<UUID> replyIds = children.getOrDefault(id, List.of());
+    List<CommentResponse> replies =
+        replyIds.stream()
+            .limit(childrenPerNode)
+            .map(replyId -> render(replyId, childrenPerNode, commentIds))
+            .toList();
+    CommentResponse node = nodes.get(id);
+    return replies.isEmpty() ? node : node.withViewer(null, replies);
+  }
+
+  /**
+   * Adds a new comment under its parent, or replaces it if already present (the snapshot may have
+   * been loaded after the comment committed). Replies below the cached depth only bump their
+   * parent's reply count.
+   */
+  public CommentTreeSnapshot withComment(CommentResponse comment) {
+    if (oversized) {
+      return this;
+    }
+    if (nodes.containsKey(comment.id())) {
+      return withReplaced(comment);
+    }
+    UUID parentId = comment.parentId();
+    if (parentId != null && !nodes.containsKey(parentId)) {
+      return this;
+    }
+    Map<UUID, CommentResponse> updatedNodes = new HashMap<>(nodes);
+    if (parentId != null) {
+      CommentResponse parent = nodes.get(parentId);
+      updatedNodes.put(parentId, withReplyCount(parent, parent.replyCount() + 1));
+    }
+    if (comment.depthLevel() > maxDepth) {
+      return new CommentTreeSnapshot(
+          updatedNodes, children, roots, maxDepth, childrenPerNode, false);
+    }
+    return withInserted(comment, updatedNodes);
+  }
+
+  /**
+   * Applies an edit or vote to an existing comment. A reply outside its parent's cached best
+   * replies is added if it now ranks among them, without touching the parent's reply count.
+   */
+  public CommentTreeSnapshot withChanged(CommentResponse comment) {
+    if (oversized) {
+      return this;
+    }
+    if (nodes.containsKey(comment.id())) {
+      return withReplaced(comment);
+    }
+    UUID parentId = comment.parentId();
+    if (parentId == null || !nodes.containsKey(parentId) || comment.depthLevel() > maxDepth) {
+      return this;
+    }
+    return withInserted(comment, new HashMap<>(nodes));
+  }
+
+  private CommentTreeSnapshot withInserted(
+      CommentResponse comment, Map<UUID, CommentResponse> updatedNodes) {
+    CommentResponse node = comment.withViewer(null, List.of());
+    updatedNodes.put(node.id(), node);
+    UUID parentId = node.parentId();
+    if (parentId == null) {
+      return new CommentTreeSnapshot(
+          updatedNodes,
+          children,
+          insert(roots, node.id(), updatedNodes),
+          maxDepth,
+          childrenPerNode,
+          false);
+    }
+    Map<UUID, List<UUID>> updatedChildren = new HashMap<>(children);
+    List<UUID> siblings =
+        insert(children.getOrDefault(parentId, List.of()), node.id(), updatedNodes);
+    updatedChildren.put(
+        parentId, keepBest(siblings, childrenPerNode, updatedNodes, updatedChildren));
+    return new CommentTreeSnapshot(
+        updatedNodes, updatedChildren, roots, maxDepth, childrenPerNode, false);
+  }
+
+  private CommentTreeSnapshot withReplaced(CommentResponse comment) {
+    CommentResponse previous = nodes.get(comment.id());
+    CommentResponse node = comment.withViewer(null, List.of());
+    Map<UUID, CommentResponse> updatedNodes = new HashMap<>(nodes);
+    updatedNodes.put(node.id(), node);
+    if (previous.likeCount() == node.likeCount()
+        && previous.dislikeCount() == node.dislikeCount()) {
+      return new CommentTreeSnapshot(
+          updatedNodes, children, roots, maxDepth, childrenPerNode, false);
+    }
+    UUID parentId = node.parentId();
+    if (parentId == null) {
+      return new CommentTreeSnapshot(
+          updatedNodes, children, resort(roots, updatedNodes), maxDepth, childrenPerNode, false);
+    }
+    Map<UUID, List<UUID>> updatedChildren = new HashMap<>(children);
+    updatedChildren.computeIfPresent(parentId, (id, siblings) -> resort(siblings, updatedNodes));
+    return new CommentTreeSnapshot(
+        updatedNodes, updatedChildren, roots, maxDepth, childrenPerNode, false);
+  }
+
+  // Drops the siblings past the first {@code limit}, and everything cached under them
+  private static List<UUID> keepBest(
+      List<UUID> siblings,
+      int limit,
+      Map<UUID, CommentResponse> nodes,
+      Map<UUID, List<UUID>> children) {
+    if (siblings.size() <= limit) {
+      return siblings;
+    }
+    for (UUID dropped : siblings.subList(limit, siblings.size())) {
+      prune(dropped, nodes, children);
+    }
+    return List.copyOf(siblings.subList(0, limit));
+  }
+
+  private static void prune(
+      UUID id, Map<UUID, CommentResponse> nodes, Map<UUID, List<UUID>> children) {
+    nodes.remove(id);
+    List<UUID> replies = children.remove(id);
+    if (replies != null) {
+      replies.forEach(reply -> prune(reply, nodes, children));
+    }
+  }
+
+  private static List<UUID> insert(List<UUID> ids, UUID id, Map<UUID, CommentResponse> nodes) {
+    List<UUID> updated = new ArrayList<>(ids.size() + 1);
+    updated.addAll(ids);
+    updated.add(id);
+    return resort(updated, nodes);
+  }
+
+  private static List<UUID> resort(List<UUID> ids, Map<UUID, CommentResponse> nodes) {
+    return ids.stream().sorted(Comparator.comparing(nodes::get, BEST_FIRST)).toList();
+  }
+
+  private static CommentResponse withReplyCount(CommentResponse comment, int replyCount) {
+    return new CommentResponse(
+        comment.id(),
+        comment.content(),
+        comment.flairText(),
+        comment.isEdited(),
+        comment.isDeleted(),
+        comment.isRemoved(),
+        comment.isCollapsed(),
+        comment.isStickied(),
+        comment.score(),
+        comment.likeCount(),
+        comment.dislikeCount(),
+        replyCount,
+        comment.awardCount(),
+        comment.depthLevel(),
+        comment.author(),
+        comment.postId(),
+        comment.parentId(),
+        comment.replies(),
+        comment.createdAt(),
+        comment.updatedAt(),
+        comment.editedAt(),
+        comment.userVote());
+  }
+}
@@ -1,6 +1,11 @@
 package com.lambrk.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lambrk.comment.CommentCache;
+import com.lambrk.comment.CommentTreeSnapshot;
+import com.lambrk.notification.NotificationHydrator;
+import com.lambrk.user.UserIdentityCache;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -28,7 +33,6 @@ public class CacheConfig {
             "communities",
             "trendingCommunities",
             "comments",
-            "commentTrees",
             "searchResults",
             "feed",
             "categories",
@@ -38,7 +42,44 @@ public class CacheConfig {
             "contentModeration",
             "contentRecommendations");
     cacheManager.setCaffeine(
-        Caffeine.newBuilder().maximumSize(5000).expireAfterWrite(5, TimeUnit.MINUTES));
+        Caffeine.newBuilder()
+            .maximumSize(5000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .recordStats());
+    // Per-post comment trees vary from a handful of comments to thousands, so bound them by the
+    // number of comments held rather than by entry count
+    cacheManager.registerCustomCache(
+        CommentCache.TREES,
+        Caffeine.newBuilder()
+            .maximumWeight(200_000)
+            .weigher(
+                (Object postId, Object tree) ->
+                    tree instanceof CommentTreeSnapshot snapshot ? snapshot.size() + 1 : 1)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .recordStats()
+            .build());
+    // Labels shown on notifications; read for whole pages at once and allowed to lag edits briefly
+    for (String name :
+        List.of(
+            NotificationHydrator.POST_TITLES,
+            NotificationHydrator.COMMENT_PREVIEWS,
+            NotificationHydrator.USERNAMES)) {
+      cacheManager.registerCustomCache(
+          name,
+          Caffeine.newBuilder()
+              .maximumSize(20_000)
+              .expireAfterWrite(1, TimeUnit.MINUTES)
+              .recordStats()
+              .build());
+    }
+    // Two entries per user, by ID and by username; expiry is how other nodes see profile changes
+    cacheManager.registerCustomCache(
+        UserIdentityCache.CACHE_NAME,
+        Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .recordStats()
+            .build());
     return cacheManager;
   }
 }
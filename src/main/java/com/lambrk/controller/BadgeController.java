@@ -0,0 +1,33 @@
+package com.lambrk.controller;
+
+import com.lambrk.badge.BadgeService;
+import com.lambrk.config.UserPrincipal;
+import com.lambrk.dto.BadgesResponse;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.tracing.annotation.NewSpan;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/badges")
+public class BadgeController {
+
+  private final BadgeService badgeService;
+
+  public BadgeController(BadgeService badgeService) {
+    this.badgeService = badgeService;
+  }
+
+  @GetMapping
+  @NewSpan("get-badges")
+  @Counted(value = "badges.viewed")
+  @Timed(value = "badges.get.duration")
+  public ResponseEntity<BadgesResponse> getBadges(
+      @AuthenticationPrincipal UserPrincipal userDetails) {
+    return ResponseEntity.ok(badgeService.getBadges(userDetails.getUserId()));
+  }
+}
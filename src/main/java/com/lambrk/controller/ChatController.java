@@ -1,6 +1,7 @@
 package com.lambrk.controller;
 
 import com.lambrk.config.UserPrincipal;
+import com.lambrk.dto.message.ChatHistoryResponse;
 import com.lambrk.dto.message.ChatMessageResponse;
 import com.lambrk.dto.message.ConversationResponse;
 import com.lambrk.dto.message.SendMessageRequest;
@@ -8,6 +9,7 @@ import com.lambrk.service.ChatMessageService;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -32,7 +34,8 @@ import org.springframework.web.bind.annotation.*;
  * <pre>
  * GET    /api/messages/conversations              — inbox (paginated, sorted by last message)
  * GET    /api/messages/conversations/{username}   — open or create a conversation
- * GET    /api/messages/{conversationId}           — paginated message history (newest first)
+ * GET    /api/messages/{conversationId}           — message history, keyset pages before/after
+ * GET    /api/messages/{conversationId}/sync      — messages missed since a cursor
  * POST   /api/messages                            — send a message
  * PUT    /api/messages/{messageId}/read           — mark a message as read
  * DELETE /api/messages/{messageId}                — soft-delete a message (sender only)
@@ -131,35 +134,65 @@ public class ChatController {
   // ─────────────────────────────────────────────
 
   /**
-   * Returns the paginated message history for a conversation, sorted newest first.
+   * Returns one page of a conversation's history.
+   *
+   * <p>Without cursors this is the latest {@code limit} messages, newest first. Pass the returned
+   * {@code olderToken} as {@code before} to scroll back (infinite scroll / load-more), or a {@code
+   * newerToken} as {@code after} to fetch messages that arrived since, oldest first. Cursors are
+   * positions in the history rather than offsets, so every page costs the same however far back it
+   * is, and new messages never shift the page boundaries.
    *
    * <p>Soft-deleted messages are excluded. Only participants of the conversation may call this
    * endpoint — a {@link SecurityException} is thrown otherwise.
    *
-   * <p>Use {@code page} and {@code size} to implement infinite-scroll / load-more in the client UI
-   * (e.g. load page 0 on open, increment page on scroll-up).
-   *
    * @param conversationId deterministic conversation identifier in the format {@code
    *     smallerUUID_largerUUID}
-   * @param page zero-based page index (default {@code 0})
-   * @param size page size (default {@code 30})
+   * @param before cursor to load the page of older messages before
+   * @param after cursor to load the messages newer than
+   * @param limit page size (default {@code 30}, at most {@code 100})
    * @param principal the authenticated user (must be a participant)
-   * @return {@code 200 OK} with a paginated list of {@link ChatMessageResponse}
+   * @return {@code 200 OK} with a {@link ChatHistoryResponse}
    * @throws SecurityException if the caller is not a participant in the conversation
    * @throws IllegalArgumentException if the conversation does not exist
    */
   @GetMapping("/{conversationId}")
   @Counted(value = "chat.http.messages.fetched")
   @Timed(value = "chat.http.messages.fetch.duration")
-  public ResponseEntity<Page<ChatMessageResponse>> getMessages(
+  public ResponseEntity<ChatHistoryResponse> getMessages(
       @PathVariable String conversationId,
-      @RequestParam(defaultValue = "0") int page,
-      @RequestParam(defaultValue = "30") int size,
+      @RequestParam(required = false) String before,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "30") int limit,
       @AuthenticationPrincipal UserPrincipal principal) {
 
     UUID userId = requireUserId(principal);
-    Pageable pageable = PageRequest.of(page, size);
-    return ResponseEntity.ok(chatMessageService.getMessages(userId, conversationId, pageable));
+    return ResponseEntity.ok(
+        chatMessageService.getMessages(userId, conversationId, before, after, limit));
+  }
+
+  /**
+   * Returns what a reconnecting client missed in a conversation: every message after the {@code
+   * since} cursor (the last {@code newerToken} it received), oldest first. Call again with the
+   * returned {@code newerToken} while {@code hasMore} is true. Without {@code since} it returns the
+   * latest page.
+   *
+   * @param conversationId deterministic conversation identifier
+   * @param since cursor of the newest message the client already has
+   * @param limit maximum messages per call (default {@code 100})
+   * @param principal the authenticated user (must be a participant)
+   * @return {@code 200 OK} with a {@link ChatHistoryResponse}
+   */
+  @GetMapping("/{conversationId}/sync")
+  @Counted(value = "chat.http.messages.synced")
+  @Timed(value = "chat.http.messages.sync.duration")
+  public ResponseEntity<ChatHistoryResponse> syncMessages(
+      @PathVariable String conversationId,
+      @RequestParam(required = false) String since,
+      @RequestParam(defaultValue = "100") int limit,
+      @AuthenticationPrincipal UserPrincipal principal) {
+
+    UUID userId = requireUserId(principal);
+    return ResponseEntity.ok(chatMessageService.syncMessages(userId, conversationId, since, limit));
   }
 
   // ─────────────────────────────────────────────
@@ -201,7 +234,8 @@ public class ChatController {
   // ─────────────────────────────────────────────
 
   /**
-   * Marks a single message as read and pushes a read-receipt to the original sender via WebSocket.
+   * Marks a message, and every earlier message to the caller in the same conversation, as read and
+   * pushes one read-receipt to the original sender via WebSocket.
    *
    * <p>Only the <em>recipient</em> of the message may call this endpoint. The operation is
    * idempotent — calling it on an already-read message returns the current state without making
@@ -210,9 +244,12 @@ public class ChatController {
    * <p>Side effects:
    *
    * <ul>
-   *   <li>Sets {@code isRead = true} and {@code readAt = now()} on the message document.
-   *   <li>Resets the caller's unread counter in the parent {@code ChatConversation}.
-   *   <li>Pushes a {@code READ_RECEIPT} WebSocket payload to the sender's queue.
+   *   <li>Sets {@code isRead = true} and {@code readAt = now()} on the unread messages up to this
+   *       one with a single bulk update.
+   *   <li>Moves the caller's read cursor in the parent {@code ChatConversation} to this message and
+   *       lowers their unread counter accordingly.
+   *   <li>Pushes a {@code READ_RECEIPT} WebSocket payload with {@code readUpTo} to the sender's
+   *       queue.
    * </ul>
    *
    * @param messageId MongoDB ObjectId of the target message
@@ -232,12 +269,15 @@ public class ChatController {
   }
 
   /**
-   * Marks every unread message in a conversation as read in one request.
+   * Marks the caller's messages in a conversation as read up to a point in one request.
    *
-   * <p>Use this when opening a chat or when the visible message list enters the viewport. It avoids
-   * sending one read request per message and pushes read receipts back to the sender.
+   * <p>Use this when opening a chat or when the visible message list enters the viewport. The
+   * messages are marked with one bulk update, the caller's read cursor moves forward and the sender
+   * gets a single {@code READ_RECEIPT} carrying {@code readUpTo}, however many messages it covers.
    *
    * @param conversationId deterministic conversation identifier
+   * @param upTo optional {@code createdAt} of the newest message read; defaults to the latest
+   *     message
    * @param principal authenticated recipient
    * @return {@code 200 OK} with the number of messages marked read
    */
@@ -245,10 +285,13 @@ public class ChatController {
   @Counted(value = "chat.http.conversations.read")
   @Timed(value = "chat.http.conversations.read.duration")
   public ResponseEntity<Integer> markConversationAsRead(
-      @PathVariable String conversationId, @AuthenticationPrincipal UserPrincipal principal) {
+      @PathVariable String conversationId,
+      @RequestParam(required = false) Instant upTo,
+      @AuthenticationPrincipal UserPrincipal principal) {
 
     UUID userId = requireUserId(principal);
-    return ResponseEntity.ok(chatMessageService.markConversationAsRead(userId, conversationId));
+    return ResponseEntity.ok(
+        chatMessageService.markConversationAsRead(userId, conversationId, upTo));
   }
 
   // ─────────────────────────────────────────────
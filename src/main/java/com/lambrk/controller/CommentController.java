@@ -1,15 +1,16 @@
 package com.lambrk.controller;
 
+import com.lambrk.comment.CommentSort;
 import com.lambrk.config.UserPrincipal;
 import com.lambrk.dto.CommentCreateRequest;
 import com.lambrk.dto.CommentResponse;
+import com.lambrk.dto.CommentSliceResponse;
 import com.lambrk.service.CommentService;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.tracing.annotation.NewSpan;
 import io.micrometer.tracing.annotation.SpanTag;
 import jakarta.validation.Valid;
-import java.util.List;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -65,20 +66,39 @@ public class CommentController {
   @Timed(value = "comments.post.duration")
   public ResponseEntity<Page<CommentResponse>> getCommentsByPost(
       @PathVariable @SpanTag UUID postId,
+      @RequestParam(defaultValue = "BEST") CommentSort sort,
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "20") int size,
       @AuthenticationPrincipal UserPrincipal userDetails) {
-    Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "score"));
     return ResponseEntity.ok(
-        commentService.getCommentsByPost(postId, pageable, getUserId(userDetails)));
+        commentService.getCommentsByPost(
+            postId, sort, PageRequest.of(page, size), getUserId(userDetails)));
+  }
+
+  @GetMapping("/post/{postId}/top-level")
+  @NewSpan("get-post-top-level-comments")
+  @Timed(value = "comments.top-level.duration")
+  public ResponseEntity<CommentSliceResponse> getTopLevelComments(
+      @PathVariable @SpanTag UUID postId,
+      @RequestParam(defaultValue = "BEST") CommentSort sort,
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) Integer limit,
+      @AuthenticationPrincipal UserPrincipal userDetails) {
+    return ResponseEntity.ok(
+        commentService.getTopLevelComments(postId, sort, after, limit, getUserId(userDetails)));
   }
 
   @GetMapping("/{commentId}/replies")
   @NewSpan("get-comment-replies")
   @Timed(value = "comments.replies.duration")
-  public ResponseEntity<List<CommentResponse>> getReplies(
-      @PathVariable @SpanTag UUID commentId, @AuthenticationPrincipal UserPrincipal userDetails) {
-    return ResponseEntity.ok(commentService.getReplies(commentId, getUserId(userDetails)));
+  public ResponseEntity<CommentSliceResponse> getReplies(
+      @PathVariable @SpanTag UUID commentId,
+      @RequestParam(defaultValue = "BEST") CommentSort sort,
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) Integer limit,
+      @AuthenticationPrincipal UserPrincipal userDetails) {
+    return ResponseEntity.ok(
+        commentService.getReplies(commentId, sort, after, limit, getUserId(userDetails)));
   }
 
   @GetMapping("/user/{userId}")
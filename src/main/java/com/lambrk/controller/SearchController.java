@@ -3,6 +3,9 @@ package com.lambrk.controller;
 import com.lambrk.config.UserPrincipal;
 import com.lambrk.dto.SearchRequest;
 import com.lambrk.dto.SearchResponse;
+import com.lambrk.exception.InvalidRequestException;
+import com.lambrk.search.TrendingSearchService;
+import com.lambrk.search.TrendingTerm;
 import com.lambrk.service.SearchService;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
@@ -10,6 +13,7 @@ import io.micrometer.tracing.annotation.NewSpan;
 import io.micrometer.tracing.annotation.SpanTag;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,10 +23,15 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/search")
 public class SearchController {
 
+  private static final int MAX_TRENDING_PAGE_SIZE = 100;
+
   private final SearchService searchService;
+  private final TrendingSearchService trendingSearchService;
 
-  public SearchController(SearchService searchService) {
+  public SearchController(
+      SearchService searchService, TrendingSearchService trendingSearchService) {
     this.searchService = searchService;
+    this.trendingSearchService = trendingSearchService;
   }
 
   @PostMapping
@@ -33,7 +42,7 @@ public class SearchController {
       @Valid @RequestBody SearchRequest request,
       @AuthenticationPrincipal UserPrincipal userDetails) {
 
-    SearchResponse response = searchService.search(request, getUserId(userDetails));
+    SearchResponse response = search(request, userDetails);
     return ResponseEntity.ok(response);
   }
 
@@ -53,6 +62,7 @@ public class SearchController {
       @RequestParam(defaultValue = "false") boolean includeOver18,
       @RequestParam(required = false) Integer minScore,
       @RequestParam(required = false) Integer minComments,
+      @RequestParam(defaultValue = "false") boolean includeContent,
       @AuthenticationPrincipal UserPrincipal userDetails) {
 
     SearchRequest request =
@@ -69,9 +79,10 @@ public class SearchController {
             minComments,
             null,
             page,
-            size);
+            size,
+            includeContent);
 
-    SearchResponse response = searchService.search(request, getUserId(userDetails));
+    SearchResponse response = search(request, userDetails);
     return ResponseEntity.ok(response);
   }
 
@@ -88,6 +99,7 @@ public class SearchController {
       @RequestParam(defaultValue = "false") boolean includeNSFW,
       @RequestParam(defaultValue = "false") boolean includeOver18,
       @RequestParam(required = false) Integer minScore,
+      @RequestParam(defaultValue = "false") boolean includeContent,
       @AuthenticationPrincipal UserPrincipal userDetails) {
 
     SearchRequest request =
@@ -104,9 +116,10 @@ public class SearchController {
             null,
             null,
             page,
-            size);
+            size,
+            includeContent);
 
-    SearchResponse response = searchService.search(request, getUserId(userDetails));
+    SearchResponse response = search(request, userDetails);
     return ResponseEntity.ok(response);
   }
 
@@ -136,9 +149,10 @@ public class SearchController {
             null,
             null,
             page,
-            size);
+            size,
+            false);
 
-    SearchResponse response = searchService.search(request, getUserId(userDetails));
+    SearchResponse response = search(request, userDetails);
     return ResponseEntity.ok(response);
   }
 
@@ -169,9 +183,10 @@ public class SearchController {
             null,
             null,
             page,
-            size);
+            size,
+            false);
 
-    SearchResponse response = searchService.search(request, getUserId(userDetails));
+    SearchResponse response = search(request, userDetails);
     return ResponseEntity.ok(response);
   }
 
@@ -191,6 +206,7 @@ public class SearchController {
       @RequestParam(defaultValue = "false") boolean includeOver18,
       @RequestParam(required = false) Integer minScore,
       @RequestParam(required = false) Integer minComments,
+      @RequestParam(defaultValue = "false") boolean includeContent,
       @AuthenticationPrincipal UserPrincipal userDetails) {
 
     SearchRequest request =
@@ -207,9 +223,10 @@ public class SearchController {
             minComments,
             null,
             page,
-            size);
+            size,
+            includeContent);
 
-    SearchResponse response = searchService.search(request, getUserId(userDetails));
+    SearchResponse response = search(request, userDetails);
     return ResponseEntity.ok(response);
   }
 
@@ -250,28 +267,47 @@ public class SearchController {
       @RequestParam(defaultValue = "20") int size,
       @AuthenticationPrincipal UserPrincipal userDetails) {
 
-    // This would return trending search terms
+    if (page < 0 || size < 1 || size > MAX_TRENDING_PAGE_SIZE) {
+      throw new InvalidRequestException(
+          "page must be at least 0 and size between 1 and " + MAX_TRENDING_PAGE_SIZE);
+    }
+    // The whole published list is at most max-terms long, so totals come from it, not the page
+    List<TrendingTerm> terms = trendingSearchService.getTrending();
+    List<String> pageTerms =
+        terms.stream().skip((long) page * size).limit(size).map(TrendingTerm::term).toList();
+
     SearchResponse response =
         new SearchResponse(
             List.of(),
             List.of(),
             List.of(),
             List.of(),
+            Map.of(),
             new SearchResponse.SearchMetadata(
                 "trending",
                 SearchRequest.SearchType.ALL,
                 SearchRequest.SortBy.HOT,
-                SearchRequest.TimeFilter.WEEK,
-                0,
+                SearchRequest.TimeFilter.ALL,
+                terms.size(),
                 page,
                 size,
+                (terms.size() + size - 1) / size,
                 0,
-                0,
-                List.of("spring boot", "java 25", "virtual threads", "kubernetes")));
+                pageTerms,
+                null));
 
     return ResponseEntity.ok(response);
   }
 
+  private SearchResponse search(SearchRequest request, UserPrincipal userDetails) {
+    // Recorded here rather than inside SearchService so cached responses still count;
+    // later pages of the same query are not new searches
+    if (request.page() == 0) {
+      trendingSearchService.record(request.query());
+    }
+    return searchService.search(request, getUserId(userDetails));
+  }
+
   private UUID getUserId(UserPrincipal userPrincipal) {
     return userPrincipal != null ? userPrincipal.getUserId() : null;
   }
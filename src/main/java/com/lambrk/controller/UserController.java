@@ -10,6 +10,7 @@ import com.lambrk.dto.UserPrivacySettingsRequest;
 import com.lambrk.dto.UserPrivacySettingsResponse;
 import com.lambrk.dto.UserResponse;
 import com.lambrk.dto.UserUpdateRequest;
+import com.lambrk.event.UserChangedEvent;
 import com.lambrk.exception.ResourceNotFoundException;
 import com.lambrk.exception.UnauthorizedActionException;
 import com.lambrk.repository.UserRepository;
@@ -20,6 +21,7 @@ import io.micrometer.tracing.annotation.SpanTag;
 import jakarta.validation.Valid;
 import java.time.Instant;
 import java.util.UUID;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -35,10 +37,15 @@ public class UserController {
 
   private final UserRepository userRepository;
   private final UserSocialService userSocialService;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public UserController(UserRepository userRepository, UserSocialService userSocialService) {
+  public UserController(
+      UserRepository userRepository,
+      UserSocialService userSocialService,
+      ApplicationEventPublisher eventPublisher) {
     this.userRepository = userRepository;
     this.userSocialService = userSocialService;
+    this.eventPublisher = eventPublisher;
   }
 
   @GetMapping("/{userId}")
@@ -104,6 +111,7 @@ public class UserController {
     user.setUpdatedAt(Instant.now());
 
     User saved = userRepository.save(user);
+    eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), saved.getUsername()));
     return ResponseEntity.ok(UserResponse.from(saved));
   }
 
@@ -360,6 +368,7 @@ public class UserController {
             .findById(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
     userRepository.delete(user);
+    eventPublisher.publishEvent(new UserChangedEvent(userId, user.getUsername()));
     return ResponseEntity.noContent().build();
   }
 
@@ -1,5 +1,6 @@
 package com.lambrk.domain;
 
+import com.lambrk.util.CommentRanking;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -19,11 +20,29 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
       @Index(name = "idx_comment_post", columnList = "post_id"),
       @Index(name = "idx_comment_parent", columnList = "parent_id"),
       @Index(name = "idx_comment_created_at", columnList = "created_at"),
-      @Index(name = "idx_comment_score", columnList = "score")
+      @Index(name = "idx_comment_score", columnList = "score"),
+      @Index(name = "idx_comment_post_path", columnList = "post_id, path"),
+      @Index(
+          name = "idx_comment_post_parent_best",
+          columnList = "post_id, parent_id, best_score DESC, id"),
+      @Index(
+          name = "idx_comment_post_parent_top",
+          columnList = "post_id, parent_id, score DESC, id"),
+      @Index(
+          name = "idx_comment_post_parent_controversy",
+          columnList = "post_id, parent_id, controversy_score DESC, id"),
+      @Index(
+          name = "idx_comment_post_parent_created",
+          columnList = "post_id, parent_id, created_at, id")
     })
 @EntityListeners(AuditingEntityListener.class)
 public class Comment {
 
+  /** Deepest reply level whose materialized path still fits the indexed column. */
+  public static final int MAX_DEPTH = 63;
+
+  private static final int PATH_SEGMENT_LENGTH = 32;
+
   @Id private UUID id;
 
   @NotBlank(message = "Content is required")
@@ -61,6 +80,13 @@ public class Comment {
   @Column(name = "dislike_count", nullable = false)
   private int dislikeCount = 0;
 
+  // Derived from the like and dislike counts; see CommentRanking
+  @Column(name = "best_score", nullable = false)
+  private double bestScore = 0;
+
+  @Column(name = "controversy_score", nullable = false)
+  private double controversyScore = 0;
+
   @Column(name = "reply_count", nullable = false)
   private int replyCount = 0;
 
@@ -70,6 +96,11 @@ public class Comment {
   @Column(name = "depth_level", nullable = false)
   private int depthLevel = 0;
 
+  // Ancestor IDs then this comment's ID, each as 32 hex digits, so a post's comments sorted by
+  // path come out depth-first and a subtree is one contiguous range
+  @Column(name = "path", length = PATH_SEGMENT_LENGTH * (MAX_DEPTH + 1), nullable = false)
+  private String path;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "author_id", nullable = false)
   private User author;
@@ -153,9 +184,11 @@ public class Comment {
     this.score = score;
     this.likeCount = likeCount;
     this.dislikeCount = dislikeCount;
+    rerank();
     this.replyCount = replyCount;
     this.awardCount = awardCount;
     this.depthLevel = depthLevel;
+    this.path = pathOf(parent, id);
     this.author = author;
     this.post = post;
     this.parent = parent;
@@ -283,6 +316,7 @@ public class Comment {
 
   public void setLikeCount(int likeCount) {
     this.likeCount = likeCount;
+    rerank();
   }
 
   public int getDislikeCount() {
@@ -291,6 +325,20 @@ public class Comment {
 
   public void setDislikeCount(int dislikeCount) {
     this.dislikeCount = dislikeCount;
+    rerank();
+  }
+
+  public double getBestScore() {
+    return bestScore;
+  }
+
+  public double getControversyScore() {
+    return controversyScore;
+  }
+
+  private void rerank() {
+    this.bestScore = CommentRanking.best(likeCount, dislikeCount);
+    this.controversyScore = CommentRanking.controversy(likeCount, dislikeCount);
   }
 
   public int getReplyCount() {
@@ -317,6 +365,25 @@ public class Comment {
     this.depthLevel = depthLevel;
   }
 
+  public String getPath() {
+    return path;
+  }
+
+  public void setPath(String path) {
+    this.path = path;
+  }
+
+  /** Upper bound (exclusive) of the paths of this comment's descendants. */
+  public static String subtreeEnd(String path) {
+    return path + "g";
+  }
+
+  private static String pathOf(Comment parent, UUID id) {
+    String segment =
+        String.format("%016x%016x", id.getMostSignificantBits(), id.getLeastSignificantBits());
+    return parent != null ? parent.getPath() + segment : segment;
+  }
+
   public User getAuthor() {
     return author;
   }
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -70,6 +73,22 @@ public class Notification {
   @Column(name = "read_at")
   private Instant readAt;
 
+  /** {@code <type>:<target id>} for rows that fold repeated likes, replies or follows. */
+  @Column(name = "aggregation_key", length = 100)
+  private String aggregationKey;
+
+  @Column(name = "aggregation_bucket")
+  private Long aggregationBucket;
+
+  /** How many actors this row stands for; 1 unless it is an aggregate. */
+  @Column(name = "actor_count", nullable = false)
+  private int actorCount = 1;
+
+  /** The first few actors of an aggregate, in arrival order. */
+  @JdbcTypeCode(SqlTypes.ARRAY)
+  @Column(name = "sample_actor_ids")
+  private List<UUID> sampleActorIds;
+
   protected Notification() {}
 
   public Notification(
@@ -260,4 +279,20 @@ public class Notification {
   public void setReadAt(Instant readAt) {
     this.readAt = readAt;
   }
+
+  public String getAggregationKey() {
+    return aggregationKey;
+  }
+
+  public Long getAggregationBucket() {
+    return aggregationBucket;
+  }
+
+  public int getActorCount() {
+    return actorCount;
+  }
+
+  public List<UUID> getSampleActorIds() {
+    return sampleActorIds != null ? sampleActorIds : List.of();
+  }
 }
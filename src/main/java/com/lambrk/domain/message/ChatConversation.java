@@ -39,9 +39,18 @@ public class ChatConversation {
   private UUID lastMessageSenderId;
   private Instant lastMessageAt;
 
-  /** Maps userId (as String) → unread count for that user. */
+  /**
+   * Maps userId (as String) → unread count for that user. Only ever changed in place with {@code
+   * $inc}/{@code $set} on {@code unreadCountMap.<userId>} (see {@code ChatConversationUpdates}).
+   */
   private Map<String, Integer> unreadCountMap = new HashMap<>();
 
+  /**
+   * Maps userId (as String) → read cursor: the {@code createdAt} of the newest message that user
+   * has read. Every message to them at or before it counts as read; it only ever moves forward.
+   */
+  private Map<String, Instant> readUpToMap = new HashMap<>();
+
   private boolean isActive = true;
 
   @CreatedDate private Instant createdAt;
@@ -74,18 +83,15 @@ public class ChatConversation {
     return first.toString() + "_" + second.toString();
   }
 
-  public void incrementUnreadCount(UUID userId) {
-    unreadCountMap.merge(userId.toString(), 1, Integer::sum);
-  }
-
-  public void resetUnreadCount(UUID userId) {
-    unreadCountMap.put(userId.toString(), 0);
-  }
-
   public int getUnreadCount(UUID userId) {
     return unreadCountMap.getOrDefault(userId.toString(), 0);
   }
 
+  /** The user's read cursor, or null if they have not read anything in this conversation yet. */
+  public Instant getReadUpTo(UUID userId) {
+    return readUpToMap.get(userId.toString());
+  }
+
   // Getters and setters
   public String getId() {
     return id;
@@ -151,6 +157,14 @@ public class ChatConversation {
     this.unreadCountMap = unreadCountMap;
   }
 
+  public Map<String, Instant> getReadUpToMap() {
+    return readUpToMap;
+  }
+
+  public void setReadUpToMap(Map<String, Instant> readUpToMap) {
+    this.readUpToMap = readUpToMap;
+  }
+
   public boolean isActive() {
     return isActive;
   }
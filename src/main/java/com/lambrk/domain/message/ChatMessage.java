@@ -12,7 +12,9 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "chat_messages")
 @CompoundIndexes({
-  @CompoundIndex(name = "idx_conversation_created", def = "{'conversationId': 1, 'createdAt': -1}"),
+  @CompoundIndex(
+      name = "idx_conversation_created_id",
+      def = "{'conversationId': 1, 'createdAt': -1, '_id': -1}"),
   @CompoundIndex(name = "idx_recipient_read", def = "{'recipientId': 1, 'isRead': 1}")
 })
 public class ChatMessage {
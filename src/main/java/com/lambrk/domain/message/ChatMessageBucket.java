@@ -0,0 +1,196 @@
+package com.lambrk.domain.message;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Up to a configured number of one conversation's messages from one time slice, stored together
+ * when {@code lambrk.chat.storage.layout=buckets}. New messages are appended with {@code $push}, so
+ * a busy conversation is a few large documents and index entries instead of millions of small ones,
+ * and a page of history is usually one or two document reads. Usernames and avatars are kept once
+ * per bucket rather than on every message.
+ */
+@Document(collection = "chat_message_buckets")
+@CompoundIndexes({
+  @CompoundIndex(
+      name = "idx_bucket_conversation_first",
+      def = "{'conversationId': 1, 'firstAt': -1}"),
+  @CompoundIndex(
+      name = "idx_bucket_conversation_last",
+      def = "{'conversationId': 1, 'lastAt': -1}"),
+  // Each message lives in exactly one bucket, so a repeated migration copy is rejected
+  @CompoundIndex(name = "idx_bucket_message_id", def = "{'messages.messageId': 1}", unique = true),
+  @CompoundIndex(
+      name = "idx_bucket_recipient_read",
+      def = "{'messages.recipientId': 1, 'messages.isRead': 1}")
+})
+public class ChatMessageBucket {
+
+  @Id private String id;
+
+  private String conversationId;
+
+  /** Start of the time slice the bucket belongs to; a new slice always starts a new bucket. */
+  private Instant sliceStart;
+
+  private Instant firstAt;
+  private Instant lastAt;
+  private int count;
+
+  /** userId (as String) → username, for the participants. */
+  private Map<String, String> usernames = new HashMap<>();
+
+  /** userId (as String) → avatar URL when they last sent a message into this bucket. */
+  private Map<String, String> avatarUrls = new HashMap<>();
+
+  private List<Entry> messages = new ArrayList<>();
+
+  protected ChatMessageBucket() {}
+
+  public ChatMessageBucket(String conversationId, Instant sliceStart) {
+    this.conversationId = conversationId;
+    this.sliceStart = sliceStart;
+  }
+
+  /** Adds a message when building buckets in memory, as the migration does. */
+  public void add(ChatMessage message) {
+    messages.add(Entry.of(message));
+    count = messages.size();
+    if (firstAt == null || message.getCreatedAt().isBefore(firstAt)) {
+      firstAt = message.getCreatedAt();
+    }
+    if (lastAt == null || message.getCreatedAt().isAfter(lastAt)) {
+      lastAt = message.getCreatedAt();
+    }
+    usernames.put(message.getSenderId().toString(), message.getSenderUsername());
+    usernames.put(message.getRecipientId().toString(), message.getRecipientUsername());
+    if (message.getSenderAvatarUrl() != null) {
+      avatarUrls.put(message.getSenderId().toString(), message.getSenderAvatarUrl());
+    }
+  }
+
+  /** The entry as a standalone {@link ChatMessage}, with the bucket's names filled back in. */
+  public ChatMessage toMessage(Entry entry) {
+    ChatMessage message =
+        new ChatMessage(
+            conversationId,
+            entry.senderId,
+            usernames.get(entry.senderId.toString()),
+            avatarUrls.get(entry.senderId.toString()),
+            entry.recipientId,
+            usernames.get(entry.recipientId.toString()),
+            entry.content,
+            entry.messageType,
+            entry.attachmentUrl,
+            entry.attachmentType);
+    message.setId(entry.messageId.toHexString());
+    message.setRead(entry.isRead);
+    message.setReadAt(entry.readAt);
+    message.setDeleted(entry.isDeleted);
+    message.setDeletedAt(entry.deletedAt);
+    message.setCreatedAt(entry.createdAt);
+    return message;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getConversationId() {
+    return conversationId;
+  }
+
+  public Instant getSliceStart() {
+    return sliceStart;
+  }
+
+  public Instant getFirstAt() {
+    return firstAt;
+  }
+
+  public Instant getLastAt() {
+    return lastAt;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public Map<String, String> getUsernames() {
+    return usernames;
+  }
+
+  public Map<String, String> getAvatarUrls() {
+    return avatarUrls;
+  }
+
+  public List<Entry> getMessages() {
+    return messages;
+  }
+
+  /** One message inside a bucket, without the fields the bucket already holds. */
+  public static class Entry {
+
+    private ObjectId messageId;
+    private UUID senderId;
+    private UUID recipientId;
+    private String content;
+    private ChatMessage.MessageType messageType;
+    private String attachmentUrl;
+    private String attachmentType;
+    private boolean isRead;
+    private Instant readAt;
+    private boolean isDeleted;
+    private Instant deletedAt;
+    private Instant createdAt;
+
+    protected Entry() {}
+
+    /** The entry for a message that already has its ID and creation time. */
+    public static Entry of(ChatMessage message) {
+      Entry entry = new Entry();
+      entry.messageId = new ObjectId(message.getId());
+      entry.senderId = message.getSenderId();
+      entry.recipientId = message.getRecipientId();
+      entry.content = message.getContent();
+      entry.messageType = message.getMessageType();
+      entry.attachmentUrl = message.getAttachmentUrl();
+      entry.attachmentType = message.getAttachmentType();
+      entry.isRead = message.isRead();
+      entry.readAt = message.getReadAt();
+      entry.isDeleted = message.isDeleted();
+      entry.deletedAt = message.getDeletedAt();
+      entry.createdAt = message.getCreatedAt();
+      return entry;
+    }
+
+    public ObjectId getMessageId() {
+      return messageId;
+    }
+
+    public UUID getRecipientId() {
+      return recipientId;
+    }
+
+    public boolean isRead() {
+      return isRead;
+    }
+
+    public boolean isDeleted() {
+      return isDeleted;
+    }
+
+    public Instant getCreatedAt() {
+      return createdAt;
+    }
+  }
+}
@@ -0,0 +1,4 @@
+package com.lambrk.dto;
+
+/** Unread counts for the navigation badges. */
+public record BadgesResponse(long notifications, long messages) {}
@@ -31,9 +31,14 @@ public record CommentResponse(
 
   public static CommentResponse from(
       Comment comment, String userVote, List<CommentResponse> replies) {
+    return from(comment, userVote, replies, true);
+  }
+
+  public static CommentResponse from(
+      Comment comment, String userVote, List<CommentResponse> replies, boolean includeContent) {
     return new CommentResponse(
         comment.getId(),
-        comment.isDeleted() ? "[deleted]" : comment.getContent(),
+        comment.isDeleted() ? "[deleted]" : includeContent ? comment.getContent() : null,
         comment.getFlairText(),
         comment.isEdited(),
         comment.isDeleted(),
@@ -56,6 +61,32 @@ public record CommentResponse(
         userVote);
   }
 
+  public CommentResponse withViewer(String userVote, List<CommentResponse> replies) {
+    return new CommentResponse(
+        id,
+        content,
+        flairText,
+        isEdited,
+        isDeleted,
+        isRemoved,
+        isCollapsed,
+        isStickied,
+        score,
+        likeCount,
+        dislikeCount,
+        replyCount,
+        awardCount,
+        depthLevel,
+        author,
+        postId,
+        parentId,
+        replies,
+        createdAt,
+        updatedAt,
+        editedAt,
+        userVote);
+  }
+
   public static CommentResponse from(Comment comment, String userVote) {
     return from(comment, userVote, List.of());
   }
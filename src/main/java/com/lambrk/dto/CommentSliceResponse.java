@@ -0,0 +1,10 @@
+package com.lambrk.dto;
+
+import java.util.List;
+
+/**
+ * One batch of sibling comments. Pass {@code nextToken} back as {@code after} to continue; it is
+ * null once the last sibling has been returned.
+ */
+public record CommentSliceResponse(
+    List<CommentResponse> comments, String nextToken, boolean hasMore) {}
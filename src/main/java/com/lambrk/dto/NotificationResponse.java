@@ -2,6 +2,7 @@ package com.lambrk.dto;
 
 import com.lambrk.domain.Notification;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public record NotificationResponse(
@@ -20,9 +21,19 @@ public record NotificationResponse(
     String actionText,
     boolean isRead,
     Instant createdAt,
-    Instant readAt) {
+    Instant readAt,
+    int actorCount,
+    List<UUID> sampleActorIds) {
 
   public static NotificationResponse from(Notification notification) {
+    return from(notification, null, null, null);
+  }
+
+  public static NotificationResponse from(
+      Notification notification,
+      String relatedPostTitle,
+      String relatedCommentPreview,
+      String relatedUsername) {
     return new NotificationResponse(
         notification.getId(),
         notification.getType(),
@@ -30,15 +41,17 @@ public record NotificationResponse(
         notification.getTitle(),
         notification.getMessage(),
         notification.getRelatedPostId(),
-        null, // Will be populated by service
+        relatedPostTitle,
         notification.getRelatedCommentId(),
-        null, // Will be populated by service
+        relatedCommentPreview,
         notification.getRelatedUserId(),
-        null, // Will be populated by service
+        relatedUsername,
         notification.getActionUrl(),
         notification.getActionText(),
         notification.isRead(),
         notification.getCreatedAt(),
-        notification.getReadAt());
+        notification.getReadAt(),
+        notification.getActorCount(),
+        notification.getSampleActorIds());
   }
 }
@@ -0,0 +1,35 @@
+package com.lambrk.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.lambrk.event.PostCountersChangedEvent;
+import java.util.UUID;
+
+/**
+ * Changes to a post's counters since the previous live frame for it. Clients add them to the values
+ * they loaded; counters that did not change are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public record PostCountersDiff(UUID postId, int score, int likes, int dislikes, int comments) {
+
+  public static PostCountersDiff from(PostCountersChangedEvent event) {
+    return new PostCountersDiff(
+        event.postId(),
+        event.scoreDelta(),
+        event.likeDelta(),
+        event.dislikeDelta(),
+        event.commentDelta());
+  }
+
+  public PostCountersDiff plus(PostCountersDiff other) {
+    return new PostCountersDiff(
+        postId,
+        score + other.score,
+        likes + other.likes,
+        dislikes + other.dislikes,
+        comments + other.comments);
+  }
+
+  public boolean isEmpty() {
+    return score == 0 && likes == 0 && dislikes == 0 && comments == 0;
+  }
+}
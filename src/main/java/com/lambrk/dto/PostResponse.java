@@ -35,6 +35,12 @@ public record PostResponse(
     List<MediaResponse> media) {
 
   public static PostResponse from(Post post, String userVote, boolean isBookmarked) {
+    return from(post, userVote, isBookmarked, true);
+  }
+
+  /** Search results leave out {@code content} unless asked for and show a snippet instead. */
+  public static PostResponse from(
+      Post post, String userVote, boolean isBookmarked, boolean includeContent) {
     List<MediaResponse> mediaList =
         post.getMedia() != null
             ? post.getMedia().stream().map(MediaResponse::from).toList()
@@ -43,7 +49,7 @@ public record PostResponse(
     return new PostResponse(
         post.getId(),
         post.getTitle(),
-        post.getContent(),
+        includeContent ? post.getContent() : null,
         post.getUrl(),
         post.getPostType(),
         com.lambrk.util.CdnUrlResolver.resolve(post.getThumbnailUrl()),
@@ -19,7 +19,8 @@ public record SearchRequest(
     Integer minComments,
     Integer minVotes,
     Integer page,
-    Integer size) {
+    Integer size,
+    boolean includeContent) {
 
   public SearchRequest {
     type = type != null ? type : SearchType.ALL;
@@ -31,6 +32,24 @@ public record SearchRequest(
     size = size != null ? size : 20;
   }
 
+  public SearchRequest withQuery(String query) {
+    return new SearchRequest(
+        query,
+        type,
+        sort,
+        timeFilter,
+        communities,
+        flairs,
+        includeNSFW,
+        includeOver18,
+        minScore,
+        minComments,
+        minVotes,
+        page,
+        size,
+        includeContent);
+  }
+
   public enum SearchType {
     ALL,
     POSTS,
@@ -1,29 +1,32 @@
 package com.lambrk.dto;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public record SearchResponse(
     List<PostResponse> posts,
     List<CommentResponse> comments,
     List<SocialUserResponse> users,
     List<CommunityResponse> communities,
+    Map<UUID, String> highlights, // post/comment ID -> HTML fragment with <mark>ed matches
     SearchMetadata metadata) {
 
   public static SearchResponse ofPosts(List<PostResponse> posts, SearchMetadata metadata) {
-    return new SearchResponse(posts, List.of(), List.of(), List.of(), metadata);
+    return new SearchResponse(posts, List.of(), List.of(), List.of(), Map.of(), metadata);
   }
 
   public static SearchResponse ofComments(List<CommentResponse> comments, SearchMetadata metadata) {
-    return new SearchResponse(List.of(), comments, List.of(), List.of(), metadata);
+    return new SearchResponse(List.of(), comments, List.of(), List.of(), Map.of(), metadata);
   }
 
   public static SearchResponse ofUsers(List<SocialUserResponse> users, SearchMetadata metadata) {
-    return new SearchResponse(List.of(), List.of(), users, List.of(), metadata);
+    return new SearchResponse(List.of(), List.of(), users, List.of(), Map.of(), metadata);
   }
 
   public static SearchResponse ofCommunities(
       List<CommunityResponse> communities, SearchMetadata metadata) {
-    return new SearchResponse(List.of(), List.of(), List.of(), communities, metadata);
+    return new SearchResponse(List.of(), List.of(), List.of(), communities, Map.of(), metadata);
   }
 
   public static SearchResponse ofAll(
@@ -31,8 +34,9 @@ public record SearchResponse(
       List<CommentResponse> comments,
       List<SocialUserResponse> users,
       List<CommunityResponse> communities,
+      Map<UUID, String> highlights,
       SearchMetadata metadata) {
-    return new SearchResponse(posts, comments, users, communities, metadata);
+    return new SearchResponse(posts, comments, users, communities, highlights, metadata);
   }
 
   public record SearchMetadata(
@@ -45,5 +49,6 @@ public record SearchResponse(
       int pageSize,
       int totalPages,
       long searchTimeMs,
-      List<String> suggestions) {}
+      List<String> suggestions, // "did you mean" corrections, or trending terms for /trending
+      String correctedQuery) {} // set when results are for suggestions[0] instead of query
 }
@@ -0,0 +1,21 @@
+package com.lambrk.dto.message;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * One keyset page of a conversation. Pass {@code olderToken} back as {@code before} to scroll
+ * further back, and {@code newerToken} as {@code after} (or to the sync call) to fetch what arrived
+ * since.
+ */
+@Schema(description = "A page of conversation history with cursors for either direction")
+public record ChatHistoryResponse(
+    @Schema(
+            description =
+                "Messages; newest first when scrolling back, oldest first when fetching newer")
+        List<ChatMessageResponse> messages,
+    @Schema(description = "Cursor for the next older page, null once the start is reached")
+        String olderToken,
+    @Schema(description = "Cursor of the newest message the client now has") String newerToken,
+    @Schema(description = "Whether more messages exist in the direction requested")
+        boolean hasMore) {}
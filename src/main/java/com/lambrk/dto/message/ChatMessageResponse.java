@@ -25,6 +25,19 @@ public record ChatMessageResponse(
     @Schema(description = "Whether the message has been deleted (soft delete)") boolean isDeleted,
     @Schema(description = "When the message was sent") Instant createdAt) {
   public static ChatMessageResponse from(ChatMessage msg) {
+    return from(msg, null);
+  }
+
+  /**
+   * Like {@link #from(ChatMessage)}, but also reports the message as read when it is covered by the
+   * recipient's read cursor {@code recipientReadUpTo}.
+   */
+  public static ChatMessageResponse from(ChatMessage msg, Instant recipientReadUpTo) {
+    boolean read =
+        msg.isRead()
+            || (recipientReadUpTo != null
+                && msg.getCreatedAt() != null
+                && !msg.getCreatedAt().isAfter(recipientReadUpTo));
     return new ChatMessageResponse(
         msg.getId(),
         msg.getConversationId(),
@@ -37,7 +50,7 @@ public record ChatMessageResponse(
         msg.getMessageType(),
         msg.isDeleted() ? null : msg.getAttachmentUrl(),
         msg.isDeleted() ? null : msg.getAttachmentType(),
-        msg.isRead(),
+        read,
         msg.getReadAt(),
         msg.isDeleted(),
         msg.getCreatedAt());
@@ -13,10 +13,18 @@ public record ChatMessageWebSocketPayload(
         EventType eventType,
     @Schema(description = "The full message, present for MESSAGE_SENT and MESSAGE_DELETED events")
         ChatMessageResponse message,
-    @Schema(description = "Message ID, present for READ_RECEIPT events") String messageId,
+    @Schema(
+            description =
+                "Message ID; for READ_RECEIPT events the message that was read, if the receipt was"
+                    + " for one message")
+        String messageId,
     @Schema(description = "Conversation ID this event belongs to") String conversationId,
     @Schema(description = "Username of who triggered the event") String actorUsername,
-    @Schema(description = "When this event was generated") Instant timestamp) {
+    @Schema(description = "When this event was generated") Instant timestamp,
+    @Schema(
+            description =
+                "For READ_RECEIPT events: every message sent at or before this time has been read")
+        Instant readUpTo) {
   public enum EventType {
     MESSAGE_SENT,
     READ_RECEIPT,
@@ -31,13 +39,21 @@ public record ChatMessageWebSocketPayload(
         null,
         message.conversationId(),
         message.senderUsername(),
-        Instant.now());
+        Instant.now(),
+        null);
   }
 
+  /** One receipt covering every message the reader has now read, up to {@code readUpTo}. */
   public static ChatMessageWebSocketPayload ofReadReceipt(
-      String messageId, String conversationId, String readerUsername) {
+      String messageId, String conversationId, String readerUsername, Instant readUpTo) {
     return new ChatMessageWebSocketPayload(
-        EventType.READ_RECEIPT, null, messageId, conversationId, readerUsername, Instant.now());
+        EventType.READ_RECEIPT,
+        null,
+        messageId,
+        conversationId,
+        readerUsername,
+        Instant.now(),
+        readUpTo);
   }
 
   public static ChatMessageWebSocketPayload ofDeleted(ChatMessageResponse message) {
@@ -47,11 +63,12 @@ public record ChatMessageWebSocketPayload(
         null,
         message.conversationId(),
         message.senderUsername(),
-        Instant.now());
+        Instant.now(),
+        null);
   }
 
   public static ChatMessageWebSocketPayload ofTyping(String conversationId, String typingUsername) {
     return new ChatMessageWebSocketPayload(
-        EventType.TYPING, null, null, conversationId, typingUsername, Instant.now());
+        EventType.TYPING, null, null, conversationId, typingUsername, Instant.now(), null);
   }
 }
@@ -17,7 +17,12 @@ public record ConversationResponse(
     @Schema(description = "UUID of who sent the last message") UUID lastMessageSenderId,
     @Schema(description = "When the last message was sent") Instant lastMessageAt,
     @Schema(description = "Number of unread messages for the requesting user") int unreadCount,
-    @Schema(description = "When this conversation was first created") Instant createdAt) {
+    @Schema(description = "When this conversation was first created") Instant createdAt,
+    @Schema(
+            description =
+                "The other participant's read cursor: messages you sent at or before it have been"
+                    + " read")
+        Instant otherParticipantReadUpTo) {
   public static ConversationResponse from(ChatConversation conv, UUID currentUserId) {
     UUID otherParticipantId =
         conv.getParticipantIds().stream()
@@ -40,6 +45,7 @@ public record ConversationResponse(
         conv.getLastMessageSenderId(),
         conv.getLastMessageAt(),
         conv.getUnreadCount(currentUserId),
-        conv.getCreatedAt());
+        conv.getCreatedAt(),
+        otherParticipantId != null ? conv.getReadUpTo(otherParticipantId) : null);
   }
 }
@@ -0,0 +1,28 @@
+package com.lambrk.event;
+
+import com.lambrk.domain.Comment;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * In-process event published by {@code CommentService} inside the writing transaction. Listeners
+ * that must only see committed data should use {@code @TransactionalEventListener}.
+ */
+public record CommentChangedEvent(
+    UUID commentId,
+    UUID postId,
+    UUID parentId,
+    String content,
+    Instant createdAt,
+    ContentChangeType changeType) {
+
+  public static CommentChangedEvent of(Comment comment, ContentChangeType changeType) {
+    return new CommentChangedEvent(
+        comment.getId(),
+        comment.getPost().getId(),
+        comment.getParent() != null ? comment.getParent().getId() : null,
+        comment.getContent(),
+        comment.getCreatedAt(),
+        changeType);
+  }
+}
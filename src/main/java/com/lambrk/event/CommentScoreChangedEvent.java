@@ -0,0 +1,10 @@
+package com.lambrk.event;
+
+import java.util.UUID;
+
+/**
+ * In-process event published by {@code VoteService} when a vote changes a comment's score. Kept
+ * apart from {@link CommentChangedEvent} so votes do not reach listeners that only care about
+ * comment text.
+ */
+public record CommentScoreChangedEvent(UUID commentId, UUID postId) {}
@@ -0,0 +1,7 @@
+package com.lambrk.event;
+
+public enum ContentChangeType {
+  CREATED,
+  UPDATED,
+  DELETED
+}
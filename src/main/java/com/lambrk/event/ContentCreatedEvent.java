@@ -0,0 +1,11 @@
+package com.lambrk.event;
+
+import java.util.UUID;
+
+/**
+ * In-process event published inside the writing transaction when a user creates a post ({@code
+ * commentId} null) or a comment. Carries the author's name so after-commit listeners such as
+ * mention processing need no lookups of their own.
+ */
+public record ContentCreatedEvent(
+    UUID postId, UUID commentId, UUID authorId, String authorUsername, String content) {}
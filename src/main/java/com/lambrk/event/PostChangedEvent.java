@@ -0,0 +1,30 @@
+package com.lambrk.event;
+
+import com.lambrk.domain.Post;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * In-process event published by {@code PostService} inside the writing transaction. Listeners that
+ * must only see committed data should use {@code @TransactionalEventListener}.
+ */
+public record PostChangedEvent(
+    UUID postId,
+    UUID communityId,
+    String communityName,
+    String title,
+    String content,
+    Instant createdAt,
+    ContentChangeType changeType) {
+
+  public static PostChangedEvent of(Post post, ContentChangeType changeType) {
+    return new PostChangedEvent(
+        post.getId(),
+        post.getCommunity() != null ? post.getCommunity().getId() : null,
+        post.getCommunity() != null ? post.getCommunity().getName() : null,
+        post.getTitle(),
+        post.getContent(),
+        post.getCreatedAt(),
+        changeType);
+  }
+}
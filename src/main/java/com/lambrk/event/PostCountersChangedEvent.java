@@ -0,0 +1,21 @@
+package com.lambrk.event;
+
+import java.util.UUID;
+
+/**
+ * In-process event published by {@code VoteService} and {@code CommentService} with the deltas they
+ * applied to a post's counter columns. Listeners that must only see committed data should use
+ * {@code @TransactionalEventListener}.
+ */
+public record PostCountersChangedEvent(
+    UUID postId, int scoreDelta, int likeDelta, int dislikeDelta, int commentDelta) {
+
+  public static PostCountersChangedEvent votes(
+      UUID postId, int scoreDelta, int likeDelta, int dislikeDelta) {
+    return new PostCountersChangedEvent(postId, scoreDelta, likeDelta, dislikeDelta, 0);
+  }
+
+  public static PostCountersChangedEvent comments(UUID postId, int commentDelta) {
+    return new PostCountersChangedEvent(postId, 0, 0, 0, commentDelta);
+  }
+}
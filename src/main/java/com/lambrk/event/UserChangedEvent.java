@@ -0,0 +1,10 @@
+package com.lambrk.event;
+
+import java.util.UUID;
+
+/**
+ * In-process event published inside the writing transaction when a user's profile, active flag or
+ * existence changes. Listeners that must only see committed data should use
+ * {@code @TransactionalEventListener}.
+ */
+public record UserChangedEvent(UUID userId, String username) {}
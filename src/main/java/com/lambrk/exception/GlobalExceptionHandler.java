@@ -58,6 +58,17 @@ public class GlobalExceptionHandler {
     return problem;
   }
 
+  @ExceptionHandler(InvalidRequestException.class)
+  public ProblemDetail handleInvalidRequest(InvalidRequestException ex) {
+    meterRegistry.counter("errors", "type", "invalid_request").increment();
+    ProblemDetail problem =
+        ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    problem.setTitle("Invalid Request");
+    problem.setType(URI.create("https://api.lambrk-backend.com/errors/invalid-request"));
+    problem.setProperty("timestamp", Instant.now());
+    return problem;
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ProblemDetail handleValidation(MethodArgumentNotValidException ex) {
     meterRegistry.counter("errors", "type", "validation").increment();
@@ -0,0 +1,8 @@
+package com.lambrk.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+  public InvalidRequestException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,266 @@
+package com.lambrk.message;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.count;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.domain.message.ChatMessageBucket;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Messages grouped into {@link ChatMessageBucket}s of up to {@code bucket-size} per conversation
+ * and time slice. Sending is one upsert that {@code $push}es onto the conversation's open bucket
+ * and starts a new one when it is full or the slice has ended; history pages are read bucket by
+ * bucket, newest first, until the page is complete.
+ */
+@Component
+@ConditionalOnProperty(prefix = "lambrk.chat.storage", name = "layout", havingValue = "buckets")
+public class BucketedChatMessageStore implements ChatMessageStore {
+
+  static final Comparator<ChatMessage> OLDEST_FIRST =
+      Comparator.comparing(ChatMessage::getCreatedAt)
+          // ObjectId hex strings have a fixed length, so they sort like the IDs themselves
+          .thenComparing(ChatMessage::getId);
+
+  private static final String ENTRY = "messages.$[m].";
+
+  private final MongoTemplate mongoTemplate;
+  private final ChatStorageProperties properties;
+
+  public BucketedChatMessageStore(MongoTemplate mongoTemplate, ChatStorageProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.properties = properties;
+  }
+
+  @Override
+  public ChatMessage append(ChatMessage message) {
+    Instant now = Instant.now();
+    message.setId(new ObjectId().toHexString());
+    message.setCreatedAt(now);
+    // Filling up races only ever split a slice into one more, smaller bucket
+    Query openBucket =
+        Query.query(
+            Criteria.where("conversationId")
+                .is(message.getConversationId())
+                .and("sliceStart")
+                .is(properties.sliceStart(now))
+                .and("count")
+                .lt(properties.getBucketSize()));
+    Update update =
+        new Update()
+            .push("messages", ChatMessageBucket.Entry.of(message))
+            .inc("count", 1)
+            .min("firstAt", now)
+            .max("lastAt", now)
+            .set("usernames." + message.getSenderId(), message.getSenderUsername())
+            .set("usernames." + message.getRecipientId(), message.getRecipientUsername());
+    if (message.getSenderAvatarUrl() != null) {
+      update.set("avatarUrls." + message.getSenderId(), message.getSenderAvatarUrl());
+    }
+    mongoTemplate.upsert(openBucket, update, ChatMessageBucket.class);
+    return message;
+  }
+
+  @Override
+  public Optional<ChatMessage> findById(String messageId) {
+    if (!ObjectId.isValid(messageId)) {
+      return Optional.empty();
+    }
+    ObjectId id = new ObjectId(messageId);
+    ChatMessageBucket bucket =
+        mongoTemplate.findOne(
+            Query.query(Criteria.where("messages.messageId").is(id)), ChatMessageBucket.class);
+    if (bucket == null) {
+      return Optional.empty();
+    }
+    return bucket.getMessages().stream()
+        .filter(entry -> entry.getMessageId().equals(id))
+        .findFirst()
+        .map(bucket::toMessage);
+  }
+
+  @Override
+  public List<ChatMessage> latest(String conversationId, int limit) {
+    return scan(Criteria.where("conversationId").is(conversationId), null, false, limit);
+  }
+
+  @Override
+  public List<ChatMessage> before(String conversationId, ChatCursor cursor, int limit) {
+    return scan(
+        Criteria.where("conversationId").is(conversationId).and("firstAt").lte(cursor.createdAt()),
+        cursor,
+        false,
+        limit);
+  }
+
+  @Override
+  public List<ChatMessage> after(String conversationId, ChatCursor cursor, int limit) {
+    return scan(
+        Criteria.where("conversationId").is(conversationId).and("lastAt").gte(cursor.createdAt()),
+        cursor,
+        true,
+        limit);
+  }
+
+  @Override
+  public long markReadUpTo(String conversationId, UUID recipientId, Instant upTo, Instant readAt) {
+    Criteria unread = unread("", recipientId, upTo);
+    Query buckets =
+        Query.query(
+            Criteria.where("conversationId")
+                .is(conversationId)
+                .and("firstAt")
+                .lte(upTo)
+                .and("messages")
+                .elemMatch(unread));
+    buckets.fields().include("_id");
+    Update update =
+        new Update()
+            .set(ENTRY + "isRead", true)
+            .set(ENTRY + "readAt", readAt)
+            .filterArray(unread("m.", recipientId, upTo));
+    // Each bucket is updated atomically and returned as it was, so the messages counted are exactly
+    // the ones this call marked, even when another request marks the same conversation
+    long marked = 0;
+    for (ChatMessageBucket bucket : mongoTemplate.find(buckets, ChatMessageBucket.class)) {
+      Query one =
+          Query.query(Criteria.where("_id").is(bucket.getId()).and("messages").elemMatch(unread));
+      one.fields().include("messages");
+      ChatMessageBucket before = mongoTemplate.findAndModify(one, update, ChatMessageBucket.class);
+      if (before != null) {
+        marked +=
+            before.getMessages().stream()
+                .filter(
+                    entry ->
+                        entry.getRecipientId().equals(recipientId)
+                            && !entry.isRead()
+                            && !entry.isDeleted()
+                            && !entry.getCreatedAt().isAfter(upTo))
+                .count();
+      }
+    }
+    return marked;
+  }
+
+  @Override
+  public boolean markDeleted(String messageId, Instant deletedAt) {
+    if (!ObjectId.isValid(messageId)) {
+      return false;
+    }
+    ObjectId id = new ObjectId(messageId);
+    Update update =
+        new Update()
+            .set(ENTRY + "isDeleted", true)
+            .set(ENTRY + "deletedAt", deletedAt)
+            .filterArray(Criteria.where("m.messageId").is(id).and("m.isDeleted").is(false));
+    return mongoTemplate
+            .updateFirst(
+                Query.query(Criteria.where("messages.messageId").is(id)),
+                update,
+                ChatMessageBucket.class)
+            .getModifiedCount()
+        > 0;
+  }
+
+  @Override
+  public long countUnread(UUID recipientId) {
+    // Only buckets holding one of the user's unread messages are unwound, found through
+    // idx_bucket_recipient_read
+    return countEntries(
+        Criteria.where("messages").elemMatch(unread("", recipientId, null)),
+        unread("messages.", recipientId, null));
+  }
+
+  /**
+   * Collects a page from buckets in time order. Buckets of one conversation can overlap in time, as
+   * migrated history is added after new sends, so older pages read buckets by their newest message
+   * and newer pages by their oldest. Reading stops at the first bucket that lies wholly past the
+   * page's last message, as every bucket after it does too.
+   */
+  private List<ChatMessage> scan(Criteria buckets, ChatCursor cursor, boolean newer, int limit) {
+    Comparator<ChatMessage> order = newer ? OLDEST_FIRST : OLDEST_FIRST.reversed();
+    Query query =
+        Query.query(buckets)
+            .with(
+                newer
+                    ? Sort.by(Sort.Direction.ASC, "firstAt")
+                    : Sort.by(Sort.Direction.DESC, "lastAt"));
+    List<ChatMessage> page = new ArrayList<>();
+    try (Stream<ChatMessageBucket> stream = mongoTemplate.stream(query, ChatMessageBucket.class)) {
+      Iterator<ChatMessageBucket> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        ChatMessageBucket bucket = iterator.next();
+        if (page.size() >= limit) {
+          Instant edge = page.get(limit - 1).getCreatedAt();
+          if (newer ? bucket.getFirstAt().isAfter(edge) : bucket.getLastAt().isBefore(edge)) {
+            break;
+          }
+        }
+        for (ChatMessageBucket.Entry entry : bucket.getMessages()) {
+          if (entry.isDeleted()) {
+            continue;
+          }
+          ChatMessage message = bucket.toMessage(entry);
+          if (cursor == null || isPast(message, cursor, newer)) {
+            page.add(message);
+          }
+        }
+        page.sort(order);
+      }
+    }
+    return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+  }
+
+  private static boolean isPast(ChatMessage message, ChatCursor cursor, boolean newer) {
+    int cmp = message.getCreatedAt().compareTo(cursor.createdAt());
+    if (cmp == 0) {
+      cmp = message.getId().compareTo(cursor.id().toHexString());
+    }
+    return newer ? cmp > 0 : cmp < 0;
+  }
+
+  /**
+   * An unread, undeleted message to {@code recipientId}, sent no later than {@code upTo} if set.
+   */
+  private static Criteria unread(String path, UUID recipientId, Instant upTo) {
+    Criteria criteria =
+        Criteria.where(path + "recipientId")
+            .is(recipientId)
+            .and(path + "isRead")
+            .is(false)
+            .and(path + "isDeleted")
+            .is(false);
+    return upTo != null ? criteria.and(path + "createdAt").lte(upTo) : criteria;
+  }
+
+  private long countEntries(Criteria buckets, Criteria entries) {
+    TypedAggregation<ChatMessageBucket> aggregation =
+        newAggregation(
+            ChatMessageBucket.class,
+            match(buckets),
+            unwind("messages"),
+            match(entries),
+            count().as("count"));
+    Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+    return result != null ? ((Number) result.get("count")).longValue() : 0;
+  }
+}
@@ -0,0 +1,42 @@
+package com.lambrk.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link ChatBucketMigrator} at startup and then exits, so {@code
+ * lambrk.chat.storage.migrate=true} turns the application into a one-off job instead of a node that
+ * copies on every start. If a conversation fails, startup fails and the exit status is non-zero.
+ */
+@Component
+@ConditionalOnProperty(prefix = "lambrk.chat.storage", name = "migrate", havingValue = "true")
+public class ChatBucketMigrationJob implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(ChatBucketMigrationJob.class);
+
+  private final ChatBucketMigrator migrator;
+  private final ConfigurableApplicationContext context;
+
+  public ChatBucketMigrationJob(
+      ChatBucketMigrator migrator, ConfigurableApplicationContext context) {
+    this.migrator = migrator;
+    this.context = context;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long started = System.currentTimeMillis();
+    long migrated = migrator.migrateAll();
+    log.info(
+        "Copied {} chat messages into buckets in {} ms",
+        migrated,
+        System.currentTimeMillis() - started);
+    System.exit(SpringApplication.exit(context));
+  }
+}
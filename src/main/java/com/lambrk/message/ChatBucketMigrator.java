@@ -0,0 +1,135 @@
+package com.lambrk.message;
+
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.domain.message.ChatMessageBucket;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies {@code chat_messages} documents into {@code chat_message_buckets}. Enabled with {@code
+ * lambrk.chat.storage.migrate=true}, which makes {@link ChatBucketMigrationJob} run it once and
+ * exit. Messages already in a bucket are skipped, so the copy can be re-run to catch up, in any
+ * order with new sends: run it while still on the {@code documents} layout, switch to {@code
+ * buckets}, and run it once more to pick up what was sent in between. The unique index on {@code
+ * messages.messageId} rejects a copy another run made in the meantime. The source documents are
+ * left in place.
+ */
+@Component
+@ConditionalOnProperty(prefix = "lambrk.chat.storage", name = "migrate", havingValue = "true")
+public class ChatBucketMigrator {
+
+  private static final Logger log = LoggerFactory.getLogger(ChatBucketMigrator.class);
+
+  /** Source messages checked against the buckets in one query. */
+  private static final int CHUNK_SIZE = 1_000;
+
+  private final MongoTemplate mongoTemplate;
+  private final ChatStorageProperties properties;
+
+  public ChatBucketMigrator(MongoTemplate mongoTemplate, ChatStorageProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.properties = properties;
+  }
+
+  /**
+   * Copies every conversation, carrying on past ones that fail.
+   *
+   * @return how many messages were copied
+   * @throws IllegalStateException if any conversation failed, after trying the rest
+   */
+  public long migrateAll() {
+    List<String> conversationIds =
+        mongoTemplate.findDistinct(new Query(), "conversationId", ChatMessage.class, String.class);
+    long migrated = 0;
+    int failed = 0;
+    for (String conversationId : conversationIds) {
+      try {
+        migrated += migrate(conversationId);
+      } catch (RuntimeException e) {
+        log.warn("Failed to migrate conversation {} into buckets", conversationId, e);
+        failed++;
+      }
+    }
+    if (failed > 0) {
+      throw new IllegalStateException(
+          failed + " conversations failed to migrate into buckets; run the migration again");
+    }
+    return migrated;
+  }
+
+  /**
+   * Copies the conversation's messages that are not in a bucket yet, deleted ones included.
+   *
+   * @return how many messages were copied
+   */
+  public long migrate(String conversationId) {
+    Query query =
+        Query.query(Criteria.where("conversationId").is(conversationId))
+            .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")));
+    long copied = 0;
+    List<ChatMessage> chunk = new ArrayList<>(CHUNK_SIZE);
+    try (Stream<ChatMessage> messages = mongoTemplate.stream(query, ChatMessage.class)) {
+      for (ChatMessage message : (Iterable<ChatMessage>) messages::iterator) {
+        chunk.add(message);
+        if (chunk.size() == CHUNK_SIZE) {
+          copied += copy(conversationId, chunk);
+          chunk.clear();
+        }
+      }
+    }
+    return copied + copy(conversationId, chunk);
+  }
+
+  /** Inserts the chunk's messages that no bucket holds yet, in new buckets. */
+  private long copy(String conversationId, List<ChatMessage> chunk) {
+    if (chunk.isEmpty()) {
+      return 0;
+    }
+    Set<ObjectId> bucketed = bucketed(chunk);
+    List<ChatMessageBucket> buckets = new ArrayList<>();
+    ChatMessageBucket bucket = null;
+    long copied = 0;
+    for (ChatMessage message : chunk) {
+      if (bucketed.contains(new ObjectId(message.getId()))) {
+        continue;
+      }
+      Instant slice = properties.sliceStart(message.getCreatedAt());
+      if (bucket == null
+          || !bucket.getSliceStart().equals(slice)
+          || bucket.getCount() >= properties.getBucketSize()) {
+        bucket = new ChatMessageBucket(conversationId, slice);
+        buckets.add(bucket);
+      }
+      bucket.add(message);
+      copied++;
+    }
+    if (!buckets.isEmpty()) {
+      mongoTemplate.insertAll(buckets);
+    }
+    return copied;
+  }
+
+  private Set<ObjectId> bucketed(List<ChatMessage> chunk) {
+    List<ObjectId> ids = chunk.stream().map(message -> new ObjectId(message.getId())).toList();
+    Query query = Query.query(Criteria.where("messages.messageId").in(ids));
+    query.fields().include("messages.messageId");
+    Set<ObjectId> bucketed = new HashSet<>();
+    for (ChatMessageBucket bucket : mongoTemplate.find(query, ChatMessageBucket.class)) {
+      bucket.getMessages().forEach(entry -> bucketed.add(entry.getMessageId()));
+    }
+    return bucketed;
+  }
+}
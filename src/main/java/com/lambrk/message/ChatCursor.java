@@ -0,0 +1,41 @@
+package com.lambrk.message;
+
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.exception.InvalidRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.bson.types.ObjectId;
+
+/**
+ * Position in a conversation's history: a message's {@code createdAt} with its time-ordered
+ * ObjectId as tie-break. Pages before or after it are one range of the {@code (conversationId,
+ * createdAt, _id)} index, so scrolling back stays as fast on page 100 as on page 1 and messages
+ * arriving meanwhile do not shift what the next page returns.
+ */
+public record ChatCursor(Instant createdAt, ObjectId id) {
+
+  public static ChatCursor of(ChatMessage message) {
+    return new ChatCursor(message.getCreatedAt(), new ObjectId(message.getId()));
+  }
+
+  public String encode() {
+    String token = createdAt.toString() + "|" + id.toHexString();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static ChatCursor decode(String token) {
+    try {
+      String[] parts =
+          new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Expected 2 fields");
+      }
+      return new ChatCursor(Instant.parse(parts[0]), new ObjectId(parts[1]));
+    } catch (RuntimeException e) {
+      throw new InvalidRequestException("Invalid message cursor");
+    }
+  }
+}
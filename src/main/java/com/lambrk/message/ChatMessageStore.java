@@ -0,0 +1,46 @@
+package com.lambrk.message;
+
+import com.lambrk.domain.message.ChatMessage;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Where chat messages live: one document per message, or messages grouped into per-conversation
+ * buckets. Selected with {@code lambrk.chat.storage.layout}.
+ */
+public interface ChatMessageStore {
+
+  /** Stores a new message, assigning its ID and creation time. */
+  ChatMessage append(ChatMessage message);
+
+  Optional<ChatMessage> findById(String messageId);
+
+  /** The latest messages of a conversation, newest first, excluding deleted ones. */
+  List<ChatMessage> latest(String conversationId, int limit);
+
+  /** Messages sent before {@code cursor}, newest first, excluding deleted ones. */
+  List<ChatMessage> before(String conversationId, ChatCursor cursor, int limit);
+
+  /** Messages sent after {@code cursor}, oldest first, excluding deleted ones. */
+  List<ChatMessage> after(String conversationId, ChatCursor cursor, int limit);
+
+  /**
+   * Marks every unread, undeleted message to {@code recipientId} in the conversation sent at or
+   * before {@code upTo} as read.
+   *
+   * @return how many messages were marked
+   */
+  long markReadUpTo(String conversationId, UUID recipientId, Instant upTo, Instant readAt);
+
+  /**
+   * Soft-deletes a message.
+   *
+   * @return false if it was already deleted
+   */
+  boolean markDeleted(String messageId, Instant deletedAt);
+
+  /** Unread, undeleted messages to the user across all conversations. */
+  long countUnread(UUID recipientId);
+}
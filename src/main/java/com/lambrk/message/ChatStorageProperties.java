@@ -0,0 +1,56 @@
+package com.lambrk.message;
+
+import java.time.Instant;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.chat.storage")
+public class ChatStorageProperties {
+
+  /** {@code documents} (one document per message) or {@code buckets}. */
+  private String layout = "documents";
+
+  private int bucketSize = 100;
+  private long sliceMs = 86_400_000;
+
+  /** Copies message documents into buckets on startup, then exits instead of serving. */
+  private boolean migrate = false;
+
+  /** Start of the bucket time slice {@code at} falls in. */
+  public Instant sliceStart(Instant at) {
+    return Instant.ofEpochMilli(Math.floorDiv(at.toEpochMilli(), sliceMs) * sliceMs);
+  }
+
+  public String getLayout() {
+    return layout;
+  }
+
+  public void setLayout(String layout) {
+    this.layout = layout;
+  }
+
+  public int getBucketSize() {
+    return bucketSize;
+  }
+
+  public void setBucketSize(int bucketSize) {
+    this.bucketSize = bucketSize;
+  }
+
+  public long getSliceMs() {
+    return sliceMs;
+  }
+
+  public void setSliceMs(long sliceMs) {
+    this.sliceMs = sliceMs;
+  }
+
+  public boolean isMigrate() {
+    return migrate;
+  }
+
+  public void setMigrate(boolean migrate) {
+    this.migrate = migrate;
+  }
+}
@@ -0,0 +1,68 @@
+package com.lambrk.message;
+
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.repository.mongo.ChatMessageRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+/** One {@code chat_messages} document per message. */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.chat.storage",
+    name = "layout",
+    havingValue = "documents",
+    matchIfMissing = true)
+public class DocumentChatMessageStore implements ChatMessageStore {
+
+  private final ChatMessageRepository repository;
+
+  public DocumentChatMessageStore(ChatMessageRepository repository) {
+    this.repository = repository;
+  }
+
+  @Override
+  public ChatMessage append(ChatMessage message) {
+    return repository.save(message);
+  }
+
+  @Override
+  public Optional<ChatMessage> findById(String messageId) {
+    return repository.findById(messageId);
+  }
+
+  @Override
+  public List<ChatMessage> latest(String conversationId, int limit) {
+    return repository.findByConversationIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(
+        conversationId, Limit.of(limit));
+  }
+
+  @Override
+  public List<ChatMessage> before(String conversationId, ChatCursor cursor, int limit) {
+    return repository.findBefore(conversationId, cursor.createdAt(), cursor.id(), Limit.of(limit));
+  }
+
+  @Override
+  public List<ChatMessage> after(String conversationId, ChatCursor cursor, int limit) {
+    return repository.findAfter(conversationId, cursor.createdAt(), cursor.id(), Limit.of(limit));
+  }
+
+  @Override
+  public long markReadUpTo(String conversationId, UUID recipientId, Instant upTo, Instant readAt) {
+    return repository.markReadUpTo(conversationId, recipientId, upTo, readAt);
+  }
+
+  @Override
+  public boolean markDeleted(String messageId, Instant deletedAt) {
+    return repository.markDeleted(messageId, deletedAt);
+  }
+
+  @Override
+  public long countUnread(UUID recipientId) {
+    return repository.countByRecipientIdAndIsReadFalseAndIsDeletedFalse(recipientId);
+  }
+}
@@ -0,0 +1,41 @@
+package com.lambrk.notification;
+
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Broker-less notification stream for a single node and for tests, enabled with {@code
+ * lambrk.notifications.realtime.transport=in-memory}. Records are routed on the sending thread;
+ * like Kafka partitions, each key hashes to one lane that delivers in send order.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.notifications.realtime",
+    name = "transport",
+    havingValue = "in-memory")
+public class InMemoryNotificationStream implements NotificationStream {
+
+  private final RealtimeNotificationRouter router;
+  private final Object[] partitions;
+
+  public InMemoryNotificationStream(
+      RealtimeNotificationRouter router, NotificationRealtimeProperties properties) {
+    this.router = router;
+    this.partitions = new Object[Math.max(1, properties.getPartitions())];
+    for (int i = 0; i < partitions.length; i++) {
+      partitions[i] = new Object();
+    }
+  }
+
+  @Override
+  public void send(UUID recipientId, byte[] payload) {
+    String key = recipientId.toString();
+    synchronized (partitions[Math.floorMod(key.hashCode(), partitions.length)]) {
+      router.route(key, payload);
+    }
+  }
+
+  @Override
+  public void flush() {}
+}
@@ -0,0 +1,58 @@
+package com.lambrk.notification;
+
+import java.util.UUID;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The notification stream on one partitioned Kafka topic keyed by recipient ID, instead of a topic
+ * per user. Every node assigns itself all partitions without a consumer group and keeps only
+ * records for recipients connected to it; the key is checked before the payload is decoded. With no
+ * group, nothing is committed and nothing is left on the broker when a node goes away: a restarted
+ * node starts from the latest offset, and clients reload missed notifications on reconnect.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.notifications.realtime",
+    name = "transport",
+    havingValue = "kafka",
+    matchIfMissing = true)
+public class KafkaNotificationStream implements NotificationStream {
+
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final RealtimeNotificationRouter router;
+  private final NotificationRealtimeProperties properties;
+
+  public KafkaNotificationStream(
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      RealtimeNotificationRouter router,
+      NotificationRealtimeProperties properties) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.router = router;
+    this.properties = properties;
+  }
+
+  @Override
+  public void send(UUID recipientId, byte[] payload) {
+    kafkaTemplate.send(properties.getTopic(), recipientId.toString(), payload);
+  }
+
+  @Override
+  public void flush() {
+    kafkaTemplate.flush();
+  }
+
+  @KafkaListener(
+      topicPartitions =
+          @TopicPartition(
+              topic = "${lambrk.notifications.realtime.topic:notifications.realtime}",
+              partitions = "0-#{${lambrk.notifications.realtime.partitions:12} - 1}"),
+      properties = {"enable.auto.commit=false", "auto.offset.reset=latest"})
+  public void onRecord(ConsumerRecord<String, byte[]> record) {
+    router.route(record.key(), record.value());
+  }
+}
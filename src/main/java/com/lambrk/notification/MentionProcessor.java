@@ -0,0 +1,86 @@
+package com.lambrk.notification;
+
+import com.lambrk.event.ContentCreatedEvent;
+import com.lambrk.repository.UserRepository;
+import com.lambrk.service.NotificationService;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Turns {@code @username} mentions in new posts and comments into notifications once the content
+ * has committed, off the request thread. All mentioned names resolve in one query and the
+ * notifications are written and pushed as one batch, so a mention-heavy comment costs its author
+ * nothing.
+ */
+@Component
+public class MentionProcessor {
+
+  private static final Logger log = LoggerFactory.getLogger(MentionProcessor.class);
+
+  private static final Pattern MENTION = Pattern.compile("(?<!\\w)@([a-zA-Z0-9_]+)(?!\\w)");
+
+  private final UserRepository userRepository;
+  private final NotificationService notificationService;
+  private final MentionProperties properties;
+
+  public MentionProcessor(
+      UserRepository userRepository,
+      NotificationService notificationService,
+      MentionProperties properties) {
+    this.userRepository = userRepository;
+    this.notificationService = notificationService;
+    this.properties = properties;
+  }
+
+  @Async
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onContentCreated(ContentCreatedEvent event) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    Set<String> usernames = parse(event.content(), properties.getMaxPerContent());
+    usernames.remove(event.authorUsername().toLowerCase(Locale.ROOT));
+    if (usernames.isEmpty()) {
+      return;
+    }
+    try {
+      List<UUID> mentioned = userRepository.findIdsByUsernameIn(usernames);
+      notificationService.createMentionNotification(
+          event.content(),
+          event.postId(),
+          event.commentId(),
+          mentioned,
+          event.authorId(),
+          event.authorUsername());
+    } catch (RuntimeException e) {
+      log.warn(
+          "Failed to process mentions for post {} comment {}",
+          event.postId(),
+          event.commentId(),
+          e);
+    }
+  }
+
+  /** Distinct lower-cased usernames mentioned in {@code content}, at most {@code limit}. */
+  static Set<String> parse(String content, int limit) {
+    Set<String> usernames = new LinkedHashSet<>();
+    if (content == null || content.indexOf('@') < 0) {
+      return usernames;
+    }
+    Matcher matcher = MENTION.matcher(content);
+    while (usernames.size() < limit && matcher.find()) {
+      usernames.add(matcher.group(1).toLowerCase(Locale.ROOT));
+    }
+    return usernames;
+  }
+}
@@ -0,0 +1,28 @@
+package com.lambrk.notification;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.notifications.mentions")
+public class MentionProperties {
+
+  private boolean enabled = true;
+  private int maxPerContent = 20;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxPerContent() {
+    return maxPerContent;
+  }
+
+  public void setMaxPerContent(int maxPerContent) {
+    this.maxPerContent = maxPerContent;
+  }
+}
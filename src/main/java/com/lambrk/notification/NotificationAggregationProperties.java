@@ -0,0 +1,46 @@
+package com.lambrk.notification;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.notifications.aggregation")
+public class NotificationAggregationProperties {
+
+  private boolean enabled = true;
+  private long windowMs = 3_600_000;
+  private int sampleSize = 3;
+  private long pushDebounceMs = 2_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getWindowMs() {
+    return windowMs;
+  }
+
+  public void setWindowMs(long windowMs) {
+    this.windowMs = windowMs;
+  }
+
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  public void setSampleSize(int sampleSize) {
+    this.sampleSize = sampleSize;
+  }
+
+  public long getPushDebounceMs() {
+    return pushDebounceMs;
+  }
+
+  public void setPushDebounceMs(long pushDebounceMs) {
+    this.pushDebounceMs = pushDebounceMs;
+  }
+}
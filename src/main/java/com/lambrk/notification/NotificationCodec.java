@@ -0,0 +1,142 @@
+package com.lambrk.notification;
+
+import com.lambrk.domain.Notification;
+import com.lambrk.dto.NotificationResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary form of a notification for the realtime stream: UUIDs as 16 raw bytes, times as
+ * epoch milliseconds, and a flag byte in place of absent optional fields. A typical notification is
+ * about half the size of its JSON. The hydrated labels of {@link NotificationResponse} are not
+ * carried and decode as null.
+ */
+public final class NotificationCodec {
+
+  static final byte VERSION = 1;
+
+  private static final int POST = 1;
+  private static final int COMMENT = 1 << 1;
+  private static final int USER = 1 << 2;
+  private static final int ACTION_URL = 1 << 3;
+  private static final int ACTION_TEXT = 1 << 4;
+  private static final int READ = 1 << 5;
+  private static final int READ_AT = 1 << 6;
+
+  private NotificationCodec() {}
+
+  public static byte[] encode(Notification n) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      int flags =
+          (n.getRelatedPostId() != null ? POST : 0)
+              | (n.getRelatedCommentId() != null ? COMMENT : 0)
+              | (n.getRelatedUserId() != null ? USER : 0)
+              | (n.getActionUrl() != null ? ACTION_URL : 0)
+              | (n.getActionText() != null ? ACTION_TEXT : 0)
+              | (n.isRead() ? READ : 0)
+              | (n.getReadAt() != null ? READ_AT : 0);
+      out.writeByte(VERSION);
+      out.writeByte(flags);
+      writeUuid(out, n.getId());
+      out.writeUTF(n.getType().name());
+      writeUuid(out, n.getRecipient().getId());
+      out.writeUTF(n.getTitle());
+      out.writeUTF(n.getMessage());
+      if ((flags & POST) != 0) {
+        writeUuid(out, n.getRelatedPostId());
+      }
+      if ((flags & COMMENT) != 0) {
+        writeUuid(out, n.getRelatedCommentId());
+      }
+      if ((flags & USER) != 0) {
+        writeUuid(out, n.getRelatedUserId());
+      }
+      if ((flags & ACTION_URL) != 0) {
+        out.writeUTF(n.getActionUrl());
+      }
+      if ((flags & ACTION_TEXT) != 0) {
+        out.writeUTF(n.getActionText());
+      }
+      out.writeLong(n.getCreatedAt().toEpochMilli());
+      if ((flags & READ_AT) != 0) {
+        out.writeLong(n.getReadAt().toEpochMilli());
+      }
+      out.writeInt(n.getActorCount());
+      List<UUID> sample = n.getSampleActorIds();
+      out.writeByte(sample.size());
+      for (UUID actor : sample) {
+        writeUuid(out, actor);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static NotificationResponse decode(byte[] payload) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported notification encoding " + version);
+      }
+      int flags = in.readUnsignedByte();
+      UUID id = readUuid(in);
+      Notification.NotificationType type = Notification.NotificationType.valueOf(in.readUTF());
+      UUID recipientId = readUuid(in);
+      String title = in.readUTF();
+      String message = in.readUTF();
+      UUID postId = (flags & POST) != 0 ? readUuid(in) : null;
+      UUID commentId = (flags & COMMENT) != 0 ? readUuid(in) : null;
+      UUID userId = (flags & USER) != 0 ? readUuid(in) : null;
+      String actionUrl = (flags & ACTION_URL) != 0 ? in.readUTF() : null;
+      String actionText = (flags & ACTION_TEXT) != 0 ? in.readUTF() : null;
+      Instant createdAt = Instant.ofEpochMilli(in.readLong());
+      Instant readAt = (flags & READ_AT) != 0 ? Instant.ofEpochMilli(in.readLong()) : null;
+      int actorCount = in.readInt();
+      int sampleSize = in.readUnsignedByte();
+      List<UUID> sample = new ArrayList<>(sampleSize);
+      for (int i = 0; i < sampleSize; i++) {
+        sample.add(readUuid(in));
+      }
+      return new NotificationResponse(
+          id,
+          type,
+          recipientId,
+          title,
+          message,
+          postId,
+          null,
+          commentId,
+          null,
+          userId,
+          null,
+          actionUrl,
+          actionText,
+          (flags & READ) != 0,
+          createdAt,
+          readAt,
+          actorCount,
+          List.copyOf(sample));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated notification payload", e);
+    }
+  }
+
+  private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+    out.writeLong(uuid.getMostSignificantBits());
+    out.writeLong(uuid.getLeastSignificantBits());
+  }
+
+  private static UUID readUuid(DataInputStream in) throws IOException {
+    return new UUID(in.readLong(), in.readLong());
+  }
+}
@@ -0,0 +1,151 @@
+package com.lambrk.notification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.lambrk.domain.Notification;
+import com.lambrk.dto.NotificationResponse;
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.PostChangedEvent;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import com.lambrk.repository.UserRepository;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fills in the post title, comment preview and username a page of notifications refers to. Each
+ * kind is resolved for the whole page at once: IDs already in the short-lived shared caches are
+ * served from there, and the rest are fetched with one projection query per kind.
+ */
+@Component
+public class NotificationHydrator {
+
+  public static final String POST_TITLES = "notificationPostTitles";
+  public static final String COMMENT_PREVIEWS = "notificationCommentPreviews";
+  public static final String USERNAMES = "notificationUsernames";
+
+  static final int PREVIEW_LENGTH = 100;
+
+  private final Cache<Object, Object> postTitles;
+  private final Cache<Object, Object> commentPreviews;
+  private final Cache<Object, Object> usernames;
+  private final PostRepository postRepository;
+  private final CommentRepository commentRepository;
+  private final UserRepository userRepository;
+
+  public NotificationHydrator(
+      CacheManager cacheManager,
+      PostRepository postRepository,
+      CommentRepository commentRepository,
+      UserRepository userRepository) {
+    this.postTitles = nativeCache(cacheManager, POST_TITLES);
+    this.commentPreviews = nativeCache(cacheManager, COMMENT_PREVIEWS);
+    this.usernames = nativeCache(cacheManager, USERNAMES);
+    this.postRepository = postRepository;
+    this.commentRepository = commentRepository;
+    this.userRepository = userRepository;
+  }
+
+  public Page<NotificationResponse> hydrate(Page<Notification> page) {
+    return new PageImpl<>(hydrate(page.getContent()), page.getPageable(), page.getTotalElements());
+  }
+
+  public List<NotificationResponse> hydrate(List<Notification> notifications) {
+    Map<Object, Object> titles =
+        lookup(
+            postTitles,
+            ids(notifications, Notification::getRelatedPostId),
+            postRepository::findTitlesByIdIn,
+            UnaryOperator.identity());
+    Map<Object, Object> previews =
+        lookup(
+            commentPreviews,
+            ids(notifications, Notification::getRelatedCommentId),
+            ids -> commentRepository.findContentPrefixesByIdIn(ids, PREVIEW_LENGTH + 1),
+            NotificationHydrator::preview);
+    Map<Object, Object> names =
+        lookup(
+            usernames,
+            ids(notifications, Notification::getRelatedUserId),
+            userRepository::findUsernamesByIdIn,
+            UnaryOperator.identity());
+    return notifications.stream()
+        .map(
+            n ->
+                NotificationResponse.from(
+                    n,
+                    (String) titles.get(n.getRelatedPostId()),
+                    (String) previews.get(n.getRelatedCommentId()),
+                    (String) names.get(n.getRelatedUserId())))
+        .toList();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostChanged(PostChangedEvent event) {
+    if (event.changeType() != ContentChangeType.CREATED) {
+      postTitles.invalidate(event.postId());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentChanged(CommentChangedEvent event) {
+    if (event.changeType() != ContentChangeType.CREATED) {
+      commentPreviews.invalidate(event.commentId());
+    }
+  }
+
+  /** The comment preview shown in notifications, from at least its first 101 characters. */
+  static String preview(String content) {
+    return content.length() > PREVIEW_LENGTH
+        ? content.substring(0, PREVIEW_LENGTH) + "..."
+        : content;
+  }
+
+  private static Set<UUID> ids(
+      List<Notification> notifications, Function<Notification, UUID> relatedId) {
+    return notifications.stream()
+        .map(relatedId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+  }
+
+  // Missing rows (deleted content) are not cached, so they stay null and are looked up again
+  private static Map<Object, Object> lookup(
+      Cache<Object, Object> cache,
+      Set<UUID> ids,
+      Function<Collection<UUID>, List<RelatedLabel>> query,
+      UnaryOperator<String> format) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return cache.getAll(
+        ids,
+        missing -> {
+          Map<Object, Object> found = new HashMap<>();
+          for (RelatedLabel row : query.apply(missing.stream().map(UUID.class::cast).toList())) {
+            if (row.getLabel() != null) {
+              found.put(row.getId(), format.apply(row.getLabel()));
+            }
+          }
+          return found;
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+    return (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+  }
+}
@@ -0,0 +1,37 @@
+package com.lambrk.notification;
+
+import com.lambrk.domain.Notification;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends notifications to the recipient's WebSocket sessions, on whichever node they are connected,
+ * through the {@link NotificationStream}.
+ */
+@Component
+public class NotificationPublisher {
+
+  private static final Logger log = LoggerFactory.getLogger(NotificationPublisher.class);
+
+  private final NotificationStream stream;
+
+  public NotificationPublisher(NotificationStream stream) {
+    this.stream = stream;
+  }
+
+  public void publish(Notification notification) {
+    try {
+      stream.send(notification.getRecipient().getId(), NotificationCodec.encode(notification));
+    } catch (Exception e) {
+      log.warn("Failed to send real-time notification {}", notification.getId(), e);
+    }
+  }
+
+  /** Publishes all of them and flushes the stream once. */
+  public void publishAll(List<Notification> notifications) {
+    notifications.forEach(this::publish);
+    stream.flush();
+  }
+}
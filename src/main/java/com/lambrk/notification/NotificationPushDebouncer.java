@@ -0,0 +1,77 @@
+package com.lambrk.notification;
+
+import com.lambrk.repository.NotificationRepository;
+import com.lambrk.util.AfterCommit;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Debounces realtime pushes of aggregated notifications per recipient. The first change after a
+ * quiet period is pushed as soon as it commits; further changes within {@code push-debounce-ms} are
+ * collected and pushed once per aggregate on the next tick, reading the row's latest state. A post
+ * being liked a hundred times a second thus costs its author one push per tick, not a hundred.
+ */
+@Component
+@Lazy(false)
+public class NotificationPushDebouncer {
+
+  private final NotificationRepository notificationRepository;
+  private final NotificationPublisher publisher;
+  private final NotificationAggregationProperties properties;
+  private final Map<UUID, Set<UUID>> pending = new ConcurrentHashMap<>();
+  private final Map<UUID, Long> lastPushAt = new ConcurrentHashMap<>();
+
+  public NotificationPushDebouncer(
+      NotificationRepository notificationRepository,
+      NotificationPublisher publisher,
+      NotificationAggregationProperties properties) {
+    this.notificationRepository = notificationRepository;
+    this.publisher = publisher;
+    this.properties = properties;
+  }
+
+  /** Schedules a push of the notification once the current transaction, if any, commits. */
+  public void submit(UUID recipientId, UUID notificationId) {
+    AfterCommit.run(() -> enqueue(recipientId, notificationId));
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.notifications.aggregation.push-debounce-ms:2000}",
+      initialDelayString = "${lambrk.notifications.aggregation.push-debounce-ms:2000}")
+  public void flush() {
+    pending.keySet().forEach(this::push);
+    long quietSince = System.currentTimeMillis() - properties.getPushDebounceMs();
+    lastPushAt.values().removeIf(at -> at < quietSince);
+  }
+
+  void enqueue(UUID recipientId, UUID notificationId) {
+    // Added inside compute so it cannot land in a set push() has already taken
+    pending.compute(
+        recipientId,
+        (id, ids) -> {
+          Set<UUID> updated = ids != null ? ids : new HashSet<>();
+          updated.add(notificationId);
+          return updated;
+        });
+    Long last = lastPushAt.get(recipientId);
+    if (last == null || System.currentTimeMillis() - last >= properties.getPushDebounceMs()) {
+      push(recipientId);
+    }
+  }
+
+  private void push(UUID recipientId) {
+    Set<UUID> ids = pending.remove(recipientId);
+    if (ids == null || ids.isEmpty()) {
+      return;
+    }
+    lastPushAt.put(recipientId, System.currentTimeMillis());
+    // Rows deleted in the meantime are simply not found
+    publisher.publishAll(notificationRepository.findAllById(ids));
+  }
+}
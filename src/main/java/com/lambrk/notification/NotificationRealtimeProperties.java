@@ -0,0 +1,46 @@
+package com.lambrk.notification;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.notifications.realtime")
+public class NotificationRealtimeProperties {
+
+  private String transport = "kafka";
+  private String topic = "notifications.realtime";
+  private int partitions = 12;
+  private short replicas = 1;
+
+  public String getTransport() {
+    return transport;
+  }
+
+  public void setTransport(String transport) {
+    this.transport = transport;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(int partitions) {
+    this.partitions = partitions;
+  }
+
+  public short getReplicas() {
+    return replicas;
+  }
+
+  public void setReplicas(short replicas) {
+    this.replicas = replicas;
+  }
+}
@@ -0,0 +1,16 @@
+package com.lambrk.notification;
+
+import java.util.UUID;
+
+/**
+ * Carries encoded realtime notifications from the node that created them to every node, where
+ * {@link RealtimeNotificationRouter} hands them to the recipient's local WebSocket sessions.
+ * Records are keyed by recipient ID, so one recipient's notifications stay in order.
+ */
+public interface NotificationStream {
+
+  void send(UUID recipientId, byte[] payload);
+
+  /** Waits until everything sent so far has been handed to the transport. */
+  void flush();
+}
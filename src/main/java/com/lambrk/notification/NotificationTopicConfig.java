@@ -0,0 +1,24 @@
+package com.lambrk.notification;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+@ConditionalOnProperty(
+    prefix = "lambrk.notifications.realtime",
+    name = "transport",
+    havingValue = "kafka",
+    matchIfMissing = true)
+public class NotificationTopicConfig {
+
+  @Bean
+  public NewTopic realtimeNotificationTopic(NotificationRealtimeProperties properties) {
+    return TopicBuilder.name(properties.getTopic())
+        .partitions(properties.getPartitions())
+        .replicas(properties.getReplicas())
+        .build();
+  }
+}
@@ -0,0 +1,42 @@
+package com.lambrk.notification;
+
+import com.lambrk.websocket.LocalUserSessions;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/** Delivers notification stream records to the recipient's WebSocket sessions on this node. */
+@Component
+public class RealtimeNotificationRouter {
+
+  private static final Logger log = LoggerFactory.getLogger(RealtimeNotificationRouter.class);
+
+  private final LocalUserSessions sessions;
+  private final SimpMessagingTemplate messagingTemplate;
+
+  public RealtimeNotificationRouter(
+      LocalUserSessions sessions, SimpMessagingTemplate messagingTemplate) {
+    this.sessions = sessions;
+    this.messagingTemplate = messagingTemplate;
+  }
+
+  /**
+   * @return whether the recipient is connected here and the notification was delivered
+   */
+  public boolean route(String key, byte[] payload) {
+    try {
+      String username = sessions.username(UUID.fromString(key)).orElse(null);
+      if (username == null) {
+        return false;
+      }
+      messagingTemplate.convertAndSendToUser(
+          username, "/queue/notifications", NotificationCodec.decode(payload));
+      return true;
+    } catch (RuntimeException e) {
+      log.warn("Dropping undeliverable realtime notification for {}", key, e);
+      return false;
+    }
+  }
+}
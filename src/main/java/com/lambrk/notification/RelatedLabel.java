@@ -0,0 +1,11 @@
+package com.lambrk.notification;
+
+import java.util.UUID;
+
+/** ID and display text of something a notification points at: a post title, username, etc. */
+public interface RelatedLabel {
+
+  UUID getId();
+
+  String getLabel();
+}
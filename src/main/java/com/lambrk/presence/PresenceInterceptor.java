@@ -0,0 +1,35 @@
+package com.lambrk.presence;
+
+import java.security.Principal;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * Reports every inbound frame to the {@link PresenceService}; it only stamps two timestamps, or
+ * re-registers a session the sweep had given up on.
+ */
+public class PresenceInterceptor implements ChannelInterceptor {
+
+  private final PresenceService presence;
+
+  public PresenceInterceptor(PresenceService presence) {
+    this.presence = presence;
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    if (sessionId != null) {
+      Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+      presence.seen(
+          sessionId,
+          user != null ? user.getName() : null,
+          SimpMessageHeaderAccessor.getMessageType(message.getHeaders())
+              == SimpMessageType.MESSAGE);
+    }
+    return message;
+  }
+}
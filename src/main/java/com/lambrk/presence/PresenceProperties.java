@@ -0,0 +1,80 @@
+package com.lambrk.presence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.presence")
+public class PresenceProperties {
+
+  /** STOMP heart-beat interval the broker offers clients, both ways. */
+  private long heartbeatMs = 25_000;
+
+  /** A session not heard from for this long is treated as closed. */
+  private long sessionTimeoutMs = 75_000;
+
+  private long awayAfterMs = 300_000;
+  private long sweepIntervalMs = 15_000;
+
+  /** At most one typing indicator per conversation and typist per interval. */
+  private long typingIntervalMs = 1_000;
+
+  private long participantCacheSize = 100_000;
+  private long participantCacheTtlMs = 3_600_000;
+
+  public long getHeartbeatMs() {
+    return heartbeatMs;
+  }
+
+  public void setHeartbeatMs(long heartbeatMs) {
+    this.heartbeatMs = heartbeatMs;
+  }
+
+  public long getSessionTimeoutMs() {
+    return sessionTimeoutMs;
+  }
+
+  public void setSessionTimeoutMs(long sessionTimeoutMs) {
+    this.sessionTimeoutMs = sessionTimeoutMs;
+  }
+
+  public long getAwayAfterMs() {
+    return awayAfterMs;
+  }
+
+  public void setAwayAfterMs(long awayAfterMs) {
+    this.awayAfterMs = awayAfterMs;
+  }
+
+  public long getSweepIntervalMs() {
+    return sweepIntervalMs;
+  }
+
+  public void setSweepIntervalMs(long sweepIntervalMs) {
+    this.sweepIntervalMs = sweepIntervalMs;
+  }
+
+  public long getTypingIntervalMs() {
+    return typingIntervalMs;
+  }
+
+  public void setTypingIntervalMs(long typingIntervalMs) {
+    this.typingIntervalMs = typingIntervalMs;
+  }
+
+  public long getParticipantCacheSize() {
+    return participantCacheSize;
+  }
+
+  public void setParticipantCacheSize(long participantCacheSize) {
+    this.participantCacheSize = participantCacheSize;
+  }
+
+  public long getParticipantCacheTtlMs() {
+    return participantCacheTtlMs;
+  }
+
+  public void setParticipantCacheTtlMs(long participantCacheTtlMs) {
+    this.participantCacheTtlMs = participantCacheTtlMs;
+  }
+}
@@ -0,0 +1,250 @@
+package com.lambrk.presence;
+
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import com.lambrk.websocket.OutboundSessionQueues;
+import com.lambrk.websocket.UserNodeRegistry;
+import com.lambrk.websocket.WebSocketClusterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Online and away state of users across all their STOMP sessions. Every inbound frame stamps its
+ * session as seen, heartbeats included; frames that carry a message also stamp it as active. A
+ * session not seen for {@code session-timeout-ms} is dropped and closed, and a user whose sessions
+ * have all been idle for {@code away-after-ms} turns AWAY. A dropped session that still sends a
+ * frame before the close lands is registered again. Status changes are broadcast to {@code
+ * /topic/user-status/{username}}; OFFLINE only once no other node holds a session for the user.
+ */
+@Service
+public class PresenceService {
+
+  private static final Logger log = LoggerFactory.getLogger(PresenceService.class);
+
+  private static final class SessionState {
+    final String username;
+    volatile long lastSeen;
+    volatile long lastActive;
+
+    SessionState(String username, long now) {
+      this.username = username;
+      this.lastSeen = now;
+      this.lastActive = now;
+    }
+  }
+
+  private record UserState(Set<String> sessionIds, PresenceStatus status) {}
+
+  private final ClusterMessagingTemplate messagingTemplate;
+  private final UserNodeRegistry registry;
+  private final OutboundSessionQueues outboundQueues;
+  private final String nodeId;
+  private final PresenceProperties properties;
+  private final LongSupplier clock;
+  private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+  private final Map<String, UserState> users = new ConcurrentHashMap<>();
+  private final Counter expired;
+
+  @Autowired
+  public PresenceService(
+      ClusterMessagingTemplate messagingTemplate,
+      UserNodeRegistry registry,
+      OutboundSessionQueues outboundQueues,
+      WebSocketClusterProperties clusterProperties,
+      PresenceProperties properties,
+      MeterRegistry meterRegistry) {
+    this(
+        messagingTemplate,
+        registry,
+        outboundQueues,
+        clusterProperties,
+        properties,
+        meterRegistry,
+        System::currentTimeMillis);
+  }
+
+  PresenceService(
+      ClusterMessagingTemplate messagingTemplate,
+      UserNodeRegistry registry,
+      OutboundSessionQueues outboundQueues,
+      WebSocketClusterProperties clusterProperties,
+      PresenceProperties properties,
+      MeterRegistry meterRegistry,
+      LongSupplier clock) {
+    this.messagingTemplate = messagingTemplate;
+    this.registry = registry;
+    this.outboundQueues = outboundQueues;
+    this.nodeId = clusterProperties.getNodeId();
+    this.properties = properties;
+    this.clock = clock;
+    this.expired =
+        Counter.builder("presence.sessions.expired")
+            .description("Sessions dropped for missing heartbeats")
+            .register(meterRegistry);
+    Gauge.builder("presence.users", users, Map::size)
+        .description("Users with a session on this node")
+        .register(meterRegistry);
+  }
+
+  /**
+   * The user's status. Users connected to this node are answered from memory; for anyone else the
+   * session registry says whether another node holds a session, without away detail. This node's
+   * own registry entry is ignored, since it can outlive a session the sweep has already dropped.
+   */
+  public PresenceStatus status(String username) {
+    UserState user = users.get(username);
+    if (user != null) {
+      return user.status();
+    }
+    return connectedElsewhere(username) ? PresenceStatus.ONLINE : PresenceStatus.OFFLINE;
+  }
+
+  /** Whether the user has a session anywhere, away or not. */
+  public boolean isOnline(String username) {
+    return status(username) != PresenceStatus.OFFLINE;
+  }
+
+  @EventListener
+  public void onConnected(SessionConnectedEvent event) {
+    Principal user = event.getUser();
+    if (user != null) {
+      connected(StompHeaderAccessor.wrap(event.getMessage()).getSessionId(), user.getName());
+    }
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    disconnected(event.getSessionId());
+  }
+
+  /** Drops and closes sessions that stopped sending heartbeats, and moves idle users to AWAY. */
+  @Scheduled(fixedDelayString = "${lambrk.presence.sweep-interval-ms:15000}")
+  public void sweep() {
+    long now = clock.getAsLong();
+    sessions.forEach(
+        (sessionId, session) -> {
+          if (now - session.lastSeen > properties.getSessionTimeoutMs()) {
+            expired.increment();
+            disconnected(sessionId);
+            // A silent socket may still be open; closing it clears its registry entry too
+            outboundQueues.closeSession(sessionId, CloseStatus.SESSION_NOT_RELIABLE);
+          }
+        });
+    users.forEach(
+        (username, user) -> {
+          boolean active = false;
+          for (String sessionId : user.sessionIds()) {
+            SessionState session = sessions.get(sessionId);
+            active |= session != null && now - session.lastActive <= properties.getAwayAfterMs();
+          }
+          transition(username, active ? PresenceStatus.ONLINE : PresenceStatus.AWAY);
+        });
+  }
+
+  /**
+   * Called for every inbound frame; {@code active} unless it was only a heartbeat. A frame from a
+   * session the sweep already dropped brings it back.
+   */
+  void seen(String sessionId, String username, boolean active) {
+    SessionState session = sessions.get(sessionId);
+    if (session == null) {
+      if (username != null) {
+        connected(sessionId, username);
+      }
+      return;
+    }
+    long now = clock.getAsLong();
+    session.lastSeen = now;
+    if (active) {
+      session.lastActive = now;
+      UserState user = users.get(session.username);
+      if (user != null && user.status() == PresenceStatus.AWAY) {
+        transition(session.username, PresenceStatus.ONLINE);
+      }
+    }
+  }
+
+  void connected(String sessionId, String username) {
+    sessions.put(sessionId, new SessionState(username, clock.getAsLong()));
+    PresenceStatus[] previous = {PresenceStatus.OFFLINE};
+    users.compute(
+        username,
+        (name, current) -> {
+          Set<String> ids = new HashSet<>();
+          if (current != null) {
+            previous[0] = current.status();
+            ids.addAll(current.sessionIds());
+          }
+          ids.add(sessionId);
+          return new UserState(Set.copyOf(ids), PresenceStatus.ONLINE);
+        });
+    if (previous[0] != PresenceStatus.ONLINE) {
+      publish(username, PresenceStatus.ONLINE);
+    }
+  }
+
+  void disconnected(String sessionId) {
+    SessionState session = sessions.remove(sessionId);
+    if (session == null) {
+      return;
+    }
+    boolean[] last = {false};
+    users.computeIfPresent(
+        session.username,
+        (name, current) -> {
+          Set<String> ids = new HashSet<>(current.sessionIds());
+          ids.remove(sessionId);
+          last[0] = ids.isEmpty();
+          return last[0] ? null : new UserState(Set.copyOf(ids), current.status());
+        });
+    if (last[0] && !connectedElsewhere(session.username)) {
+      publish(session.username, PresenceStatus.OFFLINE);
+    }
+  }
+
+  private boolean connectedElsewhere(String username) {
+    try {
+      return registry.nodesOf(username).stream().anyMatch(node -> !node.equals(nodeId));
+    } catch (RuntimeException e) {
+      log.debug("Could not look up nodes for {}", username, e);
+      return false;
+    }
+  }
+
+  private void transition(String username, PresenceStatus status) {
+    boolean[] changed = {false};
+    users.computeIfPresent(
+        username,
+        (name, current) -> {
+          changed[0] = current.status() != status;
+          return changed[0] ? new UserState(current.sessionIds(), status) : current;
+        });
+    if (changed[0]) {
+      publish(username, status);
+    }
+  }
+
+  private void publish(String username, PresenceStatus status) {
+    try {
+      messagingTemplate.convertAndSend("/topic/user-status/" + username, status);
+    } catch (RuntimeException e) {
+      log.warn("Failed to publish {} status for {}", status, username, e);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.lambrk.presence;
+
+public enum PresenceStatus {
+  /** At least one session sent something other than a heartbeat within {@code away-after-ms}. */
+  ONLINE,
+  /** Connected, but every session has only sent heartbeats for {@code away-after-ms}. */
+  AWAY,
+  OFFLINE
+}
@@ -0,0 +1,96 @@
+package com.lambrk.presence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lambrk.dto.message.ChatMessageWebSocketPayload;
+import com.lambrk.repository.mongo.ChatConversationRepository;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards typing indicators to the other participant of a conversation. Clients send one per
+ * keystroke burst, so at most one per conversation and typist goes out per {@code
+ * typing-interval-ms} and the rest are dropped before any lookup. Participants are cached, since
+ * they never change, and nothing is sent to a recipient who is offline.
+ */
+@Component
+public class TypingIndicators {
+
+  private record Participants(List<UUID> ids, List<String> usernames) {}
+
+  private record Typist(String conversationId, UUID userId) {}
+
+  private final ChatConversationRepository conversationRepository;
+  private final ClusterMessagingTemplate messagingTemplate;
+  private final PresenceService presence;
+  private final Cache<String, Participants> participants;
+  private final Cache<Typist, Boolean> recent;
+  private final Counter throttled;
+
+  public TypingIndicators(
+      ChatConversationRepository conversationRepository,
+      ClusterMessagingTemplate messagingTemplate,
+      PresenceService presence,
+      PresenceProperties properties,
+      MeterRegistry meterRegistry) {
+    this.conversationRepository = conversationRepository;
+    this.messagingTemplate = messagingTemplate;
+    this.presence = presence;
+    this.participants =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getParticipantCacheSize())
+            .expireAfterAccess(Duration.ofMillis(properties.getParticipantCacheTtlMs()))
+            .build();
+    this.recent =
+        Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(properties.getTypingIntervalMs()))
+            .build();
+    this.throttled =
+        Counter.builder("chat.typing.throttled")
+            .description("Typing indicators dropped as too frequent")
+            .register(meterRegistry);
+  }
+
+  public void typing(UUID userId, String conversationId) {
+    if (recent.asMap().putIfAbsent(new Typist(conversationId, userId), Boolean.TRUE) != null) {
+      throttled.increment();
+      return;
+    }
+    Participants conversation = participants.get(conversationId, this::load);
+    if (conversation == null) {
+      throw new IllegalArgumentException("Conversation not found: " + conversationId);
+    }
+    int typist = conversation.ids().indexOf(userId);
+    if (typist < 0) {
+      throw new SecurityException("Not a participant in this conversation");
+    }
+    int other = typist == 0 ? 1 : 0;
+    if (Math.max(typist, other) >= conversation.usernames().size()) {
+      return;
+    }
+    String recipient = conversation.usernames().get(other);
+    if (presence.isOnline(recipient)) {
+      messagingTemplate.convertAndSendToUser(
+          recipient,
+          "/queue/messages",
+          ChatMessageWebSocketPayload.ofTyping(
+              conversationId, conversation.usernames().get(typist)));
+    }
+  }
+
+  private Participants load(String conversationId) {
+    return conversationRepository
+        .findByConversationId(conversationId)
+        .map(
+            conversation ->
+                new Participants(
+                    List.copyOf(conversation.getParticipantIds()),
+                    List.copyOf(conversation.getParticipantUsernames())))
+        .orElse(null);
+  }
+}
@@ -3,11 +3,23 @@ package com.lambrk.repository;
 import com.lambrk.domain.Comment;
 import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
+import com.lambrk.notification.RelatedLabel;
+import com.lambrk.search.CommentSearchRow;
+import com.lambrk.search.IndexedDocument;
+import com.lambrk.search.SearchSnippet;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -17,7 +29,7 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CommentRepository
-    extends JpaRepository<Comment, UUID>, JpaSpecificationExecutor<Comment> {
+    extends JpaRepository<Comment, UUID>, JpaSpecificationExecutor<Comment>, CommentTreeRepository {
 
   Page<Comment> findByPost(Post post, Pageable pageable);
 
@@ -27,6 +39,58 @@ public interface CommentRepository
 
   List<Comment> findByParent(Comment parent);
 
+  @EntityGraph(attributePaths = "author")
+  Page<Comment> findByPostIdAndParentIsNull(UUID postId, Pageable pageable);
+
+  /**
+   * Keyset page of sibling comments ({@code parentId} null for top-level ones), read in the order
+   * of one of the {@code (post_id, parent_id, ...)} sort indexes.
+   */
+  @EntityGraph(attributePaths = "author")
+  Window<Comment> findByPostIdAndParentId(
+      UUID postId, UUID parentId, ScrollPosition position, Sort sort, Limit limit);
+
+  @EntityGraph(attributePaths = "author")
+  Optional<Comment> findWithAuthorById(UUID id);
+
+  /**
+   * A post's comment tree down to {@code maxDepth}, in path order: up to {@code limit} top-level
+   * comments and the best {@code childrenPerNode} replies of each comment, with authors.
+   */
+  default List<Comment> findTreeByPostId(
+      UUID postId, int maxDepth, int childrenPerNode, int limit) {
+    List<UUID> ids = findTreeIdsByPostId(postId, maxDepth, childrenPerNode, limit);
+    return ids.isEmpty() ? List.of() : findWithAuthorByIdInOrderByPath(ids);
+  }
+
+  // Each level takes the best replies of every kept parent off idx_comment_post_parent_best, so
+  // the per-parent cut happens in the database instead of after loading the whole thread
+  @Query(
+      value =
+          "WITH RECURSIVE tree AS ("
+              + " SELECT r.id, r.path, r.depth_level FROM ("
+              + "   SELECT c.id, c.path, c.depth_level FROM comments c"
+              + "   WHERE c.post_id = :postId AND c.parent_id IS NULL"
+              + "   ORDER BY c.best_score DESC, c.id LIMIT :limit) r"
+              + " UNION ALL"
+              + " SELECT reply.id, reply.path, reply.depth_level FROM tree"
+              + " CROSS JOIN LATERAL ("
+              + "   SELECT c.id, c.path, c.depth_level FROM comments c"
+              + "   WHERE c.post_id = :postId AND c.parent_id = tree.id"
+              + "   ORDER BY c.best_score DESC, c.id LIMIT :childrenPerNode) reply"
+              + " WHERE tree.depth_level < :maxDepth)"
+              + " SELECT id FROM tree ORDER BY path LIMIT :limit",
+      nativeQuery = true)
+  List<UUID> findTreeIdsByPostId(
+      @Param("postId") UUID postId,
+      @Param("maxDepth") int maxDepth,
+      @Param("childrenPerNode") int childrenPerNode,
+      @Param("limit") int limit);
+
+  @EntityGraph(attributePaths = "author")
+  @Query("SELECT c FROM Comment c WHERE c.id IN :ids ORDER BY c.path")
+  List<Comment> findWithAuthorByIdInOrderByPath(@Param("ids") Collection<UUID> ids);
+
   @Query(
       "SELECT c FROM Comment c WHERE c.post.id = :postId AND c.parent IS NULL ORDER BY c.score"
           + " DESC")
@@ -62,13 +126,27 @@ public interface CommentRepository
       @Param("likeDelta") int likeDelta,
       @Param("dislikeDelta") int dislikeDelta);
 
+  @Query(
+      "SELECT c.likeCount AS likeCount, c.dislikeCount AS dislikeCount FROM Comment c WHERE c.id ="
+          + " :commentId")
+  Optional<VoteCounts> findVoteCounts(@Param("commentId") UUID commentId);
+
+  @Query(
+      "UPDATE Comment c SET c.bestScore = :bestScore, c.controversyScore = :controversyScore WHERE"
+          + " c.id = :commentId")
+  @Modifying
+  void updateCommentRanking(
+      @Param("commentId") UUID commentId,
+      @Param("bestScore") double bestScore,
+      @Param("controversyScore") double controversyScore);
+
   @Query("UPDATE Comment c SET c.replyCount = c.replyCount + :delta WHERE c.id = :commentId")
   @Modifying
   void updateCommentReplyCount(@Param("commentId") UUID commentId, @Param("delta") int delta);
 
   @Query(
-      "SELECT c FROM Comment c WHERE c.content LIKE %:query% AND c.isDeleted = false AND"
-          + " c.isRemoved = false")
+      "SELECT c FROM Comment c WHERE LOWER(c.content) LIKE LOWER(CONCAT('%', :query, '%')) AND"
+          + " c.isDeleted = false AND c.isRemoved = false")
   Page<Comment> searchComments(@Param("query") String query, Pageable pageable);
 
   @Query(
@@ -125,12 +203,14 @@ public interface CommentRepository
   List<Comment> findCollapsedComments();
 
   @Query(
-      "UPDATE Comment c SET c.isDeleted = true, c.deletedAt = :deletedAt WHERE c.id = :commentId")
+      "UPDATE Comment c SET c.isDeleted = true, c.deletedAt = :deletedAt, c.updatedAt = :deletedAt"
+          + " WHERE c.id = :commentId")
   @Modifying
   void softDeleteComment(@Param("commentId") UUID commentId, @Param("deletedAt") Instant deletedAt);
 
   @Query(
-      "UPDATE Comment c SET c.isRemoved = true, c.removedAt = :removedAt WHERE c.id = :commentId")
+      "UPDATE Comment c SET c.isRemoved = true, c.removedAt = :removedAt, c.updatedAt = :removedAt"
+          + " WHERE c.id = :commentId")
   @Modifying
   void removeComment(@Param("commentId") UUID commentId, @Param("removedAt") Instant removedAt);
 
@@ -138,4 +218,49 @@ public interface CommentRepository
       "SELECT c FROM Comment c WHERE c.awardCount > 0 AND c.isDeleted = false AND c.isRemoved ="
           + " false ORDER BY c.awardCount DESC")
   Page<Comment> findAwardedComments(Pageable pageable);
+
+  /**
+   * Comments changed since {@code since}, for the embedded index; deleted and removed ones come
+   * back as tombstones.
+   */
+  @Query(
+      "SELECT new com.lambrk.search.IndexedDocument(c.id, c.content, c.createdAt,"
+          + " COALESCE(c.updatedAt, c.createdAt), c.isDeleted, c.isRemoved) FROM Comment c WHERE"
+          + " COALESCE(c.updatedAt, c.createdAt) >= :since ORDER BY c.id")
+  Slice<IndexedDocument> findIndexedDocumentsChangedSince(
+      @Param("since") Instant since, Pageable pageable);
+
+  @Query(
+      value =
+          "SELECT c.id AS id, ts_headline('simple', translate(LEFT(c.content, :maxChars),"
+              + " chr(2) || chr(3), ''), to_tsquery('simple', :tsQuery), :options) AS snippet"
+              + " FROM comments c WHERE c.id IN (:ids)",
+      nativeQuery = true)
+  List<SearchSnippet> findSearchSnippets(
+      @Param("ids") Collection<UUID> ids,
+      @Param("tsQuery") String tsQuery,
+      @Param("options") String options,
+      @Param("maxChars") int maxChars);
+
+  /** The first {@code maxChars} characters of each comment, without loading whole bodies. */
+  @Query(
+      "SELECT c.id AS id, SUBSTRING(c.content, 1, :maxChars) AS label FROM Comment c WHERE c.id IN"
+          + " :ids")
+  List<RelatedLabel> findContentPrefixesByIdIn(
+      @Param("ids") Collection<UUID> ids, @Param("maxChars") int maxChars);
+
+  /** Visible comments for a page of search hits, without their bodies. */
+  @Query(
+      "SELECT new com.lambrk.search.CommentSearchRow(c.id, c.flairText, c.isEdited, c.isDeleted,"
+          + " c.isRemoved, c.isCollapsed, c.isStickied, c.score, c.likeCount, c.dislikeCount,"
+          + " c.replyCount, c.awardCount, c.depthLevel, a, c.post.id, pc.id, c.createdAt,"
+          + " c.updatedAt, c.editedAt) FROM Comment c JOIN c.author a LEFT JOIN c.parent pc"
+          + " WHERE c.id IN :ids AND c.isDeleted = false AND c.isRemoved = false")
+  List<CommentSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<UUID> ids);
+
+  interface VoteCounts {
+    int getLikeCount();
+
+    int getDislikeCount();
+  }
 }
@@ -0,0 +1,18 @@
+package com.lambrk.repository;
+
+import com.lambrk.comment.CommentSort;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/** Comment tree reads that cut each level in the database. */
+public interface CommentTreeRepository {
+
+  /**
+   * IDs of the replies under {@code rootIds} down to {@code maxDepth}: the first {@code
+   * childrenPerNode} replies of each kept comment in {@code sort} order, and nothing under the
+   * replies that were cut. The roots themselves are not included.
+   */
+  List<UUID> findReplyIds(
+      UUID postId, Collection<UUID> rootIds, CommentSort sort, int maxDepth, int childrenPerNode);
+}
@@ -0,0 +1,60 @@
+package com.lambrk.repository;
+
+import com.lambrk.comment.CommentSort;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class CommentTreeRepositoryImpl implements CommentTreeRepository {
+
+  // Each level takes the first replies of every kept parent off the sort's (post_id, parent_id,
+  // ...) index; the roots seed the recursion and are dropped from the result by their NULL parent
+  private static final String REPLY_IDS =
+      "WITH RECURSIVE tree AS ("
+          + " SELECT c.id, c.parent_id, c.depth_level FROM comments c"
+          + " WHERE c.post_id = :postId AND c.id IN (:rootIds)"
+          + " UNION ALL"
+          + " SELECT reply.id, reply.parent_id, reply.depth_level FROM tree"
+          + " CROSS JOIN LATERAL ("
+          + "   SELECT c.id, c.parent_id, c.depth_level FROM comments c"
+          + "   WHERE c.post_id = :postId AND c.parent_id = tree.id"
+          + "   ORDER BY %s LIMIT :childrenPerNode) reply"
+          + " WHERE tree.depth_level < :maxDepth)"
+          + " SELECT id FROM tree WHERE parent_id IS NOT NULL";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  CommentTreeRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+  }
+
+  @Override
+  public List<UUID> findReplyIds(
+      UUID postId, Collection<UUID> rootIds, CommentSort sort, int maxDepth, int childrenPerNode) {
+    if (rootIds.isEmpty() || childrenPerNode <= 0) {
+      return List.of();
+    }
+    return jdbcTemplate.queryForList(
+        REPLY_IDS.formatted(orderBy(sort)),
+        Map.of(
+            "postId", postId,
+            "rootIds", rootIds,
+            "maxDepth", maxDepth,
+            "childrenPerNode", childrenPerNode),
+        UUID.class);
+  }
+
+  // Column order of CommentSort.toSort(), so each level reads one of the V21 indexes
+  private static String orderBy(CommentSort sort) {
+    return switch (sort) {
+      case BEST -> "c.best_score DESC, c.id";
+      case TOP -> "c.score DESC, c.id";
+      case NEW -> "c.created_at DESC, c.id DESC";
+      case OLD -> "c.created_at, c.id";
+      case CONTROVERSIAL -> "c.controversy_score DESC, c.id";
+    };
+  }
+}
@@ -91,8 +91,9 @@ public interface CommunityRepository
   List<Community> findCreatedCommunitiesByUser(@Param("userId") UUID userId);
 
   @Query(
-      "SELECT s FROM Community s WHERE s.isPublic = true AND (s.name LIKE %:query% OR s.title LIKE"
-          + " %:query% OR s.description LIKE %:query%)")
+      "SELECT s FROM Community s WHERE s.isPublic = true AND (LOWER(s.name) LIKE LOWER(CONCAT('%',"
+          + " :query, '%')) OR LOWER(s.title) LIKE LOWER(CONCAT('%', :query, '%')) OR"
+          + " LOWER(s.description) LIKE LOWER(CONCAT('%', :query, '%')))")
   Page<Community> searchCommunities(@Param("query") String query, Pageable pageable);
 
   @Query("SELECT s FROM Community s WHERE s.isPublic = true ORDER BY s.createdAt DESC")
@@ -105,4 +106,7 @@ public interface CommunityRepository
       "SELECT s FROM Community s WHERE s.isPublic = true AND s.activeUserCount > 0 ORDER BY"
           + " s.activeUserCount DESC")
   Page<Community> findActiveCommunities(Pageable pageable);
+
+  @Query("SELECT c.name FROM Community c WHERE c.isPublic = true ORDER BY c.subscriberCount DESC")
+  List<String> findPublicCommunityNames(Pageable pageable);
 }
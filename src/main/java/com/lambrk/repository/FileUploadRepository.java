@@ -1,6 +1,7 @@
 package com.lambrk.repository;
 
 import com.lambrk.domain.FileUpload;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,6 +17,9 @@ public interface FileUploadRepository extends JpaRepository<FileUpload, UUID> {
 
   Optional<FileUpload> findByFileName(String fileName);
 
+  @Query("SELECT f FROM FileUpload f WHERE f.post.id IN :postIds")
+  List<FileUpload> findByPostIdIn(@Param("postIds") Collection<UUID> postIds);
+
   @Query("SELECT f FROM FileUpload f WHERE f.uploadedBy.id = :userId ORDER BY f.uploadedAt DESC")
   Page<FileUpload> findByUploadedByOrderByCreatedAtDesc(
       @Param("userId") UUID userId, Pageable pageable);
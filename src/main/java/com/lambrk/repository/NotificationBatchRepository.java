@@ -0,0 +1,49 @@
+package com.lambrk.repository;
+
+import com.lambrk.domain.Notification;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/** Bulk writes that bypass the persistence context. */
+public interface NotificationBatchRepository {
+
+  /**
+   * Inserts new notifications with JDBC batching. Their IDs are already assigned, so this skips the
+   * per-row select {@code save} would issue; the entities stay detached.
+   */
+  void insertAll(List<Notification> notifications);
+
+  /**
+   * @param becameUnread whether the aggregate is new or was read before, so the recipient's unread
+   *     count went up
+   */
+  record UpsertedAggregate(UUID id, boolean becameUnread) {}
+
+  /**
+   * Inserts {@code notification} as the first actor of the aggregate {@code (recipient,
+   * aggregationKey, bucket)}, or folds it into the existing row: the actor count goes up, the actor
+   * joins the sample while it has fewer than {@code sampleSize} entries, the row turns unread
+   * again, and its related IDs and message move to the newest actor ("{@code actorName} and N
+   * others {@code action}"). The actor is {@code notification}'s related user; each one counts once
+   * per aggregate.
+   *
+   * @return the aggregate, or empty when the actor was already counted and nothing changed
+   */
+  Optional<UpsertedAggregate> upsertAggregate(
+      Notification notification,
+      String aggregationKey,
+      long bucket,
+      String actorName,
+      String action,
+      int sampleSize);
+
+  /**
+   * Forgets the actors recorded before {@code cutoff}. Once their bucket has closed no event can
+   * fold into it again, so they are no longer needed.
+   *
+   * @return how many actor rows were deleted
+   */
+  int deleteAggregateActorsBefore(Instant cutoff);
+}
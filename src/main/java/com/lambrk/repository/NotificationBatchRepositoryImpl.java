@@ -0,0 +1,135 @@
+package com.lambrk.repository;
+
+import com.lambrk.domain.Notification;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class NotificationBatchRepositoryImpl implements NotificationBatchRepository {
+
+  private static final String INSERT =
+      "INSERT INTO notifications (id, type, recipient_id, title, message, related_post_id,"
+          + " related_comment_id, related_user_id, action_url, action_text, is_read, created_at,"
+          + " updated_at, read_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  // The actor row goes in first; when it is already there, new_actor is empty, the INSERT below
+  // selects no rows and the aggregate is left alone
+  private static final String UPSERT_AGGREGATE =
+      "WITH new_actor AS (INSERT INTO notification_aggregate_actors"
+          + " (recipient_id, aggregation_key, aggregation_bucket, actor_id, created_at)"
+          + " VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING RETURNING actor_id),"
+          + " previous AS (SELECT is_read FROM notifications"
+          + " WHERE recipient_id = ? AND aggregation_key = ? AND aggregation_bucket = ?)"
+          + " INSERT INTO notifications (id, type, recipient_id, title, message, related_post_id,"
+          + " related_comment_id, related_user_id, action_url, action_text, is_read, created_at,"
+          + " updated_at, aggregation_key, aggregation_bucket, actor_count, sample_actor_ids)"
+          + " SELECT ?::uuid, ?, ?::uuid, ?, ?, ?::uuid, ?::uuid, new_actor.actor_id, ?, ?, FALSE,"
+          + " ?::timestamptz, ?::timestamptz, ?, ?::bigint, 1, ARRAY[new_actor.actor_id]"
+          + " FROM new_actor"
+          + " ON CONFLICT (recipient_id, aggregation_key, aggregation_bucket)"
+          + " WHERE aggregation_key IS NOT NULL DO UPDATE SET"
+          + " title = EXCLUDED.title,"
+          + " message = ? || CASE WHEN notifications.actor_count = 1 THEN ' and 1 other '"
+          + " ELSE ' and ' || notifications.actor_count || ' others ' END || ?,"
+          + " related_post_id = EXCLUDED.related_post_id,"
+          + " related_comment_id = EXCLUDED.related_comment_id,"
+          + " related_user_id = EXCLUDED.related_user_id,"
+          + " action_url = EXCLUDED.action_url,"
+          + " is_read = FALSE, read_at = NULL, updated_at = EXCLUDED.updated_at,"
+          + " actor_count = notifications.actor_count + 1,"
+          + " sample_actor_ids = CASE WHEN cardinality(notifications.sample_actor_ids) < ?"
+          + " THEN array_append(notifications.sample_actor_ids, EXCLUDED.related_user_id)"
+          + " ELSE notifications.sample_actor_ids END"
+          + " RETURNING id, COALESCE((SELECT is_read FROM previous), TRUE) AS became_unread";
+
+  private static final String DELETE_AGGREGATE_ACTORS =
+      "DELETE FROM notification_aggregate_actors WHERE created_at < ?";
+
+  private static final int BATCH_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  NotificationBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void insertAll(List<Notification> notifications) {
+    jdbcTemplate.batchUpdate(
+        INSERT,
+        notifications,
+        BATCH_SIZE,
+        (ps, n) -> {
+          ps.setObject(1, n.getId());
+          ps.setString(2, n.getType().name());
+          ps.setObject(3, n.getRecipient().getId());
+          ps.setString(4, n.getTitle());
+          ps.setString(5, n.getMessage());
+          ps.setObject(6, n.getRelatedPostId());
+          ps.setObject(7, n.getRelatedCommentId());
+          ps.setObject(8, n.getRelatedUserId());
+          ps.setString(9, n.getActionUrl());
+          ps.setString(10, n.getActionText());
+          ps.setBoolean(11, n.isRead());
+          ps.setObject(12, utc(n.getCreatedAt()));
+          ps.setObject(13, utc(n.getUpdatedAt()));
+          ps.setObject(14, utc(n.getReadAt()), Types.TIMESTAMP_WITH_TIMEZONE);
+        });
+  }
+
+  @Override
+  public Optional<UpsertedAggregate> upsertAggregate(
+      Notification n,
+      String aggregationKey,
+      long bucket,
+      String actorName,
+      String action,
+      int sampleSize) {
+    List<UpsertedAggregate> rows =
+        jdbcTemplate.query(
+            UPSERT_AGGREGATE,
+            (rs, i) ->
+                new UpsertedAggregate(
+                    rs.getObject("id", UUID.class), rs.getBoolean("became_unread")),
+            n.getRecipient().getId(),
+            aggregationKey,
+            bucket,
+            n.getRelatedUserId(),
+            utc(n.getCreatedAt()),
+            n.getRecipient().getId(),
+            aggregationKey,
+            bucket,
+            n.getId(),
+            n.getType().name(),
+            n.getRecipient().getId(),
+            n.getTitle(),
+            n.getMessage(),
+            n.getRelatedPostId(),
+            n.getRelatedCommentId(),
+            n.getActionUrl(),
+            n.getActionText(),
+            utc(n.getCreatedAt()),
+            utc(n.getUpdatedAt()),
+            aggregationKey,
+            bucket,
+            actorName,
+            action,
+            sampleSize);
+    return rows.stream().findFirst();
+  }
+
+  @Override
+  public int deleteAggregateActorsBefore(Instant cutoff) {
+    return jdbcTemplate.update(DELETE_AGGREGATE_ACTORS, utc(cutoff));
+  }
+
+  // Same binding Hibernate uses for Instant attributes
+  private static OffsetDateTime utc(Instant instant) {
+    return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+  }
+}
@@ -7,12 +7,15 @@ import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, UUID> {
+public interface NotificationRepository
+    extends JpaRepository<Notification, UUID>, NotificationBatchRepository {
 
   Page<Notification> findByRecipientIdOrderByCreatedAtDesc(UUID recipientId, Pageable pageable);
 
@@ -37,6 +40,31 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
   @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient.id = :userId AND n.isRead = false")
   long countUnreadNotifications(@Param("userId") UUID userId);
 
+  /**
+   * Marks up to {@code limit} of a user's unread notifications read and commits, so callers can
+   * work through any backlog in short transactions.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE notifications SET is_read = TRUE, read_at = :readAt, updated_at = :readAt"
+              + " WHERE id IN (SELECT id FROM notifications WHERE recipient_id = :userId"
+              + " AND is_read = FALSE LIMIT :limit)",
+      nativeQuery = true)
+  int markReadBatch(
+      @Param("userId") UUID userId, @Param("readAt") Instant readAt, @Param("limit") int limit);
+
+  /** Deletes up to {@code limit} of a user's notifications and commits. */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications WHERE recipient_id ="
+              + " :userId LIMIT :limit)",
+      nativeQuery = true)
+  int deleteBatch(@Param("userId") UUID userId, @Param("limit") int limit);
+
   @Query("SELECT n FROM Notification n WHERE n.createdAt < :before ORDER BY n.createdAt DESC")
   List<Notification> findOldNotifications(@Param("before") Instant before);
 
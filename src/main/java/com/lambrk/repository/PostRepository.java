@@ -3,11 +3,17 @@ package com.lambrk.repository;
 import com.lambrk.domain.Community;
 import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
+import com.lambrk.notification.RelatedLabel;
+import com.lambrk.search.IndexedDocument;
+import com.lambrk.search.PostSearchRow;
+import com.lambrk.search.SearchSnippet;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -85,8 +91,8 @@ public interface PostRepository extends JpaRepository<Post, UUID>, JpaSpecificat
   void incrementPostViewCount(@Param("postId") UUID postId);
 
   @Query(
-      "SELECT p FROM Post p WHERE p.title LIKE %:query% OR p.content LIKE %:query% AND p.isArchived"
-          + " = false")
+      "SELECT p FROM Post p WHERE (LOWER(p.title) LIKE LOWER(CONCAT('%', :query, '%')) OR"
+          + " LOWER(p.content) LIKE LOWER(CONCAT('%', :query, '%'))) AND p.isArchived = false")
   Page<Post> searchPosts(@Param("query") String query, Pageable pageable);
 
   @Query(
@@ -96,8 +102,9 @@ public interface PostRepository extends JpaRepository<Post, UUID>, JpaSpecificat
       @Param("communityId") UUID communityId, @Param("query") String query, Pageable pageable);
 
   @Query(
-      "SELECT p FROM Post p WHERE p.community.name IN :communityNames AND (p.title LIKE %:query% OR"
-          + " p.content LIKE %:query%) AND p.isArchived = false")
+      "SELECT p FROM Post p WHERE p.community.name IN :communityNames AND (LOWER(p.title) LIKE"
+          + " LOWER(CONCAT('%', :query, '%')) OR LOWER(p.content) LIKE LOWER(CONCAT('%', :query,"
+          + " '%'))) AND p.isArchived = false")
   Page<Post> searchPostsByCommunities(
       @Param("communityNames") List<String> communityNames,
       @Param("query") String query,
@@ -116,7 +123,9 @@ public interface PostRepository extends JpaRepository<Post, UUID>, JpaSpecificat
   @Query("SELECT p FROM Post p WHERE p.createdAt >= :since AND p.isArchived = true")
   List<Post> findPostsToArchive(@Param("since") Instant since);
 
-  @Query("UPDATE Post p SET p.isArchived = true, p.archivedAt = :archivedAt WHERE p.id IN :postIds")
+  @Query(
+      "UPDATE Post p SET p.isArchived = true, p.archivedAt = :archivedAt, p.updatedAt ="
+          + " :archivedAt WHERE p.id IN :postIds")
   @Modifying
   void archivePosts(@Param("postIds") List<UUID> postIds, @Param("archivedAt") Instant archivedAt);
 
@@ -148,4 +157,47 @@ public interface PostRepository extends JpaRepository<Post, UUID>, JpaSpecificat
       @Param("communityId") UUID communityId,
       @Param("types") List<Post.PostType> types,
       Pageable pageable);
+
+  /**
+   * Posts changed since {@code since}, for the embedded index; removed and archived ones come back
+   * as tombstones.
+   */
+  @Query(
+      "SELECT new com.lambrk.search.IndexedDocument(p.id, p.title, p.content, c.name,"
+          + " p.createdAt, COALESCE(p.updatedAt, p.createdAt), p.isRemoved, p.isArchived) FROM"
+          + " Post p LEFT JOIN p.community c WHERE COALESCE(p.updatedAt, p.createdAt) >= :since"
+          + " ORDER BY p.id")
+  Slice<IndexedDocument> findIndexedDocumentsChangedSince(
+      @Param("since") Instant since, Pageable pageable);
+
+  // Highlighting only reads a bounded prefix of each body, so long posts cost the same as short
+  @Query(
+      value =
+          "SELECT p.id AS id, ts_headline('simple', translate(LEFT(p.content, :maxChars),"
+              + " chr(2) || chr(3), ''), to_tsquery('simple', :tsQuery), :options) AS snippet"
+              + " FROM posts p WHERE p.id IN (:ids)",
+      nativeQuery = true)
+  List<SearchSnippet> findSearchSnippets(
+      @Param("ids") Collection<UUID> ids,
+      @Param("tsQuery") String tsQuery,
+      @Param("options") String options,
+      @Param("maxChars") int maxChars);
+
+  @Query(
+      "SELECT p.title FROM Post p WHERE p.isRemoved = false AND p.isArchived = false ORDER BY"
+          + " p.createdAt DESC")
+  List<String> findRecentTitles(Pageable pageable);
+
+  @Query("SELECT p.id AS id, p.title AS label FROM Post p WHERE p.id IN :ids")
+  List<RelatedLabel> findTitlesByIdIn(@Param("ids") Collection<UUID> ids);
+
+  /** Visible posts for a page of search hits, without their bodies. */
+  @Query(
+      "SELECT new com.lambrk.search.PostSearchRow(p.id, p.title, p.url, p.postType,"
+          + " p.thumbnailUrl, p.flairText, p.flairCssClass, p.isSpoiler, p.isStickied, p.isLocked,"
+          + " p.isArchived, p.isOver18, p.score, p.likeCount, p.dislikeCount, p.commentCount,"
+          + " p.viewCount, p.awardCount, a, c, p.createdAt, p.updatedAt, p.archivedAt) FROM Post p"
+          + " JOIN p.author a LEFT JOIN p.community c WHERE p.id IN :ids AND p.isRemoved = false"
+          + " AND p.isArchived = false")
+  List<PostSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<UUID> ids);
 }
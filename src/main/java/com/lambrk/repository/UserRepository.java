@@ -1,7 +1,10 @@
 package com.lambrk.repository;
 
 import com.lambrk.domain.User;
+import com.lambrk.notification.RelatedLabel;
+import com.lambrk.user.UserIdentity;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -88,4 +91,24 @@ WHERE u.isActive = true
 
   @Query("SELECT u FROM User u WHERE u.karma >= :minKarma ORDER BY u.karma DESC")
   Page<User> findUsersByMinKarma(@Param("minKarma") int minKarma, Pageable pageable);
+
+  @Query("SELECT u.username FROM User u WHERE u.isActive = true ORDER BY u.karma DESC")
+  List<String> findActiveUsernames(Pageable pageable);
+
+  /** IDs of the users with these lower-cased usernames, matched case-insensitively. */
+  @Query("SELECT u.id FROM User u WHERE LOWER(u.username) IN :usernames")
+  List<UUID> findIdsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+  @Query("SELECT u.id AS id, u.username AS label FROM User u WHERE u.id IN :ids")
+  List<RelatedLabel> findUsernamesByIdIn(@Param("ids") Collection<UUID> ids);
+
+  @Query(
+      "SELECT new com.lambrk.user.UserIdentity(u.id, u.username, u.displayName, u.avatarUrl,"
+          + " u.isActive) FROM User u WHERE u.id = :id")
+  Optional<UserIdentity> findIdentityById(@Param("id") UUID id);
+
+  @Query(
+      "SELECT new com.lambrk.user.UserIdentity(u.id, u.username, u.displayName, u.avatarUrl,"
+          + " u.isActive) FROM User u WHERE u.username = :username")
+  Optional<UserIdentity> findIdentityByUsername(@Param("username") String username);
 }
@@ -5,6 +5,7 @@ import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.domain.Vote;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -73,4 +74,17 @@ public interface VoteRepository extends JpaRepository<Vote, UUID>, JpaSpecificat
 
   @Query("SELECT COUNT(v) FROM Vote v WHERE v.voteType = 'DISLIKE' AND v.createdAt >= :since")
   long countDislikesSince(@Param("since") Instant since);
+
+  @Query(
+      "SELECT v.comment.id AS commentId, v.voteType AS voteType FROM Vote v WHERE v.user.id ="
+          + " :userId AND v.comment.id IN :commentIds")
+  List<CommentVote> findCommentVotes(
+      @Param("userId") UUID userId, @Param("commentIds") Collection<UUID> commentIds);
+
+  interface CommentVote {
+
+    UUID getCommentId();
+
+    Vote.VoteType getVoteType();
+  }
 }
@@ -9,7 +9,8 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ChatConversationRepository extends MongoRepository<ChatConversation, String> {
+public interface ChatConversationRepository
+    extends MongoRepository<ChatConversation, String>, ChatConversationUpdates {
 
   /** Inbox — all conversations the user participates in, sorted by most recent message. */
   Page<ChatConversation> findByParticipantIdsContainingAndIsActiveTrueOrderByLastMessageAtDesc(
@@ -0,0 +1,41 @@
+package com.lambrk.repository.mongo;
+
+import com.lambrk.domain.message.ChatConversation;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Single-statement conversation updates. Each one is one atomic {@code findAndModify} or {@code
+ * updateOne} that only touches the fields it changes, so concurrent senders and readers never
+ * overwrite each other's counts.
+ */
+public interface ChatConversationUpdates {
+
+  /** Returns the conversation between the two users, creating it if it does not exist yet. */
+  ChatConversation openConversation(
+      String conversationId,
+      UUID participant1Id,
+      String participant1Username,
+      UUID participant2Id,
+      String participant2Username);
+
+  /**
+   * Records a new message as the conversation's latest and adds one to the recipient's unread
+   * count, creating the conversation on its first message.
+   */
+  void recordMessage(
+      String conversationId,
+      UUID senderId,
+      String senderUsername,
+      UUID recipientId,
+      String recipientUsername,
+      String preview,
+      Instant sentAt);
+
+  /**
+   * Moves the user's read cursor forward to {@code upTo} (never back) and takes the {@code
+   * markedRead} messages just marked off their unread count. Once the cursor reaches the last
+   * message the count is set to zero outright, which also heals any drift.
+   */
+  void advanceReadCursor(String conversationId, UUID userId, Instant upTo, long markedRead);
+}
@@ -0,0 +1,122 @@
+package com.lambrk.repository.mongo;
+
+import com.lambrk.domain.message.ChatConversation;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+class ChatConversationUpdatesImpl implements ChatConversationUpdates {
+
+  private static final String UNREAD = "unreadCountMap.";
+  private static final String READ_UP_TO = "readUpToMap.";
+
+  private final MongoTemplate mongoTemplate;
+
+  ChatConversationUpdatesImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public ChatConversation openConversation(
+      String conversationId,
+      UUID participant1Id,
+      String participant1Username,
+      UUID participant2Id,
+      String participant2Username) {
+    Instant now = Instant.now();
+    Update update =
+        onInsert(
+            new Update(),
+            participant1Id,
+            participant1Username,
+            participant2Id,
+            participant2Username,
+            now);
+    update.setOnInsert(UNREAD + participant1Id, 0).setOnInsert(UNREAD + participant2Id, 0);
+    update.setOnInsert("updatedAt", now);
+    return mongoTemplate.findAndModify(
+        byConversationId(conversationId),
+        update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true),
+        ChatConversation.class);
+  }
+
+  @Override
+  public void recordMessage(
+      String conversationId,
+      UUID senderId,
+      String senderUsername,
+      UUID recipientId,
+      String recipientUsername,
+      String preview,
+      Instant sentAt) {
+    Update update =
+        onInsert(new Update(), senderId, senderUsername, recipientId, recipientUsername, sentAt)
+            .setOnInsert(UNREAD + senderId, 0)
+            .set("lastMessage", preview)
+            .set("lastMessageSenderId", senderId)
+            .set("lastMessageAt", sentAt)
+            .set("updatedAt", sentAt)
+            .inc(UNREAD + recipientId, 1);
+    mongoTemplate.upsert(byConversationId(conversationId), update, ChatConversation.class);
+  }
+
+  @Override
+  public void advanceReadCursor(String conversationId, UUID userId, Instant upTo, long markedRead) {
+    // A pipeline update, so the new count and cursor are computed from the stored document
+    String unread = UNREAD + userId;
+    String readUpTo = READ_UP_TO + userId;
+    Date cursor = Date.from(upTo);
+    Document set =
+        new Document(readUpTo, new Document("$max", List.of("$" + readUpTo, cursor)))
+            .append(
+                unread,
+                new Document(
+                    "$cond",
+                    List.of(
+                        new Document("$lte", List.of("$lastMessageAt", cursor)),
+                        0,
+                        new Document(
+                            "$max",
+                            List.of(
+                                0,
+                                new Document(
+                                    "$subtract",
+                                    List.of(
+                                        new Document("$ifNull", List.of("$" + unread, 0)),
+                                        markedRead)))))))
+            .append("updatedAt", "$$NOW");
+    AggregationOperation stage = context -> new Document("$set", set);
+    mongoTemplate.updateFirst(
+        byConversationId(conversationId),
+        AggregationUpdate.from(List.of(stage)),
+        ChatConversation.class);
+  }
+
+  private static Update onInsert(
+      Update update,
+      UUID participant1Id,
+      String participant1Username,
+      UUID participant2Id,
+      String participant2Username,
+      Instant createdAt) {
+    return update
+        .setOnInsert("participantIds", List.of(participant1Id, participant2Id))
+        .setOnInsert("participantUsernames", List.of(participant1Username, participant2Username))
+        .setOnInsert("isActive", true)
+        .setOnInsert("createdAt", createdAt);
+  }
+
+  private static Query byConversationId(String conversationId) {
+    return Query.query(Criteria.where("conversationId").is(conversationId));
+  }
+}
@@ -1,29 +1,43 @@
 package com.lambrk.repository.mongo;
 
 import com.lambrk.domain.message.ChatMessage;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
+public interface ChatMessageRepository
+    extends MongoRepository<ChatMessage, String>, ChatMessageUpdates {
 
-  /** Paginated message history for a conversation (newest first, excludes soft-deleted). */
-  Page<ChatMessage> findByConversationIdAndIsDeletedFalseOrderByCreatedAtDesc(
-      String conversationId, Pageable pageable);
+  /** The latest messages of a conversation, newest first (excludes soft-deleted). */
+  List<ChatMessage> findByConversationIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(
+      String conversationId, Limit limit);
+
+  /** Messages sent before the {@code (createdAt, id)} position, newest first. */
+  @Query(
+      value =
+          "{ 'conversationId': ?0, 'isDeleted': false, '$or': [ { 'createdAt': { '$lt': ?1 } },"
+              + " { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+      sort = "{ 'createdAt': -1, '_id': -1 }")
+  List<ChatMessage> findBefore(String conversationId, Instant createdAt, ObjectId id, Limit limit);
+
+  /** Messages sent after the {@code (createdAt, id)} position, oldest first. */
+  @Query(
+      value =
+          "{ 'conversationId': ?0, 'isDeleted': false, '$or': [ { 'createdAt': { '$gt': ?1 } },"
+              + " { 'createdAt': ?1, '_id': { '$gt': ?2 } } ] }",
+      sort = "{ 'createdAt': 1, '_id': 1 }")
+  List<ChatMessage> findAfter(String conversationId, Instant createdAt, ObjectId id, Limit limit);
 
   /** All unread messages in a conversation for a specific recipient. */
   List<ChatMessage> findByConversationIdAndRecipientIdAndIsReadFalseAndIsDeletedFalse(
       String conversationId, UUID recipientId);
 
-  /** All unread message IDs in a conversation for a specific recipient. */
-  List<ChatMessage>
-      findByConversationIdAndRecipientIdAndIsReadFalseAndIsDeletedFalseOrderByCreatedAtAsc(
-          String conversationId, UUID recipientId);
-
   /** Count of unread messages per conversation for a recipient. */
   long countByConversationIdAndRecipientIdAndIsReadFalseAndIsDeletedFalse(
       String conversationId, UUID recipientId);
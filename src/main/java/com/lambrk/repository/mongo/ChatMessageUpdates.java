@@ -0,0 +1,23 @@
+package com.lambrk.repository.mongo;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Bulk message updates that run as one {@code updateMany} instead of a load-modify-save loop. */
+public interface ChatMessageUpdates {
+
+  /**
+   * Marks every unread, undeleted message to {@code recipientId} in the conversation sent at or
+   * before {@code upTo} as read at {@code readAt}.
+   *
+   * @return how many messages were marked
+   */
+  long markReadUpTo(String conversationId, UUID recipientId, Instant upTo, Instant readAt);
+
+  /**
+   * Soft-deletes the message unless it already is.
+   *
+   * @return whether it changed
+   */
+  boolean markDeleted(String messageId, Instant deletedAt);
+}
@@ -0,0 +1,50 @@
+package com.lambrk.repository.mongo;
+
+import com.lambrk.domain.message.ChatMessage;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+class ChatMessageUpdatesImpl implements ChatMessageUpdates {
+
+  private final MongoTemplate mongoTemplate;
+
+  ChatMessageUpdatesImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public long markReadUpTo(String conversationId, UUID recipientId, Instant upTo, Instant readAt) {
+    Query unread =
+        Query.query(
+            Criteria.where("conversationId")
+                .is(conversationId)
+                .and("createdAt")
+                .lte(upTo)
+                .and("recipientId")
+                .is(recipientId)
+                .and("isRead")
+                .is(false)
+                .and("isDeleted")
+                .is(false));
+    return mongoTemplate
+        .updateMulti(
+            unread, new Update().set("isRead", true).set("readAt", readAt), ChatMessage.class)
+        .getModifiedCount();
+  }
+
+  @Override
+  public boolean markDeleted(String messageId, Instant deletedAt) {
+    Query live = Query.query(Criteria.where("id").is(messageId).and("isDeleted").is(false));
+    return mongoTemplate
+            .updateFirst(
+                live,
+                new Update().set("isDeleted", true).set("deletedAt", deletedAt),
+                ChatMessage.class)
+            .getModifiedCount()
+        > 0;
+  }
+}
@@ -0,0 +1,60 @@
+package com.lambrk.search;
+
+import com.lambrk.domain.User;
+import com.lambrk.dto.CommentResponse;
+import com.lambrk.dto.UserResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A comment as shown in search results, loaded by a JPQL constructor expression that leaves out the
+ * body so hydrating a page of hits never reads the {@code content} column.
+ */
+public record CommentSearchRow(
+    UUID id,
+    String flairText,
+    boolean isEdited,
+    boolean isDeleted,
+    boolean isRemoved,
+    boolean isCollapsed,
+    boolean isStickied,
+    int score,
+    int likeCount,
+    int dislikeCount,
+    int replyCount,
+    int awardCount,
+    int depthLevel,
+    User author,
+    UUID postId,
+    UUID parentId,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant editedAt) {
+
+  public CommentResponse toResponse() {
+    return new CommentResponse(
+        id,
+        null,
+        flairText,
+        isEdited,
+        isDeleted,
+        isRemoved,
+        isCollapsed,
+        isStickied,
+        score,
+        likeCount,
+        dislikeCount,
+        replyCount,
+        awardCount,
+        depthLevel,
+        UserResponse.from(author),
+        postId,
+        parentId,
+        List.of(),
+        createdAt,
+        updatedAt,
+        editedAt,
+        null);
+  }
+}
@@ -0,0 +1,136 @@
+package com.lambrk.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Count-Min Sketch over string keys. Estimates never under-count; with width {@code w} and depth
+ * {@code d} the over-count is at most {@code e/w * total} with probability {@code 1 - e^-d}.
+ * Hashing is deterministic across JVMs, so sketches with equal dimensions built on different nodes
+ * can be merged cell by cell.
+ */
+public final class CountMinSketch {
+
+  private final int depth;
+  private final int width;
+  private final double[] table;
+  private double totalCount;
+
+  public CountMinSketch(int depth, int width) {
+    if (depth <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Sketch depth and width must be positive");
+    }
+    this.depth = depth;
+    this.width = width;
+    this.table = new double[depth * width];
+  }
+
+  public int depth() {
+    return depth;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public double totalCount() {
+    return totalCount;
+  }
+
+  public void add(String item, double count) {
+    long hash = hash64(item);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int row = 0; row < depth; row++) {
+      table[row * width + index(h1, h2, row)] += count;
+    }
+    totalCount += count;
+  }
+
+  public double estimate(String item) {
+    long hash = hash64(item);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    double min = Double.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      min = Math.min(min, table[row * width + index(h1, h2, row)]);
+    }
+    return min;
+  }
+
+  public void merge(CountMinSketch other) {
+    mergeScaled(other, 1.0);
+  }
+
+  public void mergeScaled(CountMinSketch other, double factor) {
+    if (other.depth != depth || other.width != width) {
+      throw new IllegalArgumentException(
+          "Cannot merge sketches of different dimensions: "
+              + depth
+              + "x"
+              + width
+              + " vs "
+              + other.depth
+              + "x"
+              + other.width);
+    }
+    for (int i = 0; i < table.length; i++) {
+      table[i] += other.table[i] * factor;
+    }
+    totalCount += other.totalCount * factor;
+  }
+
+  public void scale(double factor) {
+    for (int i = 0; i < table.length; i++) {
+      table[i] *= factor;
+    }
+    totalCount *= factor;
+  }
+
+  public CountMinSketch copy() {
+    CountMinSketch copy = new CountMinSketch(depth, width);
+    System.arraycopy(table, 0, copy.table, 0, table.length);
+    copy.totalCount = totalCount;
+    return copy;
+  }
+
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(depth);
+    out.writeInt(width);
+    out.writeDouble(totalCount);
+    for (double cell : table) {
+      out.writeDouble(cell);
+    }
+  }
+
+  public static CountMinSketch readFrom(DataInput in) throws IOException {
+    CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+    sketch.totalCount = in.readDouble();
+    for (int i = 0; i < sketch.table.length; i++) {
+      sketch.table[i] = in.readDouble();
+    }
+    return sketch;
+  }
+
+  // Kirsch-Mitzenmacher: derive every row's hash from two halves of one 64-bit hash
+  private int index(int h1, int h2, int row) {
+    return Math.floorMod(h1 + row * h2, width);
+  }
+
+  // FNV-1a over UTF-8 bytes followed by the murmur3 finalizer to spread the low bits
+  static long hash64(String item) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,6 @@
+package com.lambrk.search;
+
+public enum DocumentKind {
+  POST,
+  COMMENT
+}
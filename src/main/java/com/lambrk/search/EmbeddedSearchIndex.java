@@ -0,0 +1,323 @@
+package com.lambrk.search;
+
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.PostChangedEvent;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional embedded search backend for deployments without Postgres full-text extensions, enabled
+ * with {@code lambrk.search.backend=embedded}. The index is kept current from {@link
+ * PostChangedEvent} and {@link CommentChangedEvent} after commit, which the committing node also
+ * hands to {@link KafkaSearchIndexStream} for every other node, and snapshotted to local disk. On
+ * startup the snapshot is loaded and then only rows changed since it was written are re-read from
+ * the database, removed ones included; without a snapshot the whole corpus is read once. Each
+ * change carries the time it was made and only ever replaces an older copy, so replays, echoes and
+ * catch-up reads can arrive in any order. Until the first catch-up finishes {@link #isReady()} is
+ * false and {@code SearchService} stays on SQL.
+ */
+@Service
+@Lazy(false)
+@ConditionalOnProperty(prefix = "lambrk.search", name = "backend", havingValue = "embedded")
+public class EmbeddedSearchIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(EmbeddedSearchIndex.class);
+
+  private static final int SNAPSHOT_MAGIC = 0x4c534958; // "LSIX"
+  private static final int SNAPSHOT_VERSION = 2;
+
+  private final EmbeddedSearchProperties properties;
+  private final PostRepository postRepository;
+  private final CommentRepository commentRepository;
+  private final ObjectProvider<KafkaSearchIndexStream> stream;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private InvertedIndex index = new InvertedIndex();
+  private volatile boolean ready;
+
+  public EmbeddedSearchIndex(
+      EmbeddedSearchProperties properties,
+      PostRepository postRepository,
+      CommentRepository commentRepository,
+      ObjectProvider<KafkaSearchIndexStream> stream) {
+    this.properties = properties;
+    this.postRepository = postRepository;
+    this.commentRepository = commentRepository;
+    this.stream = stream;
+  }
+
+  @PostConstruct
+  public void init() {
+    Instant since = loadSnapshot();
+    Thread.ofVirtual().name("search-index-catch-up").start(() -> catchUp(since));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    persistSnapshot();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Visits every indexed term with its document frequency, counting deleted documents. */
+  public void forEachTerm(ObjIntConsumer<String> consumer) {
+    lock.readLock().lock();
+    try {
+      index.forEachTerm(consumer);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Ranked IDs for one page of results; filters other than community and time apply later. */
+  public List<UUID> search(
+      DocumentKind kind,
+      String query,
+      Collection<String> communities,
+      Instant since,
+      boolean newestFirst,
+      int page,
+      int size) {
+    List<String> terms = SearchTokenizer.tokenize(query);
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+    InvertedIndex.Query indexQuery =
+        new InvertedIndex.Query(
+            terms,
+            kind,
+            Set.copyOf(communities),
+            since.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : since.toEpochMilli(),
+            newestFirst,
+            page * size,
+            size,
+            System.currentTimeMillis(),
+            properties.getRecencyWeight(),
+            properties.getRecencyHalfLifeMs());
+    lock.readLock().lock();
+    try {
+      return index.search(indexQuery);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Stamped after commit, so a catch-up read of the committed row is never newer than the change
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostChanged(PostChangedEvent event) {
+    Instant now = Instant.now();
+    publish(
+        event.changeType() == ContentChangeType.DELETED
+            ? IndexedDocument.tombstone(event.postId(), DocumentKind.POST, now)
+            : new IndexedDocument(
+                event.postId(),
+                DocumentKind.POST,
+                event.title(),
+                event.content(),
+                event.communityName(),
+                event.createdAt(),
+                now,
+                false));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentChanged(CommentChangedEvent event) {
+    Instant now = Instant.now();
+    publish(
+        event.changeType() == ContentChangeType.DELETED
+            ? IndexedDocument.tombstone(event.commentId(), DocumentKind.COMMENT, now)
+            : new IndexedDocument(
+                event.commentId(),
+                DocumentKind.COMMENT,
+                null,
+                event.content(),
+                null,
+                event.createdAt(),
+                now,
+                false));
+  }
+
+  /**
+   * Applies a change unless the index already holds a copy or a removal of the document at least as
+   * new.
+   */
+  public void apply(IndexedDocument change) {
+    lock.writeLock().lock();
+    try {
+      index.apply(change);
+      compactIfNeeded();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.search.embedded.snapshot-interval-ms:300000}",
+      initialDelayString = "${lambrk.search.embedded.snapshot-interval-ms:300000}")
+  public void persistSnapshot() {
+    if (!ready) {
+      return;
+    }
+    Path target = Paths.get(properties.getSnapshotPath());
+    Instant watermark = Instant.now().minusMillis(properties.getCatchUpMarginMs());
+    lock.writeLock().lock();
+    try {
+      index.compact();
+      index.forgetRemovalsBefore(watermark.toEpochMilli());
+      // Downgrade so searches proceed while the compacted index is written out
+      lock.readLock().lock();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      Path directory = target.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      Path temp = Files.createTempFile(directory, "search-index", ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(watermark.toEpochMilli());
+        index.writeTo(out);
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Failed to persist search index snapshot to {}: {}", target, e.getMessage());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void publish(IndexedDocument change) {
+    apply(change);
+    stream.ifAvailable(kafka -> kafka.send(change));
+  }
+
+  private void compactIfNeeded() {
+    if (index.deletedRatio() > properties.getCompactionThreshold()) {
+      index.compact();
+    }
+  }
+
+  private Instant loadSnapshot() {
+    Path source = Paths.get(properties.getSnapshotPath());
+    if (!Files.exists(source)) {
+      return Instant.EPOCH;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+        logger.warn("Ignoring search index snapshot {} with an unknown format", source);
+        return Instant.EPOCH;
+      }
+      Instant watermark = Instant.ofEpochMilli(in.readLong());
+      InvertedIndex restored = InvertedIndex.readFrom(in);
+      lock.writeLock().lock();
+      try {
+        index = restored;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      ready = true;
+      logger.info(
+          "Restored search index snapshot from {} with {} documents", source, restored.size());
+      return watermark;
+    } catch (IOException e) {
+      logger.warn("Failed to read search index snapshot {}: {}", source, e.getMessage());
+      return Instant.EPOCH;
+    }
+  }
+
+  private void catchUp(Instant since) {
+    try {
+      int posts =
+          indexChangedSince(
+              pageable -> postRepository.findIndexedDocumentsChangedSince(since, pageable));
+      int comments =
+          indexChangedSince(
+              pageable -> commentRepository.findIndexedDocumentsChangedSince(since, pageable));
+      // A full rebuild reads every removal ever made; only recent ones can still meet a stale copy
+      lock.writeLock().lock();
+      try {
+        index.forgetRemovalsBefore(
+            Instant.now().minusMillis(properties.getCatchUpMarginMs()).toEpochMilli());
+      } finally {
+        lock.writeLock().unlock();
+      }
+      ready = true;
+      logger.info(
+          "Search index caught up from {}: {} posts, {} comments changed, {} documents total",
+          since,
+          posts,
+          comments,
+          size());
+    } catch (RuntimeException e) {
+      logger.error("Search index catch-up from {} failed", since, e);
+    }
+  }
+
+  // Slices are read outside the lock; a row that changed again meanwhile loses to the newer copy
+  private int indexChangedSince(Function<Pageable, Slice<IndexedDocument>> query) {
+    int indexed = 0;
+    Pageable pageable = PageRequest.of(0, properties.getCatchUpPageSize());
+    while (true) {
+      Slice<IndexedDocument> slice = query.apply(pageable);
+      lock.writeLock().lock();
+      try {
+        for (IndexedDocument document : slice) {
+          if (index.apply(document)) {
+            indexed++;
+          }
+        }
+        compactIfNeeded();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      if (!slice.hasNext()) {
+        return indexed;
+      }
+      pageable = slice.nextPageable();
+    }
+  }
+}
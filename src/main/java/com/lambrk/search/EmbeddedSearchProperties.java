@@ -0,0 +1,109 @@
+package com.lambrk.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.search.embedded")
+public class EmbeddedSearchProperties {
+
+  private String snapshotPath = "./data/search-index.snapshot";
+  private long snapshotIntervalMs = 300_000;
+  private long catchUpMarginMs = 300_000;
+  private int catchUpPageSize = 500;
+  private double compactionThreshold = 0.25;
+  private double recencyWeight = 0.5;
+  private long recencyHalfLifeMs = 604_800_000;
+  private String transport = "kafka";
+  private String topic = "search.index-changes";
+  private int partitions = 12;
+  private short replicas = 1;
+
+  public String getSnapshotPath() {
+    return snapshotPath;
+  }
+
+  public void setSnapshotPath(String snapshotPath) {
+    this.snapshotPath = snapshotPath;
+  }
+
+  public long getSnapshotIntervalMs() {
+    return snapshotIntervalMs;
+  }
+
+  public void setSnapshotIntervalMs(long snapshotIntervalMs) {
+    this.snapshotIntervalMs = snapshotIntervalMs;
+  }
+
+  public long getCatchUpMarginMs() {
+    return catchUpMarginMs;
+  }
+
+  public void setCatchUpMarginMs(long catchUpMarginMs) {
+    this.catchUpMarginMs = catchUpMarginMs;
+  }
+
+  public int getCatchUpPageSize() {
+    return catchUpPageSize;
+  }
+
+  public void setCatchUpPageSize(int catchUpPageSize) {
+    this.catchUpPageSize = catchUpPageSize;
+  }
+
+  public double getCompactionThreshold() {
+    return compactionThreshold;
+  }
+
+  public void setCompactionThreshold(double compactionThreshold) {
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  public double getRecencyWeight() {
+    return recencyWeight;
+  }
+
+  public void setRecencyWeight(double recencyWeight) {
+    this.recencyWeight = recencyWeight;
+  }
+
+  public long getRecencyHalfLifeMs() {
+    return recencyHalfLifeMs;
+  }
+
+  public void setRecencyHalfLifeMs(long recencyHalfLifeMs) {
+    this.recencyHalfLifeMs = recencyHalfLifeMs;
+  }
+
+  public String getTransport() {
+    return transport;
+  }
+
+  public void setTransport(String transport) {
+    this.transport = transport;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(int partitions) {
+    this.partitions = partitions;
+  }
+
+  public short getReplicas() {
+    return replicas;
+  }
+
+  public void setReplicas(short replicas) {
+    this.replicas = replicas;
+  }
+}
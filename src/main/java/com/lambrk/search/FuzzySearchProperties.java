@@ -0,0 +1,100 @@
+package com.lambrk.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.search.fuzzy")
+public class FuzzySearchProperties {
+
+  private boolean enabled = true;
+  private boolean autoRerun = true;
+  private int maxTerms = 50_000;
+  private int maxEditDistance = 2;
+  private int prefixLength = 7;
+  private int maxSuggestions = 3;
+  private int nameLimit = 20_000;
+  private int titleLimit = 20_000;
+  private int nameWeight = 5;
+  private long rebuildIntervalMs = 600_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isAutoRerun() {
+    return autoRerun;
+  }
+
+  public void setAutoRerun(boolean autoRerun) {
+    this.autoRerun = autoRerun;
+  }
+
+  public int getMaxTerms() {
+    return maxTerms;
+  }
+
+  public void setMaxTerms(int maxTerms) {
+    this.maxTerms = maxTerms;
+  }
+
+  public int getMaxEditDistance() {
+    return maxEditDistance;
+  }
+
+  public void setMaxEditDistance(int maxEditDistance) {
+    this.maxEditDistance = maxEditDistance;
+  }
+
+  public int getPrefixLength() {
+    return prefixLength;
+  }
+
+  public void setPrefixLength(int prefixLength) {
+    this.prefixLength = prefixLength;
+  }
+
+  public int getMaxSuggestions() {
+    return maxSuggestions;
+  }
+
+  public void setMaxSuggestions(int maxSuggestions) {
+    this.maxSuggestions = maxSuggestions;
+  }
+
+  public int getNameLimit() {
+    return nameLimit;
+  }
+
+  public void setNameLimit(int nameLimit) {
+    this.nameLimit = nameLimit;
+  }
+
+  public int getTitleLimit() {
+    return titleLimit;
+  }
+
+  public void setTitleLimit(int titleLimit) {
+    this.titleLimit = titleLimit;
+  }
+
+  public int getNameWeight() {
+    return nameWeight;
+  }
+
+  public void setNameWeight(int nameWeight) {
+    this.nameWeight = nameWeight;
+  }
+
+  public long getRebuildIntervalMs() {
+    return rebuildIntervalMs;
+  }
+
+  public void setRebuildIntervalMs(long rebuildIntervalMs) {
+    this.rebuildIntervalMs = rebuildIntervalMs;
+  }
+}
@@ -0,0 +1,200 @@
+package com.lambrk.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable SymSpell-style dictionary for edit-distance lookups. Every term contributes the strings
+ * reachable by deleting up to {@code maxEditDistance} characters from its first {@code
+ * prefixLength} characters; a lookup generates the same deletes for the input and verifies the
+ * candidates that share one with a bounded Damerau-Levenshtein distance.
+ *
+ * <p>Deletes are not stored as strings: each is reduced to its hash and packed with the term's
+ * index into one {@code long}, and the array is sorted so candidates are found by binary search.
+ * Hash collisions only add candidates that fail verification, and memory is about eight bytes per
+ * delete plus the terms themselves.
+ */
+public final class FuzzyTermDictionary {
+
+  private static final FuzzyTermDictionary EMPTY =
+      new FuzzyTermDictionary(new String[0], new int[0], new long[0], 0, 0);
+
+  private final String[] terms; // sorted, for exact lookups
+  private final int[] frequencies;
+  private final long[] deletes; // (hash << 32) | term index, sorted
+  private final int maxEditDistance;
+  private final int prefixLength;
+
+  private FuzzyTermDictionary(
+      String[] terms, int[] frequencies, long[] deletes, int maxEditDistance, int prefixLength) {
+    this.terms = terms;
+    this.frequencies = frequencies;
+    this.deletes = deletes;
+    this.maxEditDistance = maxEditDistance;
+    this.prefixLength = prefixLength;
+  }
+
+  public static FuzzyTermDictionary empty() {
+    return EMPTY;
+  }
+
+  /** Builds a dictionary from the {@code maxTerms} most frequent entries of {@code counts}. */
+  public static FuzzyTermDictionary build(
+      Map<String, Integer> counts, int maxTerms, int maxEditDistance, int prefixLength) {
+    String[] terms =
+        counts.entrySet().stream()
+            .sorted(
+                Map.Entry.<String, Integer>comparingByValue()
+                    .reversed()
+                    .thenComparing(Map.Entry.comparingByKey()))
+            .limit(maxTerms)
+            .map(Map.Entry::getKey)
+            .sorted()
+            .toArray(String[]::new);
+    int[] frequencies = new int[terms.length];
+    long[] deletes = new long[Math.max(16, terms.length * 8)];
+    int size = 0;
+    for (int i = 0; i < terms.length; i++) {
+      frequencies[i] = counts.get(terms[i]);
+      for (String delete : deletesOf(terms[i], maxEditDistance, prefixLength)) {
+        if (size == deletes.length) {
+          deletes = Arrays.copyOf(deletes, size * 2);
+        }
+        deletes[size++] = ((long) delete.hashCode() << 32) | i;
+      }
+    }
+    deletes = Arrays.copyOf(deletes, size);
+    Arrays.sort(deletes);
+    return new FuzzyTermDictionary(terms, frequencies, deletes, maxEditDistance, prefixLength);
+  }
+
+  public int size() {
+    return terms.length;
+  }
+
+  public boolean contains(String term) {
+    return Arrays.binarySearch(terms, term) >= 0;
+  }
+
+  public long estimatedBytes() {
+    long bytes = deletes.length * 8L + frequencies.length * 4L;
+    for (String term : terms) {
+      bytes += 40 + term.length();
+    }
+    return bytes;
+  }
+
+  /**
+   * Terms within {@code maxDistance} edits of {@code input} (capped at the dictionary's build
+   * distance), closest first and then most frequent.
+   */
+  public List<Correction> lookup(String input, int maxDistance, int limit) {
+    int distanceLimit = Math.min(maxDistance, maxEditDistance);
+    if (terms.length == 0 || input.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    BitSet seen = new BitSet(terms.length);
+    List<Correction> matches = new ArrayList<>();
+    for (String delete : deletesOf(input, distanceLimit, prefixLength)) {
+      long hash = (long) delete.hashCode() << 32;
+      for (int i = lowerBound(hash);
+          i < deletes.length && (deletes[i] & ~0xFFFFFFFFL) == hash;
+          i++) {
+        int termIndex = (int) deletes[i];
+        if (seen.get(termIndex)) {
+          continue;
+        }
+        seen.set(termIndex);
+        String term = terms[termIndex];
+        if (Math.abs(term.length() - input.length()) > distanceLimit) {
+          continue;
+        }
+        int distance = distance(input, term, distanceLimit);
+        if (distance <= distanceLimit) {
+          matches.add(new Correction(term, distance, frequencies[termIndex]));
+        }
+      }
+    }
+    matches.sort(
+        Comparator.comparingInt(Correction::distance)
+            .thenComparing(Comparator.comparingInt(Correction::frequency).reversed())
+            .thenComparing(Correction::term));
+    return matches.size() <= limit ? matches : matches.subList(0, limit);
+  }
+
+  private int lowerBound(long hash) {
+    int low = 0;
+    int high = deletes.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (deletes[mid] < hash) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  static Set<String> deletesOf(String term, int maxEditDistance, int prefixLength) {
+    String prefix = term.length() > prefixLength ? term.substring(0, prefixLength) : term;
+    Set<String> deletes = new HashSet<>();
+    deletes.add(prefix);
+    addDeletes(prefix, maxEditDistance, deletes);
+    return deletes;
+  }
+
+  private static void addDeletes(String word, int remaining, Set<String> deletes) {
+    if (remaining == 0 || word.length() <= 1) {
+      return;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      String delete = word.substring(0, i) + word.substring(i + 1);
+      if (deletes.add(delete)) {
+        addDeletes(delete, remaining - 1, deletes);
+      }
+    }
+  }
+
+  /** Optimal string alignment distance, or {@code max + 1} as soon as it must exceed max. */
+  static int distance(String a, String b, int max) {
+    int[] previousPrevious = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+        if (i > 1
+            && j > 1
+            && a.charAt(i - 1) == b.charAt(j - 2)
+            && a.charAt(i - 2) == b.charAt(j - 1)) {
+          value = Math.min(value, previousPrevious[j - 2] + 1);
+        }
+        current[j] = value;
+        rowMin = Math.min(rowMin, value);
+      }
+      if (rowMin > max) {
+        return max + 1;
+      }
+      int[] recycled = previousPrevious;
+      previousPrevious = previous;
+      previous = current;
+      current = recycled;
+    }
+    return Math.min(previous[b.length()], max + 1);
+  }
+
+  public record Correction(String term, int distance, int frequency) {}
+}
@@ -0,0 +1,75 @@
+package com.lambrk.search;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Searchable text of a post or comment, as fed to the embedded index. {@code updatedAt} orders
+ * copies of the same document, so a stale read never replaces a newer one. A {@code deleted}
+ * document is a tombstone: the post or comment is gone from search and only its ID matters.
+ */
+public record IndexedDocument(
+    UUID id,
+    DocumentKind kind,
+    String title,
+    String body,
+    String communityName,
+    Instant createdAt,
+    Instant updatedAt,
+    boolean deleted) {
+
+  /** Post row, used by JPQL constructor expressions; removed and archived posts are tombstones. */
+  public IndexedDocument(
+      UUID id,
+      String title,
+      String body,
+      String communityName,
+      Instant createdAt,
+      Instant updatedAt,
+      boolean removed,
+      boolean archived) {
+    this(
+        id,
+        DocumentKind.POST,
+        title,
+        body,
+        communityName,
+        createdAt,
+        updatedAt,
+        removed || archived);
+  }
+
+  /**
+   * Comment row, used by JPQL constructor expressions; deleted and removed comments are tombstones.
+   */
+  public IndexedDocument(
+      UUID id,
+      String body,
+      Instant createdAt,
+      Instant updatedAt,
+      boolean deleted,
+      boolean removed) {
+    this(id, DocumentKind.COMMENT, null, body, null, createdAt, updatedAt, deleted || removed);
+  }
+
+  /** A post as it was created. */
+  public IndexedDocument(
+      UUID id, String title, String body, String communityName, Instant createdAt) {
+    this(id, DocumentKind.POST, title, body, communityName, createdAt, createdAt, false);
+  }
+
+  /** A comment as it was created. */
+  public IndexedDocument(UUID id, String body, Instant createdAt) {
+    this(id, DocumentKind.COMMENT, null, body, null, createdAt, createdAt, false);
+  }
+
+  public static IndexedDocument tombstone(UUID id, DocumentKind kind, Instant updatedAt) {
+    return new IndexedDocument(id, kind, null, null, null, null, updatedAt, true);
+  }
+
+  /** Epoch milliseconds of this copy; later copies of a document win. */
+  long version() {
+    Instant at = updatedAt != null ? updatedAt : createdAt;
+    return at != null ? at.toEpochMilli() : 0;
+  }
+}
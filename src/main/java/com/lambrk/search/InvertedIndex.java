@@ -0,0 +1,284 @@
+package com.lambrk.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * In-memory inverted index over posts and comments. Documents get dense, increasing internal IDs so
+ * posting lists stay append-only; updates and deletes tombstone the old ID and {@link #compact()}
+ * rewrites the lists without them. Ranking is BM25 with title terms counted twice, multiplied by a
+ * recency boost. {@link #apply} keeps the newest copy of each document, by {@link
+ * IndexedDocument#version()}, and remembers removals so an older copy cannot bring one back. Not
+ * thread-safe.
+ */
+final class InvertedIndex {
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int TITLE_WEIGHT = 2;
+
+  private final Map<String, PostingList> postings = new HashMap<>();
+  private final List<DocInfo> docs = new ArrayList<>();
+  private final Map<UUID, Integer> docIds = new HashMap<>();
+  private final BitSet deleted = new BitSet();
+  private final Map<UUID, Long> removals = new HashMap<>();
+  private long totalLength;
+  private int liveDocs;
+
+  int size() {
+    return liveDocs;
+  }
+
+  int termCount() {
+    return postings.size();
+  }
+
+  void forEachTerm(ObjIntConsumer<String> consumer) {
+    postings.forEach((term, list) -> consumer.accept(term, list.documentFrequency()));
+  }
+
+  long postingBytes() {
+    return postings.values().stream().mapToLong(PostingList::sizeInBytes).sum();
+  }
+
+  double deletedRatio() {
+    return docs.isEmpty() ? 0 : (double) (docs.size() - liveDocs) / docs.size();
+  }
+
+  /**
+   * Adds, replaces or removes the document unless the index already holds a copy or a removal of it
+   * that is at least as new.
+   *
+   * @return whether the index changed
+   */
+  boolean apply(IndexedDocument document) {
+    Integer docId = docIds.get(document.id());
+    Long current = removals.get(document.id());
+    if (docId != null) {
+      current = docs.get(docId).version();
+    }
+    if (current != null && current >= document.version()) {
+      return false;
+    }
+    if (document.deleted()) {
+      remove(document.id());
+      removals.put(document.id(), document.version());
+    } else {
+      removals.remove(document.id());
+      add(document);
+    }
+    return true;
+  }
+
+  /** Forgets removals older than {@code millis}, once no copy read before them can still arrive. */
+  void forgetRemovalsBefore(long millis) {
+    removals.values().removeIf(version -> version < millis);
+  }
+
+  void add(IndexedDocument document) {
+    remove(document.id());
+
+    Map<String, Integer> frequencies = new HashMap<>();
+    int length = 0;
+    for (String token : SearchTokenizer.tokenize(document.title())) {
+      frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+      length += TITLE_WEIGHT;
+    }
+    for (String token : SearchTokenizer.tokenize(document.body())) {
+      frequencies.merge(token, 1, Integer::sum);
+      length++;
+    }
+
+    int docId = docs.size();
+    long createdAt = document.createdAt() != null ? document.createdAt().toEpochMilli() : 0;
+    docs.add(
+        new DocInfo(
+            document.id(),
+            document.kind(),
+            length,
+            createdAt,
+            document.version(),
+            document.communityName()));
+    docIds.put(document.id(), docId);
+    frequencies.forEach(
+        (term, frequency) ->
+            postings.computeIfAbsent(term, ignored -> new PostingList()).append(docId, frequency));
+    totalLength += length;
+    liveDocs++;
+  }
+
+  boolean remove(UUID id) {
+    Integer docId = docIds.remove(id);
+    if (docId == null) {
+      return false;
+    }
+    deleted.set(docId);
+    totalLength -= docs.get(docId).length();
+    liveDocs--;
+    return true;
+  }
+
+  List<UUID> search(Query query) {
+    Set<String> terms = new LinkedHashSet<>(query.terms());
+    double averageLength = liveDocs == 0 ? 1 : (double) totalLength / liveDocs;
+    Map<Integer, Double> scores = new HashMap<>();
+
+    for (String term : terms) {
+      PostingList list = postings.get(term);
+      if (list == null) {
+        continue;
+      }
+      int df = list.documentFrequency();
+      double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+      list.forEach(
+          (docId, tf) -> {
+            if (deleted.get(docId)) {
+              return;
+            }
+            DocInfo doc = docs.get(docId);
+            if (!query.matches(doc)) {
+              return;
+            }
+            double norm = K1 * (1 - B + B * doc.length() / averageLength);
+            scores.merge(docId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+          });
+    }
+
+    Comparator<Map.Entry<Integer, Double>> order =
+        query.newestFirst()
+            ? Comparator.comparingLong(entry -> docs.get(entry.getKey()).createdAtMillis())
+            : Comparator.comparingDouble(entry -> boosted(entry, query));
+    int wanted = query.offset() + query.limit();
+    PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(order);
+    for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+      top.add(entry);
+      if (top.size() > wanted) {
+        top.poll();
+      }
+    }
+
+    List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(top);
+    ranked.sort(order.reversed());
+    return ranked.stream()
+        .skip(query.offset())
+        .map(entry -> docs.get(entry.getKey()).id())
+        .toList();
+  }
+
+  private double boosted(Map.Entry<Integer, Double> entry, Query query) {
+    long age = Math.max(0, query.nowMillis() - docs.get(entry.getKey()).createdAtMillis());
+    double freshness = Math.pow(0.5, (double) age / query.recencyHalfLifeMillis());
+    return entry.getValue() * (1 + query.recencyWeight() * freshness);
+  }
+
+  /** Drops tombstoned documents and renumbers the rest, preserving posting order. */
+  void compact() {
+    if (liveDocs == docs.size()) {
+      return;
+    }
+    int[] remap = new int[docs.size()];
+    List<DocInfo> live = new ArrayList<>(liveDocs);
+    for (int docId = 0; docId < docs.size(); docId++) {
+      if (deleted.get(docId)) {
+        remap[docId] = -1;
+      } else {
+        remap[docId] = live.size();
+        live.add(docs.get(docId));
+      }
+    }
+    postings.replaceAll((term, list) -> list.remap(remap));
+    postings.values().removeIf(list -> list.documentFrequency() == 0);
+    docs.clear();
+    docs.addAll(live);
+    deleted.clear();
+    docIds.clear();
+    for (int docId = 0; docId < docs.size(); docId++) {
+      docIds.put(docs.get(docId).id(), docId);
+    }
+  }
+
+  /** Writes a compacted copy of the index; tombstones and removals are never persisted. */
+  void writeTo(DataOutput out) throws IOException {
+    compact();
+    out.writeInt(docs.size());
+    for (DocInfo doc : docs) {
+      out.writeLong(doc.id().getMostSignificantBits());
+      out.writeLong(doc.id().getLeastSignificantBits());
+      out.writeByte(doc.kind().ordinal());
+      out.writeInt(doc.length());
+      out.writeLong(doc.createdAtMillis());
+      out.writeLong(doc.version());
+      out.writeBoolean(doc.community() != null);
+      if (doc.community() != null) {
+        out.writeUTF(doc.community());
+      }
+    }
+    out.writeInt(postings.size());
+    for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+      out.writeUTF(entry.getKey());
+      entry.getValue().writeTo(out);
+    }
+  }
+
+  static InvertedIndex readFrom(DataInput in) throws IOException {
+    InvertedIndex index = new InvertedIndex();
+    DocumentKind[] kinds = DocumentKind.values();
+    int docCount = in.readInt();
+    for (int docId = 0; docId < docCount; docId++) {
+      UUID id = new UUID(in.readLong(), in.readLong());
+      DocumentKind kind = kinds[in.readByte()];
+      int length = in.readInt();
+      long createdAt = in.readLong();
+      long version = in.readLong();
+      String community = in.readBoolean() ? in.readUTF() : null;
+      index.docs.add(new DocInfo(id, kind, length, createdAt, version, community));
+      index.docIds.put(id, docId);
+      index.totalLength += length;
+    }
+    index.liveDocs = docCount;
+    int termCount = in.readInt();
+    for (int i = 0; i < termCount; i++) {
+      index.postings.put(in.readUTF(), PostingList.readFrom(in));
+    }
+    return index;
+  }
+
+  record Query(
+      List<String> terms,
+      DocumentKind kind,
+      Set<String> communities,
+      long sinceMillis,
+      boolean newestFirst,
+      int offset,
+      int limit,
+      long nowMillis,
+      double recencyWeight,
+      long recencyHalfLifeMillis) {
+
+    boolean matches(DocInfo doc) {
+      return doc.kind() == kind
+          && doc.createdAtMillis() >= sinceMillis
+          && (communities.isEmpty() || communities.contains(doc.community()));
+    }
+  }
+
+  record DocInfo(
+      UUID id,
+      DocumentKind kind,
+      int length,
+      long createdAtMillis,
+      long version,
+      String community) {}
+}
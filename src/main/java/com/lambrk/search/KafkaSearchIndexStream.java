@@ -0,0 +1,69 @@
+package com.lambrk.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries embedded index changes from the node that committed them to every node, on one
+ * partitioned Kafka topic keyed by document ID so each document's changes stay in order. Enabled
+ * with the embedded backend unless {@code lambrk.search.embedded.transport=in-memory}. Like the
+ * realtime notification stream, every node assigns itself all partitions without a consumer group
+ * and starts from the latest offset; a restarted node picks up what it missed in its database
+ * catch-up. A node also reads back its own changes, which it has already applied and skips.
+ */
+@Component
+@ConditionalOnExpression(
+    "'${lambrk.search.backend:sql}' == 'embedded'"
+        + " and '${lambrk.search.embedded.transport:kafka}' == 'kafka'")
+public class KafkaSearchIndexStream {
+
+  private static final Logger log = LoggerFactory.getLogger(KafkaSearchIndexStream.class);
+
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final EmbeddedSearchIndex index;
+  private final EmbeddedSearchProperties properties;
+  private final ObjectMapper objectMapper;
+
+  public KafkaSearchIndexStream(
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      EmbeddedSearchIndex index,
+      EmbeddedSearchProperties properties,
+      ObjectMapper objectMapper) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.index = index;
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+  }
+
+  public void send(IndexedDocument change) {
+    try {
+      kafkaTemplate.send(
+          properties.getTopic(), change.id().toString(), objectMapper.writeValueAsBytes(change));
+    } catch (JsonProcessingException e) {
+      log.warn("Failed to encode search index change for {}: {}", change.id(), e.getMessage());
+    }
+  }
+
+  @KafkaListener(
+      topicPartitions =
+          @TopicPartition(
+              topic = "${lambrk.search.embedded.topic:search.index-changes}",
+              partitions = "0-#{${lambrk.search.embedded.partitions:12} - 1}"),
+      properties = {"enable.auto.commit=false", "auto.offset.reset=latest"})
+  public void onRecord(ConsumerRecord<String, byte[]> record) {
+    try {
+      index.apply(objectMapper.readValue(record.value(), IndexedDocument.class));
+    } catch (IOException e) {
+      log.warn("Skipping undecodable search index change for {}: {}", record.key(), e.getMessage());
+    }
+  }
+}
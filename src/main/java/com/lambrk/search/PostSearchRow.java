@@ -0,0 +1,73 @@
+package com.lambrk.search;
+
+import com.lambrk.domain.Community;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.dto.CommunityResponse;
+import com.lambrk.dto.MediaResponse;
+import com.lambrk.dto.PostResponse;
+import com.lambrk.dto.UserResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A post as shown in search results, loaded by a JPQL constructor expression that leaves out the
+ * body so hydrating a page of hits never reads the {@code content} column.
+ */
+public record PostSearchRow(
+    UUID id,
+    String title,
+    String url,
+    Post.PostType postType,
+    String thumbnailUrl,
+    String flairText,
+    String flairCssClass,
+    boolean isSpoiler,
+    boolean isStickied,
+    boolean isLocked,
+    boolean isArchived,
+    boolean isOver18,
+    int score,
+    int likeCount,
+    int dislikeCount,
+    int commentCount,
+    int viewCount,
+    int awardCount,
+    User author,
+    Community community,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant archivedAt) {
+
+  public PostResponse toResponse(List<MediaResponse> media) {
+    return new PostResponse(
+        id,
+        title,
+        null,
+        url,
+        postType,
+        com.lambrk.util.CdnUrlResolver.resolve(thumbnailUrl),
+        flairText,
+        flairCssClass,
+        isSpoiler,
+        isStickied,
+        isLocked,
+        isArchived,
+        isOver18,
+        score,
+        likeCount,
+        dislikeCount,
+        commentCount,
+        viewCount,
+        awardCount,
+        UserResponse.from(author),
+        community != null ? CommunityResponse.from(community) : null,
+        createdAt,
+        updatedAt,
+        archivedAt,
+        null,
+        false,
+        media);
+  }
+}
@@ -0,0 +1,108 @@
+package com.lambrk.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Append-only posting list for one term. Entries are {@code (docId, termFrequency)} pairs in
+ * ascending doc order, stored as varint-encoded doc-ID gaps followed by varint frequencies, which
+ * keeps most entries at two bytes.
+ */
+final class PostingList {
+
+  private byte[] data = new byte[8];
+  private int length;
+  private int lastDocId = -1;
+  private int documentFrequency;
+
+  int documentFrequency() {
+    return documentFrequency;
+  }
+
+  int sizeInBytes() {
+    return length;
+  }
+
+  void append(int docId, int termFrequency) {
+    if (docId <= lastDocId) {
+      throw new IllegalArgumentException(
+          "Doc IDs must be appended in ascending order: " + docId + " after " + lastDocId);
+    }
+    writeVarint(docId - lastDocId);
+    writeVarint(termFrequency);
+    lastDocId = docId;
+    documentFrequency++;
+  }
+
+  void forEach(PostingConsumer consumer) {
+    int position = 0;
+    int docId = -1;
+    while (position < length) {
+      int gap = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = data[position++];
+        gap |= (b & 0x7f) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      int termFrequency = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = data[position++];
+        termFrequency |= (b & 0x7f) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      docId += gap;
+      consumer.accept(docId, termFrequency);
+    }
+  }
+
+  /** Re-encodes the list with new doc IDs; {@code remap[old] < 0} drops the entry. */
+  PostingList remap(int[] remap) {
+    PostingList remapped = new PostingList();
+    forEach(
+        (docId, termFrequency) -> {
+          if (remap[docId] >= 0) {
+            remapped.append(remap[docId], termFrequency);
+          }
+        });
+    return remapped;
+  }
+
+  void writeTo(DataOutput out) throws IOException {
+    out.writeInt(documentFrequency);
+    out.writeInt(lastDocId);
+    out.writeInt(length);
+    out.write(data, 0, length);
+  }
+
+  static PostingList readFrom(DataInput in) throws IOException {
+    PostingList list = new PostingList();
+    list.documentFrequency = in.readInt();
+    list.lastDocId = in.readInt();
+    list.length = in.readInt();
+    list.data = new byte[Math.max(8, list.length)];
+    in.readFully(list.data, 0, list.length);
+    return list;
+  }
+
+  private void writeVarint(int value) {
+    if (length + 5 > data.length) {
+      data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+    }
+    while ((value & ~0x7f) != 0) {
+      data[length++] = (byte) ((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    data[length++] = (byte) value;
+  }
+
+  @FunctionalInterface
+  interface PostingConsumer {
+    void accept(int docId, int termFrequency);
+  }
+}
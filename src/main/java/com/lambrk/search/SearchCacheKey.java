@@ -0,0 +1,63 @@
+package com.lambrk.search;
+
+import com.lambrk.dto.SearchRequest;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * User-agnostic identity of a search: the normalized query plus every filter, with list filters in
+ * canonical order, so requests that differ only in case, spacing or filter order share an entry.
+ */
+public record SearchCacheKey(
+    String query,
+    SearchRequest.SearchType type,
+    SearchRequest.SortBy sort,
+    SearchRequest.TimeFilter timeFilter,
+    List<String> communities,
+    List<String> flairs,
+    boolean includeNSFW,
+    boolean includeOver18,
+    Integer minScore,
+    Integer minComments,
+    int page,
+    int size) {
+
+  public static SearchCacheKey from(SearchRequest request) {
+    return new SearchCacheKey(
+        SearchQueryNormalizer.normalize(request.query()),
+        request.type(),
+        request.sort(),
+        request.timeFilter(),
+        canonical(request.communities()),
+        canonical(request.flairs()),
+        request.includeNSFW(),
+        request.includeOver18(),
+        request.minScore(),
+        request.minComments(),
+        request.page(),
+        request.size());
+  }
+
+  public boolean includesPosts() {
+    return type == SearchRequest.SearchType.ALL || type == SearchRequest.SearchType.POSTS;
+  }
+
+  public boolean includesComments() {
+    return type == SearchRequest.SearchType.ALL || type == SearchRequest.SearchType.COMMENTS;
+  }
+
+  /** Whether a post in the given community could appear in this search's results. */
+  public boolean coversCommunity(String communityName) {
+    return communities.isEmpty() || (communityName != null && communities.contains(communityName));
+  }
+
+  private static List<String> canonical(List<String> values) {
+    return Stream.ofNullable(values)
+        .flatMap(List::stream)
+        .filter(value -> value != null && !value.isBlank())
+        .map(String::trim)
+        .distinct()
+        .sorted()
+        .toList();
+  }
+}
@@ -0,0 +1,110 @@
+package com.lambrk.search;
+
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds short highlighted fragments for search hits with {@code ts_headline}, so result lists can
+ * show the matched region without shipping whole bodies to the client.
+ */
+@Component
+public class SearchHighlighter {
+
+  // The queries strip these control characters from the source text, so they mark matches
+  // unambiguously until the fragment is HTML-escaped and they are swapped for <mark> tags
+  private static final char START_MARK = '\u0002';
+  private static final char STOP_MARK = '\u0003';
+
+  private final PostRepository postRepository;
+  private final CommentRepository commentRepository;
+  private final SearchSnippetProperties properties;
+
+  public SearchHighlighter(
+      PostRepository postRepository,
+      CommentRepository commentRepository,
+      SearchSnippetProperties properties) {
+    this.postRepository = postRepository;
+    this.commentRepository = commentRepository;
+    this.properties = properties;
+  }
+
+  public Map<UUID, String> highlightPosts(String query, List<UUID> postIds) {
+    return highlight(
+        query,
+        postIds,
+        (tsQuery, options) ->
+            postRepository.findSearchSnippets(
+                postIds, tsQuery, options, properties.getMaxSourceChars()));
+  }
+
+  public Map<UUID, String> highlightComments(String query, List<UUID> commentIds) {
+    return highlight(
+        query,
+        commentIds,
+        (tsQuery, options) ->
+            commentRepository.findSearchSnippets(
+                commentIds, tsQuery, options, properties.getMaxSourceChars()));
+  }
+
+  private Map<UUID, String> highlight(
+      String query, List<UUID> ids, BiFunction<String, String, List<SearchSnippet>> loader) {
+    String tsQuery = toPrefixQuery(query);
+    if (ids.isEmpty() || tsQuery.isEmpty()) {
+      return Map.of();
+    }
+    Map<UUID, String> snippets = new HashMap<>();
+    for (SearchSnippet snippet : loader.apply(tsQuery, headlineOptions())) {
+      if (snippet.getSnippet() != null && !snippet.getSnippet().isBlank()) {
+        snippets.put(snippet.getId(), toHtml(snippet.getSnippet()));
+      }
+    }
+    return snippets;
+  }
+
+  // Search matches substrings, so each term is a prefix match and any one term may highlight
+  static String toPrefixQuery(String query) {
+    return SearchTokenizer.tokenize(query).stream()
+        .distinct()
+        .map(token -> token + ":*")
+        .collect(Collectors.joining(" | "));
+  }
+
+  private String headlineOptions() {
+    return "StartSel="
+        + START_MARK
+        + ", StopSel="
+        + STOP_MARK
+        + ", MaxWords="
+        + properties.getMaxWords()
+        + ", MinWords="
+        + Math.min(properties.getMinWords(), properties.getMaxWords() - 1)
+        + ", MaxFragments="
+        + properties.getMaxFragments()
+        + ", FragmentDelimiter=\" … \"";
+  }
+
+  static String toHtml(String fragment) {
+    StringBuilder html = new StringBuilder(fragment.length() + 32);
+    for (int i = 0; i < fragment.length(); i++) {
+      char c = fragment.charAt(i);
+      switch (c) {
+        case START_MARK -> html.append("<mark>");
+        case STOP_MARK -> html.append("</mark>");
+        case '<' -> html.append("&lt;");
+        case '>' -> html.append("&gt;");
+        case '&' -> html.append("&amp;");
+        case '"' -> html.append("&quot;");
+        case '\'' -> html.append("&#39;");
+        default -> html.append(c);
+      }
+    }
+    return html.toString();
+  }
+}
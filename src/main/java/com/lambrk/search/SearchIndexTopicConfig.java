@@ -0,0 +1,22 @@
+package com.lambrk.search;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+@ConditionalOnExpression(
+    "'${lambrk.search.backend:sql}' == 'embedded'"
+        + " and '${lambrk.search.embedded.transport:kafka}' == 'kafka'")
+public class SearchIndexTopicConfig {
+
+  @Bean
+  public NewTopic searchIndexChangesTopic(EmbeddedSearchProperties properties) {
+    return TopicBuilder.name(properties.getTopic())
+        .partitions(properties.getPartitions())
+        .replicas(properties.getReplicas())
+        .build();
+  }
+}
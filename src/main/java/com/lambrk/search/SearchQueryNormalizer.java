@@ -0,0 +1,24 @@
+package com.lambrk.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical form for free-text search queries: Unicode-normalized, case-folded and
+ * whitespace-collapsed, so " Java " and "java" are treated as the same query.
+ */
+public final class SearchQueryNormalizer {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private SearchQueryNormalizer() {}
+
+  public static String normalize(String query) {
+    if (query == null) {
+      return "";
+    }
+    String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+    return WHITESPACE.matcher(normalized.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+  }
+}
@@ -0,0 +1,80 @@
+package com.lambrk.search;
+
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.PostChangedEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Shared layer of the search pipeline: maps a {@link SearchCacheKey} to the result IDs, independent
+ * of who is searching. Entries are stored under the key plus the generations of what their results
+ * depend on: the post generation of each community filtered on (or of all posts when unfiltered)
+ * and the comment generation. A committed post or comment change bumps only its own counters, so
+ * the affected entries stop being looked up and age out while the rest stay warm; nothing walks the
+ * cache. Deletions do not bump anything, since hydration already drops deleted rows. Hit rates are
+ * published through the standard {@code cache.gets} metrics of the {@code searchResults} cache.
+ */
+@Component
+public class SearchResultCache {
+
+  public static final String CACHE_NAME = "searchResults";
+
+  /** A cache key as of the generations its results were computed at. */
+  record Entry(SearchCacheKey key, long postGeneration, long commentGeneration) {}
+
+  private final Cache cache;
+  private final AtomicLong allPosts = new AtomicLong();
+  private final AtomicLong comments = new AtomicLong();
+  private final Map<String, AtomicLong> communityPosts = new ConcurrentHashMap<>();
+
+  public SearchResultCache(CacheManager cacheManager) {
+    this.cache = cacheManager.getCache(CACHE_NAME);
+  }
+
+  public SearchResultIds get(SearchCacheKey key, Function<SearchCacheKey, SearchResultIds> loader) {
+    return cache.get(entry(key), () -> loader.apply(key));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostChanged(PostChangedEvent event) {
+    if (event.changeType() == ContentChangeType.DELETED) {
+      return;
+    }
+    allPosts.incrementAndGet();
+    if (event.communityName() != null) {
+      communityPosts
+          .computeIfAbsent(event.communityName(), name -> new AtomicLong())
+          .incrementAndGet();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentChanged(CommentChangedEvent event) {
+    if (event.changeType() != ContentChangeType.DELETED) {
+      comments.incrementAndGet();
+    }
+  }
+
+  Entry entry(SearchCacheKey key) {
+    long postGeneration = 0;
+    if (key.includesPosts()) {
+      if (key.communities().isEmpty()) {
+        postGeneration = allPosts.get();
+      } else {
+        // Counters only grow, so the sum changes whenever any of them does
+        for (String community : key.communities()) {
+          AtomicLong generation = communityPosts.get(community);
+          postGeneration += generation != null ? generation.get() : 0;
+        }
+      }
+    }
+    return new Entry(key, postGeneration, key.includesComments() ? comments.get() : 0);
+  }
+}
@@ -0,0 +1,8 @@
+package com.lambrk.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Ordered result IDs of a search, shared by every user who runs it. */
+public record SearchResultIds(
+    List<UUID> postIds, List<UUID> commentIds, List<UUID> userIds, List<UUID> communityIds) {}
@@ -0,0 +1,11 @@
+package com.lambrk.search;
+
+import java.util.UUID;
+
+/** Projection of a highlighted fragment computed by the database for one search hit. */
+public interface SearchSnippet {
+
+  UUID getId();
+
+  String getSnippet();
+}
@@ -0,0 +1,46 @@
+package com.lambrk.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.search.snippets")
+public class SearchSnippetProperties {
+
+  private int maxWords = 30;
+  private int minWords = 12;
+  private int maxFragments = 2;
+  private int maxSourceChars = 20_000;
+
+  public int getMaxWords() {
+    return maxWords;
+  }
+
+  public void setMaxWords(int maxWords) {
+    this.maxWords = maxWords;
+  }
+
+  public int getMinWords() {
+    return minWords;
+  }
+
+  public void setMinWords(int minWords) {
+    this.minWords = minWords;
+  }
+
+  public int getMaxFragments() {
+    return maxFragments;
+  }
+
+  public void setMaxFragments(int maxFragments) {
+    this.maxFragments = maxFragments;
+  }
+
+  public int getMaxSourceChars() {
+    return maxSourceChars;
+  }
+
+  public void setMaxSourceChars(int maxSourceChars) {
+    this.maxSourceChars = maxSourceChars;
+  }
+}
@@ -0,0 +1,35 @@
+package com.lambrk.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Splits text into lower-case letter/digit runs, dropping tokens too short or long to index. */
+public final class SearchTokenizer {
+
+  static final int MIN_TOKEN_LENGTH = 2;
+  static final int MAX_TOKEN_LENGTH = 40;
+
+  private SearchTokenizer() {}
+
+  public static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        int length = i - start;
+        if (length >= MIN_TOKEN_LENGTH && length <= MAX_TOKEN_LENGTH) {
+          tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        }
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+}
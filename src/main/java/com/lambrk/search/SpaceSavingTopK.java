@@ -0,0 +1,154 @@
+package com.lambrk.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitter summary (Metwally et al.) holding at most {@code capacity} counters.
+ * Any item whose true frequency exceeds {@code total / capacity} is guaranteed to be tracked, and
+ * each reported count over-estimates the true count by at most its {@code error}.
+ */
+public final class SpaceSavingTopK {
+
+  private static final Comparator<Counter> BY_COUNT =
+      Comparator.comparingLong((Counter counter) -> counter.count)
+          .thenComparing(counter -> counter.item);
+
+  private final int capacity;
+  private final Map<String, Counter> counters = new HashMap<>();
+  private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+
+  public SpaceSavingTopK(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public int size() {
+    return counters.size();
+  }
+
+  public void offer(String item, long count) {
+    Counter counter = counters.get(item);
+    if (counter != null) {
+      ordered.remove(counter);
+      counter.count += count;
+      ordered.add(counter);
+      return;
+    }
+    if (counters.size() < capacity) {
+      counter = new Counter(item, count, 0);
+    } else {
+      Counter evicted = ordered.pollFirst();
+      counters.remove(evicted.item);
+      counter = new Counter(item, evicted.count + count, evicted.count);
+    }
+    counters.put(item, counter);
+    ordered.add(counter);
+  }
+
+  public Set<String> items() {
+    return Set.copyOf(counters.keySet());
+  }
+
+  public List<Entry> top(int k) {
+    List<Entry> top = new ArrayList<>(Math.min(k, counters.size()));
+    for (Counter counter : ordered.descendingSet()) {
+      if (top.size() >= k) {
+        break;
+      }
+      top.add(new Entry(counter.item, counter.count, counter.error));
+    }
+    return top;
+  }
+
+  /**
+   * Folds another summary into this one. Items missing from a full summary are credited with that
+   * summary's minimum count, which keeps the merged counts valid upper bounds.
+   */
+  public void merge(SpaceSavingTopK other) {
+    long thisFloor = counters.size() < capacity ? 0 : ordered.first().count;
+    long otherFloor = other.counters.size() < other.capacity ? 0 : other.ordered.first().count;
+
+    Set<String> union = new HashSet<>(counters.keySet());
+    union.addAll(other.counters.keySet());
+
+    List<Counter> merged = new ArrayList<>(union.size());
+    for (String item : union) {
+      Counter mine = counters.get(item);
+      Counter theirs = other.counters.get(item);
+      long count =
+          (mine != null ? mine.count : thisFloor) + (theirs != null ? theirs.count : otherFloor);
+      long error =
+          (mine != null ? mine.error : thisFloor) + (theirs != null ? theirs.error : otherFloor);
+      merged.add(new Counter(item, count, error));
+    }
+    merged.sort(BY_COUNT.reversed());
+
+    counters.clear();
+    ordered.clear();
+    for (Counter counter : merged.subList(0, Math.min(capacity, merged.size()))) {
+      counters.put(counter.item, counter);
+      ordered.add(counter);
+    }
+  }
+
+  public SpaceSavingTopK copy() {
+    SpaceSavingTopK copy = new SpaceSavingTopK(capacity);
+    for (Counter counter : counters.values()) {
+      Counter cloned = new Counter(counter.item, counter.count, counter.error);
+      copy.counters.put(cloned.item, cloned);
+      copy.ordered.add(cloned);
+    }
+    return copy;
+  }
+
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(capacity);
+    out.writeInt(counters.size());
+    for (Counter counter : counters.values()) {
+      out.writeUTF(counter.item);
+      out.writeLong(counter.count);
+      out.writeLong(counter.error);
+    }
+  }
+
+  public static SpaceSavingTopK readFrom(DataInput in) throws IOException {
+    SpaceSavingTopK summary = new SpaceSavingTopK(in.readInt());
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      Counter counter = new Counter(in.readUTF(), in.readLong(), in.readLong());
+      summary.counters.put(counter.item, counter);
+      summary.ordered.add(counter);
+    }
+    return summary;
+  }
+
+  public record Entry(String item, long count, long error) {}
+
+  private static final class Counter {
+    private final String item;
+    private long count;
+    private final long error;
+
+    private Counter(String item, long count, long error) {
+      this.item = item;
+      this.count = count;
+      this.error = error;
+    }
+  }
+}
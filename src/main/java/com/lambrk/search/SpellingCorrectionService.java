@@ -0,0 +1,161 @@
+package com.lambrk.search;
+
+import com.lambrk.repository.CommunityRepository;
+import com.lambrk.repository.PostRepository;
+import com.lambrk.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * "Did you mean" corrections for search queries. The term dictionary is rebuilt periodically from
+ * community names, usernames and either the embedded index's terms or recent post titles, then
+ * swapped in whole, so lookups never wait on a rebuild.
+ */
+@Service
+@Lazy(false)
+public class SpellingCorrectionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpellingCorrectionService.class);
+
+  private final FuzzySearchProperties properties;
+  private final CommunityRepository communityRepository;
+  private final UserRepository userRepository;
+  private final PostRepository postRepository;
+  private final ObjectProvider<EmbeddedSearchIndex> embeddedSearchIndex;
+  private volatile FuzzyTermDictionary dictionary = FuzzyTermDictionary.empty();
+
+  public SpellingCorrectionService(
+      FuzzySearchProperties properties,
+      CommunityRepository communityRepository,
+      UserRepository userRepository,
+      PostRepository postRepository,
+      ObjectProvider<EmbeddedSearchIndex> embeddedSearchIndex) {
+    this.properties = properties;
+    this.communityRepository = communityRepository;
+    this.userRepository = userRepository;
+    this.postRepository = postRepository;
+    this.embeddedSearchIndex = embeddedSearchIndex;
+  }
+
+  public boolean isAutoRerunEnabled() {
+    return properties.isEnabled() && properties.isAutoRerun();
+  }
+
+  /** Corrected versions of {@code query}, best first; empty when every term is known. */
+  public List<String> suggest(String query) {
+    FuzzyTermDictionary current = dictionary;
+    String normalized = SearchQueryNormalizer.normalize(query);
+    if (!properties.isEnabled() || current.size() == 0 || normalized.isEmpty()) {
+      return List.of();
+    }
+
+    Set<String> suggestions = new LinkedHashSet<>();
+    // Community and user names are indexed whole, so "jonh_doe" can still become "john_doe"
+    if (normalized.indexOf(' ') < 0) {
+      if (current.contains(normalized)) {
+        return List.of();
+      }
+      current
+          .lookup(normalized, maxDistanceFor(normalized), properties.getMaxSuggestions())
+          .forEach(correction -> suggestions.add(correction.term()));
+    }
+
+    List<String> tokens = SearchTokenizer.tokenize(normalized);
+    List<String> corrected = new ArrayList<>(tokens.size());
+    boolean changed = false;
+    for (String token : tokens) {
+      String replacement = token;
+      if (!current.contains(token)) {
+        List<FuzzyTermDictionary.Correction> matches =
+            current.lookup(token, maxDistanceFor(token), 1);
+        if (!matches.isEmpty()) {
+          replacement = matches.get(0).term();
+          changed = true;
+        }
+      }
+      corrected.add(replacement);
+    }
+    if (changed) {
+      suggestions.add(String.join(" ", corrected));
+    }
+    return suggestions.stream().limit(properties.getMaxSuggestions()).toList();
+  }
+
+  // One edit in a short word is already a large share of it
+  private int maxDistanceFor(String term) {
+    return term.length() <= 4 ? 1 : properties.getMaxEditDistance();
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.search.fuzzy.rebuild-interval-ms:600000}",
+      initialDelay = 10_000)
+  public void rebuild() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    try {
+      long start = System.currentTimeMillis();
+      FuzzyTermDictionary rebuilt =
+          FuzzyTermDictionary.build(
+              collectTerms(),
+              properties.getMaxTerms(),
+              properties.getMaxEditDistance(),
+              properties.getPrefixLength());
+      dictionary = rebuilt;
+      logger.info(
+          "Rebuilt fuzzy term dictionary: {} terms, ~{} KB in {} ms",
+          rebuilt.size(),
+          rebuilt.estimatedBytes() / 1024,
+          System.currentTimeMillis() - start);
+    } catch (Exception e) {
+      logger.warn("Failed to rebuild fuzzy term dictionary, keeping the previous one", e);
+    }
+  }
+
+  private Map<String, Integer> collectTerms() {
+    Map<String, Integer> counts = new HashMap<>();
+    PageRequest names = PageRequest.of(0, properties.getNameLimit());
+    for (String name : communityRepository.findPublicCommunityNames(names)) {
+      addName(counts, name);
+    }
+    for (String username : userRepository.findActiveUsernames(names)) {
+      addName(counts, username);
+    }
+
+    EmbeddedSearchIndex index = embeddedSearchIndex.getIfAvailable();
+    if (index != null && index.isReady()) {
+      index.forEachTerm(
+          (term, documentFrequency) -> counts.merge(term, documentFrequency, Integer::sum));
+    } else {
+      for (String title :
+          postRepository.findRecentTitles(PageRequest.of(0, properties.getTitleLimit()))) {
+        for (String token : SearchTokenizer.tokenize(title)) {
+          counts.merge(token, 1, Integer::sum);
+        }
+      }
+    }
+    return counts;
+  }
+
+  private void addName(Map<String, Integer> counts, String name) {
+    if (name == null || name.isBlank()) {
+      return;
+    }
+    counts.merge(name.toLowerCase(Locale.ROOT), properties.getNameWeight(), Integer::sum);
+    for (String token : SearchTokenizer.tokenize(name)) {
+      counts.merge(token, 1, Integer::sum);
+    }
+  }
+}
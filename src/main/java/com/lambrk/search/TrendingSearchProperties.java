@@ -0,0 +1,162 @@
+package com.lambrk.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.search.trending")
+public class TrendingSearchProperties {
+
+  private boolean enabled = true;
+  private long windowMs = 3_600_000;
+  private int buckets = 12;
+  private long baselineHalfLifeMs = 86_400_000;
+  private int sketchDepth = 4;
+  private int sketchWidth = 2048;
+  private int heavyHitterCapacity = 256;
+  private long minCount = 3;
+  private double minScore = 1.0;
+  private int maxTerms = 50;
+  private int maxQueryLength = 100;
+  private long refreshIntervalMs = 10_000;
+  private long snapshotIntervalMs = 300_000;
+  private String snapshotDirectory = "./data/trending";
+  private String nodeId = "local";
+  private boolean mergePeerSnapshots = false;
+
+  public long getBucketMs() {
+    return Math.max(1, windowMs / buckets);
+  }
+
+  public double getDecayPerBucket() {
+    return Math.pow(0.5, (double) getBucketMs() / baselineHalfLifeMs);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getWindowMs() {
+    return windowMs;
+  }
+
+  public void setWindowMs(long windowMs) {
+    this.windowMs = windowMs;
+  }
+
+  public int getBuckets() {
+    return buckets;
+  }
+
+  public void setBuckets(int buckets) {
+    this.buckets = buckets;
+  }
+
+  public long getBaselineHalfLifeMs() {
+    return baselineHalfLifeMs;
+  }
+
+  public void setBaselineHalfLifeMs(long baselineHalfLifeMs) {
+    this.baselineHalfLifeMs = baselineHalfLifeMs;
+  }
+
+  public int getSketchDepth() {
+    return sketchDepth;
+  }
+
+  public void setSketchDepth(int sketchDepth) {
+    this.sketchDepth = sketchDepth;
+  }
+
+  public int getSketchWidth() {
+    return sketchWidth;
+  }
+
+  public void setSketchWidth(int sketchWidth) {
+    this.sketchWidth = sketchWidth;
+  }
+
+  public int getHeavyHitterCapacity() {
+    return heavyHitterCapacity;
+  }
+
+  public void setHeavyHitterCapacity(int heavyHitterCapacity) {
+    this.heavyHitterCapacity = heavyHitterCapacity;
+  }
+
+  public long getMinCount() {
+    return minCount;
+  }
+
+  public void setMinCount(long minCount) {
+    this.minCount = minCount;
+  }
+
+  public double getMinScore() {
+    return minScore;
+  }
+
+  public void setMinScore(double minScore) {
+    this.minScore = minScore;
+  }
+
+  public int getMaxTerms() {
+    return maxTerms;
+  }
+
+  public void setMaxTerms(int maxTerms) {
+    this.maxTerms = maxTerms;
+  }
+
+  public int getMaxQueryLength() {
+    return maxQueryLength;
+  }
+
+  public void setMaxQueryLength(int maxQueryLength) {
+    this.maxQueryLength = maxQueryLength;
+  }
+
+  public long getRefreshIntervalMs() {
+    return refreshIntervalMs;
+  }
+
+  public void setRefreshIntervalMs(long refreshIntervalMs) {
+    this.refreshIntervalMs = refreshIntervalMs;
+  }
+
+  public long getSnapshotIntervalMs() {
+    return snapshotIntervalMs;
+  }
+
+  public void setSnapshotIntervalMs(long snapshotIntervalMs) {
+    this.snapshotIntervalMs = snapshotIntervalMs;
+  }
+
+  public String getSnapshotDirectory() {
+    return snapshotDirectory;
+  }
+
+  public void setSnapshotDirectory(String snapshotDirectory) {
+    this.snapshotDirectory = snapshotDirectory;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public void setNodeId(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  public boolean isMergePeerSnapshots() {
+    return mergePeerSnapshots;
+  }
+
+  public void setMergePeerSnapshots(boolean mergePeerSnapshots) {
+    this.mergePeerSnapshots = mergePeerSnapshots;
+  }
+}
@@ -0,0 +1,222 @@
+package com.lambrk.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Detects trending search queries in memory. Each normalized query is counted into the current
+ * bucket of a sliding window; a periodic refresh slides the window, folds expired buckets into a
+ * decayed baseline and publishes the terms that grew the most, so reads are a list copy.
+ *
+ * <p>The window is snapshotted to {@code <snapshot-directory>/trending-<node-id>.snapshot} for warm
+ * restarts. With {@code merge-peer-snapshots} enabled and a shared directory, each node also merges
+ * the other nodes' snapshots into the published list.
+ */
+@Service
+@Lazy(false)
+public class TrendingSearchService {
+
+  private static final Logger logger = LoggerFactory.getLogger(TrendingSearchService.class);
+
+  private static final int SNAPSHOT_MAGIC = 0x4c545253; // "LTRS"
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final String SNAPSHOT_PREFIX = "trending-";
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+  private final TrendingSearchProperties properties;
+  private final Object lock = new Object();
+  private TrendingWindow window;
+  private volatile List<TrendingWindow> peerWindows = List.of();
+  private volatile List<TrendingTerm> trending = List.of();
+
+  public TrendingSearchService(TrendingSearchProperties properties) {
+    this.properties = properties;
+    this.window = newWindow();
+  }
+
+  @PostConstruct
+  public void init() {
+    if (!properties.isEnabled()) {
+      logger.info("Trending search detection is disabled");
+      return;
+    }
+    loadSnapshot();
+    refresh();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    persistSnapshot();
+  }
+
+  public void record(String query) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    String term = SearchQueryNormalizer.normalize(query);
+    if (term.isEmpty() || term.length() > properties.getMaxQueryLength()) {
+      return;
+    }
+    long epoch = currentEpoch();
+    synchronized (lock) {
+      window.record(epoch, term);
+    }
+  }
+
+  /** Every published term, highest growth first; at most {@code max-terms} of them. */
+  public List<TrendingTerm> getTrending() {
+    return trending;
+  }
+
+  public List<TrendingTerm> getTrending(int limit) {
+    List<TrendingTerm> current = trending;
+    return current.size() <= limit ? current : current.subList(0, limit);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.search.trending.refresh-interval-ms:10000}",
+      initialDelayString = "${lambrk.search.trending.refresh-interval-ms:10000}")
+  public void refresh() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    long epoch = currentEpoch();
+    TrendingWindow view;
+    synchronized (lock) {
+      window.advanceTo(epoch, properties.getDecayPerBucket());
+      view = window.copy();
+    }
+    List<TrendingWindow> peers = peerWindows;
+    if (!peers.isEmpty()) {
+      peers.forEach(view::merge);
+      view.advanceTo(epoch, properties.getDecayPerBucket());
+    }
+    trending =
+        view.trending(properties.getMaxTerms(), properties.getMinCount(), properties.getMinScore());
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.search.trending.snapshot-interval-ms:300000}",
+      initialDelayString = "${lambrk.search.trending.snapshot-interval-ms:300000}")
+  public void persistSnapshot() {
+    Path directory = snapshotDirectory();
+    if (!properties.isEnabled() || directory == null) {
+      return;
+    }
+    TrendingWindow copy;
+    synchronized (lock) {
+      copy = window.copy();
+    }
+    Path target = directory.resolve(SNAPSHOT_PREFIX + properties.getNodeId() + SNAPSHOT_SUFFIX);
+    try {
+      Files.createDirectories(directory);
+      Path temp = Files.createTempFile(directory, SNAPSHOT_PREFIX, ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(properties.getBucketMs());
+        copy.writeTo(out);
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Failed to persist trending search snapshot to {}: {}", target, e.getMessage());
+    }
+    if (properties.isMergePeerSnapshots()) {
+      peerWindows = loadPeerSnapshots(directory, target);
+    }
+  }
+
+  private void loadSnapshot() {
+    Path directory = snapshotDirectory();
+    if (directory == null) {
+      return;
+    }
+    Path source = directory.resolve(SNAPSHOT_PREFIX + properties.getNodeId() + SNAPSHOT_SUFFIX);
+    if (Files.exists(source)) {
+      TrendingWindow restored = readSnapshot(source);
+      if (restored != null) {
+        synchronized (lock) {
+          window = restored;
+        }
+        logger.info("Restored trending search snapshot from {}", source);
+      }
+    }
+    if (properties.isMergePeerSnapshots()) {
+      peerWindows = loadPeerSnapshots(directory, source);
+    }
+  }
+
+  private List<TrendingWindow> loadPeerSnapshots(Path directory, Path own) {
+    List<TrendingWindow> peers = new ArrayList<>();
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+      for (Path file : files) {
+        if (!file.equals(own)) {
+          TrendingWindow peer = readSnapshot(file);
+          if (peer != null) {
+            peers.add(peer);
+          }
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to list peer trending snapshots in {}: {}", directory, e.getMessage());
+    }
+    return List.copyOf(peers);
+  }
+
+  private TrendingWindow readSnapshot(Path file) {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != SNAPSHOT_MAGIC
+          || in.readInt() != SNAPSHOT_VERSION
+          || in.readLong() != properties.getBucketMs()) {
+        logger.warn("Ignoring trending snapshot {} written with a different layout", file);
+        return null;
+      }
+      TrendingWindow restored = TrendingWindow.readFrom(in);
+      if (!restored.isCompatibleWith(newWindow())) {
+        logger.warn("Ignoring trending snapshot {} with different sketch dimensions", file);
+        return null;
+      }
+      return restored;
+    } catch (IOException e) {
+      logger.warn("Failed to read trending snapshot {}: {}", file, e.getMessage());
+      return null;
+    }
+  }
+
+  private TrendingWindow newWindow() {
+    return new TrendingWindow(
+        properties.getSketchDepth(),
+        properties.getSketchWidth(),
+        properties.getHeavyHitterCapacity(),
+        properties.getBuckets());
+  }
+
+  private long currentEpoch() {
+    return System.currentTimeMillis() / properties.getBucketMs();
+  }
+
+  private Path snapshotDirectory() {
+    String directory = properties.getSnapshotDirectory();
+    return directory == null || directory.isBlank() ? null : Paths.get(directory);
+  }
+}
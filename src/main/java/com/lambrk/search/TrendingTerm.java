@@ -0,0 +1,3 @@
+package com.lambrk.search;
+
+public record TrendingTerm(String term, long count, double score) {}
@@ -0,0 +1,179 @@
+package com.lambrk.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sliding window of per-bucket sketches plus an exponentially decayed baseline of per-bucket
+ * volume. Buckets are keyed by epoch ({@code epochMillis / bucketMillis}) so windows from different
+ * nodes line up and can be merged bucket by bucket. Not thread-safe.
+ */
+final class TrendingWindow {
+
+  private static final long NO_EPOCH = Long.MIN_VALUE;
+
+  private final int depth;
+  private final int width;
+  private final int heavyHitterCapacity;
+  private final int bucketCount;
+  private final NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+  private CountMinSketch baseline;
+  private long baselineEpoch = NO_EPOCH;
+
+  TrendingWindow(int depth, int width, int heavyHitterCapacity, int bucketCount) {
+    this.depth = depth;
+    this.width = width;
+    this.heavyHitterCapacity = heavyHitterCapacity;
+    this.bucketCount = bucketCount;
+    this.baseline = new CountMinSketch(depth, width);
+  }
+
+  void record(long epoch, String term) {
+    Map.Entry<Long, Bucket> newest = buckets.lastEntry();
+    if (newest != null && epoch <= newest.getKey() - bucketCount) {
+      return;
+    }
+    buckets
+        .computeIfAbsent(
+            epoch,
+            ignored ->
+                new Bucket(
+                    new CountMinSketch(depth, width), new SpaceSavingTopK(heavyHitterCapacity)))
+        .add(term);
+  }
+
+  /**
+   * Slides the window so that {@code currentEpoch} is its newest bucket. Every bucket that falls
+   * out of the window is folded into the baseline, and empty epochs decay it.
+   */
+  void advanceTo(long currentEpoch, double decayPerBucket) {
+    long lastExpired = currentEpoch - bucketCount;
+    if (baselineEpoch == NO_EPOCH) {
+      baselineEpoch =
+          buckets.isEmpty() ? lastExpired : Math.min(buckets.firstKey() - 1, lastExpired);
+    }
+    NavigableMap<Long, Bucket> expired = buckets.headMap(lastExpired, true);
+    for (Map.Entry<Long, Bucket> entry : expired.entrySet()) {
+      long epoch = entry.getKey();
+      if (epoch > baselineEpoch) {
+        baseline.scale(Math.pow(decayPerBucket, epoch - baselineEpoch));
+        baseline.mergeScaled(entry.getValue().sketch, 1 - decayPerBucket);
+        baselineEpoch = epoch;
+      }
+    }
+    expired.clear();
+    if (lastExpired > baselineEpoch) {
+      baseline.scale(Math.pow(decayPerBucket, lastExpired - baselineEpoch));
+      baselineEpoch = lastExpired;
+    }
+  }
+
+  /**
+   * Terms whose volume inside the window grew the most relative to the baseline, scored as {@code
+   * (observed - expected) / sqrt(expected + 1)}.
+   */
+  List<TrendingTerm> trending(int limit, long minCount, double minScore) {
+    Set<String> candidates = new HashSet<>();
+    for (Bucket bucket : buckets.values()) {
+      candidates.addAll(bucket.heavyHitters.items());
+    }
+
+    List<TrendingTerm> terms = new ArrayList<>();
+    for (String term : candidates) {
+      double observed = 0;
+      for (Bucket bucket : buckets.values()) {
+        observed += bucket.sketch.estimate(term);
+      }
+      if (observed < minCount) {
+        continue;
+      }
+      double expected = baseline.estimate(term) * bucketCount;
+      double score = (observed - expected) / Math.sqrt(expected + 1);
+      if (score >= minScore) {
+        terms.add(new TrendingTerm(term, Math.round(observed), score));
+      }
+    }
+    terms.sort(Comparator.comparingDouble(TrendingTerm::score).reversed());
+    return List.copyOf(terms.subList(0, Math.min(limit, terms.size())));
+  }
+
+  void merge(TrendingWindow other) {
+    for (Map.Entry<Long, Bucket> entry : other.buckets.entrySet()) {
+      Bucket bucket = buckets.get(entry.getKey());
+      if (bucket == null) {
+        buckets.put(entry.getKey(), entry.getValue().copy());
+      } else {
+        bucket.sketch.merge(entry.getValue().sketch);
+        bucket.heavyHitters.merge(entry.getValue().heavyHitters);
+      }
+    }
+    baseline.merge(other.baseline);
+    if (other.baselineEpoch != NO_EPOCH) {
+      baselineEpoch = Math.max(baselineEpoch, other.baselineEpoch);
+    }
+  }
+
+  boolean isCompatibleWith(TrendingWindow other) {
+    return depth == other.depth && width == other.width && bucketCount == other.bucketCount;
+  }
+
+  TrendingWindow copy() {
+    TrendingWindow copy = new TrendingWindow(depth, width, heavyHitterCapacity, bucketCount);
+    buckets.forEach((epoch, bucket) -> copy.buckets.put(epoch, bucket.copy()));
+    copy.baseline = baseline.copy();
+    copy.baselineEpoch = baselineEpoch;
+    return copy;
+  }
+
+  void writeTo(DataOutput out) throws IOException {
+    out.writeInt(heavyHitterCapacity);
+    out.writeInt(bucketCount);
+    out.writeLong(baselineEpoch);
+    baseline.writeTo(out);
+    out.writeInt(buckets.size());
+    for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+      out.writeLong(entry.getKey());
+      entry.getValue().sketch.writeTo(out);
+      entry.getValue().heavyHitters.writeTo(out);
+    }
+  }
+
+  static TrendingWindow readFrom(DataInput in) throws IOException {
+    int heavyHitterCapacity = in.readInt();
+    int bucketCount = in.readInt();
+    long baselineEpoch = in.readLong();
+    CountMinSketch baseline = CountMinSketch.readFrom(in);
+    TrendingWindow window =
+        new TrendingWindow(baseline.depth(), baseline.width(), heavyHitterCapacity, bucketCount);
+    window.baseline = baseline;
+    window.baselineEpoch = baselineEpoch;
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      long epoch = in.readLong();
+      window.buckets.put(
+          epoch, new Bucket(CountMinSketch.readFrom(in), SpaceSavingTopK.readFrom(in)));
+    }
+    return window;
+  }
+
+  private record Bucket(CountMinSketch sketch, SpaceSavingTopK heavyHitters) {
+
+    void add(String term) {
+      sketch.add(term, 1);
+      heavyHitters.offer(term, 1);
+    }
+
+    Bucket copy() {
+      return new Bucket(sketch.copy(), heavyHitters.copy());
+    }
+  }
+}
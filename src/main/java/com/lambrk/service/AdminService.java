@@ -7,6 +7,9 @@ import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.dto.AdminActionRequest;
 import com.lambrk.dto.AdminActionResponse;
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.UserChangedEvent;
 import com.lambrk.repository.AdminActionRepository;
 import com.lambrk.repository.CommentRepository;
 import com.lambrk.repository.CommunityRepository;
@@ -18,6 +21,7 @@ import io.github.resilience4j.retry.annotation.Retry;
 import java.time.Instant;
 import java.util.UUID;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -36,6 +40,7 @@ public class AdminService {
   private final NotificationService notificationService;
   private final KafkaTemplate kafkaTemplate;
   private final CustomMetrics customMetrics;
+  private final ApplicationEventPublisher eventPublisher;
 
   public AdminService(
       AdminActionRepository adminActionRepository,
@@ -45,7 +50,8 @@ public class AdminService {
       CommunityRepository communityRepository,
       NotificationService notificationService,
       KafkaTemplate kafkaTemplate,
-      CustomMetrics customMetrics) {
+      CustomMetrics customMetrics,
+      ApplicationEventPublisher eventPublisher) {
     this.adminActionRepository = adminActionRepository;
     this.userRepository = userRepository;
     this.postRepository = postRepository;
@@ -54,6 +60,7 @@ public class AdminService {
     this.notificationService = notificationService;
     this.kafkaTemplate = kafkaTemplate;
     this.customMetrics = customMetrics;
+    this.eventPublisher = eventPublisher;
   }
 
   @CacheEvict(
@@ -115,6 +122,7 @@ public class AdminService {
     user.setActive(false);
     user.setUpdatedAt(now);
     userRepository.save(user);
+    eventPublisher.publishEvent(new UserChangedEvent(userId, user.getUsername()));
 
     return new AdminAction(
         UuidV7Generator.generate(),
@@ -242,7 +250,8 @@ public class AdminService {
             comment.getDeletedAt(),
             now);
 
-    commentRepository.save(updated);
+    Comment saved = commentRepository.save(updated);
+    eventPublisher.publishEvent(CommentChangedEvent.of(saved, ContentChangeType.DELETED));
 
     return new AdminAction(
         UuidV7Generator.generate(),
@@ -346,7 +355,8 @@ public class AdminService {
             comment.getDeletedAt(),
             comment.getRemovedAt());
 
-    commentRepository.save(updated);
+    Comment saved = commentRepository.save(updated);
+    eventPublisher.publishEvent(CommentChangedEvent.of(saved, ContentChangeType.UPDATED));
 
     return new AdminAction(
         UuidV7Generator.generate(),
@@ -527,7 +537,8 @@ public class AdminService {
             comment.getDeletedAt(),
             comment.getRemovedAt());
 
-    commentRepository.save(updated);
+    Comment saved = commentRepository.save(updated);
+    eventPublisher.publishEvent(CommentChangedEvent.of(saved, ContentChangeType.UPDATED));
 
     return new AdminAction(
         UuidV7Generator.generate(),
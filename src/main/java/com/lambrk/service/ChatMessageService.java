@@ -1,15 +1,21 @@
 package com.lambrk.service;
 
-import com.lambrk.domain.User;
+import com.lambrk.badge.BadgeKind;
+import com.lambrk.badge.BadgeService;
 import com.lambrk.domain.message.ChatConversation;
 import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.dto.message.ChatHistoryResponse;
 import com.lambrk.dto.message.ChatMessageResponse;
 import com.lambrk.dto.message.ChatMessageWebSocketPayload;
 import com.lambrk.dto.message.ConversationResponse;
 import com.lambrk.dto.message.SendMessageRequest;
-import com.lambrk.repository.UserRepository;
+import com.lambrk.exception.InvalidRequestException;
+import com.lambrk.message.ChatCursor;
+import com.lambrk.message.ChatMessageStore;
 import com.lambrk.repository.mongo.ChatConversationRepository;
-import com.lambrk.repository.mongo.ChatMessageRepository;
+import com.lambrk.user.UserIdentity;
+import com.lambrk.user.UserIdentityCache;
+import com.lambrk.websocket.ClusterMessagingTemplate;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import java.time.Instant;
@@ -17,26 +23,30 @@ import java.util.List;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ChatMessageService {
 
-  private final ChatMessageRepository messageRepository;
+  static final int MAX_HISTORY_PAGE = 100;
+
+  private final ChatMessageStore messageStore;
   private final ChatConversationRepository conversationRepository;
-  private final UserRepository userRepository;
-  private final SimpMessagingTemplate messagingTemplate;
+  private final UserIdentityCache identities;
+  private final ClusterMessagingTemplate messagingTemplate;
+  private final BadgeService badgeService;
 
   public ChatMessageService(
-      ChatMessageRepository messageRepository,
+      ChatMessageStore messageStore,
       ChatConversationRepository conversationRepository,
-      UserRepository userRepository,
-      SimpMessagingTemplate messagingTemplate) {
-    this.messageRepository = messageRepository;
+      UserIdentityCache identities,
+      ClusterMessagingTemplate messagingTemplate,
+      BadgeService badgeService) {
+    this.messageStore = messageStore;
     this.conversationRepository = conversationRepository;
-    this.userRepository = userRepository;
+    this.identities = identities;
     this.messagingTemplate = messagingTemplate;
+    this.badgeService = badgeService;
   }
 
   // ──────────────────────────────────────────────
@@ -46,56 +56,59 @@ public class ChatMessageService {
   @Counted(value = "chat.messages.sent")
   @Timed(value = "chat.messages.send.duration")
   public ChatMessageResponse sendMessage(UUID senderId, SendMessageRequest request) {
-    User sender =
-        userRepository
-            .findById(senderId)
+    UserIdentity sender =
+        identities
+            .byId(senderId)
             .orElseThrow(() -> new IllegalArgumentException("Sender not found: " + senderId));
+    if (!sender.active()) {
+      throw new SecurityException("Account is deactivated");
+    }
 
-    User recipient =
-        userRepository
-            .findByUsername(request.recipientUsername())
+    UserIdentity recipient =
+        identities
+            .byUsername(request.recipientUsername())
+            .filter(UserIdentity::active)
             .orElseThrow(
                 () ->
                     new IllegalArgumentException(
                         "Recipient not found: " + request.recipientUsername()));
 
-    if (senderId.equals(recipient.getId())) {
+    if (senderId.equals(recipient.id())) {
       throw new IllegalArgumentException("Cannot send message to yourself");
     }
 
-    String conversationId = ChatConversation.buildConversationId(senderId, recipient.getId());
-
-    // Ensure conversation doc exists
-    ChatConversation conversation = getOrCreateConversation(conversationId, sender, recipient);
+    String conversationId = ChatConversation.buildConversationId(senderId, recipient.id());
 
     // Persist message
     ChatMessage message =
         new ChatMessage(
             conversationId,
             senderId,
-            sender.getUsername(),
-            sender.getAvatarUrl(),
-            recipient.getId(),
-            recipient.getUsername(),
+            sender.username(),
+            sender.avatarUrl(),
+            recipient.id(),
+            recipient.username(),
             request.content(),
             request.messageType(),
             request.attachmentUrl(),
             request.attachmentType());
-    ChatMessage saved = messageRepository.save(message);
-
-    // Update conversation metadata
-    String preview = buildPreview(request.content(), request.messageType());
-    conversation.setLastMessage(preview);
-    conversation.setLastMessageSenderId(senderId);
-    conversation.setLastMessageAt(
+    ChatMessage saved = messageStore.append(message);
+
+    // Update conversation metadata in one atomic upsert
+    conversationRepository.recordMessage(
+        conversationId,
+        senderId,
+        sender.username(),
+        recipient.id(),
+        recipient.username(),
+        buildPreview(request.content(), request.messageType()),
         saved.getCreatedAt() != null ? saved.getCreatedAt() : Instant.now());
-    conversation.incrementUnreadCount(recipient.getId());
-    conversationRepository.save(conversation);
+    badgeService.adjust(recipient.id(), BadgeKind.MESSAGES, 1);
 
     ChatMessageResponse response = ChatMessageResponse.from(saved);
 
     // Deliver via WebSocket
-    deliverViaWebSocket(sender.getUsername(), recipient.getUsername(), response);
+    deliverViaWebSocket(sender.username(), recipient.username(), response);
 
     return response;
   }
@@ -117,22 +130,23 @@ public class ChatMessageService {
 
   @Timed(value = "chat.conversation.open.duration")
   public ConversationResponse getOrStartConversation(UUID currentUserId, String targetUsername) {
-    User currentUser =
-        userRepository
-            .findById(currentUserId)
+    UserIdentity currentUser =
+        identities
+            .byId(currentUserId)
             .orElseThrow(
                 () -> new IllegalArgumentException("Current user not found: " + currentUserId));
 
-    User targetUser =
-        userRepository
-            .findByUsername(targetUsername)
+    UserIdentity targetUser =
+        identities
+            .byUsername(targetUsername)
+            .filter(UserIdentity::active)
             .orElseThrow(() -> new IllegalArgumentException("User not found: " + targetUsername));
 
-    if (currentUserId.equals(targetUser.getId())) {
+    if (currentUserId.equals(targetUser.id())) {
       throw new IllegalArgumentException("Cannot start a conversation with yourself");
     }
 
-    String conversationId = ChatConversation.buildConversationId(currentUserId, targetUser.getId());
+    String conversationId = ChatConversation.buildConversationId(currentUserId, targetUser.id());
     ChatConversation conversation =
         getOrCreateConversation(conversationId, currentUser, targetUser);
     return ConversationResponse.from(conversation, currentUserId);
@@ -142,13 +156,56 @@ public class ChatMessageService {
   // Message history
   // ──────────────────────────────────────────────
 
+  /**
+   * One keyset page of history: the latest messages when both cursors are null, older ones (newest
+   * first) before {@code before}, or newer ones (oldest first) after {@code after}. Each page is
+   * one range scan of the {@code (conversationId, createdAt, _id)} index however far back it is,
+   * and messages arriving meanwhile do not shift it.
+   */
   @Timed(value = "chat.messages.history.duration")
-  public Page<ChatMessageResponse> getMessages(
-      UUID userId, String conversationId, Pageable pageable) {
-    validateParticipant(userId, conversationId);
-    return messageRepository
-        .findByConversationIdAndIsDeletedFalseOrderByCreatedAtDesc(conversationId, pageable)
-        .map(ChatMessageResponse::from);
+  public ChatHistoryResponse getMessages(
+      UUID userId, String conversationId, String before, String after, int limit) {
+    if (before != null && after != null) {
+      throw new InvalidRequestException("Pass either before or after, not both");
+    }
+    ChatConversation conversation = validateParticipantAndGet(userId, conversationId);
+    int size = Math.clamp(limit, 1, MAX_HISTORY_PAGE);
+    // One extra row tells whether there is more without a count query
+    int fetch = size + 1;
+
+    if (after != null) {
+      List<ChatMessage> newer = messageStore.after(conversationId, ChatCursor.decode(after), fetch);
+      boolean hasMore = newer.size() > size;
+      List<ChatMessage> messages = hasMore ? newer.subList(0, size) : newer;
+      String newerToken =
+          messages.isEmpty() ? after : ChatCursor.of(messages.get(messages.size() - 1)).encode();
+      return new ChatHistoryResponse(
+          toResponses(conversation, messages), null, newerToken, hasMore);
+    }
+
+    List<ChatMessage> older;
+    if (before != null) {
+      older = messageStore.before(conversationId, ChatCursor.decode(before), fetch);
+    } else {
+      older = messageStore.latest(conversationId, fetch);
+    }
+    boolean hasMore = older.size() > size;
+    List<ChatMessage> messages = hasMore ? older.subList(0, size) : older;
+    String olderToken = hasMore ? ChatCursor.of(messages.get(messages.size() - 1)).encode() : null;
+    String newerToken =
+        before == null && !messages.isEmpty() ? ChatCursor.of(messages.get(0)).encode() : null;
+    return new ChatHistoryResponse(
+        toResponses(conversation, messages), olderToken, newerToken, hasMore);
+  }
+
+  /**
+   * What a reconnecting client missed: the messages after {@code since}, oldest first, or the
+   * latest page when it has no cursor yet.
+   */
+  @Timed(value = "chat.messages.sync.duration")
+  public ChatHistoryResponse syncMessages(
+      UUID userId, String conversationId, String since, int limit) {
+    return getMessages(userId, conversationId, null, since, limit);
   }
 
   // ──────────────────────────────────────────────
@@ -158,7 +215,7 @@ public class ChatMessageService {
   @Counted(value = "chat.messages.read")
   public ChatMessageResponse markAsRead(UUID userId, String messageId) {
     ChatMessage message =
-        messageRepository
+        messageStore
             .findById(messageId)
             .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
 
@@ -166,83 +223,57 @@ public class ChatMessageService {
       throw new SecurityException("Not authorised to mark this message as read");
     }
     if (!message.isRead()) {
+      // Reading a message also reads everything before it
+      Instant readAt = Instant.now();
+      readUpTo(
+          userId,
+          message.getConversationId(),
+          message.getCreatedAt(),
+          readAt,
+          messageId,
+          message.getRecipientUsername(),
+          message.getSenderUsername());
       message.setRead(true);
-      message.setReadAt(Instant.now());
-      messageRepository.save(message);
-
-      // Reset unread count in conversation
-      conversationRepository
-          .findByConversationId(message.getConversationId())
-          .ifPresent(
-              conv -> {
-                conv.resetUnreadCount(userId);
-                conversationRepository.save(conv);
-              });
-
-      // Push read receipt to sender via WebSocket
-      ChatMessageResponse response = ChatMessageResponse.from(message);
-      String senderUsername = message.getSenderUsername();
-      String recipientUsername = message.getRecipientUsername();
-      ChatMessageWebSocketPayload receipt =
-          ChatMessageWebSocketPayload.ofReadReceipt(
-              messageId, message.getConversationId(), recipientUsername);
-      messagingTemplate.convertAndSendToUser(senderUsername, "/queue/messages", receipt);
+      message.setReadAt(readAt);
     }
     return ChatMessageResponse.from(message);
   }
 
   @Counted(value = "chat.messages.read.conversation")
   public int markConversationAsRead(UUID userId, String conversationId) {
-    validateParticipant(userId, conversationId);
-
-    List<ChatMessage> unreadMessages =
-        messageRepository
-            .findByConversationIdAndRecipientIdAndIsReadFalseAndIsDeletedFalseOrderByCreatedAtAsc(
-                conversationId, userId);
-    if (unreadMessages.isEmpty()) {
-      return 0;
-    }
-
-    Instant readAt = Instant.now();
-    for (ChatMessage message : unreadMessages) {
-      message.setRead(true);
-      message.setReadAt(readAt);
-    }
-    messageRepository.saveAll(unreadMessages);
-
-    conversationRepository
-        .findByConversationId(conversationId)
-        .ifPresent(
-            conv -> {
-              conv.resetUnreadCount(userId);
-              conversationRepository.save(conv);
-            });
-
-    for (ChatMessage message : unreadMessages) {
-      ChatMessageWebSocketPayload receipt =
-          ChatMessageWebSocketPayload.ofReadReceipt(
-              message.getId(), conversationId, message.getRecipientUsername());
-      messagingTemplate.convertAndSendToUser(
-          message.getSenderUsername(), "/queue/messages", receipt);
-    }
-
-    return unreadMessages.size();
+    return markConversationAsRead(userId, conversationId, null);
   }
 
-  public void sendTypingIndicator(UUID userId, String conversationId) {
+  /**
+   * Marks the caller's messages in the conversation as read up to {@code upTo}, or up to the latest
+   * message when it is null, with one bulk update and one read receipt to the other participant.
+   *
+   * @return the number of messages marked read
+   */
+  @Counted(value = "chat.messages.read.conversation")
+  public int markConversationAsRead(UUID userId, String conversationId, Instant upTo) {
     ChatConversation conversation = validateParticipantAndGet(userId, conversationId);
-    int currentUserIndex = conversation.getParticipantIds().indexOf(userId);
-    int otherUserIndex = currentUserIndex == 0 ? 1 : 0;
-
-    if (otherUserIndex < 0 || otherUserIndex >= conversation.getParticipantUsernames().size()) {
-      return;
+    Instant lastMessageAt = conversation.getLastMessageAt();
+    if (lastMessageAt == null) {
+      return 0;
     }
-
-    String typingUsername = conversation.getParticipantUsernames().get(currentUserIndex);
-    String recipientUsername = conversation.getParticipantUsernames().get(otherUserIndex);
-    ChatMessageWebSocketPayload payload =
-        ChatMessageWebSocketPayload.ofTyping(conversationId, typingUsername);
-    messagingTemplate.convertAndSendToUser(recipientUsername, "/queue/messages", payload);
+    // Never past the last recorded message, so messages still being sent stay unread
+    Instant cursor = upTo == null || upTo.isAfter(lastMessageAt) ? lastMessageAt : upTo;
+    Instant current = conversation.getReadUpTo(userId);
+    if (current != null && !cursor.isAfter(current)) {
+      return 0;
+    }
+    int readerIndex = conversation.getParticipantIds().indexOf(userId);
+    List<String> usernames = conversation.getParticipantUsernames();
+    return (int)
+        readUpTo(
+            userId,
+            conversationId,
+            cursor,
+            Instant.now(),
+            null,
+            usernames.get(readerIndex),
+            usernames.get(readerIndex == 0 ? 1 : 0));
   }
 
   // ──────────────────────────────────────────────
@@ -252,16 +283,20 @@ public class ChatMessageService {
   @Counted(value = "chat.messages.deleted")
   public ChatMessageResponse deleteMessage(UUID userId, String messageId) {
     ChatMessage message =
-        messageRepository
+        messageStore
             .findById(messageId)
             .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
 
     if (!message.getSenderId().equals(userId)) {
       throw new SecurityException("Not authorised to delete this message");
     }
+    Instant deletedAt = Instant.now();
+    boolean deleted = messageStore.markDeleted(messageId, deletedAt);
     message.setDeleted(true);
-    message.setDeletedAt(Instant.now());
-    messageRepository.save(message);
+    message.setDeletedAt(deletedAt);
+    if (deleted && !message.isRead()) {
+      badgeService.adjust(message.getRecipientId(), BadgeKind.MESSAGES, -1);
+    }
 
     ChatMessageResponse response = ChatMessageResponse.from(message);
 
@@ -279,7 +314,7 @@ public class ChatMessageService {
   // ──────────────────────────────────────────────
 
   public long getTotalUnreadCount(UUID userId) {
-    return messageRepository.countByRecipientIdAndIsReadFalseAndIsDeletedFalse(userId);
+    return badgeService.count(userId, BadgeKind.MESSAGES);
   }
 
   // ──────────────────────────────────────────────
@@ -287,24 +322,33 @@ public class ChatMessageService {
   // ──────────────────────────────────────────────
 
   public ChatConversation getOrCreateConversation(
-      String conversationId, User sender, User recipient) {
-    return conversationRepository
-        .findByConversationId(conversationId)
-        .orElseGet(
-            () -> {
-              ChatConversation conv =
-                  new ChatConversation(
-                      conversationId,
-                      sender.getId(),
-                      sender.getUsername(),
-                      recipient.getId(),
-                      recipient.getUsername());
-              return conversationRepository.save(conv);
-            });
+      String conversationId, UserIdentity sender, UserIdentity recipient) {
+    return conversationRepository.openConversation(
+        conversationId, sender.id(), sender.username(), recipient.id(), recipient.username());
   }
 
-  private void validateParticipant(UUID userId, String conversationId) {
-    validateParticipantAndGet(userId, conversationId);
+  /**
+   * Marks everything sent to the reader up to {@code upTo} as read in one {@code updateMany}, moves
+   * their read cursor and sends the other participant a single "read up to" receipt.
+   */
+  private long readUpTo(
+      UUID readerId,
+      String conversationId,
+      Instant upTo,
+      Instant readAt,
+      String messageId,
+      String readerUsername,
+      String senderUsername) {
+    long marked = messageStore.markReadUpTo(conversationId, readerId, upTo, readAt);
+    conversationRepository.advanceReadCursor(conversationId, readerId, upTo, marked);
+    if (marked > 0) {
+      badgeService.adjust(readerId, BadgeKind.MESSAGES, -marked);
+      ChatMessageWebSocketPayload receipt =
+          ChatMessageWebSocketPayload.ofReadReceipt(
+              messageId, conversationId, readerUsername, upTo);
+      messagingTemplate.convertAndSendToUser(senderUsername, "/queue/messages", receipt);
+    }
+    return marked;
   }
 
   private ChatConversation validateParticipantAndGet(UUID userId, String conversationId) {
@@ -319,6 +363,14 @@ public class ChatMessageService {
     return conv;
   }
 
+  // Read state is derived from the recipient's cursor, so it is right even for flags not yet set
+  private static List<ChatMessageResponse> toResponses(
+      ChatConversation conversation, List<ChatMessage> messages) {
+    return messages.stream()
+        .map(m -> ChatMessageResponse.from(m, conversation.getReadUpTo(m.getRecipientId())))
+        .toList();
+  }
+
   private void deliverViaWebSocket(
       String senderUsername, String recipientUsername, ChatMessageResponse message) {
     ChatMessageWebSocketPayload payload = ChatMessageWebSocketPayload.ofNewMessage(message);
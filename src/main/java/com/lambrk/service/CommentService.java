@@ -1,11 +1,22 @@
 package com.lambrk.service;
 
+import com.lambrk.comment.CommentCache;
+import com.lambrk.comment.CommentCursor;
+import com.lambrk.comment.CommentSort;
+import com.lambrk.comment.CommentTree;
+import com.lambrk.comment.CommentTreeProperties;
+import com.lambrk.comment.CommentTreeSnapshot;
 import com.lambrk.domain.Comment;
 import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.dto.CommentCreateRequest;
 import com.lambrk.dto.CommentResponse;
-import com.lambrk.dto.NotificationRequest;
+import com.lambrk.dto.CommentSliceResponse;
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.ContentCreatedEvent;
+import com.lambrk.event.PostCountersChangedEvent;
+import com.lambrk.exception.InvalidRequestException;
 import com.lambrk.exception.ResourceNotFoundException;
 import com.lambrk.exception.UnauthorizedActionException;
 import com.lambrk.repository.CommentRepository;
@@ -16,12 +27,19 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +54,9 @@ public class CommentService {
   private final KafkaEventService kafkaEventService;
   private final NotificationService notificationService;
   private final CustomMetrics customMetrics;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CommentTreeProperties treeProperties;
+  private final CommentCache commentCache;
 
   public CommentService(
       CommentRepository commentRepository,
@@ -44,7 +65,10 @@ public class CommentService {
       VoteRepository voteRepository,
       KafkaEventService kafkaEventService,
       NotificationService notificationService,
-      CustomMetrics customMetrics) {
+      CustomMetrics customMetrics,
+      ApplicationEventPublisher eventPublisher,
+      CommentTreeProperties treeProperties,
+      CommentCache commentCache) {
     this.commentRepository = commentRepository;
     this.postRepository = postRepository;
     this.userRepository = userRepository;
@@ -52,14 +76,14 @@ public class CommentService {
     this.kafkaEventService = kafkaEventService;
     this.notificationService = notificationService;
     this.customMetrics = customMetrics;
+    this.eventPublisher = eventPublisher;
+    this.treeProperties = treeProperties;
+    this.commentCache = commentCache;
   }
 
   @RateLimiter(name = "commentCreation")
   @CircuitBreaker(name = "commentService")
   @Retry(name = "commentService")
-  @CacheEvict(
-      value = {"comments", "commentTrees"},
-      allEntries = true)
   @ModerateContent(contentType = "comment")
   public CommentResponse createComment(CommentCreateRequest request, UUID authorId) {
     User author =
@@ -83,12 +107,16 @@ public class CommentService {
               .findById(request.parentCommentId())
               .orElseThrow(
                   () -> new ResourceNotFoundException("Comment", "id", request.parentCommentId()));
+      if (parent.getDepthLevel() >= Comment.MAX_DEPTH) {
+        throw new InvalidRequestException("Cannot reply this deep in a thread");
+      }
     }
 
     Comment comment = new Comment(request.content(), author, post, parent);
     Comment saved = commentRepository.save(comment);
 
     postRepository.updatePostCommentCount(post.getId(), 1);
+    eventPublisher.publishEvent(PostCountersChangedEvent.comments(post.getId(), 1));
     if (parent != null) {
       commentRepository.updateCommentReplyCount(parent.getId(), 1);
     }
@@ -96,14 +124,16 @@ public class CommentService {
     String communityName = post.getCommunity() != null ? post.getCommunity().getName() : "direct";
     customMetrics.recordCommentCreated(communityName);
     kafkaEventService.sendCommentCreatedEvent(saved);
+    eventPublisher.publishEvent(CommentChangedEvent.of(saved, ContentChangeType.CREATED));
 
     // Send reply notification if this is a reply to another comment
     if (parent != null) {
       notificationService.createCommentReplyNotification(saved.getId(), post.getId(), authorId);
     }
 
-    // Process @mentions
-    processMentions(saved, author);
+    eventPublisher.publishEvent(
+        new ContentCreatedEvent(
+            post.getId(), saved.getId(), authorId, author.getUsername(), saved.getContent()));
 
     return CommentResponse.from(saved);
   }
@@ -111,9 +141,6 @@ public class CommentService {
   @RateLimiter(name = "commentCreation")
   @CircuitBreaker(name = "commentService")
   @Retry(name = "commentService")
-  @CacheEvict(
-      value = {"comments", "commentTrees"},
-      allEntries = true)
   @ModerateContent(contentType = "comment")
   public CommentResponse createReply(UUID parentCommentId, String content, UUID authorId) {
     User author =
@@ -130,71 +157,152 @@ public class CommentService {
     if (post.isLocked()) {
       throw new UnauthorizedActionException("Cannot reply on a locked post");
     }
+    if (parent.getDepthLevel() >= Comment.MAX_DEPTH) {
+      throw new InvalidRequestException("Cannot reply this deep in a thread");
+    }
 
     Comment comment = new Comment(content, author, post, parent);
     Comment saved = commentRepository.save(comment);
 
     postRepository.updatePostCommentCount(post.getId(), 1);
+    eventPublisher.publishEvent(PostCountersChangedEvent.comments(post.getId(), 1));
     commentRepository.updateCommentReplyCount(parent.getId(), 1);
 
     String communityName = post.getCommunity() != null ? post.getCommunity().getName() : "direct";
     customMetrics.recordCommentCreated(communityName);
     kafkaEventService.sendCommentCreatedEvent(saved);
+    eventPublisher.publishEvent(CommentChangedEvent.of(saved, ContentChangeType.CREATED));
     notificationService.createCommentReplyNotification(saved.getId(), post.getId(), authorId);
 
-    // Process @mentions
-    processMentions(saved, author);
+    eventPublisher.publishEvent(
+        new ContentCreatedEvent(
+            post.getId(), saved.getId(), authorId, author.getUsername(), saved.getContent()));
 
     return CommentResponse.from(saved);
   }
 
-  @Cacheable(value = "comments", key = "#commentId")
   @Transactional(readOnly = true)
   public CommentResponse getComment(UUID commentId, UUID currentUserId) {
-    Comment comment =
-        commentRepository
-            .findById(commentId)
-            .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
-    String userVote = getUserVote(comment, currentUserId);
-    return CommentResponse.from(comment, userVote);
+    CommentResponse comment =
+        commentCache.comment(
+            commentId,
+            () ->
+                commentRepository
+                    .findWithAuthorById(commentId)
+                    .map(CommentResponse::from)
+                    .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId)));
+    String userVote = getUserVotes(List.of(commentId), currentUserId).get(commentId);
+    return comment.withViewer(userVote, comment.replies());
   }
 
-  @Cacheable(value = "commentTrees", key = "#postId + '-' + #pageable.pageNumber")
+  /**
+   * One page of a post's top-level comments in the given order, each with its best replies. The
+   * default {@link CommentSort#BEST} order is served from the cached tree; other orders, and posts
+   * too large to cache, page through the matching index.
+   */
   @Transactional(readOnly = true)
   public Page<CommentResponse> getCommentsByPost(
-      UUID postId, Pageable pageable, UUID currentUserId) {
-    Post post =
-        postRepository
-            .findById(postId)
-            .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
-    return commentRepository
-        .findByPostAndParentIsNull(post, pageable)
-        .map(c -> toCommentResponseWithReplies(c, currentUserId, 3));
+      UUID postId, CommentSort sort, Pageable pageable, UUID currentUserId) {
+    CommentTreeSnapshot snapshot =
+        sort == CommentSort.BEST ? commentCache.tree(postId) : CommentTreeSnapshot.oversized();
+    if (snapshot.isOversized()) {
+      return loadCommentPage(postId, sort, pageable, currentUserId);
+    }
+    CommentTree tree =
+        snapshot.page(
+            pageable.getPageNumber(), pageable.getPageSize(), treeProperties.getChildrenPerNode());
+    return new PageImpl<>(
+        tree.withVotes(getUserVotes(tree.commentIds(), currentUserId)),
+        pageable,
+        snapshot.rootCount());
   }
 
-  private CommentResponse toCommentResponseWithReplies(
-      Comment comment, UUID currentUserId, int maxReplies) {
-    String userVote = getUserVote(comment, currentUserId);
-    List<CommentResponse> replyPreview = List.of();
-    if (comment.getReplyCount() > 0 && maxReplies > 0) {
-      replyPreview =
-          commentRepository.findByParent(comment).stream()
-              .limit(maxReplies)
-              .map(c -> CommentResponse.from(c, getUserVote(c, currentUserId)))
-              .toList();
+  // Uncached reads: roots off the sort's index, then the first replies of each kept comment, cut
+  // per parent in the database so a large thread never loads more than the page shows, then votes
+  private Page<CommentResponse> loadCommentPage(
+      UUID postId, CommentSort sort, Pageable pageable, UUID currentUserId) {
+    Page<Comment> roots =
+        commentRepository.findByPostIdAndParentIsNull(
+            postId,
+            PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.toSort()));
+    if (roots.isEmpty() && pageable.getPageNumber() == 0 && !postRepository.existsById(postId)) {
+      throw new ResourceNotFoundException("Post", "id", postId);
     }
-    return CommentResponse.from(comment, userVote, replyPreview);
+    List<UUID> replyIds =
+        commentRepository.findReplyIds(
+            postId,
+            roots.stream().map(Comment::getId).toList(),
+            sort,
+            treeProperties.getMaxDepth(),
+            treeProperties.getChildrenPerNode());
+    List<Comment> descendants =
+        replyIds.isEmpty()
+            ? List.of()
+            : commentRepository.findWithAuthorByIdInOrderByPath(replyIds);
+    CommentTree tree =
+        CommentTree.assemble(
+            roots.getContent(), descendants, treeProperties.getChildrenPerNode(), sort);
+    List<CommentResponse> content = tree.withVotes(getUserVotes(tree.commentIds(), currentUserId));
+    return new PageImpl<>(content, pageable, roots.getTotalElements());
   }
 
+  /**
+   * A batch of a post's top-level comments, continuing after {@code after} if given. Clients use it
+   * to load more of a thread than the first page returned.
+   */
   @Transactional(readOnly = true)
-  public List<CommentResponse> getReplies(UUID commentId, UUID currentUserId) {
+  public CommentSliceResponse getTopLevelComments(
+      UUID postId, CommentSort sort, String after, Integer limit, UUID currentUserId) {
+    if (!postRepository.existsById(postId)) {
+      throw new ResourceNotFoundException("Post", "id", postId);
+    }
+    return loadSiblings(postId, null, 0, sort, after, limit, currentUserId);
+  }
+
+  /** A batch of a comment's direct replies, continuing after {@code after} if given. */
+  @Transactional(readOnly = true)
+  public CommentSliceResponse getReplies(
+      UUID commentId, CommentSort sort, String after, Integer limit, UUID currentUserId) {
     Comment parent =
         commentRepository
             .findById(commentId)
             .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
-    return commentRepository.findByParent(parent).stream()
-        .map(c -> CommentResponse.from(c, getUserVote(c, currentUserId)))
-        .toList();
+    return loadSiblings(
+        parent.getPost().getId(),
+        commentId,
+        parent.getDepthLevel() + 1,
+        sort,
+        after,
+        limit,
+        currentUserId);
+  }
+
+  // One keyset range of the sort's index, capped by the configured limit for this depth
+  private CommentSliceResponse loadSiblings(
+      UUID postId,
+      UUID parentId,
+      int depth,
+      CommentSort sort,
+      String after,
+      Integer limit,
+      UUID currentUserId) {
+    int maxLimit = treeProperties.pageLimit(depth);
+    int size = limit != null ? Math.clamp(limit, 1, maxLimit) : maxLimit;
+    ScrollPosition position =
+        after != null
+            ? CommentCursor.decode(after).resume(sort, postId, parentId)
+            : ScrollPosition.keyset();
+    Window<Comment> window =
+        commentRepository.findByPostIdAndParentId(
+            postId, parentId, position, sort.toSort(), Limit.of(size));
+    List<Comment> comments = window.getContent();
+    String nextToken =
+        window.hasNext() && !comments.isEmpty()
+            ? CommentCursor.after(sort, postId, parentId, comments.get(comments.size() - 1))
+                .encode()
+            : null;
+    return new CommentSliceResponse(
+        withUserVotes(comments, currentUserId), nextToken, nextToken != null);
   }
 
   @Transactional(readOnly = true)
@@ -204,14 +312,11 @@ public class CommentService {
         userRepository
             .findById(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
-    return commentRepository
-        .findByAuthor(user, pageable)
-        .map(c -> CommentResponse.from(c, getUserVote(c, currentUserId)));
+    Page<Comment> comments = commentRepository.findByAuthor(user, pageable);
+    return new PageImpl<>(
+        withUserVotes(comments.getContent(), currentUserId), pageable, comments.getTotalElements());
   }
 
-  @CacheEvict(
-      value = {"comments", "commentTrees"},
-      allEntries = true)
   public CommentResponse updateComment(UUID commentId, String newContent, UUID currentUserId) {
     Comment comment =
         commentRepository
@@ -250,12 +355,10 @@ public class CommentService {
             comment.getDeletedAt(),
             comment.getRemovedAt());
     Comment saved = commentRepository.save(updated);
+    eventPublisher.publishEvent(CommentChangedEvent.of(saved, ContentChangeType.UPDATED));
     return CommentResponse.from(saved);
   }
 
-  @CacheEvict(
-      value = {"comments", "commentTrees"},
-      allEntries = true)
   public void deleteComment(UUID commentId, UUID currentUserId) {
     Comment comment =
         commentRepository
@@ -268,62 +371,30 @@ public class CommentService {
 
     commentRepository.softDeleteComment(commentId, Instant.now());
     postRepository.updatePostCommentCount(comment.getPost().getId(), -1);
+    eventPublisher.publishEvent(PostCountersChangedEvent.comments(comment.getPost().getId(), -1));
+    eventPublisher.publishEvent(CommentChangedEvent.of(comment, ContentChangeType.DELETED));
   }
 
   @Transactional(readOnly = true)
   public Page<CommentResponse> searchComments(String query, Pageable pageable, UUID currentUserId) {
-    return commentRepository
-        .searchComments(query, pageable)
-        .map(c -> CommentResponse.from(c, getUserVote(c, currentUserId)));
+    Page<Comment> comments = commentRepository.searchComments(query, pageable);
+    return new PageImpl<>(
+        withUserVotes(comments.getContent(), currentUserId), pageable, comments.getTotalElements());
   }
 
-  private void processMentions(Comment comment, User author) {
-    java.util.regex.Pattern pattern =
-        java.util.regex.Pattern.compile("(?<!\\w)@([a-zA-Z0-9_]+)(?!\\w)");
-    java.util.regex.Matcher matcher = pattern.matcher(comment.getContent());
-    java.util.Set<String> usernames = new java.util.HashSet<>();
-    while (matcher.find()) {
-      usernames.add(matcher.group(1).toLowerCase());
-    }
-    for (String username : usernames) {
-      userRepository
-          .findByUsername(username)
-          .ifPresent(
-              mentionedUser -> {
-                if (!mentionedUser.getId().equals(author.getId())) {
-                  String preview =
-                      comment.getContent().length() > 100
-                          ? comment.getContent().substring(0, 100) + "..."
-                          : comment.getContent();
-                  NotificationRequest notification =
-                      new NotificationRequest(
-                          NotificationRequest.NotificationType.COMMENT_MENTION,
-                          mentionedUser.getId(),
-                          "You were mentioned in a comment",
-                          String.format("%s mentioned you: \"%s\"", author.getUsername(), preview),
-                          comment.getPost().getId(),
-                          comment.getId(),
-                          author.getId(),
-                          "/posts/" + comment.getPost().getId() + "#comment-" + comment.getId(),
-                          "View mention",
-                          false);
-                  try {
-                    notificationService.createNotification(notification);
-                  } catch (Exception e) {
-                    // Silently ignore notification failures
-                  }
-                }
-              });
-    }
+  private List<CommentResponse> withUserVotes(List<Comment> comments, UUID currentUserId) {
+    Map<UUID, String> votes =
+        getUserVotes(comments.stream().map(Comment::getId).toList(), currentUserId);
+    return comments.stream().map(c -> CommentResponse.from(c, votes.get(c.getId()))).toList();
   }
 
-  private String getUserVote(Comment comment, UUID currentUserId) {
-    if (currentUserId == null) return null;
-    User user = userRepository.findById(currentUserId).orElse(null);
-    if (user == null) return null;
-    return voteRepository
-        .findByUserAndComment(user, comment)
-        .map(v -> v.getVoteType().name())
-        .orElse(null);
+  private Map<UUID, String> getUserVotes(Collection<UUID> commentIds, UUID currentUserId) {
+    if (currentUserId == null || commentIds.isEmpty()) {
+      return Map.of();
+    }
+    return voteRepository.findCommentVotes(currentUserId, commentIds).stream()
+        .collect(
+            Collectors.toMap(
+                VoteRepository.CommentVote::getCommentId, vote -> vote.getVoteType().name()));
   }
 }
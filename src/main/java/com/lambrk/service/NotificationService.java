@@ -1,29 +1,38 @@
 package com.lambrk.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambrk.badge.BadgeKind;
+import com.lambrk.badge.BadgeService;
 import com.lambrk.domain.Comment;
 import com.lambrk.domain.Notification;
 import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.dto.NotificationRequest;
 import com.lambrk.dto.NotificationResponse;
+import com.lambrk.notification.NotificationAggregationProperties;
+import com.lambrk.notification.NotificationHydrator;
+import com.lambrk.notification.NotificationPublisher;
+import com.lambrk.notification.NotificationPushDebouncer;
 import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.NotificationBatchRepository.UpsertedAggregate;
 import com.lambrk.repository.NotificationRepository;
 import com.lambrk.repository.PostRepository;
 import com.lambrk.repository.UserRepository;
 import com.lambrk.util.UuidV7Generator;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,29 +41,43 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class NotificationService {
 
+  static final int BULK_CHUNK_SIZE = 1_000;
+
   private final NotificationRepository notificationRepository;
   private final UserRepository userRepository;
   private final CommentRepository commentRepository;
   private final PostRepository postRepository;
-  private final KafkaTemplate<String, byte[]> kafkaTemplate;
-  private final ObjectMapper objectMapper;
+  private final NotificationPublisher notificationPublisher;
   private final CustomMetrics customMetrics;
+  private final NotificationHydrator notificationHydrator;
+  private final NotificationPushDebouncer pushDebouncer;
+  private final NotificationAggregationProperties aggregationProperties;
+  private final Cache notificationCache;
+  private final BadgeService badgeService;
 
   public NotificationService(
       NotificationRepository notificationRepository,
       UserRepository userRepository,
       CommentRepository commentRepository,
       PostRepository postRepository,
-      KafkaTemplate<String, byte[]> kafkaTemplate,
-      ObjectMapper objectMapper,
-      CustomMetrics customMetrics) {
+      NotificationPublisher notificationPublisher,
+      CustomMetrics customMetrics,
+      NotificationHydrator notificationHydrator,
+      NotificationPushDebouncer pushDebouncer,
+      NotificationAggregationProperties aggregationProperties,
+      CacheManager cacheManager,
+      BadgeService badgeService) {
     this.notificationRepository = notificationRepository;
     this.userRepository = userRepository;
     this.commentRepository = commentRepository;
     this.postRepository = postRepository;
-    this.kafkaTemplate = kafkaTemplate;
-    this.objectMapper = objectMapper;
+    this.notificationPublisher = notificationPublisher;
     this.customMetrics = customMetrics;
+    this.notificationHydrator = notificationHydrator;
+    this.pushDebouncer = pushDebouncer;
+    this.aggregationProperties = aggregationProperties;
+    this.notificationCache = cacheManager.getCache("notifications");
+    this.badgeService = badgeService;
   }
 
   @CacheEvict(value = "notifications", allEntries = true)
@@ -84,21 +107,24 @@ public class NotificationService {
             null);
 
     Notification saved = notificationRepository.save(notification);
+    if (!saved.isRead()) {
+      badgeService.adjust(recipient.getId(), BadgeKind.NOTIFICATIONS, 1);
+    }
 
     // Send real-time notification via WebSocket/Kafka
-    sendRealTimeNotification(saved);
+    notificationPublisher.publish(saved);
 
     // Update metrics
     customMetrics.recordNotificationCreated(request.type().name());
 
-    return convertToResponse(saved);
+    return notificationHydrator.hydrate(List.of(saved)).get(0);
   }
 
   @Cacheable(value = "notifications", key = "#userId")
   public Page<NotificationResponse> getUserNotifications(UUID userId, Pageable pageable) {
     Page<Notification> notifications =
         notificationRepository.findByRecipientIdOrderByCreatedAtDesc(userId, pageable);
-    return notifications.map(this::convertToResponse);
+    return notificationHydrator.hydrate(notifications);
   }
 
   @Cacheable(value = "notifications", key = "#userId + '-unread'")
@@ -106,11 +132,11 @@ public class NotificationService {
     Page<Notification> notifications =
         notificationRepository.findByRecipientIdAndIsReadOrderByCreatedAtDesc(
             userId, false, pageable);
-    return notifications.map(this::convertToResponse);
+    return notificationHydrator.hydrate(notifications);
   }
 
   public long getUnreadNotificationCount(UUID userId) {
-    return notificationRepository.countUnreadNotifications(userId);
+    return badgeService.count(userId, BadgeKind.NOTIFICATIONS);
   }
 
   @CacheEvict(value = "notifications", allEntries = true)
@@ -124,50 +150,35 @@ public class NotificationService {
       throw new RuntimeException("Notification does not belong to user: " + userId);
     }
 
-    Notification updated =
-        new Notification(
-            notification.getId(),
-            notification.getType(),
-            notification.getRecipient(),
-            notification.getTitle(),
-            notification.getMessage(),
-            notification.getRelatedPostId(),
-            notification.getRelatedCommentId(),
-            notification.getRelatedUserId(),
-            notification.getActionUrl(),
-            notification.getActionText(),
-            true,
-            notification.getCreatedAt(),
-            Instant.now(),
-            Instant.now());
-
-    notificationRepository.save(updated);
+    if (!notification.isRead()) {
+      notification.setRead(true);
+      notification.setReadAt(Instant.now());
+      badgeService.adjust(userId, BadgeKind.NOTIFICATIONS, -1);
+    }
   }
 
-  @CacheEvict(value = "notifications", key = "#userId")
-  public void markAllNotificationsAsRead(UUID userId) {
-    List<Notification> unreadNotifications =
-        notificationRepository.findByRecipientIdAndIsRead(userId, false);
-
-    for (Notification notification : unreadNotifications) {
-      Notification updated =
-          new Notification(
-              notification.getId(),
-              notification.getType(),
-              notification.getRecipient(),
-              notification.getTitle(),
-              notification.getMessage(),
-              notification.getRelatedPostId(),
-              notification.getRelatedCommentId(),
-              notification.getRelatedUserId(),
-              notification.getActionUrl(),
-              notification.getActionText(),
-              true,
-              notification.getCreatedAt(),
-              Instant.now(),
-              Instant.now());
-      notificationRepository.save(updated);
-    }
+  /**
+   * Marks every unread notification of the user read with set-based updates of at most {@link
+   * #BULK_CHUNK_SIZE} rows, each committed on its own so no lock is held for long.
+   *
+   * @return how many notifications were marked read
+   */
+  @Caching(
+      evict = {
+        @CacheEvict(value = "notifications", key = "#userId"),
+        @CacheEvict(value = "notifications", key = "#userId + '-unread'")
+      })
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int markAllNotificationsAsRead(UUID userId) {
+    Instant readAt = Instant.now();
+    int total = 0;
+    int updated;
+    do {
+      updated = notificationRepository.markReadBatch(userId, readAt, BULK_CHUNK_SIZE);
+      total += updated;
+    } while (updated == BULK_CHUNK_SIZE);
+    badgeService.reset(userId, BadgeKind.NOTIFICATIONS);
+    return total;
   }
 
   @CacheEvict(value = "notifications", key = "#userId")
@@ -182,12 +193,32 @@ public class NotificationService {
     }
 
     notificationRepository.delete(notification);
+    if (!notification.isRead()) {
+      badgeService.adjust(userId, BadgeKind.NOTIFICATIONS, -1);
+    }
   }
 
-  @CacheEvict(value = "notifications", key = "#userId")
-  public void deleteAllNotifications(UUID userId) {
-    List<Notification> notifications = notificationRepository.findByRecipientId(userId);
-    notificationRepository.deleteAll(notifications);
+  /**
+   * Deletes all of the user's notifications in chunks of at most {@link #BULK_CHUNK_SIZE}, each
+   * committed on its own.
+   *
+   * @return how many notifications were deleted
+   */
+  @Caching(
+      evict = {
+        @CacheEvict(value = "notifications", key = "#userId"),
+        @CacheEvict(value = "notifications", key = "#userId + '-unread'")
+      })
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int deleteAllNotifications(UUID userId) {
+    int total = 0;
+    int deleted;
+    do {
+      deleted = notificationRepository.deleteBatch(userId, BULK_CHUNK_SIZE);
+      total += deleted;
+    } while (deleted == BULK_CHUNK_SIZE);
+    badgeService.reset(userId, BadgeKind.NOTIFICATIONS);
+    return total;
   }
 
   public void createCommentReplyNotification(UUID commentId, UUID postId, UUID authorId) {
@@ -215,17 +246,18 @@ public class NotificationService {
               ? comment.getParent().getAuthor().getId()
               : post.getAuthor().getId();
 
+      String action =
+          String.format(
+              "replied: \"%s\"",
+              comment.getContent().length() > 100
+                  ? comment.getContent().substring(0, 100) + "..."
+                  : comment.getContent());
       NotificationRequest notification =
           new NotificationRequest(
               NotificationRequest.NotificationType.COMMENT_REPLY,
               recipientId,
               "New reply to your comment",
-              String.format(
-                  "%s replied: \"%s\"",
-                  author.getUsername(),
-                  comment.getContent().length() > 100
-                      ? comment.getContent().substring(0, 100) + "..."
-                      : comment.getContent()),
+              author.getUsername() + " " + action,
               postId,
               commentId,
               authorId,
@@ -233,7 +265,9 @@ public class NotificationService {
               "View reply",
               false);
 
-      createNotification(notification);
+      // Replies fold per replied-to comment, or per post for top-level comments
+      UUID target = comment.getParent() != null ? comment.getParent().getId() : postId;
+      createAggregatedNotification(notification, target, author.getUsername(), action);
 
     } catch (Exception e) {
       // Log error but don't fail the operation
@@ -256,14 +290,15 @@ public class NotificationService {
               .findById(voterId)
               .orElseThrow(() -> new RuntimeException("Voter not found: " + voterId));
 
+      String action =
+          String.format(
+              "liked your post \"%s\"", post.getTitle() != null ? post.getTitle() : "Untitled");
       NotificationRequest notification =
           new NotificationRequest(
               NotificationRequest.NotificationType.POST_LIKE,
               authorId,
               "Your post received a like",
-              String.format(
-                  "%s liked your post \"%s\"",
-                  voter.getUsername(), post.getTitle() != null ? post.getTitle() : "Untitled"),
+              voter.getUsername() + " " + action,
               postId,
               null,
               voterId,
@@ -271,7 +306,7 @@ public class NotificationService {
               "View post",
               false);
 
-      createNotification(notification);
+      createAggregatedNotification(notification, postId, voter.getUsername(), action);
 
     } catch (Exception e) {
       System.err.println("Failed to create like notification: " + e.getMessage());
@@ -290,12 +325,13 @@ public class NotificationService {
               .findById(followerId)
               .orElseThrow(() -> new RuntimeException("Follower not found: " + followerId));
 
+      String action = "started following you";
       NotificationRequest notification =
           new NotificationRequest(
               NotificationRequest.NotificationType.USER_FOLLOW,
               followedUserId,
               "New follower",
-              String.format("%s started following you", follower.getUsername()),
+              follower.getUsername() + " " + action,
               null,
               null,
               followerId,
@@ -303,7 +339,7 @@ public class NotificationService {
               "View profile",
               false);
 
-      createNotification(notification);
+      createAggregatedNotification(notification, followedUserId, follower.getUsername(), action);
     } catch (Exception e) {
       System.err.println("Failed to create follow notification: " + e.getMessage());
     }
@@ -372,136 +408,128 @@ public class NotificationService {
     }
   }
 
+  /**
+   * Notifies users mentioned in a post ({@code commentId} null) or comment: one batched insert for
+   * all of them, then their realtime events flushed to Kafka together. Self-mentions are skipped.
+   */
+  @CacheEvict(value = "notifications", allEntries = true)
   public void createMentionNotification(
-      String content, UUID postId, UUID commentId, UUID mentionedUserId, UUID authorId) {
-    if (mentionedUserId.equals(authorId)) {
-      return; // Don't notify for self-mentions
-    }
-
-    try {
-      User author =
-          userRepository
-              .findById(authorId)
-              .orElseThrow(() -> new RuntimeException("Author not found: " + authorId));
-
-      NotificationRequest notification =
-          new NotificationRequest(
-              NotificationRequest.NotificationType.POST_MENTION,
-              mentionedUserId,
-              "You were mentioned in a post",
-              String.format(
-                  "%s mentioned you in \"%s\"",
-                  author.getUsername(),
-                  content.length() > 100 ? content.substring(0, 100) + "..." : content),
-              postId,
-              commentId,
-              authorId,
-              commentId != null ? "/posts/" + postId + "#comment-" + commentId : "/posts/" + postId,
-              "View mention",
-              false);
-
-      createNotification(notification);
-
-    } catch (Exception e) {
-      System.err.println("Failed to create mention notification: " + e.getMessage());
-    }
-  }
-
-  private void sendRealTimeNotification(Notification notification) {
-    try {
-      byte[] payload = toKafkaPayload(notification);
-      String recipientId = notification.getRecipient().getId().toString();
-
-      // Send to WebSocket topic
-      kafkaTemplate.send("notifications", notification.getId().toString(), payload);
-
-      // Could also send to specific user topic
-      kafkaTemplate.send(
-          "user-" + recipientId + "-notifications", notification.getId().toString(), payload);
-
-    } catch (Exception e) {
-      System.err.println("Failed to send real-time notification: " + e.getMessage());
+      String content,
+      UUID postId,
+      UUID commentId,
+      Collection<UUID> mentionedUserIds,
+      UUID authorId,
+      String authorUsername) {
+    boolean inComment = commentId != null;
+    Notification.NotificationType type =
+        inComment
+            ? Notification.NotificationType.COMMENT_MENTION
+            : Notification.NotificationType.POST_MENTION;
+    String preview = content.length() > 100 ? content.substring(0, 100) + "..." : content;
+    String message =
+        inComment
+            ? String.format("%s mentioned you: \"%s\"", authorUsername, preview)
+            : String.format("%s mentioned you in \"%s\"", authorUsername, preview);
+    String actionUrl =
+        inComment ? "/posts/" + postId + "#comment-" + commentId : "/posts/" + postId;
+    Instant now = Instant.now();
+
+    List<Notification> notifications =
+        mentionedUserIds.stream()
+            .filter(userId -> !userId.equals(authorId))
+            .distinct()
+            .map(
+                userId ->
+                    new Notification(
+                        UuidV7Generator.generate(),
+                        type,
+                        userRepository.getReferenceById(userId),
+                        inComment
+                            ? "You were mentioned in a comment"
+                            : "You were mentioned in a post",
+                        message,
+                        postId,
+                        commentId,
+                        authorId,
+                        actionUrl,
+                        "View mention",
+                        false,
+                        now,
+                        now,
+                        null))
+            .toList();
+    if (notifications.isEmpty()) {
+      return;
     }
-  }
 
-  private byte[] toKafkaPayload(Notification notification) throws JsonProcessingException {
-    return objectMapper
-        .writeValueAsString(
-            new NotificationRealtimeEvent(
-                notification.getId(),
-                notification.getType().name(),
-                notification.getRecipient().getId(),
-                notification.getTitle(),
-                notification.getMessage(),
-                notification.getRelatedPostId(),
-                notification.getRelatedCommentId(),
-                notification.getRelatedUserId(),
-                notification.getActionUrl(),
-                notification.getActionText(),
-                notification.isRead(),
-                notification.getCreatedAt()))
-        .getBytes(StandardCharsets.UTF_8);
+    notificationRepository.insertAll(notifications);
+    notifications.forEach(
+        n -> badgeService.adjust(n.getRecipient().getId(), BadgeKind.NOTIFICATIONS, 1));
+    notificationPublisher.publishAll(notifications);
+    notifications.forEach(n -> customMetrics.recordNotificationCreated(type.name()));
   }
 
-  private NotificationResponse convertToResponse(Notification notification) {
-    return new NotificationResponse(
-        notification.getId(),
-        notification.getType(),
-        notification.getRecipient().getId(),
-        notification.getTitle(),
-        notification.getMessage(),
-        notification.getRelatedPostId(),
-        getPostTitle(notification.getRelatedPostId()),
-        notification.getRelatedCommentId(),
-        getCommentPreview(notification.getRelatedCommentId()),
-        notification.getRelatedUserId(),
-        getUsername(notification.getRelatedUserId()),
-        notification.getActionUrl(),
-        notification.getActionText(),
-        notification.isRead(),
-        notification.getCreatedAt(),
-        notification.getReadAt());
+  /**
+   * Deletes the actor records of aggregation buckets that have closed. Any node may run it; the
+   * delete is idempotent.
+   */
+  @Scheduled(
+      fixedDelayString = "${lambrk.notifications.aggregation.window-ms:3600000}",
+      initialDelayString = "${lambrk.notifications.aggregation.window-ms:3600000}")
+  public void purgeAggregateActors() {
+    notificationRepository.deleteAggregateActorsBefore(
+        Instant.now().minusMillis(aggregationProperties.getWindowMs()));
   }
 
-  private String getPostTitle(UUID postId) {
-    if (postId == null) {
-      return null;
+  /**
+   * Records one actor's like, reply or follow aimed at {@code targetId}. Within the same
+   * aggregation window the recipient gets a single row per type and target that counts the actors
+   * and reads "{@code actorName} and 341 others {@code action}"; its realtime push is debounced, so
+   * a viral post costs its author neither thousands of rows nor thousands of pushes.
+   */
+  private void createAggregatedNotification(
+      NotificationRequest request, UUID targetId, String actorName, String action) {
+    if (!aggregationProperties.isEnabled()) {
+      createNotification(request);
+      return;
     }
-    return postRepository.findById(postId).map(Post::getTitle).orElse(null);
-  }
+    Notification.NotificationType type =
+        Notification.NotificationType.valueOf(request.type().name());
+    Instant now = Instant.now();
+    Notification notification =
+        new Notification(
+            UuidV7Generator.generate(),
+            type,
+            userRepository.getReferenceById(request.recipientId()),
+            request.title(),
+            request.message(),
+            request.relatedPostId(),
+            request.relatedCommentId(),
+            request.relatedUserId(),
+            request.actionUrl(),
+            request.actionText(),
+            false,
+            now,
+            now,
+            null);
 
-  private String getCommentPreview(UUID commentId) {
-    if (commentId == null) {
-      return null;
+    Optional<UpsertedAggregate> aggregate =
+        notificationRepository.upsertAggregate(
+            notification,
+            type.name() + ":" + targetId,
+            now.toEpochMilli() / aggregationProperties.getWindowMs(),
+            actorName,
+            action,
+            aggregationProperties.getSampleSize());
+    if (aggregate.isEmpty()) {
+      return;
     }
-    return commentRepository
-        .findById(commentId)
-        .map(
-            c ->
-                c.getContent().length() > 100
-                    ? c.getContent().substring(0, 100) + "..."
-                    : c.getContent())
-        .orElse(null);
-  }
-
-  private String getUsername(UUID userId) {
-    if (userId == null) {
-      return null;
+    if (aggregate.get().becameUnread()) {
+      badgeService.adjust(request.recipientId(), BadgeKind.NOTIFICATIONS, 1);
     }
-    return userRepository.findById(userId).map(User::getUsername).orElse(null);
+    notificationCache.evict(request.recipientId());
+    notificationCache.evict(request.recipientId() + "-unread");
+    pushDebouncer.submit(request.recipientId(), aggregate.get().id());
+    customMetrics.recordNotificationCreated(type.name());
   }
-
-  private record NotificationRealtimeEvent(
-      UUID id,
-      String type,
-      UUID recipientId,
-      String title,
-      String message,
-      UUID relatedPostId,
-      UUID relatedCommentId,
-      UUID relatedUserId,
-      String actionUrl,
-      String actionText,
-      boolean read,
-      Instant createdAt) {}
 }
@@ -5,6 +5,9 @@ import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.dto.PostCreateRequest;
 import com.lambrk.dto.PostResponse;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.ContentCreatedEvent;
+import com.lambrk.event.PostChangedEvent;
 import com.lambrk.repository.BookmarkRepository;
 import com.lambrk.repository.CommunityRepository;
 import com.lambrk.repository.FileUploadRepository;
@@ -20,6 +23,7 @@ import java.util.List;
 import java.util.UUID;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -39,6 +43,7 @@ public class PostService {
   private final BookmarkRepository bookmarkRepository;
   private final S3StorageService s3StorageService;
   private final KafkaEventService kafkaEventService;
+  private final ApplicationEventPublisher eventPublisher;
 
   public PostService(
       PostRepository postRepository,
@@ -48,7 +53,8 @@ public class PostService {
       FileUploadRepository fileUploadRepository,
       BookmarkRepository bookmarkRepository,
       S3StorageService s3StorageService,
-      KafkaEventService kafkaEventService) {
+      KafkaEventService kafkaEventService,
+      ApplicationEventPublisher eventPublisher) {
     this.postRepository = postRepository;
     this.userRepository = userRepository;
     this.communityRepository = communityRepository;
@@ -57,6 +63,7 @@ public class PostService {
     this.bookmarkRepository = bookmarkRepository;
     this.s3StorageService = s3StorageService;
     this.kafkaEventService = kafkaEventService;
+    this.eventPublisher = eventPublisher;
   }
 
   @RateLimiter(name = "postCreation")
@@ -126,6 +133,10 @@ public class PostService {
 
       // Send Kafka event
       kafkaEventService.sendPostCreatedEvent(savedPost);
+      eventPublisher.publishEvent(PostChangedEvent.of(savedPost, ContentChangeType.CREATED));
+      eventPublisher.publishEvent(
+          new ContentCreatedEvent(
+              savedPost.getId(), null, authorId, author.getUsername(), savedPost.getContent()));
 
       return PostResponse.from(savedPost);
     } catch (Exception e) {
@@ -286,6 +297,7 @@ public class PostService {
 
     // Send Kafka event
     kafkaEventService.sendPostUpdatedEvent(savedPost);
+    eventPublisher.publishEvent(PostChangedEvent.of(savedPost, ContentChangeType.UPDATED));
 
     return PostResponse.from(savedPost);
   }
@@ -369,6 +381,7 @@ public class PostService {
       }
     }
 
+    eventPublisher.publishEvent(PostChangedEvent.of(post, ContentChangeType.DELETED));
     postRepository.delete(post);
   }
 
@@ -6,22 +6,38 @@ import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.dto.CommentResponse;
 import com.lambrk.dto.CommunityResponse;
+import com.lambrk.dto.MediaResponse;
 import com.lambrk.dto.PostResponse;
 import com.lambrk.dto.SearchRequest;
 import com.lambrk.dto.SearchResponse;
 import com.lambrk.dto.SocialUserResponse;
 import com.lambrk.repository.CommentRepository;
 import com.lambrk.repository.CommunityRepository;
+import com.lambrk.repository.FileUploadRepository;
 import com.lambrk.repository.PostRepository;
 import com.lambrk.repository.UserRepository;
+import com.lambrk.search.CommentSearchRow;
+import com.lambrk.search.DocumentKind;
+import com.lambrk.search.EmbeddedSearchIndex;
+import com.lambrk.search.PostSearchRow;
+import com.lambrk.search.SearchCacheKey;
+import com.lambrk.search.SearchHighlighter;
+import com.lambrk.search.SearchResultCache;
+import com.lambrk.search.SearchResultIds;
+import com.lambrk.search.SpellingCorrectionService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import org.springframework.cache.annotation.Cacheable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -37,59 +53,62 @@ public class SearchService {
   private final CommentRepository commentRepository;
   private final UserRepository userRepository;
   private final CommunityRepository communityRepository;
+  private final FileUploadRepository fileUploadRepository;
   private final CustomMetrics customMetrics;
   private final UserSocialService userSocialService;
+  private final SearchResultCache searchResultCache;
+  private final ObjectProvider<EmbeddedSearchIndex> embeddedSearchIndex;
+  private final SearchHighlighter searchHighlighter;
+  private final SpellingCorrectionService spellingCorrectionService;
 
   public SearchService(
       PostRepository postRepository,
       CommentRepository commentRepository,
       UserRepository userRepository,
       CommunityRepository communityRepository,
+      FileUploadRepository fileUploadRepository,
       CustomMetrics customMetrics,
-      UserSocialService userSocialService) {
+      UserSocialService userSocialService,
+      SearchResultCache searchResultCache,
+      ObjectProvider<EmbeddedSearchIndex> embeddedSearchIndex,
+      SearchHighlighter searchHighlighter,
+      SpellingCorrectionService spellingCorrectionService) {
     this.postRepository = postRepository;
     this.commentRepository = commentRepository;
     this.userRepository = userRepository;
     this.communityRepository = communityRepository;
+    this.fileUploadRepository = fileUploadRepository;
     this.customMetrics = customMetrics;
     this.userSocialService = userSocialService;
+    this.searchResultCache = searchResultCache;
+    this.embeddedSearchIndex = embeddedSearchIndex;
+    this.searchHighlighter = searchHighlighter;
+    this.spellingCorrectionService = spellingCorrectionService;
   }
 
   @RateLimiter(name = "search")
   @CircuitBreaker(name = "userService")
   @Retry(name = "userService")
-  @Cacheable(
-      value = "searchResults",
-      key =
-          "#request.query() + '-' + #request.type() + '-' + #request.sort() + '-' +"
-              + " #request.timeFilter() + '-' + #request.page() + '-' + #request.size() + '-' +"
-              + " (#currentUserId == null ? 'anonymous' : #currentUserId)")
   public SearchResponse search(SearchRequest request, UUID currentUserId) {
     long startTime = System.currentTimeMillis();
 
     try {
-      List<PostResponse> posts =
-          request.type() == SearchRequest.SearchType.ALL
-                  || request.type() == SearchRequest.SearchType.POSTS
-              ? searchPosts(request)
-              : List.of();
-      List<CommentResponse> comments =
-          request.type() == SearchRequest.SearchType.ALL
-                  || request.type() == SearchRequest.SearchType.COMMENTS
-              ? searchComments(request)
-              : List.of();
-      List<SocialUserResponse> users =
-          request.type() == SearchRequest.SearchType.ALL
-                  || request.type() == SearchRequest.SearchType.USERS
-              ? searchUsers(request, currentUserId)
-              : List.of();
-      List<CommunityResponse> communities =
-          request.type() == SearchRequest.SearchType.ALL
-                  || request.type() == SearchRequest.SearchType.COMMUNITIES
-              ? searchCommunities(request)
-              : List.of();
-
-      int totalResults = posts.size() + comments.size() + users.size() + communities.size();
+      SearchHits hits = find(request, currentUserId);
+      List<String> suggestions = List.of();
+      String correctedQuery = null;
+      // An empty later page only means the results ran out, so correct the first page only
+      if (hits.total() == 0 && request.page() == 0) {
+        customMetrics.recordSearchQuery("zero_hits");
+        suggestions = spellingCorrectionService.suggest(request.query());
+        if (!suggestions.isEmpty() && spellingCorrectionService.isAutoRerunEnabled()) {
+          SearchHits corrected = find(request.withQuery(suggestions.get(0)), currentUserId);
+          if (corrected.total() > 0) {
+            customMetrics.recordSearchQuery("corrected");
+            hits = corrected;
+            correctedQuery = suggestions.get(0);
+          }
+        }
+      }
 
       SearchResponse.SearchMetadata metadata =
           new SearchResponse.SearchMetadata(
@@ -97,14 +116,21 @@ public class SearchService {
               request.type(),
               request.sort(),
               request.timeFilter(),
-              totalResults,
+              hits.total(),
               request.page(),
               request.size(),
-              (totalResults + request.size() - 1) / request.size(),
+              (hits.total() + request.size() - 1) / request.size(),
               System.currentTimeMillis() - startTime,
-              generateSuggestions(request.query()));
+              suggestions,
+              correctedQuery);
 
-      return SearchResponse.ofAll(posts, comments, users, communities, metadata);
+      return SearchResponse.ofAll(
+          hits.posts(),
+          hits.comments(),
+          hits.users(),
+          hits.communities(),
+          hits.highlights(),
+          metadata);
 
     } catch (Exception e) {
       customMetrics.recordSearchQuery("error");
@@ -112,56 +138,121 @@ public class SearchService {
     }
   }
 
-  private List<PostResponse> searchPosts(SearchRequest request) {
-    Instant since = getTimeSince(request.timeFilter());
-    Pageable pageable = createPageable(request);
+  private SearchHits find(SearchRequest request, UUID currentUserId) {
+    SearchResultIds ids = searchResultCache.get(SearchCacheKey.from(request), this::findIds);
 
-    Page<Post> posts;
-    if (!request.communities().isEmpty()) {
+    List<PostResponse> posts = loadPosts(ids.postIds(), request.includeContent());
+    List<CommentResponse> comments = loadComments(ids.commentIds(), request.includeContent());
+    List<SocialUserResponse> users = loadUsers(ids.userIds(), currentUserId);
+    List<CommunityResponse> communities = loadCommunities(ids.communityIds());
+
+    Map<UUID, String> highlights = new HashMap<>();
+    highlights.putAll(
+        searchHighlighter.highlightPosts(
+            request.query(), posts.stream().map(PostResponse::id).toList()));
+    highlights.putAll(
+        searchHighlighter.highlightComments(
+            request.query(), comments.stream().map(CommentResponse::id).toList()));
+
+    return new SearchHits(posts, comments, users, communities, highlights);
+  }
+
+  // Shared, user-agnostic stage: everything here depends only on the cache key
+
+  private SearchResultIds findIds(SearchCacheKey key) {
+    return new SearchResultIds(
+        key.type() == SearchRequest.SearchType.ALL || key.type() == SearchRequest.SearchType.POSTS
+            ? searchPostIds(key)
+            : List.of(),
+        key.type() == SearchRequest.SearchType.ALL
+                || key.type() == SearchRequest.SearchType.COMMENTS
+            ? searchCommentIds(key)
+            : List.of(),
+        key.type() == SearchRequest.SearchType.ALL || key.type() == SearchRequest.SearchType.USERS
+            ? searchUserIds(key)
+            : List.of(),
+        key.type() == SearchRequest.SearchType.ALL
+                || key.type() == SearchRequest.SearchType.COMMUNITIES
+            ? searchCommunityIds(key)
+            : List.of());
+  }
+
+  private List<UUID> searchPostIds(SearchCacheKey key) {
+    Instant since = getTimeSince(key.timeFilter());
+    Pageable pageable = createPageable(key);
+
+    List<Post> posts;
+    EmbeddedSearchIndex index = embeddedIndexFor(key);
+    if (index != null) {
+      List<UUID> ranked =
+          index.search(
+              DocumentKind.POST,
+              key.query(),
+              key.communities(),
+              since,
+              key.sort() == SearchRequest.SortBy.NEW,
+              key.page(),
+              key.size());
+      posts = inOrder(ranked, postRepository.findAllById(ranked), Post::getId);
+    } else if (!key.communities().isEmpty()) {
       // Search within specific communities
       posts =
-          postRepository.searchPostsByCommunities(request.communities(), request.query(), pageable);
+          postRepository
+              .searchPostsByCommunities(key.communities(), key.query(), pageable)
+              .getContent();
     } else {
       // Global search
-      posts = postRepository.searchPosts(request.query(), pageable);
+      posts = postRepository.searchPosts(key.query(), pageable).getContent();
     }
 
     return posts.stream()
         .filter(post -> post.getCreatedAt().isAfter(since))
-        .filter(post -> request.minScore() == null || post.getScore() >= request.minScore())
-        .filter(
-            post ->
-                request.minComments() == null || post.getCommentCount() >= request.minComments())
-        .filter(post -> request.includeNSFW() || !post.isOver18())
-        .filter(post -> request.includeOver18() || !post.isOver18())
+        .filter(post -> key.minScore() == null || post.getScore() >= key.minScore())
+        .filter(post -> key.minComments() == null || post.getCommentCount() >= key.minComments())
+        .filter(post -> key.includeNSFW() || !post.isOver18())
+        .filter(post -> key.includeOver18() || !post.isOver18())
         .filter(
             post ->
-                request.flairs().isEmpty()
-                    || (post.getFlairText() != null
-                        && request.flairs().contains(post.getFlairText())))
-        .map(PostResponse::from)
+                key.flairs().isEmpty()
+                    || (post.getFlairText() != null && key.flairs().contains(post.getFlairText())))
+        .map(Post::getId)
         .toList();
   }
 
-  private List<CommentResponse> searchComments(SearchRequest request) {
-    Instant since = getTimeSince(request.timeFilter());
-    Pageable pageable = createPageable(request);
-
-    Page<Comment> comments = commentRepository.searchComments(request.query(), pageable);
+  private List<UUID> searchCommentIds(SearchCacheKey key) {
+    Instant since = getTimeSince(key.timeFilter());
+    Pageable pageable = createPageable(key);
+
+    List<Comment> comments;
+    EmbeddedSearchIndex index = embeddedIndexFor(key);
+    if (index != null) {
+      List<UUID> ranked =
+          index.search(
+              DocumentKind.COMMENT,
+              key.query(),
+              List.of(),
+              since,
+              key.sort() == SearchRequest.SortBy.NEW,
+              key.page(),
+              key.size());
+      comments = inOrder(ranked, commentRepository.findAllById(ranked), Comment::getId);
+    } else {
+      comments = commentRepository.searchComments(key.query(), pageable).getContent();
+    }
 
     return comments.stream()
         .filter(comment -> comment.getCreatedAt().isAfter(since))
-        .filter(comment -> request.minScore() == null || comment.getScore() >= request.minScore())
-        .filter(comment -> request.includeNSFW() || !comment.isOver18())
-        .filter(comment -> request.includeOver18() || !comment.isOver18())
-        .map(CommentResponse::from)
+        .filter(comment -> key.minScore() == null || comment.getScore() >= key.minScore())
+        .filter(comment -> key.includeNSFW() || !comment.isOver18())
+        .filter(comment -> key.includeOver18() || !comment.isOver18())
+        .map(Comment::getId)
         .toList();
   }
 
-  private List<SocialUserResponse> searchUsers(SearchRequest request, UUID currentUserId) {
-    Pageable pageable = createUserPageable(request);
+  private List<UUID> searchUserIds(SearchCacheKey key) {
+    Pageable pageable = createUserPageable(key);
 
-    UserSearchTerms terms = UserSearchTerms.from(request.query());
+    UserSearchTerms terms = UserSearchTerms.from(key.query());
     Page<User> users =
         userRepository.searchActiveUsers(
             terms.query(),
@@ -171,23 +262,92 @@ public class SearchService {
             pageable);
 
     return users.stream()
-        .filter(user -> request.minScore() == null || user.getKarma() >= request.minScore())
-        .map(user -> userSocialService.toSocialUserResponse(user, currentUserId))
+        .filter(user -> key.minScore() == null || user.getKarma() >= key.minScore())
+        .map(User::getId)
         .toList();
   }
 
-  private List<CommunityResponse> searchCommunities(SearchRequest request) {
-    Pageable pageable = createCommunityPageable(request);
+  private List<UUID> searchCommunityIds(SearchCacheKey key) {
+    Pageable pageable = createCommunityPageable(key);
 
-    Page<Community> communities = communityRepository.searchCommunities(request.query(), pageable);
+    Page<Community> communities = communityRepository.searchCommunities(key.query(), pageable);
 
     return communities.stream()
-        .filter(community -> request.includeNSFW() || !community.isOver18())
-        .filter(community -> request.includeOver18() || !community.isOver18())
+        .filter(community -> key.includeNSFW() || !community.isOver18())
+        .filter(community -> key.includeOver18() || !community.isOver18())
+        .map(Community::getId)
+        .toList();
+  }
+
+  // The embedded index ranks by relevance or recency only; other sorts stay on SQL
+  private EmbeddedSearchIndex embeddedIndexFor(SearchCacheKey key) {
+    EmbeddedSearchIndex index = embeddedSearchIndex.getIfAvailable();
+    boolean supportedSort =
+        key.sort() == SearchRequest.SortBy.RELEVANCE || key.sort() == SearchRequest.SortBy.NEW;
+    return index != null && index.isReady() && supportedSort ? index : null;
+  }
+
+  // Per-request stage: reload current rows by ID, re-check visibility, apply the viewer
+
+  // Bodies are only read when the caller asked for them; snippets come from the highlighter
+  private List<PostResponse> loadPosts(List<UUID> ids, boolean includeContent) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    if (includeContent) {
+      return inOrder(ids, postRepository.findAllById(ids), Post::getId).stream()
+          .filter(post -> !post.isRemoved() && !post.isArchived())
+          .map(post -> PostResponse.from(post, null, false, true))
+          .toList();
+    }
+    Map<UUID, List<MediaResponse>> media =
+        fileUploadRepository.findByPostIdIn(ids).stream()
+            .collect(
+                Collectors.groupingBy(
+                    file -> file.getPost().getId(),
+                    Collectors.mapping(MediaResponse::from, Collectors.toList())));
+    return inOrder(ids, postRepository.findSearchRowsByIdIn(ids), PostSearchRow::id).stream()
+        .map(row -> row.toResponse(media.getOrDefault(row.id(), List.of())))
+        .toList();
+  }
+
+  private List<CommentResponse> loadComments(List<UUID> ids, boolean includeContent) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    if (includeContent) {
+      return inOrder(ids, commentRepository.findAllById(ids), Comment::getId).stream()
+          .filter(comment -> !comment.isDeleted() && !comment.isRemoved())
+          .map(comment -> CommentResponse.from(comment, null, List.of(), true))
+          .toList();
+    }
+    return inOrder(ids, commentRepository.findSearchRowsByIdIn(ids), CommentSearchRow::id).stream()
+        .map(CommentSearchRow::toResponse)
+        .toList();
+  }
+
+  private List<SocialUserResponse> loadUsers(List<UUID> ids, UUID currentUserId) {
+    return inOrder(ids, userRepository.findAllById(ids), User::getId).stream()
+        .filter(User::isActive)
+        .map(user -> userSocialService.toSocialUserResponse(user, currentUserId))
+        .toList();
+  }
+
+  private List<CommunityResponse> loadCommunities(List<UUID> ids) {
+    return inOrder(ids, communityRepository.findAllById(ids), Community::getId).stream()
+        .filter(Community::isPublic)
         .map(CommunityResponse::from)
         .toList();
   }
 
+  private static <T> List<T> inOrder(List<UUID> ids, List<T> rows, Function<T, UUID> idOf) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    Map<UUID, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+    return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+  }
+
   private Instant getTimeSince(SearchRequest.TimeFilter timeFilter) {
     Instant now = Instant.now();
     return switch (timeFilter) {
@@ -200,9 +360,9 @@ public class SearchService {
     };
   }
 
-  private Pageable createPageable(SearchRequest request) {
+  private Pageable createPageable(SearchCacheKey key) {
     Sort sort =
-        switch (request.sort()) {
+        switch (key.sort()) {
           case RELEVANCE -> Sort.by(Sort.Direction.DESC, "score");
           case NEW -> Sort.by(Sort.Direction.DESC, "createdAt");
           case HOT -> Sort.by(Sort.Direction.DESC, "score");
@@ -212,12 +372,12 @@ public class SearchService {
                   .and(Sort.by(Sort.Direction.ASC, "dislikeCount"));
         };
 
-    return PageRequest.of(request.page(), request.size(), sort);
+    return PageRequest.of(key.page(), key.size(), sort);
   }
 
-  private Pageable createUserPageable(SearchRequest request) {
+  private Pageable createUserPageable(SearchCacheKey key) {
     Sort sort =
-        switch (request.sort()) {
+        switch (key.sort()) {
           case RELEVANCE -> Sort.by(Sort.Direction.DESC, "karma");
           case NEW -> Sort.by(Sort.Direction.DESC, "createdAt");
           case HOT -> Sort.by(Sort.Direction.DESC, "karma");
@@ -225,12 +385,12 @@ public class SearchService {
           case CONTROVERSIAL -> Sort.by(Sort.Direction.DESC, "karma");
         };
 
-    return PageRequest.of(request.page(), request.size(), sort);
+    return PageRequest.of(key.page(), key.size(), sort);
   }
 
-  private Pageable createCommunityPageable(SearchRequest request) {
+  private Pageable createCommunityPageable(SearchCacheKey key) {
     Sort sort =
-        switch (request.sort()) {
+        switch (key.sort()) {
           case RELEVANCE -> Sort.by(Sort.Direction.DESC, "subscriberCount");
           case NEW -> Sort.by(Sort.Direction.DESC, "createdAt");
           case HOT -> Sort.by(Sort.Direction.DESC, "subscriberCount");
@@ -238,16 +398,19 @@ public class SearchService {
           case CONTROVERSIAL -> Sort.by(Sort.Direction.DESC, "subscriberCount");
         };
 
-    return PageRequest.of(request.page(), request.size(), sort);
+    return PageRequest.of(key.page(), key.size(), sort);
   }
 
-  private List<String> generateSuggestions(String query) {
-    // Simple suggestion generation - in production, this could use AI or analytics data
-    return List.of(
-        "Try: " + query + " tutorial",
-        "Try: " + query + " guide",
-        "Try: " + query + " best practices",
-        "Try: " + query + " examples");
+  private record SearchHits(
+      List<PostResponse> posts,
+      List<CommentResponse> comments,
+      List<SocialUserResponse> users,
+      List<CommunityResponse> communities,
+      Map<UUID, String> highlights) {
+
+    private int total() {
+      return posts.size() + comments.size() + users.size() + communities.size();
+    }
   }
 
   private record UserSearchTerms(
@@ -5,15 +5,19 @@ import com.lambrk.domain.Post;
 import com.lambrk.domain.User;
 import com.lambrk.domain.Vote;
 import com.lambrk.dto.VoteRequest;
+import com.lambrk.event.CommentScoreChangedEvent;
+import com.lambrk.event.PostCountersChangedEvent;
 import com.lambrk.exception.ResourceNotFoundException;
 import com.lambrk.repository.CommentRepository;
 import com.lambrk.repository.PostRepository;
 import com.lambrk.repository.UserRepository;
 import com.lambrk.repository.VoteRepository;
+import com.lambrk.util.CommentRanking;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +31,7 @@ public class VoteService {
   private final UserRepository userRepository;
   private final KafkaEventService kafkaEventService;
   private final CustomMetrics customMetrics;
+  private final ApplicationEventPublisher eventPublisher;
 
   public VoteService(
       VoteRepository voteRepository,
@@ -34,13 +39,15 @@ public class VoteService {
       CommentRepository commentRepository,
       UserRepository userRepository,
       KafkaEventService kafkaEventService,
-      CustomMetrics customMetrics) {
+      CustomMetrics customMetrics,
+      ApplicationEventPublisher eventPublisher) {
     this.voteRepository = voteRepository;
     this.postRepository = postRepository;
     this.commentRepository = commentRepository;
     this.userRepository = userRepository;
     this.kafkaEventService = kafkaEventService;
     this.customMetrics = customMetrics;
+    this.eventPublisher = eventPublisher;
   }
 
   @RateLimiter(name = "voteCasting")
@@ -67,8 +74,7 @@ public class VoteService {
         int scoreDelta = request.voteType() == Vote.VoteType.LIKE ? -1 : 1;
         int likeDelta = request.voteType() == Vote.VoteType.LIKE ? -1 : 0;
         int dislikeDelta = request.voteType() == Vote.VoteType.DISLIKE ? -1 : 0;
-        postRepository.updatePostScore(post.getId(), scoreDelta, likeDelta, dislikeDelta);
-        updateAuthorKarma(post.getAuthor().getId(), userId, scoreDelta);
+        applyPostVote(post, userId, scoreDelta, likeDelta, dislikeDelta);
       } else {
         // Flip vote
         Vote flipped =
@@ -86,8 +92,7 @@ public class VoteService {
         int scoreDelta = request.voteType() == Vote.VoteType.LIKE ? 2 : -2;
         int likeDelta = request.voteType() == Vote.VoteType.LIKE ? 1 : -1;
         int dislikeDelta = request.voteType() == Vote.VoteType.DISLIKE ? 1 : -1;
-        postRepository.updatePostScore(post.getId(), scoreDelta, likeDelta, dislikeDelta);
-        updateAuthorKarma(post.getAuthor().getId(), userId, scoreDelta);
+        applyPostVote(post, userId, scoreDelta, likeDelta, dislikeDelta);
       }
     } else {
       Vote vote = new Vote(request.voteType(), user, post, null);
@@ -95,8 +100,7 @@ public class VoteService {
       int scoreDelta = request.voteType() == Vote.VoteType.LIKE ? 1 : -1;
       int likeDelta = request.voteType() == Vote.VoteType.LIKE ? 1 : 0;
       int dislikeDelta = request.voteType() == Vote.VoteType.DISLIKE ? 1 : 0;
-      postRepository.updatePostScore(post.getId(), scoreDelta, likeDelta, dislikeDelta);
-      updateAuthorKarma(post.getAuthor().getId(), userId, scoreDelta);
+      applyPostVote(post, userId, scoreDelta, likeDelta, dislikeDelta);
       kafkaEventService.sendVoteCastEvent(saved);
     }
 
@@ -104,9 +108,6 @@ public class VoteService {
   }
 
   @RateLimiter(name = "voteCasting")
-  @CacheEvict(
-      value = {"comments", "commentTrees"},
-      allEntries = true)
   public void voteOnComment(VoteRequest request, UUID userId) {
     User user =
         userRepository
@@ -126,7 +127,7 @@ public class VoteService {
         int scoreDelta = request.voteType() == Vote.VoteType.LIKE ? -1 : 1;
         int likeDelta = request.voteType() == Vote.VoteType.LIKE ? -1 : 0;
         int dislikeDelta = request.voteType() == Vote.VoteType.DISLIKE ? -1 : 0;
-        commentRepository.updateCommentScore(comment.getId(), scoreDelta, likeDelta, dislikeDelta);
+        applyCommentVote(comment.getId(), scoreDelta, likeDelta, dislikeDelta);
         updateAuthorKarma(comment.getAuthor().getId(), userId, scoreDelta);
       } else {
         Vote flipped =
@@ -144,7 +145,7 @@ public class VoteService {
         int scoreDelta = request.voteType() == Vote.VoteType.LIKE ? 2 : -2;
         int likeDelta = request.voteType() == Vote.VoteType.LIKE ? 1 : -1;
         int dislikeDelta = request.voteType() == Vote.VoteType.DISLIKE ? 1 : -1;
-        commentRepository.updateCommentScore(comment.getId(), scoreDelta, likeDelta, dislikeDelta);
+        applyCommentVote(comment.getId(), scoreDelta, likeDelta, dislikeDelta);
         updateAuthorKarma(comment.getAuthor().getId(), userId, scoreDelta);
       }
     } else {
@@ -153,14 +154,38 @@ public class VoteService {
       int scoreDelta = request.voteType() == Vote.VoteType.LIKE ? 1 : -1;
       int likeDelta = request.voteType() == Vote.VoteType.LIKE ? 1 : 0;
       int dislikeDelta = request.voteType() == Vote.VoteType.DISLIKE ? 1 : 0;
-      commentRepository.updateCommentScore(comment.getId(), scoreDelta, likeDelta, dislikeDelta);
+      applyCommentVote(comment.getId(), scoreDelta, likeDelta, dislikeDelta);
       updateAuthorKarma(comment.getAuthor().getId(), userId, scoreDelta);
       kafkaEventService.sendVoteCastEvent(saved);
     }
 
+    eventPublisher.publishEvent(
+        new CommentScoreChangedEvent(comment.getId(), comment.getPost().getId()));
     customMetrics.recordVoteCast(request.voteType().name());
   }
 
+  private void applyPostVote(
+      Post post, UUID voterId, int scoreDelta, int likeDelta, int dislikeDelta) {
+    postRepository.updatePostScore(post.getId(), scoreDelta, likeDelta, dislikeDelta);
+    updateAuthorKarma(post.getAuthor().getId(), voterId, scoreDelta);
+    eventPublisher.publishEvent(
+        PostCountersChangedEvent.votes(post.getId(), scoreDelta, likeDelta, dislikeDelta));
+  }
+
+  // The score update locks the row until commit, so the counts read back are the ones the ranking
+  // columns must reflect even with concurrent voters
+  private void applyCommentVote(UUID commentId, int scoreDelta, int likeDelta, int dislikeDelta) {
+    commentRepository.updateCommentScore(commentId, scoreDelta, likeDelta, dislikeDelta);
+    commentRepository
+        .findVoteCounts(commentId)
+        .ifPresent(
+            counts ->
+                commentRepository.updateCommentRanking(
+                    commentId,
+                    CommentRanking.best(counts.getLikeCount(), counts.getDislikeCount()),
+                    CommentRanking.controversy(counts.getLikeCount(), counts.getDislikeCount())));
+  }
+
   private void updateAuthorKarma(UUID authorId, UUID voterId, int delta) {
     if (!authorId.equals(voterId)) {
       userRepository.updateUserKarma(authorId, delta);
@@ -0,0 +1,7 @@
+package com.lambrk.user;
+
+import java.util.UUID;
+
+/** The few user fields the chat write path needs, small enough to cache for every active user. */
+public record UserIdentity(
+    UUID id, String username, String displayName, String avatarUrl, boolean active) {}
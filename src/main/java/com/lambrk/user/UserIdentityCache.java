@@ -0,0 +1,103 @@
+package com.lambrk.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambrk.event.UserChangedEvent;
+import com.lambrk.repository.UserRepository;
+import com.lambrk.websocket.ClusterEvent;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * {@link UserIdentity} by ID or username, loaded with one narrow query and cached under both keys,
+ * so a chat send only touches the relational database for users it has not seen lately. Unknown
+ * users are not cached. Entries are evicted once a {@link UserChangedEvent} commits, here and,
+ * through the cluster relay, on every other node, so a ban stops chat sends everywhere at once.
+ * Expiry still covers a node that missed the relayed event.
+ */
+@Component
+public class UserIdentityCache {
+
+  public static final String CACHE_NAME = "userIdentities";
+
+  static final String USER_CHANGED = "user-changed";
+
+  private static final Logger log = LoggerFactory.getLogger(UserIdentityCache.class);
+
+  private final UserRepository userRepository;
+  private final Cache cache;
+  private final ClusterMessagingTemplate cluster;
+  private final ObjectMapper objectMapper;
+
+  public UserIdentityCache(
+      UserRepository userRepository,
+      CacheManager cacheManager,
+      ClusterMessagingTemplate cluster,
+      ObjectMapper objectMapper) {
+    this.userRepository = userRepository;
+    this.cache = cacheManager.getCache(CACHE_NAME);
+    this.cluster = cluster;
+    this.objectMapper = objectMapper;
+  }
+
+  public Optional<UserIdentity> byId(UUID userId) {
+    return get(userId, () -> userRepository.findIdentityById(userId));
+  }
+
+  public Optional<UserIdentity> byUsername(String username) {
+    return get(username, () -> userRepository.findIdentityByUsername(username));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    evict(event);
+    try {
+      cluster.publishEvent(USER_CHANGED, event);
+    } catch (RuntimeException e) {
+      log.warn("Failed to relay change of user {}; other nodes wait for expiry", event.userId(), e);
+    }
+  }
+
+  @EventListener
+  public void onClusterEvent(ClusterEvent event) {
+    if (!USER_CHANGED.equals(event.topic())) {
+      return;
+    }
+    try {
+      evict(objectMapper.readValue(event.payload(), UserChangedEvent.class));
+    } catch (IOException e) {
+      log.warn("Dropping undecodable relayed user change", e);
+    }
+  }
+
+  private void evict(UserChangedEvent event) {
+    cache.evict(event.userId());
+    if (event.username() != null) {
+      cache.evict(event.username());
+    }
+  }
+
+  // IDs are UUIDs and usernames Strings, so both kinds of key share the cache without colliding
+  private Optional<UserIdentity> get(Object key, Supplier<Optional<UserIdentity>> loader) {
+    UserIdentity cached = cache.get(key, UserIdentity.class);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<UserIdentity> loaded = loader.get();
+    loaded.ifPresent(
+        identity -> {
+          cache.put(identity.id(), identity);
+          cache.put(identity.username(), identity);
+        });
+    return loaded;
+  }
+}
@@ -0,0 +1,25 @@
+package com.lambrk.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Runs side effects only once the surrounding transaction has committed. */
+public final class AfterCommit {
+
+  private AfterCommit() {}
+
+  /** Runs {@code action} after the current transaction commits, or now if there is none. */
+  public static void run(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.lambrk.util;
+
+/**
+ * Sort keys derived from a comment's like and dislike counts. They are stored next to the counts so
+ * every sort mode pages through an index; {@code V21__Add_comment_ranking.sql} backfills them with
+ * the same formulas.
+ */
+public final class CommentRanking {
+
+  // 95% confidence
+  private static final double Z = 1.96;
+
+  private CommentRanking() {}
+
+  /**
+   * Lower bound of the Wilson score interval for the share of likes: how good the comment is at
+   * worst, given how few votes it may have had. Comments without votes rank 0.
+   */
+  public static double best(int likes, int dislikes) {
+    int votes = likes + dislikes;
+    if (votes <= 0) {
+      return 0;
+    }
+    double n = votes;
+    double z2 = Z * Z;
+    return ((likes + z2 / 2) / n - Z * Math.sqrt((double) likes * dislikes / n + z2 / 4) / n)
+        / (1 + z2 / n);
+  }
+
+  /**
+   * Vote volume raised to the balance between likes and dislikes, so an evenly split comment with
+   * many votes ranks highest. Comments nobody disagreed with rank 0.
+   */
+  public static double controversy(int likes, int dislikes) {
+    if (likes <= 0 || dislikes <= 0) {
+      return 0;
+    }
+    double balance = (double) Math.min(likes, dislikes) / Math.max(likes, dislikes);
+    return Math.pow(likes + dislikes, balance);
+  }
+}
@@ -0,0 +1,22 @@
+package com.lambrk.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Lets one call in every {@code rate} through, for events too frequent to log one by one. */
+public final class LogSampler {
+
+  private final int rate;
+  private final AtomicLong calls = new AtomicLong();
+
+  public LogSampler(int rate) {
+    this.rate = Math.max(1, rate);
+  }
+
+  public boolean sample() {
+    return calls.getAndIncrement() % rate == 0;
+  }
+
+  public int rate() {
+    return rate;
+  }
+}
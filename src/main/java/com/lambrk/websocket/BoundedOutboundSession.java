@@ -0,0 +1,221 @@
+package com.lambrk.websocket;
+
+import com.lambrk.websocket.WebSocketBrokerProperties.OverflowPolicy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+/**
+ * A session whose {@link #sendMessage} only queues the frame. One virtual thread per busy session
+ * writes the queue out, so the broker's fan-out never waits on a slow client. When the queue is
+ * full the configured {@link OverflowPolicy} decides what gives.
+ */
+class BoundedOutboundSession extends WebSocketSessionDecorator {
+
+  private static final Logger log = LoggerFactory.getLogger(BoundedOutboundSession.class);
+
+  private static final String DESTINATION_HEADER = "\ndestination:";
+  private static final int MAX_HEADER_BYTES = 1024;
+
+  /** A queued frame; a coalesced frame keeps its place and enqueue time but takes new content. */
+  private static final class Frame {
+    private WebSocketMessage<?> message;
+    private final String destination;
+    private final long enqueuedAt;
+
+    private Frame(WebSocketMessage<?> message, String destination, long enqueuedAt) {
+      this.message = message;
+      this.destination = destination;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+
+  private final OutboundSessionQueues queues;
+  private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+  private boolean draining;
+  private volatile boolean discarded;
+  private volatile PayloadFormat payloadFormat = PayloadFormat.JSON;
+
+  BoundedOutboundSession(WebSocketSession delegate, OutboundSessionQueues queues) {
+    super(delegate);
+    this.queues = queues;
+  }
+
+  @Override
+  public void sendMessage(WebSocketMessage<?> message) {
+    if (discarded) {
+      return;
+    }
+    if (payloadFormat.binary() && message instanceof TextMessage text) {
+      // The STOMP handler only sends octet-stream bodies as binary; the frame's bytes are unchanged
+      message = new BinaryMessage(text.asBytes());
+    }
+    OverflowPolicy policy = queues.overflowPolicy();
+    String destination = policy == OverflowPolicy.COALESCE ? destination(message) : null;
+    boolean startDrain;
+    synchronized (queue) {
+      if (discarded) {
+        return;
+      }
+      if (queue.size() >= queues.queueCapacity()) {
+        switch (policy) {
+          case DISCONNECT -> {
+            disconnect();
+            return;
+          }
+          case COALESCE -> {
+            if (coalesce(message, destination)) {
+              queues.dropped(policy);
+              return;
+            }
+            dropOldest(policy);
+          }
+          case DROP_OLDEST -> dropOldest(policy);
+        }
+      }
+      startDrain = enqueue(message, destination);
+    }
+    if (startDrain) {
+      queues.execute(this::drain);
+    }
+  }
+
+  /** Queued frames not yet written. */
+  int queued() {
+    synchronized (queue) {
+      return queue.size();
+    }
+  }
+
+  PayloadFormat payloadFormat() {
+    return payloadFormat;
+  }
+
+  /** Frames are sent as binary messages from now on if {@code format} is binary. */
+  void payloadFormat(PayloadFormat format) {
+    this.payloadFormat = format;
+  }
+
+  /** SockJS only carries text. */
+  boolean acceptsBinary() {
+    return !(getDelegate() instanceof SockJsSession);
+  }
+
+  /** Drops everything still queued; called once the connection has closed. */
+  void discard() {
+    discarded = true;
+    synchronized (queue) {
+      queues.dequeued(queue.size());
+      queue.clear();
+    }
+  }
+
+  private boolean enqueue(WebSocketMessage<?> message, String destination) {
+    queue.addLast(new Frame(message, destination, System.nanoTime()));
+    queues.enqueued();
+    if (draining) {
+      return false;
+    }
+    draining = true;
+    return true;
+  }
+
+  private void dropOldest(OverflowPolicy policy) {
+    queue.pollFirst();
+    queues.dequeued(1);
+    queues.dropped(policy);
+  }
+
+  private boolean coalesce(WebSocketMessage<?> message, String destination) {
+    if (destination == null || !queues.coalesces(destination)) {
+      return false;
+    }
+    for (Iterator<Frame> it = queue.descendingIterator(); it.hasNext(); ) {
+      Frame frame = it.next();
+      if (destination.equals(frame.destination)) {
+        frame.message = message;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void disconnect() {
+    queues.disconnected();
+    queues.dequeued(queue.size());
+    queue.clear();
+    discarded = true;
+    closeLater(CloseStatus.SESSION_NOT_RELIABLE);
+  }
+
+  /** Closes the underlying session off the caller's thread. */
+  void closeLater(CloseStatus status) {
+    queues.execute(
+        () -> {
+          try {
+            getDelegate().close(status);
+          } catch (Exception e) {
+            log.debug("Failed to close WebSocket session {}", getId(), e);
+          }
+        });
+  }
+
+  private void drain() {
+    while (true) {
+      Frame frame;
+      WebSocketMessage<?> message;
+      synchronized (queue) {
+        frame = discarded ? null : queue.pollFirst();
+        if (frame == null) {
+          draining = false;
+          return;
+        }
+        message = frame.message;
+        queues.dequeued(1);
+      }
+      try {
+        getDelegate().sendMessage(message);
+        queues.written(frame.enqueuedAt);
+      } catch (Exception e) {
+        log.debug("Failed to write to WebSocket session {}", getId(), e);
+        discard();
+      }
+    }
+  }
+
+  /** The STOMP {@code destination} header of an encoded frame, or null. */
+  static String destination(WebSocketMessage<?> message) {
+    String head =
+        switch (message) {
+          case TextMessage text -> text.getPayload();
+          case BinaryMessage binary -> {
+            ByteBuffer bytes = binary.getPayload().duplicate();
+            byte[] prefix = new byte[Math.min(bytes.remaining(), MAX_HEADER_BYTES)];
+            bytes.get(prefix);
+            yield new String(prefix, StandardCharsets.ISO_8859_1);
+          }
+          default -> null;
+        };
+    if (head == null) {
+      return null;
+    }
+    int headersEnd = head.indexOf("\n\n");
+    int start = head.indexOf(DESTINATION_HEADER);
+    if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+      return null;
+    }
+    start += DESTINATION_HEADER.length();
+    int end = head.indexOf('\n', start);
+    return head.substring(start, end < 0 ? head.length() : end);
+  }
+}
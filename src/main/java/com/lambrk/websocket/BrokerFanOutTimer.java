@@ -0,0 +1,50 @@
+package com.lambrk.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * Times each publish on the broker channel until its frames are queued on every subscriber's
+ * session. User destinations are resolved by sending again on the same channel, so only the
+ * outermost send on a thread is recorded.
+ */
+class BrokerFanOutTimer implements ChannelInterceptor {
+
+  private static final class Send {
+    private int depth;
+    private long startedAt;
+  }
+
+  private final ThreadLocal<Send> current = ThreadLocal.withInitial(Send::new);
+  private final Timer timer;
+
+  BrokerFanOutTimer(MeterRegistry meterRegistry) {
+    this.timer =
+        Timer.builder("websocket.broker.fanout")
+            .description("Time to fan a published message out to all its subscribers' queues")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    Send send = current.get();
+    if (send.depth++ == 0) {
+      send.startedAt = System.nanoTime();
+    }
+    return message;
+  }
+
+  @Override
+  public void afterSendCompletion(
+      Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+    Send send = current.get();
+    if (--send.depth == 0) {
+      timer.record(System.nanoTime() - send.startedAt, TimeUnit.NANOSECONDS);
+    }
+  }
+}
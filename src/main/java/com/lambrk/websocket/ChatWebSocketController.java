@@ -2,6 +2,7 @@ package com.lambrk.websocket;
 
 import com.lambrk.config.UserPrincipal;
 import com.lambrk.dto.message.SendMessageRequest;
+import com.lambrk.presence.TypingIndicators;
 import com.lambrk.service.ChatMessageService;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
@@ -39,11 +40,15 @@ public class ChatWebSocketController {
 
   private final ChatMessageService chatMessageService;
   private final SimpMessagingTemplate messagingTemplate;
+  private final TypingIndicators typingIndicators;
 
   public ChatWebSocketController(
-      ChatMessageService chatMessageService, SimpMessagingTemplate messagingTemplate) {
+      ChatMessageService chatMessageService,
+      SimpMessagingTemplate messagingTemplate,
+      TypingIndicators typingIndicators) {
     this.chatMessageService = chatMessageService;
     this.messagingTemplate = messagingTemplate;
+    this.typingIndicators = typingIndicators;
   }
 
   /**
@@ -67,7 +72,7 @@ public class ChatWebSocketController {
     UUID senderId = extractUserId(principal);
     try {
       chatMessageService.sendMessage(senderId, request);
-      // Delivery is handled inside ChatMessageService via SimpMessagingTemplate
+      // Delivery is handled inside ChatMessageService via ClusterMessagingTemplate
     } catch (Exception e) {
       log.error("Error sending message from {}: {}", principal.getName(), e.getMessage());
       // Push error event back to sender
@@ -123,7 +128,8 @@ public class ChatWebSocketController {
   }
 
   /**
-   * Typing indicator — forwarded to the other participant in the conversation.
+   * Typing indicator — forwarded to the other participant in the conversation, at most once per
+   * second.
    *
    * <p>Client publishes to: {@code /app/chat.typing}
    *
@@ -134,7 +140,7 @@ public class ChatWebSocketController {
     if (principal == null) return;
     UUID userId = extractUserId(principal);
     try {
-      chatMessageService.sendTypingIndicator(userId, conversationId);
+      typingIndicators.typing(userId, conversationId);
     } catch (Exception e) {
       log.debug("Ignoring typing indicator for {}: {}", conversationId, e.getMessage());
     }
@@ -0,0 +1,7 @@
+package com.lambrk.websocket;
+
+/**
+ * An event another node sent with {@link ClusterMessagingTemplate#publishEvent}, republished as a
+ * local application event. The payload is JSON, as the sender's message converter wrote it.
+ */
+public record ClusterEvent(String topic, byte[] payload) {}
@@ -0,0 +1,239 @@
+package com.lambrk.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Sends to users and topics across all nodes, in place of {@link SimpMessagingTemplate}, which only
+ * reaches sessions on the node it runs on. The payload is converted once. Sessions on this node get
+ * it straight away; for other nodes the frame goes into a batch per target node, which the {@link
+ * WebSocketRelay} sends every {@code batch-interval-ms} or as soon as it is full. A user's frames
+ * only go to the nodes the {@link UserNodeRegistry} lists for them; topic frames go to every node.
+ */
+@Component
+public class ClusterMessagingTemplate {
+
+  private static final Logger log = LoggerFactory.getLogger(ClusterMessagingTemplate.class);
+
+  private final SimpMessagingTemplate messagingTemplate;
+  private final RelayBatchRouter router;
+  private final WebSocketRelay relay;
+  private final UserNodeRegistry registry;
+  private final WebSocketClusterProperties properties;
+  private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+  private final Map<String, List<RelayFrame>> pending = new ConcurrentHashMap<>();
+  private final Counter framesOut;
+  private final Counter batchesOut;
+
+  public ClusterMessagingTemplate(
+      SimpMessagingTemplate messagingTemplate,
+      RelayBatchRouter router,
+      WebSocketRelay relay,
+      UserNodeRegistry registry,
+      WebSocketClusterProperties properties,
+      MeterRegistry meterRegistry) {
+    this.messagingTemplate = messagingTemplate;
+    this.router = router;
+    this.relay = relay;
+    this.registry = registry;
+    this.properties = properties;
+    this.framesOut =
+        Counter.builder("websocket.relay.frames")
+            .description("Frames relayed between nodes")
+            .tag("direction", "out")
+            .register(meterRegistry);
+    this.batchesOut =
+        Counter.builder("websocket.relay.batches")
+            .description("Relay batches sent to other nodes")
+            .register(meterRegistry);
+  }
+
+  /** Sends to the user's sessions on every node, as {@code /user/{username}{destination}}. */
+  public void convertAndSendToUser(String username, String destination, Object payload) {
+    RelayFrame frame = frame(username, destination, payload);
+    if (localSessions.containsKey(username)) {
+      router.deliver(frame);
+    }
+    Set<String> nodes;
+    try {
+      nodes = registry.nodesOf(username);
+    } catch (RuntimeException e) {
+      log.warn("Could not look up nodes for {}; delivering on this node only", username, e);
+      return;
+    }
+    for (String node : nodes) {
+      if (!node.equals(properties.getNodeId())) {
+        enqueue(node, frame);
+      }
+    }
+  }
+
+  /** Sends to a broker destination, such as a topic, on every node. */
+  public void convertAndSend(String destination, Object payload) {
+    RelayFrame frame = frame(null, destination, payload);
+    router.deliver(frame);
+    enqueue(WebSocketRelay.ALL_NODES, frame);
+  }
+
+  /**
+   * Sends {@code payload} to every other node over the relay, where it is published as a {@link
+   * ClusterEvent} instead of reaching any broker or client.
+   */
+  public void publishEvent(String topic, Object payload) {
+    enqueue(WebSocketRelay.ALL_NODES, frame(null, RelayBatchRouter.EVENT_PREFIX + topic, payload));
+  }
+
+  /** Sends to a broker destination on the given nodes only, such as those with subscribers. */
+  public void convertAndSendToNodes(Collection<String> nodes, String destination, Object payload) {
+    RelayFrame frame = frame(null, destination, payload);
+    for (String node : nodes) {
+      if (node.equals(properties.getNodeId())) {
+        router.deliver(frame);
+      } else {
+        enqueue(node, frame);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${lambrk.websocket.cluster.batch-interval-ms:10}")
+  public void flush() {
+    for (String node : pending.keySet()) {
+      List<RelayFrame> frames = pending.remove(node);
+      if (frames != null) {
+        send(node, frames);
+      }
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.websocket.cluster.registry-refresh-ms:30000}",
+      initialDelayString = "${lambrk.websocket.cluster.registry-refresh-ms:30000}")
+  public void refreshRegistry() {
+    try {
+      registry.refresh(Set.copyOf(localSessions.keySet()));
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh WebSocket session registry", e);
+    }
+  }
+
+  @EventListener
+  public void onConnected(SessionConnectedEvent event) {
+    Principal user = event.getUser();
+    if (user != null) {
+      connected(user.getName(), StompHeaderAccessor.wrap(event.getMessage()).getSessionId());
+    }
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    Principal user = event.getUser();
+    if (user != null) {
+      disconnected(user.getName(), event.getSessionId());
+    }
+  }
+
+  void connected(String username, String sessionId) {
+    boolean[] first = {false};
+    localSessions.compute(
+        username,
+        (name, ids) -> {
+          Set<String> updated = ids != null ? new HashSet<>(ids) : new HashSet<>();
+          first[0] = updated.isEmpty();
+          updated.add(sessionId);
+          return Set.copyOf(updated);
+        });
+    if (first[0]) {
+      updateRegistry(username, true);
+    }
+  }
+
+  void disconnected(String username, String sessionId) {
+    boolean[] last = {false};
+    localSessions.computeIfPresent(
+        username,
+        (name, ids) -> {
+          Set<String> updated = new HashSet<>(ids);
+          updated.remove(sessionId);
+          last[0] = updated.isEmpty();
+          return last[0] ? null : Set.copyOf(updated);
+        });
+    if (last[0]) {
+      updateRegistry(username, false);
+    }
+  }
+
+  private void updateRegistry(String username, boolean add) {
+    try {
+      if (add) {
+        registry.add(username);
+      } else {
+        registry.remove(username);
+      }
+    } catch (RuntimeException e) {
+      // The next refresh re-adds connected users; stale entries expire
+      log.warn("Failed to update WebSocket session registry for {}", username, e);
+    }
+  }
+
+  private RelayFrame frame(String username, String destination, Object payload) {
+    Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, null);
+    if (message == null || !(message.getPayload() instanceof byte[] bytes)) {
+      throw new IllegalArgumentException(
+          "Cannot convert " + payload.getClass().getSimpleName() + " for " + destination);
+    }
+    Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+    return new RelayFrame(
+        username,
+        destination,
+        contentType != null ? contentType.toString() : "application/json",
+        bytes);
+  }
+
+  private void enqueue(String node, RelayFrame frame) {
+    List<List<RelayFrame>> full = new ArrayList<>(1);
+    // Added inside compute so it cannot land in a batch flush() has already taken
+    pending.compute(
+        node,
+        (n, frames) -> {
+          List<RelayFrame> batch = frames != null ? frames : new ArrayList<>();
+          batch.add(frame);
+          if (batch.size() >= properties.getBatchMaxFrames()) {
+            full.add(batch);
+            return null;
+          }
+          return batch;
+        });
+    if (!full.isEmpty()) {
+      send(node, full.getFirst());
+    }
+  }
+
+  private void send(String node, List<RelayFrame> frames) {
+    try {
+      relay.send(node, new RelayBatch(properties.getNodeId(), frames).encode());
+      framesOut.increment(frames.size());
+      batchesOut.increment();
+    } catch (RuntimeException e) {
+      log.warn("Failed to relay {} WebSocket frames to node {}", frames.size(), node, e);
+    }
+  }
+}
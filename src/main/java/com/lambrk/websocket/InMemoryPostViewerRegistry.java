@@ -0,0 +1,46 @@
+package com.lambrk.websocket;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry for a single node and for tests, enabled with {@code
+ * lambrk.websocket.cluster.registry=in-memory}. It only knows about viewers connected here.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.websocket.cluster",
+    name = "registry",
+    havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryPostViewerRegistry implements PostViewerRegistry {
+
+  private final String nodeId;
+  private final Set<UUID> postIds = ConcurrentHashMap.newKeySet();
+
+  public InMemoryPostViewerRegistry(WebSocketClusterProperties properties) {
+    this.nodeId = properties.getNodeId();
+  }
+
+  @Override
+  public void add(UUID postId) {
+    postIds.add(postId);
+  }
+
+  @Override
+  public void remove(UUID postId) {
+    postIds.remove(postId);
+  }
+
+  @Override
+  public void refresh(Collection<UUID> postIds) {}
+
+  @Override
+  public Set<String> nodesOf(UUID postId) {
+    return postIds.contains(postId) ? Set.of(nodeId) : Set.of();
+  }
+}
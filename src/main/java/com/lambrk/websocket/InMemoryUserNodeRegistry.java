@@ -0,0 +1,55 @@
+package com.lambrk.websocket;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry for a single node and for tests, enabled with {@code
+ * lambrk.websocket.cluster.registry=in-memory}. It only knows about users connected here.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.websocket.cluster",
+    name = "registry",
+    havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryUserNodeRegistry implements UserNodeRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(InMemoryUserNodeRegistry.class);
+
+  private final String nodeId;
+  private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+
+  public InMemoryUserNodeRegistry(WebSocketClusterProperties properties) {
+    this.nodeId = properties.getNodeId();
+    if (!"in-memory".equals(properties.getRelay())) {
+      log.warn(
+          "WebSocket relay is {} but the session registry is in-memory: frames for users on"
+              + " other nodes are dropped. Set lambrk.websocket.cluster.registry to redis",
+          properties.getRelay());
+    }
+  }
+
+  @Override
+  public void add(String username) {
+    usernames.add(username);
+  }
+
+  @Override
+  public void remove(String username) {
+    usernames.remove(username);
+  }
+
+  @Override
+  public void refresh(Collection<String> usernames) {}
+
+  @Override
+  public Set<String> nodesOf(String username) {
+    return usernames.contains(username) ? Set.of(nodeId) : Set.of();
+  }
+}
@@ -0,0 +1,59 @@
+package com.lambrk.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.cloud.CloudPlatform;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Relay for a single node and for tests, enabled with {@code
+ * lambrk.websocket.cluster.relay=in-memory}. Batches are routed on the sending thread to the nodes
+ * that share its node map; in an application that is only this one.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.websocket.cluster",
+    name = "relay",
+    havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryWebSocketRelay implements WebSocketRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(InMemoryWebSocketRelay.class);
+
+  private final Map<String, RelayBatchRouter> nodes;
+
+  public InMemoryWebSocketRelay(
+      RelayBatchRouter router, WebSocketClusterProperties properties, Environment environment) {
+    this(properties.getNodeId(), router, new ConcurrentHashMap<>());
+    // Replica counts are not visible from here, but pods are almost always run as several
+    if (CloudPlatform.KUBERNETES.isActive(environment)) {
+      log.warn(
+          "In-memory WebSocket relay on Kubernetes: frames for users on other pods are dropped."
+              + " Set lambrk.websocket.cluster.relay and registry to redis unless this is the"
+              + " only replica");
+    }
+  }
+
+  /** Joins a node map shared with other relays, to run several nodes in one JVM. */
+  InMemoryWebSocketRelay(
+      String nodeId, RelayBatchRouter router, Map<String, RelayBatchRouter> nodes) {
+    this.nodes = nodes;
+    nodes.put(nodeId, router);
+  }
+
+  @Override
+  public void send(String nodeId, byte[] batch) {
+    if (ALL_NODES.equals(nodeId)) {
+      nodes.values().forEach(router -> router.route(batch));
+      return;
+    }
+    RelayBatchRouter router = nodes.get(nodeId);
+    if (router != null) {
+      router.route(batch);
+    }
+  }
+}
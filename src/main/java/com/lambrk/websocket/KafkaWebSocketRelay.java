@@ -0,0 +1,49 @@
+package com.lambrk.websocket;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Relay on one partitioned Kafka topic keyed by target node ID, enabled with {@code
+ * lambrk.websocket.cluster.relay=kafka}. Like the notification stream, every node assigns itself
+ * all partitions without a consumer group, commits nothing and keeps only batches keyed to it or to
+ * all nodes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "lambrk.websocket.cluster", name = "relay", havingValue = "kafka")
+public class KafkaWebSocketRelay implements WebSocketRelay {
+
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final RelayBatchRouter router;
+  private final WebSocketClusterProperties properties;
+
+  public KafkaWebSocketRelay(
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      RelayBatchRouter router,
+      WebSocketClusterProperties properties) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.router = router;
+    this.properties = properties;
+  }
+
+  @Override
+  public void send(String nodeId, byte[] batch) {
+    kafkaTemplate.send(properties.getTopic(), nodeId, batch);
+  }
+
+  @KafkaListener(
+      topicPartitions =
+          @TopicPartition(
+              topic = "${lambrk.websocket.cluster.topic:websocket.relay}",
+              partitions = "0-#{${lambrk.websocket.cluster.partitions:12} - 1}"),
+      properties = {"enable.auto.commit=false", "auto.offset.reset=latest"})
+  public void onRecord(ConsumerRecord<String, byte[]> record) {
+    if (ALL_NODES.equals(record.key()) || properties.getNodeId().equals(record.key())) {
+      router.route(record.value());
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.lambrk.websocket;
+
+import com.lambrk.dto.PostCountersDiff;
+import com.lambrk.event.PostCountersChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+/**
+ * Live vote and comment counters for post viewers. Committed counter changes are summed per post
+ * and sent as one {@link PostCountersDiff} per post every {@code tick-ms} to {@code
+ * /topic/posts/{postId}/live}, so a hot post costs its viewers one frame per tick however many
+ * votes it gets. On a single node, changes to posts nobody here is subscribed to are ignored. With
+ * a cluster relay the viewers may be on another node, so each node lists the posts it has viewers
+ * for in the {@link PostViewerRegistry} and a changed post is relayed only to the nodes listed for
+ * it. Without a shared registry this node cannot see the others' viewers, and changed posts go to
+ * every node.
+ */
+@Component
+public class LivePostCounters {
+
+  private static final String PREFIX = "/topic/posts/";
+  private static final String SUFFIX = "/live";
+
+  private static final Logger log = LoggerFactory.getLogger(LivePostCounters.class);
+
+  private final ClusterMessagingTemplate messagingTemplate;
+  private final PostViewerRegistry registry;
+  private final boolean clustered;
+  private final boolean sharedRegistry;
+  private final Map<UUID, Integer> viewers = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, UUID>> subscriptions = new ConcurrentHashMap<>();
+  private final Map<UUID, PostCountersDiff> pending = new ConcurrentHashMap<>();
+  private final Counter frames;
+
+  public LivePostCounters(
+      ClusterMessagingTemplate messagingTemplate,
+      PostViewerRegistry registry,
+      WebSocketClusterProperties clusterProperties,
+      MeterRegistry meterRegistry) {
+    this.messagingTemplate = messagingTemplate;
+    this.registry = registry;
+    this.clustered = !"in-memory".equals(clusterProperties.getRelay());
+    this.sharedRegistry = !"in-memory".equals(clusterProperties.getRegistry());
+    this.frames =
+        Counter.builder("websocket.live.frames")
+            .description("Live counter frames sent to post viewers")
+            .register(meterRegistry);
+    Gauge.builder("websocket.live.posts", viewers, Map::size)
+        .description("Posts with live counter subscribers on this node")
+        .register(meterRegistry);
+  }
+
+  static String destination(UUID postId) {
+    return PREFIX + postId + SUFFIX;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCountersChanged(PostCountersChangedEvent event) {
+    if (clustered || viewers.containsKey(event.postId())) {
+      pending.merge(event.postId(), PostCountersDiff.from(event), PostCountersDiff::plus);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${lambrk.websocket.live.tick-ms:500}")
+  public void tick() {
+    for (UUID postId : pending.keySet()) {
+      PostCountersDiff diff = pending.remove(postId);
+      if (diff != null && !diff.isEmpty() && send(postId, diff)) {
+        frames.increment();
+      }
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${lambrk.websocket.cluster.registry-refresh-ms:30000}",
+      initialDelayString = "${lambrk.websocket.cluster.registry-refresh-ms:30000}")
+  public void refreshRegistry() {
+    try {
+      registry.refresh(Set.copyOf(viewers.keySet()));
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh live post viewer registry", e);
+    }
+  }
+
+  @EventListener
+  public void onSubscribe(SessionSubscribeEvent event) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+    subscribed(accessor.getSessionId(), accessor.getSubscriptionId(), accessor.getDestination());
+  }
+
+  @EventListener
+  public void onUnsubscribe(SessionUnsubscribeEvent event) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+    unsubscribed(accessor.getSessionId(), accessor.getSubscriptionId());
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    Map<String, UUID> closed = subscriptions.remove(event.getSessionId());
+    if (closed != null) {
+      closed.values().forEach(this::removeViewer);
+    }
+  }
+
+  void subscribed(String sessionId, String subscriptionId, String destination) {
+    UUID postId = postId(destination);
+    if (sessionId == null || subscriptionId == null || postId == null) {
+      return;
+    }
+    UUID previous =
+        subscriptions
+            .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+            .put(subscriptionId, postId);
+    if (previous == null && viewers.merge(postId, 1, Integer::sum) == 1) {
+      updateRegistry(postId, true);
+    }
+  }
+
+  void unsubscribed(String sessionId, String subscriptionId) {
+    Map<String, UUID> session = sessionId != null ? subscriptions.get(sessionId) : null;
+    UUID postId = session != null && subscriptionId != null ? session.remove(subscriptionId) : null;
+    if (postId != null) {
+      removeViewer(postId);
+    }
+  }
+
+  private void removeViewer(UUID postId) {
+    Integer left = viewers.computeIfPresent(postId, (id, count) -> count > 1 ? count - 1 : null);
+    if (left == null) {
+      updateRegistry(postId, false);
+      if (!clustered) {
+        pending.remove(postId);
+      }
+    }
+  }
+
+  private boolean send(UUID postId, PostCountersDiff diff) {
+    if (!clustered || !sharedRegistry) {
+      messagingTemplate.convertAndSend(destination(postId), diff);
+      return true;
+    }
+    Set<String> nodes;
+    try {
+      nodes = registry.nodesOf(postId);
+    } catch (RuntimeException e) {
+      log.warn("Could not look up viewers of post {}; relaying to every node", postId, e);
+      messagingTemplate.convertAndSend(destination(postId), diff);
+      return true;
+    }
+    if (nodes.isEmpty()) {
+      return false;
+    }
+    messagingTemplate.convertAndSendToNodes(nodes, destination(postId), diff);
+    return true;
+  }
+
+  private void updateRegistry(UUID postId, boolean add) {
+    try {
+      if (add) {
+        registry.add(postId);
+      } else {
+        registry.remove(postId);
+      }
+    } catch (RuntimeException e) {
+      // The next refresh re-adds posts with viewers; stale entries expire
+      log.warn("Failed to update live post viewer registry for {}", postId, e);
+    }
+  }
+
+  private static UUID postId(String destination) {
+    if (destination == null
+        || !destination.startsWith(PREFIX)
+        || !destination.endsWith(SUFFIX)
+        || destination.length() <= PREFIX.length() + SUFFIX.length()) {
+      return null;
+    }
+    try {
+      return UUID.fromString(
+          destination.substring(PREFIX.length(), destination.length() - SUFFIX.length()));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
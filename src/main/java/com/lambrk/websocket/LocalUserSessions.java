@@ -0,0 +1,85 @@
+package com.lambrk.websocket;
+
+import com.lambrk.config.UserPrincipal;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/** The authenticated users with a STOMP session on this node, by user ID. */
+@Component
+public class LocalUserSessions {
+
+  private record Sessions(String username, Set<String> sessionIds) {}
+
+  private final Map<UUID, Sessions> byUser = new ConcurrentHashMap<>();
+  private final Map<String, UUID> userBySession = new ConcurrentHashMap<>();
+
+  @EventListener
+  public void onConnected(SessionConnectedEvent event) {
+    UUID userId = userId(event.getUser());
+    if (userId != null) {
+      register(
+          StompHeaderAccessor.wrap(event.getMessage()).getSessionId(),
+          userId,
+          event.getUser().getName());
+    }
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    unregister(event.getSessionId());
+  }
+
+  /** The username to address the user's local sessions with, if they have any. */
+  public Optional<String> username(UUID userId) {
+    Sessions sessions = byUser.get(userId);
+    return sessions != null ? Optional.of(sessions.username()) : Optional.empty();
+  }
+
+  /** Users with at least one session on this node. */
+  public Set<UUID> userIds() {
+    return Set.copyOf(byUser.keySet());
+  }
+
+  void register(String sessionId, UUID userId, String username) {
+    userBySession.put(sessionId, userId);
+    byUser.compute(
+        userId,
+        (id, current) -> {
+          Set<String> ids = current != null ? new HashSet<>(current.sessionIds()) : new HashSet<>();
+          ids.add(sessionId);
+          return new Sessions(username, Set.copyOf(ids));
+        });
+  }
+
+  void unregister(String sessionId) {
+    UUID userId = userBySession.remove(sessionId);
+    if (userId == null) {
+      return;
+    }
+    byUser.computeIfPresent(
+        userId,
+        (id, current) -> {
+          Set<String> ids = new HashSet<>(current.sessionIds());
+          ids.remove(sessionId);
+          return ids.isEmpty() ? null : new Sessions(current.username(), Set.copyOf(ids));
+        });
+  }
+
+  private static UUID userId(Principal principal) {
+    return principal instanceof Authentication auth
+            && auth.getPrincipal() instanceof UserPrincipal user
+        ? user.getUserId()
+        : null;
+  }
+}
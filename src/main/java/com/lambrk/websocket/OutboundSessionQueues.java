@@ -0,0 +1,178 @@
+package com.lambrk.websocket;
+
+import com.lambrk.websocket.WebSocketBrokerProperties.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+/**
+ * Gives every WebSocket session a {@link BoundedOutboundSession} before the STOMP handler sees it,
+ * and keeps the metrics for all of them: frames waiting, frames dropped by policy, sessions
+ * disconnected for overflowing, and the time from a frame being queued to it being written.
+ */
+@Component
+public class OutboundSessionQueues implements WebSocketHandlerDecoratorFactory {
+
+  private final WebSocketBrokerProperties properties;
+  private final Executor executor;
+  private final Map<String, BoundedOutboundSession> sessions = new ConcurrentHashMap<>();
+  private final AtomicLong queued = new AtomicLong();
+  private final Map<OverflowPolicy, Counter> dropped = new EnumMap<>(OverflowPolicy.class);
+  private final Counter disconnected;
+  private final Timer latency;
+
+  public OutboundSessionQueues(
+      WebSocketBrokerProperties properties,
+      MeterRegistry meterRegistry,
+      @Qualifier("virtualThreadExecutor") Executor executor) {
+    this.properties = properties;
+    this.executor = executor;
+    Gauge.builder("websocket.outbound.queued", queued, AtomicLong::get)
+        .description("Frames waiting to be written, across all sessions")
+        .register(meterRegistry);
+    Gauge.builder("websocket.outbound.sessions", sessions, Map::size)
+        .description("Open WebSocket sessions with an outbound queue")
+        .register(meterRegistry);
+    for (OverflowPolicy policy : OverflowPolicy.values()) {
+      dropped.put(
+          policy,
+          Counter.builder("websocket.outbound.dropped")
+              .description("Frames dropped or coalesced because a session's queue was full")
+              .tag("policy", policy.name().toLowerCase())
+              .register(meterRegistry));
+    }
+    this.disconnected =
+        Counter.builder("websocket.outbound.disconnected")
+            .description("Sessions closed because their queue was full")
+            .register(meterRegistry);
+    this.latency =
+        Timer.builder("websocket.outbound.latency")
+            .description("Time from a frame being fanned out to it being written to the socket")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+  }
+
+  @Override
+  public WebSocketHandler decorate(WebSocketHandler handler) {
+    return new WebSocketHandlerDecorator(handler) {
+      @Override
+      public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        super.afterConnectionEstablished(open(session));
+      }
+
+      @Override
+      public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus)
+          throws Exception {
+        close(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+      }
+    };
+  }
+
+  /** Wraps a newly opened session. */
+  BoundedOutboundSession open(WebSocketSession session) {
+    BoundedOutboundSession bounded = new BoundedOutboundSession(session, this);
+    sessions.put(session.getId(), bounded);
+    return bounded;
+  }
+
+  void close(String sessionId) {
+    BoundedOutboundSession bounded = sessions.remove(sessionId);
+    if (bounded != null) {
+      bounded.discard();
+    }
+  }
+
+  /**
+   * Closes a session from the server side, for example one that stopped sending heartbeats. Its
+   * disconnect then runs as for any other close. Does nothing if the session is already gone.
+   */
+  public void closeSession(String sessionId, CloseStatus status) {
+    BoundedOutboundSession bounded = sessions.get(sessionId);
+    if (bounded != null) {
+      bounded.closeLater(status);
+    }
+  }
+
+  /**
+   * Switches a session to a payload format; false when the session is gone or the format needs
+   * binary messages its transport cannot carry.
+   */
+  boolean usePayloadFormat(String sessionId, PayloadFormat format) {
+    BoundedOutboundSession bounded = sessionId != null ? sessions.get(sessionId) : null;
+    if (bounded == null || (format.binary() && !bounded.acceptsBinary())) {
+      return false;
+    }
+    bounded.payloadFormat(format);
+    return true;
+  }
+
+  PayloadFormat payloadFormat(String sessionId) {
+    BoundedOutboundSession bounded = sessionId != null ? sessions.get(sessionId) : null;
+    return bounded != null ? bounded.payloadFormat() : PayloadFormat.JSON;
+  }
+
+  /** Frames waiting to be written, across all sessions. */
+  public long queuedFrames() {
+    return queued.get();
+  }
+
+  public int sessionCount() {
+    return sessions.size();
+  }
+
+  int queueCapacity() {
+    return properties.getQueueCapacity();
+  }
+
+  OverflowPolicy overflowPolicy() {
+    return properties.getOverflowPolicy();
+  }
+
+  boolean coalesces(String destination) {
+    for (String prefix : properties.getCoalesceDestinations()) {
+      if (destination.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  void execute(Runnable task) {
+    executor.execute(task);
+  }
+
+  void enqueued() {
+    queued.incrementAndGet();
+  }
+
+  void dequeued(int frames) {
+    queued.addAndGet(-frames);
+  }
+
+  void dropped(OverflowPolicy policy) {
+    dropped.get(policy).increment();
+  }
+
+  void disconnected() {
+    disconnected.increment();
+  }
+
+  void written(long enqueuedAtNanos) {
+    latency.record(System.nanoTime() - enqueuedAtNanos, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,171 @@
+package com.lambrk.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Lets each session pick its {@link PayloadFormat} at CONNECT and re-encodes JSON bodies on the way
+ * out for sessions that picked CBOR or Smile. The broker converts a payload to JSON once and fans
+ * the same bytes out to every subscriber, on one thread since outbound sends run inline, so the
+ * last encoding per format and thread is reused for the rest of the fan-out.
+ */
+class PayloadEncodings implements ChannelInterceptor {
+
+  private static final Logger log = LoggerFactory.getLogger(PayloadEncodings.class);
+
+  /** IANA-registered CBOR tag for a binary UUID. */
+  static final int UUID_TAG = 37;
+
+  private static final int UUID_LENGTH = 36;
+
+  private record Encoded(byte[] json, byte[] bytes) {}
+
+  private final OutboundSessionQueues sessions;
+  private final WebSocketPayloadProperties properties;
+  private final ThreadLocal<Encoded[]> lastEncoded =
+      ThreadLocal.withInitial(() -> new Encoded[PayloadFormat.values().length]);
+  private final Map<PayloadFormat, DistributionSummary> sizes = new EnumMap<>(PayloadFormat.class);
+
+  PayloadEncodings(
+      OutboundSessionQueues sessions,
+      WebSocketPayloadProperties properties,
+      MeterRegistry meterRegistry) {
+    this.sessions = sessions;
+    this.properties = properties;
+    for (PayloadFormat format : PayloadFormat.values()) {
+      sizes.put(
+          format,
+          DistributionSummary.builder("websocket.payload.size")
+              .description("Message body size, per payload rather than per recipient")
+              .baseUnit("bytes")
+              .tag("format", format.name().toLowerCase())
+              .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Applies the format a CONNECT frame asks for, if it is allowed and the transport can carry it.
+   */
+  PayloadFormat negotiate(StompHeaderAccessor connect) {
+    PayloadFormat requested =
+        PayloadFormat.fromHeader(connect.getFirstNativeHeader(PayloadFormat.HEADER));
+    if (requested == null
+        || !properties.getFormats().contains(requested)
+        || !sessions.usePayloadFormat(connect.getSessionId(), requested)) {
+      return PayloadFormat.JSON;
+    }
+    return requested;
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    if (!(message.getPayload() instanceof byte[] json) || json.length == 0) {
+      return message;
+    }
+    SimpMessageHeaderAccessor accessor =
+        MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+    if (accessor == null || accessor.getMessageType() != SimpMessageType.MESSAGE) {
+      return message;
+    }
+    PayloadFormat format = sessions.payloadFormat(accessor.getSessionId());
+    MimeType contentType = accessor.getContentType();
+    if (!format.binary()
+        || contentType == null
+        || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+      return message;
+    }
+    byte[] encoded;
+    try {
+      encoded = encode(json, format);
+    } catch (IOException e) {
+      log.debug("Could not re-encode a {} frame as {}", accessor.getDestination(), format, e);
+      return message;
+    }
+    SimpMessageHeaderAccessor headers =
+        (SimpMessageHeaderAccessor) MessageHeaderAccessor.getMutableAccessor(message);
+    headers.setContentType(format.contentType());
+    return MessageBuilder.createMessage(encoded, headers.getMessageHeaders());
+  }
+
+  private byte[] encode(byte[] json, PayloadFormat format) throws IOException {
+    Encoded[] last = lastEncoded.get();
+    Encoded previous = last[format.ordinal()];
+    if (previous != null && previous.json() == json) {
+      return previous.bytes();
+    }
+    byte[] bytes = transcode(json, format, properties.isBinaryUuids());
+    last[format.ordinal()] = new Encoded(json, bytes);
+    sizes.get(PayloadFormat.JSON).record(json.length);
+    sizes.get(format).record(bytes.length);
+    return bytes;
+  }
+
+  /**
+   * Streams a JSON document into {@code format} token by token, without building a tree. With
+   * {@code binaryUuids}, CBOR gets canonical UUID strings as tagged 16-byte strings.
+   */
+  static byte[] transcode(byte[] json, PayloadFormat format, boolean binaryUuids)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+    try (JsonParser parser = PayloadFormat.JSON.factory().createParser(json);
+        JsonGenerator generator = format.factory().createGenerator(out)) {
+      boolean uuidTags = binaryUuids && generator instanceof CBORGenerator;
+      while (parser.nextToken() != null) {
+        if (uuidTags && parser.currentToken() == JsonToken.VALUE_STRING && isUuid(parser)) {
+          UUID uuid = UUID.fromString(parser.getText());
+          ((CBORGenerator) generator).writeTag(UUID_TAG);
+          generator.writeBinary(
+              ByteBuffer.allocate(16)
+                  .putLong(uuid.getMostSignificantBits())
+                  .putLong(uuid.getLeastSignificantBits())
+                  .array());
+        } else {
+          generator.copyCurrentEvent(parser);
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /** Only the canonical 8-4-4-4-12 form, so the string reads back exactly as it was. */
+  private static boolean isUuid(JsonParser parser) throws IOException {
+    if (parser.getTextLength() != UUID_LENGTH) {
+      return false;
+    }
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    for (int i = 0; i < UUID_LENGTH; i++) {
+      char c = chars[offset + i];
+      boolean valid =
+          i == 8 || i == 13 || i == 18 || i == 23
+              ? c == '-'
+              : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
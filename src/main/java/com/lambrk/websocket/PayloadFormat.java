@@ -0,0 +1,55 @@
+package com.lambrk.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/** How a session wants message bodies encoded; it asks in the {@code payload-format} header. */
+public enum PayloadFormat {
+  JSON(MimeTypeUtils.APPLICATION_JSON, new JsonFactory()),
+  CBOR(new MimeType("application", "cbor"), new CBORFactory()),
+  SMILE(
+      new MimeType("application", "x-jackson-smile"),
+      // Back-references repeated IDs within a frame, not just repeated field names
+      SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build());
+
+  /** The STOMP CONNECT header a client names its format in. */
+  public static final String HEADER = "payload-format";
+
+  private final MimeType contentType;
+  private final JsonFactory factory;
+
+  PayloadFormat(MimeType contentType, JsonFactory factory) {
+    this.contentType = contentType;
+    this.factory = factory;
+  }
+
+  public MimeType contentType() {
+    return contentType;
+  }
+
+  JsonFactory factory() {
+    return factory;
+  }
+
+  /** Binary formats go out as binary WebSocket messages, which SockJS cannot carry. */
+  public boolean binary() {
+    return this != JSON;
+  }
+
+  /** The format named by a CONNECT header value, or null if there is none by that name. */
+  public static PayloadFormat fromHeader(String value) {
+    if (value == null) {
+      return null;
+    }
+    for (PayloadFormat format : values()) {
+      if (format.name().equalsIgnoreCase(value.trim())) {
+        return format;
+      }
+    }
+    return null;
+  }
+}
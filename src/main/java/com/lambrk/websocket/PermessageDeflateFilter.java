@@ -0,0 +1,67 @@
+package com.lambrk.websocket;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+
+/**
+ * Turns permessage-deflate off when {@code lambrk.websocket.payload.permessage-deflate} is false.
+ * Tomcat accepts any deflate offer on its own, whatever Spring negotiates, so the offer is hidden
+ * from the handshake instead.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.websocket.payload",
+    name = "permessage-deflate",
+    havingValue = "false")
+public class PermessageDeflateFilter extends OncePerRequestFilter {
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith(request.getContextPath() + "/ws")
+        || request.getHeader(WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS) == null;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    filterChain.doFilter(new WithoutExtensions(request), response);
+  }
+
+  private static final class WithoutExtensions extends HttpServletRequestWrapper {
+
+    WithoutExtensions(HttpServletRequest request) {
+      super(request);
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return hidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      return Collections.enumeration(
+          Collections.list(super.getHeaderNames()).stream().filter(name -> !hidden(name)).toList());
+    }
+
+    private static boolean hidden(String name) {
+      return WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name);
+    }
+  }
+}
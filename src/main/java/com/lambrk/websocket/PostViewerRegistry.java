@@ -0,0 +1,25 @@
+package com.lambrk.websocket;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Which nodes have live counter subscribers for each post, so a post's counters are relayed only to
+ * those nodes. Kept apart from the {@link UserNodeRegistry} because usernames and post IDs would
+ * share one key space there. Entries of a node that stops refreshing them expire.
+ */
+public interface PostViewerRegistry {
+
+  /** Records that the post now has a viewer on this node. */
+  void add(UUID postId);
+
+  /** Records that the post's last viewer on this node has left. */
+  void remove(UUID postId);
+
+  /** Keeps this node's entries for these posts alive. */
+  void refresh(Collection<UUID> postIds);
+
+  /** Nodes the post has viewers on, this one included. */
+  Set<String> nodesOf(UUID postId);
+}
@@ -0,0 +1,83 @@
+package com.lambrk.websocket;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry in Redis, shared by all nodes, enabled with {@code
+ * lambrk.websocket.cluster.registry=redis}. Laid out like {@link RedisUserNodeRegistry}: each post
+ * is a hash {@code ws:post:<postId>} of node ID to the time that node's entry expires.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.websocket.cluster",
+    name = "registry",
+    havingValue = "redis")
+public class RedisPostViewerRegistry implements PostViewerRegistry {
+
+  private final StringRedisTemplate redisTemplate;
+  private final String nodeId;
+  private final Duration ttl;
+
+  public RedisPostViewerRegistry(
+      StringRedisTemplate redisTemplate, WebSocketClusterProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.nodeId = properties.getNodeId();
+    this.ttl = Duration.ofMillis(properties.getRegistryTtlMs());
+  }
+
+  @Override
+  public void add(UUID postId) {
+    refresh(Set.of(postId));
+  }
+
+  @Override
+  public void remove(UUID postId) {
+    redisTemplate.opsForHash().delete(key(postId), nodeId);
+  }
+
+  @Override
+  public void refresh(Collection<UUID> postIds) {
+    if (postIds.isEmpty()) {
+      return;
+    }
+    String expiresAt = Long.toString(System.currentTimeMillis() + ttl.toMillis());
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              StringRedisConnection redis = (StringRedisConnection) connection;
+              for (UUID postId : postIds) {
+                redis.hSet(key(postId), nodeId, expiresAt);
+                redis.pExpire(key(postId), ttl.toMillis());
+              }
+              return null;
+            });
+  }
+
+  @Override
+  public Set<String> nodesOf(UUID postId) {
+    Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(postId));
+    long now = System.currentTimeMillis();
+    Set<String> nodes = new HashSet<>();
+    entries.forEach(
+        (node, expiresAt) -> {
+          if (Long.parseLong((String) expiresAt) > now) {
+            nodes.add((String) node);
+          }
+        });
+    return nodes;
+  }
+
+  private static String key(UUID postId) {
+    return "ws:post:" + postId;
+  }
+}
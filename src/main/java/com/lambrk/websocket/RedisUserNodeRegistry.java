@@ -0,0 +1,83 @@
+package com.lambrk.websocket;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry in Redis, shared by all nodes, enabled with {@code
+ * lambrk.websocket.cluster.registry=redis}. Each user is a hash {@code ws:user:<username>} of node
+ * ID to the time that node's entry expires; nodes re-stamp their connected users every {@code
+ * registry-refresh-ms}, and entries past their time are ignored.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "lambrk.websocket.cluster",
+    name = "registry",
+    havingValue = "redis")
+public class RedisUserNodeRegistry implements UserNodeRegistry {
+
+  private final StringRedisTemplate redisTemplate;
+  private final String nodeId;
+  private final Duration ttl;
+
+  public RedisUserNodeRegistry(
+      StringRedisTemplate redisTemplate, WebSocketClusterProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.nodeId = properties.getNodeId();
+    this.ttl = Duration.ofMillis(properties.getRegistryTtlMs());
+  }
+
+  @Override
+  public void add(String username) {
+    refresh(Set.of(username));
+  }
+
+  @Override
+  public void remove(String username) {
+    redisTemplate.opsForHash().delete(key(username), nodeId);
+  }
+
+  @Override
+  public void refresh(Collection<String> usernames) {
+    if (usernames.isEmpty()) {
+      return;
+    }
+    String expiresAt = Long.toString(System.currentTimeMillis() + ttl.toMillis());
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              StringRedisConnection redis = (StringRedisConnection) connection;
+              for (String username : usernames) {
+                redis.hSet(key(username), nodeId, expiresAt);
+                redis.pExpire(key(username), ttl.toMillis());
+              }
+              return null;
+            });
+  }
+
+  @Override
+  public Set<String> nodesOf(String username) {
+    Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(username));
+    long now = System.currentTimeMillis();
+    Set<String> nodes = new HashSet<>();
+    entries.forEach(
+        (node, expiresAt) -> {
+          if (Long.parseLong((String) expiresAt) > now) {
+            nodes.add((String) node);
+          }
+        });
+    return nodes;
+  }
+
+  private static String key(String username) {
+    return "ws:user:" + username;
+  }
+}
@@ -0,0 +1,57 @@
+package com.lambrk.websocket;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Relay over Redis pub/sub, enabled with {@code lambrk.websocket.cluster.relay=redis}. Each node
+ * listens on {@code ws:relay:<nodeId>} and {@code ws:relay:*}. Pub/sub does not keep messages, so
+ * frames for a node that is restarting are lost, as they would be for its closed sessions anyway.
+ */
+@Component
+@ConditionalOnProperty(prefix = "lambrk.websocket.cluster", name = "relay", havingValue = "redis")
+public class RedisWebSocketRelay implements WebSocketRelay {
+
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listeners;
+
+  public RedisWebSocketRelay(
+      StringRedisTemplate redisTemplate,
+      RedisConnectionFactory connectionFactory,
+      RelayBatchRouter router,
+      WebSocketClusterProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.listeners = new RedisMessageListenerContainer();
+    listeners.setConnectionFactory(connectionFactory);
+    listeners.addMessageListener(
+        (message, pattern) -> router.route(message.getBody()),
+        List.of(
+            new ChannelTopic(channel(properties.getNodeId())),
+            new ChannelTopic(channel(ALL_NODES))));
+    listeners.afterPropertiesSet();
+    listeners.start();
+  }
+
+  @Override
+  public void send(String nodeId, byte[] batch) {
+    byte[] channel = channel(nodeId).getBytes(StandardCharsets.UTF_8);
+    redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, batch));
+  }
+
+  @PreDestroy
+  public void stop() throws Exception {
+    listeners.destroy();
+  }
+
+  private static String channel(String nodeId) {
+    return "ws:relay:" + nodeId;
+  }
+}
@@ -0,0 +1,67 @@
+package com.lambrk.websocket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frames relayed from one node to another in a single transport message. Payloads are what the
+ * origin node's broker message converter produced, so the receiving node passes them to its broker
+ * as they are.
+ *
+ * @param origin the sending node, so broadcasts are not delivered twice on it
+ */
+public record RelayBatch(String origin, List<RelayFrame> frames) {
+
+  static final byte VERSION = 1;
+
+  public byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeUTF(origin);
+      out.writeInt(frames.size());
+      for (RelayFrame frame : frames) {
+        out.writeBoolean(frame.username() != null);
+        if (frame.username() != null) {
+          out.writeUTF(frame.username());
+        }
+        out.writeUTF(frame.destination());
+        out.writeUTF(frame.contentType());
+        out.writeInt(frame.payload().length);
+        out.write(frame.payload());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static RelayBatch decode(byte[] encoded) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported relay batch version " + version);
+      }
+      String origin = in.readUTF();
+      int count = in.readInt();
+      List<RelayFrame> frames = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        String username = in.readBoolean() ? in.readUTF() : null;
+        String destination = in.readUTF();
+        String contentType = in.readUTF();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        frames.add(new RelayFrame(username, destination, contentType, payload));
+      }
+      return new RelayBatch(origin, frames);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.lambrk.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.StringUtils;
+
+/**
+ * Hands relayed frames, and frames for this node's own sessions, to the local broker. Frames that
+ * carry a {@link ClusterEvent} are published in this application instead.
+ */
+@Component
+public class RelayBatchRouter {
+
+  private static final Logger log = LoggerFactory.getLogger(RelayBatchRouter.class);
+
+  /** Destinations under this prefix carry {@link ClusterEvent}s; STOMP destinations never do. */
+  static final String EVENT_PREFIX = "cluster-event:";
+
+  private final SimpMessagingTemplate messagingTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final String nodeId;
+  private final Counter framesIn;
+
+  public RelayBatchRouter(
+      SimpMessagingTemplate messagingTemplate,
+      ApplicationEventPublisher eventPublisher,
+      WebSocketClusterProperties properties,
+      MeterRegistry meterRegistry) {
+    this.messagingTemplate = messagingTemplate;
+    this.eventPublisher = eventPublisher;
+    this.nodeId = properties.getNodeId();
+    this.framesIn =
+        Counter.builder("websocket.relay.frames")
+            .description("Frames relayed between nodes")
+            .tag("direction", "in")
+            .register(meterRegistry);
+  }
+
+  /** Delivers a batch from another node; this node's own broadcasts are skipped. */
+  public void route(byte[] encoded) {
+    RelayBatch batch;
+    try {
+      batch = RelayBatch.decode(encoded);
+    } catch (RuntimeException e) {
+      log.warn("Dropping undecodable WebSocket relay batch", e);
+      return;
+    }
+    if (nodeId.equals(batch.origin())) {
+      return;
+    }
+    for (RelayFrame frame : batch.frames()) {
+      try {
+        deliver(frame);
+        framesIn.increment();
+      } catch (RuntimeException e) {
+        log.warn("Dropping relayed frame for {}", frame.destination(), e);
+      }
+    }
+  }
+
+  /** Sends one frame to the sessions on this node that it is for. */
+  void deliver(RelayFrame frame) {
+    if (frame.destination().startsWith(EVENT_PREFIX)) {
+      eventPublisher.publishEvent(
+          new ClusterEvent(frame.destination().substring(EVENT_PREFIX.length()), frame.payload()));
+      return;
+    }
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setContentType(MimeType.valueOf(frame.contentType()));
+    accessor.setLeaveMutable(true);
+    Message<byte[]> message =
+        MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders());
+    messagingTemplate.send(destination(frame), message);
+  }
+
+  // As SimpMessagingTemplate.convertAndSendToUser addresses a user
+  private String destination(RelayFrame frame) {
+    if (frame.username() == null) {
+      return frame.destination();
+    }
+    String destination = frame.destination();
+    return messagingTemplate.getUserDestinationPrefix()
+        + StringUtils.replace(frame.username(), "/", "%2F")
+        + (destination.startsWith("/") ? destination : "/" + destination);
+  }
+}
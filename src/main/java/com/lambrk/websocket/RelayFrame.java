@@ -0,0 +1,9 @@
+package com.lambrk.websocket;
+
+/**
+ * One frame for the broker, as relayed between nodes in a {@link RelayBatch}.
+ *
+ * @param username the user to deliver to, or null for a broker destination such as a topic
+ * @param contentType the payload's MIME type, as set by the broker's message converter
+ */
+public record RelayFrame(String username, String destination, String contentType, byte[] payload) {}
@@ -0,0 +1,137 @@
+package com.lambrk.websocket;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+/**
+ * Subscription registry for the simple broker, indexed by destination. Spring's default registry
+ * matches a destination against every subscription unless it is in a small cache, and every
+ * session's user queue is its own destination, so with many sessions nearly every send scans all of
+ * them. Here an exact destination is one hash lookup in one of {@code shards} maps, and only the
+ * rare pattern subscriptions ({@code /topic/posts/*}) are matched one by one.
+ */
+public class ShardedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+  private final PathMatcher pathMatcher = new AntPathMatcher();
+
+  /** Per shard: destination → session ID → subscription IDs. */
+  private final List<Map<String, Map<String, Set<String>>>> shards;
+
+  /** Pattern destination → session ID → subscription IDs. */
+  private final Map<String, Map<String, Set<String>>> patterns = new ConcurrentHashMap<>();
+
+  /** Session ID → subscription ID → destination, to unsubscribe by ID and on disconnect. */
+  private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+  public ShardedSubscriptionRegistry(int shards) {
+    this.shards = new ArrayList<>(shards);
+    for (int i = 0; i < shards; i++) {
+      this.shards.add(new ConcurrentHashMap<>());
+    }
+  }
+
+  @Override
+  protected void addSubscriptionInternal(
+      String sessionId, String subscriptionId, String destination, Message<?> message) {
+    sessions
+        .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+        .put(subscriptionId, destination);
+    index(destination)
+        .compute(
+            destination,
+            (d, bySession) -> {
+              Map<String, Set<String>> subscribers =
+                  bySession != null ? bySession : new ConcurrentHashMap<>();
+              subscribers.merge(
+                  sessionId, Set.of(subscriptionId), ShardedSubscriptionRegistry::union);
+              return subscribers;
+            });
+  }
+
+  @Override
+  protected void removeSubscriptionInternal(
+      String sessionId, String subscriptionId, Message<?> message) {
+    Map<String, String> subscriptions = sessions.get(sessionId);
+    if (subscriptions == null) {
+      return;
+    }
+    String destination = subscriptions.remove(subscriptionId);
+    if (destination != null) {
+      detach(sessionId, subscriptionId, destination);
+    }
+  }
+
+  @Override
+  public void unregisterAllSubscriptions(String sessionId) {
+    Map<String, String> subscriptions = sessions.remove(sessionId);
+    if (subscriptions != null) {
+      subscriptions.forEach(
+          (subscriptionId, destination) -> detach(sessionId, subscriptionId, destination));
+    }
+  }
+
+  @Override
+  protected MultiValueMap<String, String> findSubscriptionsInternal(
+      String destination, Message<?> message) {
+    Map<String, Set<String>> exact = shard(destination).get(destination);
+    MultiValueMap<String, String> result =
+        new LinkedMultiValueMap<>(exact != null ? exact.size() : 0);
+    if (exact != null) {
+      exact.forEach((sessionId, ids) -> result.addAll(sessionId, List.copyOf(ids)));
+    }
+    if (!patterns.isEmpty()) {
+      patterns.forEach(
+          (pattern, bySession) -> {
+            if (pathMatcher.match(pattern, destination)) {
+              bySession.forEach((sessionId, ids) -> result.addAll(sessionId, List.copyOf(ids)));
+            }
+          });
+    }
+    return result;
+  }
+
+  /** Number of sessions with at least one subscription. */
+  public int sessionCount() {
+    return sessions.size();
+  }
+
+  private void detach(String sessionId, String subscriptionId, String destination) {
+    index(destination)
+        .computeIfPresent(
+            destination,
+            (d, bySession) -> {
+              bySession.computeIfPresent(
+                  sessionId,
+                  (s, ids) -> {
+                    Set<String> remaining = new HashSet<>(ids);
+                    remaining.remove(subscriptionId);
+                    return remaining.isEmpty() ? null : Set.copyOf(remaining);
+                  });
+              return bySession.isEmpty() ? null : bySession;
+            });
+  }
+
+  private Map<String, Map<String, Set<String>>> index(String destination) {
+    return pathMatcher.isPattern(destination) ? patterns : shard(destination);
+  }
+
+  private Map<String, Map<String, Set<String>>> shard(String destination) {
+    return shards.get(Math.floorMod(destination.hashCode(), shards.size()));
+  }
+
+  private static Set<String> union(Set<String> a, Set<String> b) {
+    Set<String> merged = new HashSet<>(a);
+    merged.addAll(b);
+    return Set.copyOf(merged);
+  }
+}
@@ -0,0 +1,24 @@
+package com.lambrk.websocket;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Which nodes each user has WebSocket sessions on, so a message for them is relayed only to those
+ * nodes. Users are keyed by username, as STOMP user destinations are. Entries of a node that stops
+ * refreshing them expire, so a crashed node is forgotten without help.
+ */
+public interface UserNodeRegistry {
+
+  /** Records that the user now has a session on this node. */
+  void add(String username);
+
+  /** Records that the user's last session on this node has closed. */
+  void remove(String username);
+
+  /** Keeps this node's entries for these users alive. */
+  void refresh(Collection<String> usernames);
+
+  /** Nodes the user has sessions on, this one included. */
+  Set<String> nodesOf(String username);
+}
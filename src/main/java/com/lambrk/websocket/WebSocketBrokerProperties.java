@@ -0,0 +1,67 @@
+package com.lambrk.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.websocket.broker")
+public class WebSocketBrokerProperties {
+
+  /** What a session's outbound queue does with a new frame when it is full. */
+  public enum OverflowPolicy {
+    /** Discard the oldest queued frame. */
+    DROP_OLDEST,
+    /**
+     * Replace a queued frame for the same destination when the destination is in {@code
+     * coalesce-destinations}, otherwise discard the oldest.
+     */
+    COALESCE,
+    /** Close the session; the client reconnects and resyncs. */
+    DISCONNECT
+  }
+
+  /** Subscription registry shards, by destination. */
+  private int shards = 64;
+
+  /** Frames waiting to be written per session before the overflow policy applies. */
+  private int queueCapacity = 256;
+
+  private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+  /** Destination prefixes whose frames carry full state, so only the newest one matters. */
+  private List<String> coalesceDestinations = new ArrayList<>();
+
+  public int getShards() {
+    return shards;
+  }
+
+  public void setShards(int shards) {
+    this.shards = shards;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  public List<String> getCoalesceDestinations() {
+    return coalesceDestinations;
+  }
+
+  public void setCoalesceDestinations(List<String> coalesceDestinations) {
+    this.coalesceDestinations = coalesceDestinations;
+  }
+}
@@ -0,0 +1,114 @@
+package com.lambrk.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.websocket.cluster")
+public class WebSocketClusterProperties {
+
+  /** {@code in-memory} (single node), {@code redis} (pub/sub) or {@code kafka}. */
+  private String relay = "in-memory";
+
+  /** {@code in-memory} (single node) or {@code redis}, shared by all nodes. */
+  private String registry = "in-memory";
+
+  private String nodeId = "local";
+
+  /** Cross-node frames are sent in batches at least this often. */
+  private long batchIntervalMs = 10;
+
+  /** A batch is sent as soon as it holds this many frames. */
+  private int batchMaxFrames = 256;
+
+  /** How long a node's registry entries live unless refreshed. */
+  private long registryTtlMs = 90_000;
+
+  private long registryRefreshMs = 30_000;
+
+  /** Kafka relay only. */
+  private String topic = "websocket.relay";
+
+  private int partitions = 12;
+  private short replicas = 1;
+
+  public String getRelay() {
+    return relay;
+  }
+
+  public void setRelay(String relay) {
+    this.relay = relay;
+  }
+
+  public String getRegistry() {
+    return registry;
+  }
+
+  public void setRegistry(String registry) {
+    this.registry = registry;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public void setNodeId(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  public long getBatchIntervalMs() {
+    return batchIntervalMs;
+  }
+
+  public void setBatchIntervalMs(long batchIntervalMs) {
+    this.batchIntervalMs = batchIntervalMs;
+  }
+
+  public int getBatchMaxFrames() {
+    return batchMaxFrames;
+  }
+
+  public void setBatchMaxFrames(int batchMaxFrames) {
+    this.batchMaxFrames = batchMaxFrames;
+  }
+
+  public long getRegistryTtlMs() {
+    return registryTtlMs;
+  }
+
+  public void setRegistryTtlMs(long registryTtlMs) {
+    this.registryTtlMs = registryTtlMs;
+  }
+
+  public long getRegistryRefreshMs() {
+    return registryRefreshMs;
+  }
+
+  public void setRegistryRefreshMs(long registryRefreshMs) {
+    this.registryRefreshMs = registryRefreshMs;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(int partitions) {
+    this.partitions = partitions;
+  }
+
+  public short getReplicas() {
+    return replicas;
+  }
+
+  public void setReplicas(short replicas) {
+    this.replicas = replicas;
+  }
+}
@@ -2,26 +2,39 @@ package com.lambrk.websocket;
 
 import com.lambrk.config.JwtTokenProvider;
 import com.lambrk.config.UserPrincipal;
+import com.lambrk.presence.PresenceInterceptor;
+import com.lambrk.presence.PresenceProperties;
+import com.lambrk.presence.PresenceService;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -33,12 +46,52 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
   private final JwtTokenProvider tokenProvider;
   private final org.springframework.security.core.userdetails.UserDetailsService userDetailsService;
-
+  private final OutboundSessionQueues outboundQueues;
+  private final MeterRegistry meterRegistry;
+  private final Executor virtualThreadExecutor;
+  private final PresenceService presence;
+  private final PresenceProperties presenceProperties;
+  private final TaskScheduler brokerScheduler;
+  private final PayloadEncodings payloadEncodings;
+
+  // The presence service and broker scheduler depend on beans this configurer helps create
   public WebSocketConfig(
       JwtTokenProvider tokenProvider,
-      org.springframework.security.core.userdetails.UserDetailsService userDetailsService) {
+      org.springframework.security.core.userdetails.UserDetailsService userDetailsService,
+      OutboundSessionQueues outboundQueues,
+      MeterRegistry meterRegistry,
+      @Qualifier("virtualThreadExecutor") Executor virtualThreadExecutor,
+      @Lazy PresenceService presence,
+      PresenceProperties presenceProperties,
+      @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler brokerScheduler,
+      WebSocketPayloadProperties payloadProperties) {
     this.tokenProvider = tokenProvider;
     this.userDetailsService = userDetailsService;
+    this.outboundQueues = outboundQueues;
+    this.meterRegistry = meterRegistry;
+    this.virtualThreadExecutor = virtualThreadExecutor;
+    this.presence = presence;
+    this.presenceProperties = presenceProperties;
+    this.brokerScheduler = brokerScheduler;
+    this.payloadEncodings = new PayloadEncodings(outboundQueues, payloadProperties, meterRegistry);
+  }
+
+  /**
+   * Replaces the simple broker's subscription registry with a {@link ShardedSubscriptionRegistry}.
+   */
+  @Bean
+  static BeanPostProcessor shardedSubscriptionRegistryInstaller(
+      ObjectProvider<WebSocketBrokerProperties> properties) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof SimpleBrokerMessageHandler broker) {
+          broker.setSubscriptionRegistry(
+              new ShardedSubscriptionRegistry(properties.getObject().getShards()));
+        }
+        return bean;
+      }
+    };
   }
 
   @Override
@@ -57,13 +110,32 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
   @Override
   public void configureMessageBroker(MessageBrokerRegistry registry) {
-    registry.enableSimpleBroker("/topic", "/queue");
+    long heartbeat = presenceProperties.getHeartbeatMs();
+    registry
+        .enableSimpleBroker("/topic", "/queue")
+        .setHeartbeatValue(new long[] {heartbeat, heartbeat})
+        .setTaskScheduler(brokerScheduler);
     registry.setApplicationDestinationPrefixes("/app");
     registry.setUserDestinationPrefix("/user");
+    registry.configureBrokerChannel().interceptors(new BrokerFanOutTimer(meterRegistry));
+  }
+
+  @Override
+  public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+    registration.addDecoratorFactory(outboundQueues);
+  }
+
+  @Override
+  public void configureClientOutboundChannel(ChannelRegistration registration) {
+    // Sending to a client only queues the frame on its BoundedOutboundSession, so it runs inline on
+    // the broker's thread; that also keeps each session's frames in publish order
+    registration.executor(Runnable::run);
+    registration.interceptors(payloadEncodings);
   }
 
   @Override
   public void configureClientInboundChannel(ChannelRegistration registration) {
+    registration.executor(virtualThreadExecutor);
     registration.interceptors(
         new ChannelInterceptor() {
           @Override
@@ -75,10 +147,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             }
             if (StompCommand.CONNECT.equals(accessor.getCommand())) {
               authenticateConnectFrame(accessor);
+              payloadEncodings.negotiate(accessor);
             }
             return message;
           }
-        });
+        },
+        new PresenceInterceptor(presence));
   }
 
   private void authenticateConnectFrame(StompHeaderAccessor accessor) {
@@ -1,5 +1,8 @@
 package com.lambrk.websocket;
 
+import com.lambrk.badge.BadgeService;
+import com.lambrk.config.UserPrincipal;
+import com.lambrk.dto.BadgesResponse;
 import com.lambrk.dto.CommentResponse;
 import com.lambrk.dto.NotificationResponse;
 import com.lambrk.dto.PostResponse;
@@ -12,18 +15,26 @@ import java.util.UUID;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 
 @Controller
 public class WebSocketController {
 
   private final SimpMessagingTemplate messagingTemplate;
+  private final ClusterMessagingTemplate clusterTemplate;
   private final NotificationService notificationService;
+  private final BadgeService badgeService;
 
   public WebSocketController(
-      SimpMessagingTemplate messagingTemplate, NotificationService notificationService) {
+      SimpMessagingTemplate messagingTemplate,
+      ClusterMessagingTemplate clusterTemplate,
+      NotificationService notificationService,
+      BadgeService badgeService) {
     this.messagingTemplate = messagingTemplate;
+    this.clusterTemplate = clusterTemplate;
     this.notificationService = notificationService;
+    this.badgeService = badgeService;
   }
 
   @MessageMapping("/connect")
@@ -38,7 +49,16 @@ public class WebSocketController {
     messagingTemplate.convertAndSendToUser(
         username, "/queue/connected", "Connected to Lambrk WebSocket");
 
-    sendUnreadCount(username);
+    if (principal instanceof Authentication auth
+        && auth.getPrincipal() instanceof UserPrincipal user
+        && user.getUserId() != null) {
+      BadgesResponse badges = badgeService.getBadges(user.getUserId());
+      messagingTemplate.convertAndSendToUser(
+          username, "/queue/notifications/unread-count", badges.notifications());
+      messagingTemplate.convertAndSendToUser(username, "/queue/badges", badges);
+    } else {
+      sendUnreadCount(username);
+    }
   }
 
   @MessageMapping("/subscribe/notifications")
@@ -86,50 +106,50 @@ public class WebSocketController {
   // Methods for sending real-time updates
 
   public void sendNotificationUpdate(String username, NotificationResponse notification) {
-    messagingTemplate.convertAndSendToUser(username, "/queue/notifications", notification);
+    clusterTemplate.convertAndSendToUser(username, "/queue/notifications", notification);
   }
 
   public void sendPostUpdate(String username, PostResponse post) {
-    messagingTemplate.convertAndSendToUser(username, "/queue/posts", post);
+    clusterTemplate.convertAndSendToUser(username, "/queue/posts", post);
   }
 
   public void sendCommentUpdate(String username, CommentResponse comment) {
-    messagingTemplate.convertAndSendToUser(username, "/queue/comments", comment);
+    clusterTemplate.convertAndSendToUser(username, "/queue/comments", comment);
   }
 
   public void broadcastPostUpdate(PostResponse post) {
-    messagingTemplate.convertAndSend("/topic/posts/" + post.id(), post);
+    clusterTemplate.convertAndSend("/topic/posts/" + post.id(), post);
   }
 
   public void broadcastCommentUpdate(CommentResponse comment) {
-    messagingTemplate.convertAndSend("/topic/posts/" + comment.postId() + "/comments", comment);
+    clusterTemplate.convertAndSend("/topic/posts/" + comment.postId() + "/comments", comment);
   }
 
   public void broadcastCommunityUpdate(UUID communityId, Object update) {
-    messagingTemplate.convertAndSend("/topic/communities/" + communityId, update);
+    clusterTemplate.convertAndSend("/topic/communities/" + communityId, update);
   }
 
   public void sendUnreadCount(String username) {
     // This would get the actual unread count from NotificationService
     long unreadCount = 0; // Placeholder
 
-    messagingTemplate.convertAndSendToUser(
+    clusterTemplate.convertAndSendToUser(
         username, "/queue/notifications/unread-count", unreadCount);
   }
 
   public void sendKarmaUpdate(String username, int newKarma) {
-    messagingTemplate.convertAndSendToUser(username, "/queue/karma", newKarma);
+    clusterTemplate.convertAndSendToUser(username, "/queue/karma", newKarma);
   }
 
   public void sendVoteUpdate(String username, Object voteUpdate) {
-    messagingTemplate.convertAndSendToUser(username, "/queue/votes", voteUpdate);
+    clusterTemplate.convertAndSendToUser(username, "/queue/votes", voteUpdate);
   }
 
   public void sendSystemAnnouncement(String message) {
-    messagingTemplate.convertAndSend("/topic/announcements", message);
+    clusterTemplate.convertAndSend("/topic/announcements", message);
   }
 
   public void sendUserStatusUpdate(String username, String status) {
-    messagingTemplate.convertAndSend("/topic/user-status/" + username, status);
+    clusterTemplate.convertAndSend("/topic/user-status/" + username, status);
   }
 }
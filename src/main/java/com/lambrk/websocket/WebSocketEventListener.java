@@ -1,10 +1,14 @@
 package com.lambrk.websocket;
 
+import com.lambrk.util.LogSampler;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import java.security.Principal;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
@@ -13,50 +17,36 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
+/**
+ * Logs session lifecycle events as key-value pairs: every event at DEBUG, otherwise one in {@code
+ * lambrk.websocket.event-log-sample-rate} at INFO. Counts are in the metrics. Who is online is
+ * tracked by {@code PresenceService}.
+ */
 @Component
 public class WebSocketEventListener {
 
-  private final Map<String, String> connectedUsers = new ConcurrentHashMap<>();
+  private static final Logger log = LoggerFactory.getLogger(WebSocketEventListener.class);
+
+  private final LogSampler sampler;
+
+  public WebSocketEventListener(
+      @Value("${lambrk.websocket.event-log-sample-rate:100}") int sampleRate) {
+    this.sampler = new LogSampler(sampleRate);
+  }
 
   @EventListener
   @Counted(value = "websocket.connected")
   @Timed(value = "websocket.connect.event.duration")
   public void handleWebSocketConnectListener(SessionConnectEvent event) {
     StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-    Principal user = headerAccessor.getUser();
-
-    if (user != null) {
-      String username = user.getName();
-      String sessionId = headerAccessor.getSessionId();
-
-      connectedUsers.put(sessionId, username);
-
-      System.out.println("User connected: " + username + " with session: " + sessionId);
-
-      // Could trigger additional logic like:
-      // - Update user online status
-      // - Send welcome message
-      // - Initialize user-specific data
-    }
+    logEvent("connect", headerAccessor.getUser(), headerAccessor.getSessionId(), null);
   }
 
   @EventListener
   @Counted(value = "websocket.disconnected")
   @Timed(value = "websocket.disconnect.event.duration")
   public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
-    StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-    String sessionId = headerAccessor.getSessionId();
-
-    String username = connectedUsers.remove(sessionId);
-
-    if (username != null) {
-      System.out.println("User disconnected: " + username + " with session: " + sessionId);
-
-      // Could trigger additional logic like:
-      // - Update user offline status
-      // - Clean up user-specific resources
-      // - Notify other users about disconnection
-    }
+    logEvent("disconnect", event.getUser(), event.getSessionId(), null);
   }
 
   @EventListener
@@ -64,75 +54,46 @@ public class WebSocketEventListener {
   @Timed(value = "websocket.subscribe.event.duration")
   public void handleWebSocketSubscribeListener(SessionSubscribeEvent event) {
     StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-    Principal user = headerAccessor.getUser();
-    String destination = headerAccessor.getDestination();
-
-    if (user != null) {
-      String username = user.getName();
-      System.out.println("User " + username + " subscribed to: " + destination);
-
-      // Handle subscription to specific topics
-      handleSubscription(username, destination);
-    }
+    logEvent(
+        "subscribe",
+        headerAccessor.getUser(),
+        headerAccessor.getSessionId(),
+        headerAccessor.getDestination());
   }
 
   @EventListener
   @Counted(value = "websocket.unsubscribed")
   @Timed(value = "websocket.unsubscribe.event.duration")
   public void handleWebSocketUnsubscribeListener(SessionUnsubscribeEvent event) {
+    // UNSUBSCRIBE frames only carry the subscription ID
     StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-    Principal user = headerAccessor.getUser();
-    String destination = headerAccessor.getDestination();
+    logEvent(
+        "unsubscribe",
+        headerAccessor.getUser(),
+        headerAccessor.getSessionId(),
+        headerAccessor.getSubscriptionId());
+  }
 
+  private void logEvent(String event, Principal user, String sessionId, String target) {
+    Level level;
+    if (log.isDebugEnabled()) {
+      level = Level.DEBUG;
+    } else if (log.isInfoEnabled() && sampler.sample()) {
+      level = Level.INFO;
+    } else {
+      return;
+    }
+    LoggingEventBuilder entry =
+        log.atLevel(level).addKeyValue("event", event).addKeyValue("session", sessionId);
     if (user != null) {
-      String username = user.getName();
-      System.out.println("User " + username + " unsubscribed from: " + destination);
-
-      // Handle unsubscription from specific topics
-      handleUnsubscription(username, destination);
+      entry = entry.addKeyValue("user", user.getName());
     }
-  }
-
-  private void handleSubscription(String username, String destination) {
-    // Handle different subscription types
-    if (destination.startsWith("/topic/posts/")) {
-      // User subscribed to post updates
-      String postId = destination.substring("/topic/posts/".length());
-      System.out.println("User " + username + " subscribed to post: " + postId);
-
-    } else if (destination.startsWith("/topic/communities/")) {
-      // User subscribed to community updates
-      String communityId = destination.substring("/topic/communities/".length());
-      System.out.println("User " + username + " subscribed to community: " + communityId);
-
-    } else if (destination.equals("/topic/announcements")) {
-      // User subscribed to system announcements
-      System.out.println("User " + username + " subscribed to announcements");
-
-    } else if (destination.startsWith("/topic/user-status/")) {
-      // User subscribed to another user's status updates
-      String targetUser = destination.substring("/topic/user-status/".length());
-      System.out.println("User " + username + " subscribed to status updates for: " + targetUser);
+    if (target != null) {
+      entry = entry.addKeyValue("target", target);
     }
-  }
-
-  private void handleUnsubscription(String username, String destination) {
-    // Handle different unsubscription types
-    if (destination.startsWith("/topic/posts/")) {
-      String postId = destination.substring("/topic/posts/".length());
-      System.out.println("User " + username + " unsubscribed from post: " + postId);
-
-    } else if (destination.startsWith("/topic/communities/")) {
-      String communityId = destination.substring("/topic/communities/".length());
-      System.out.println("User " + username + " unsubscribed from community: " + communityId);
+    if (level == Level.INFO) {
+      entry = entry.addKeyValue("sampleRate", sampler.rate());
     }
-  }
-
-  public int getConnectedUserCount() {
-    return connectedUsers.size();
-  }
-
-  public boolean isUserConnected(String username) {
-    return connectedUsers.containsValue(username);
+    entry.log("WebSocket {}", event);
   }
 }
@@ -0,0 +1,48 @@
+package com.lambrk.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "lambrk.websocket.payload")
+public class WebSocketPayloadProperties {
+
+  /** Formats a client may ask for at CONNECT; anything else gets JSON. */
+  private List<PayloadFormat> formats =
+      new ArrayList<>(List.of(PayloadFormat.JSON, PayloadFormat.CBOR, PayloadFormat.SMILE));
+
+  /** Write UUID strings in CBOR bodies as 16 bytes under tag 37 rather than 36 characters. */
+  private boolean binaryUuids = true;
+
+  /**
+   * Accept permessage-deflate when the client offers it. Each compressing session holds its own
+   * deflate window, so turning it off trades egress for memory.
+   */
+  private boolean permessageDeflate = true;
+
+  public List<PayloadFormat> getFormats() {
+    return formats;
+  }
+
+  public void setFormats(List<PayloadFormat> formats) {
+    this.formats = formats;
+  }
+
+  public boolean isBinaryUuids() {
+    return binaryUuids;
+  }
+
+  public void setBinaryUuids(boolean binaryUuids) {
+    this.binaryUuids = binaryUuids;
+  }
+
+  public boolean isPermessageDeflate() {
+    return permessageDeflate;
+  }
+
+  public void setPermessageDeflate(boolean permessageDeflate) {
+    this.permessageDeflate = permessageDeflate;
+  }
+}
@@ -0,0 +1,13 @@
+package com.lambrk.websocket;
+
+/**
+ * Carries encoded {@link RelayBatch}es between nodes, where {@link RelayBatchRouter} hands their
+ * frames to the local broker. A batch is addressed to one node, or to {@link #ALL_NODES} for
+ * broadcasts.
+ */
+public interface WebSocketRelay {
+
+  String ALL_NODES = "*";
+
+  void send(String nodeId, byte[] batch);
+}
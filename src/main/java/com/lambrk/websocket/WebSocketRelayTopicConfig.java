@@ -0,0 +1,20 @@
+package com.lambrk.websocket;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+@ConditionalOnProperty(prefix = "lambrk.websocket.cluster", name = "relay", havingValue = "kafka")
+public class WebSocketRelayTopicConfig {
+
+  @Bean
+  public NewTopic webSocketRelayTopic(WebSocketClusterProperties properties) {
+    return TopicBuilder.name(properties.getTopic())
+        .partitions(properties.getPartitions())
+        .replicas(properties.getReplicas())
+        .build();
+  }
+}
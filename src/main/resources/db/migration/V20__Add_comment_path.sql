@@ -0,0 +1,38 @@
+-- Materialized path for single-query comment tree loading: ancestor IDs followed by the
+-- comment's own ID, each as 32 hex digits. Sorting a post's comments by path yields the
+-- tree depth-first, and every subtree is the contiguous range [path, path || 'g').
+
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS path VARCHAR(2048);
+
+-- Replies whose parent row is gone are treated as top-level comments
+WITH RECURSIVE tree AS (
+    SELECT c.id, CAST(replace(c.id::text, '-', '') AS VARCHAR(2048)) AS path
+    FROM comments c
+    WHERE c.parent_id IS NULL
+       OR NOT EXISTS (SELECT 1 FROM comments p WHERE p.id = c.parent_id)
+    UNION ALL
+    SELECT c.id, CAST(tree.path || replace(c.id::text, '-', '') AS VARCHAR(2048))
+    FROM comments c
+    JOIN tree ON c.parent_id = tree.id
+)
+UPDATE comments
+SET path = tree.path
+FROM tree
+WHERE comments.id = tree.id AND comments.path IS NULL;
+
+-- Anything still without a path sits on a parent_id cycle and never reaches a root
+DO $$
+DECLARE
+    unreachable BIGINT;
+    sample UUID;
+BEGIN
+    SELECT count(*), min(id::text)::uuid INTO unreachable, sample FROM comments WHERE path IS NULL;
+    IF unreachable > 0 THEN
+        RAISE EXCEPTION 'V20: % comment(s) have a parent_id chain that never reaches a top-level comment (e.g. %). Break the cycle by setting parent_id to NULL, then re-run the migration.',
+            unreachable, sample;
+    END IF;
+END $$;
+
+ALTER TABLE comments ALTER COLUMN path SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_comment_post_path ON comments (post_id, path);
@@ -0,0 +1,28 @@
+-- Precomputed comment sort keys, kept in step with like_count and dislike_count on every vote
+-- (see com.lambrk.util.CommentRanking). Each sort mode gets a (post_id, parent_id, key, id)
+-- index, so a page of top-level comments or of one comment's replies is a single index range.
+
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS best_score DOUBLE PRECISION NOT NULL DEFAULT 0;
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS controversy_score DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+-- Wilson lower bound at 95% confidence (z = 1.96)
+UPDATE comments
+SET best_score = ((like_count + 1.9208) / (like_count + dislike_count)
+        - 1.96 * sqrt(like_count::float8 * dislike_count / (like_count + dislike_count) + 0.9604)
+            / (like_count + dislike_count))
+        / (1 + 3.8416 / (like_count + dislike_count))
+WHERE like_count + dislike_count > 0;
+
+UPDATE comments
+SET controversy_score = power(like_count + dislike_count,
+        LEAST(like_count, dislike_count)::float8 / GREATEST(like_count, dislike_count))
+WHERE like_count > 0 AND dislike_count > 0;
+
+CREATE INDEX IF NOT EXISTS idx_comment_post_parent_best
+    ON comments (post_id, parent_id, best_score DESC, id);
+CREATE INDEX IF NOT EXISTS idx_comment_post_parent_top
+    ON comments (post_id, parent_id, score DESC, id);
+CREATE INDEX IF NOT EXISTS idx_comment_post_parent_controversy
+    ON comments (post_id, parent_id, controversy_score DESC, id);
+CREATE INDEX IF NOT EXISTS idx_comment_post_parent_created
+    ON comments (post_id, parent_id, created_at, id);
@@ -0,0 +1,13 @@
+-- Likes, replies and follows aimed at the same target within one time bucket fold into a single
+-- row per recipient (see NotificationService.createAggregatedNotification). aggregation_key is
+-- "<type>:<target id>", aggregation_bucket the creation time divided by the window length;
+-- ordinary notifications leave both NULL and are unaffected by the unique index.
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS aggregation_key VARCHAR(100);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS aggregation_bucket BIGINT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS actor_count INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS sample_actor_ids UUID[];
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_notification_aggregate
+    ON notifications (recipient_id, aggregation_key, aggregation_bucket)
+    WHERE aggregation_key IS NOT NULL;
@@ -0,0 +1,26 @@
+-- Every actor folded into an aggregated notification, so actor_count counts distinct actors rather
+-- than events: a like, unlike and like again by the same user only counts once, however long
+-- sample_actor_ids has grown. Rows are keyed like the aggregate itself and are only needed while
+-- their bucket is open; NotificationService.purgeAggregateActors deletes them after one window.
+
+CREATE TABLE IF NOT EXISTS notification_aggregate_actors (
+    recipient_id UUID NOT NULL,
+    aggregation_key VARCHAR(100) NOT NULL,
+    aggregation_bucket BIGINT NOT NULL,
+    actor_id UUID NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (recipient_id, aggregation_key, aggregation_bucket, actor_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_aggregate_actors_created_at
+    ON notification_aggregate_actors (created_at);
+
+-- Sampled actors of recent aggregates, whose buckets may still be open (windows up to a day)
+INSERT INTO notification_aggregate_actors
+    (recipient_id, aggregation_key, aggregation_bucket, actor_id, created_at)
+SELECT n.recipient_id, n.aggregation_key, n.aggregation_bucket, a.actor_id, n.updated_at
+FROM notifications n
+CROSS JOIN LATERAL unnest(n.sample_actor_ids) AS a(actor_id)
+WHERE n.aggregation_key IS NOT NULL
+  AND n.updated_at > LOCALTIMESTAMP - INTERVAL '1 day'
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,4 @@
+-- Mentions are parsed lower-cased and resolved in one query on LOWER(username)
+-- (see UserRepository.findIdsByUsernameIn); idx_user_username cannot serve that predicate.
+
+CREATE INDEX IF NOT EXISTS idx_user_username_lower ON users (LOWER(username));
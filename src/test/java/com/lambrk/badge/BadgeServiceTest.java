@@ -0,0 +1,110 @@
+package com.lambrk.badge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.dto.BadgesResponse;
+import com.lambrk.message.ChatMessageStore;
+import com.lambrk.repository.NotificationRepository;
+import com.lambrk.user.UserIdentity;
+import com.lambrk.user.UserIdentityCache;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import com.lambrk.websocket.LocalUserSessions;
+import com.lambrk.websocket.UserNodeRegistry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class BadgeServiceTest {
+
+  private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+  private final ChatMessageStore chatMessageStore = mock(ChatMessageStore.class);
+  private final LocalUserSessions sessions = mock(LocalUserSessions.class);
+  private final UserIdentityCache identities = mock(UserIdentityCache.class);
+  private final UserNodeRegistry registry = mock(UserNodeRegistry.class);
+  private final ClusterMessagingTemplate messagingTemplate = mock(ClusterMessagingTemplate.class);
+  private final BadgeService badges =
+      new BadgeService(
+          new InMemoryUnreadCounterStore(new BadgeProperties(), new MockEnvironment()),
+          notificationRepository,
+          chatMessageStore,
+          sessions,
+          identities,
+          registry,
+          messagingTemplate);
+  private final UUID user = UUID.randomUUID();
+
+  @Test
+  void countsOnceThenServesAndAdjustsTheHeldCounter() {
+    when(notificationRepository.countUnreadNotifications(user)).thenReturn(3L);
+    when(chatMessageStore.countUnread(user)).thenReturn(1L);
+
+    assertThat(badges.getBadges(user)).isEqualTo(new BadgesResponse(3, 1));
+    badges.adjust(user, BadgeKind.NOTIFICATIONS, 2);
+    badges.adjust(user, BadgeKind.MESSAGES, -5);
+
+    assertThat(badges.getBadges(user)).isEqualTo(new BadgesResponse(5, 0));
+    verify(notificationRepository, times(1)).countUnreadNotifications(user);
+    badges.reset(user, BadgeKind.NOTIFICATIONS);
+    assertThat(badges.count(user, BadgeKind.NOTIFICATIONS)).isZero();
+  }
+
+  @Test
+  void leavesUnknownCountersToTheNextRecount() {
+    badges.adjust(user, BadgeKind.NOTIFICATIONS, 1);
+    when(notificationRepository.countUnreadNotifications(user)).thenReturn(7L);
+
+    assertThat(badges.count(user, BadgeKind.NOTIFICATIONS)).isEqualTo(7);
+  }
+
+  @Test
+  void reconcileRepairsDriftAndPushesTheCorrectedBadges() {
+    when(sessions.userIds()).thenReturn(Set.of(user));
+    when(sessions.username(user)).thenReturn(Optional.of("alice"));
+    when(registry.nodesOf("alice")).thenReturn(Set.of("local"));
+    when(notificationRepository.countUnreadNotifications(user)).thenReturn(2L, 2L, 4L);
+
+    badges.getBadges(user);
+    badges.reconcile();
+    verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+
+    badges.reconcile();
+    verify(messagingTemplate)
+        .convertAndSendToUser("alice", "/queue/badges", new BadgesResponse(4, 0));
+  }
+
+  @Test
+  void pushesToUsersConnectedOnlyToOtherNodes() {
+    when(sessions.username(user)).thenReturn(Optional.empty());
+    when(identities.byId(user))
+        .thenReturn(Optional.of(new UserIdentity(user, "alice", "Alice", null, true)));
+    when(registry.nodesOf("alice")).thenReturn(Set.of("node-2"));
+    when(notificationRepository.countUnreadNotifications(user)).thenReturn(1L);
+
+    badges.push(user);
+
+    verify(messagingTemplate)
+        .convertAndSendToUser("alice", "/queue/badges", new BadgesResponse(1, 0));
+  }
+
+  @Test
+  void skipsUsersWithNoSessionAnywhere() {
+    when(sessions.username(user)).thenReturn(Optional.empty());
+    when(identities.byId(user))
+        .thenReturn(Optional.of(new UserIdentity(user, "alice", "Alice", null, true)));
+    when(registry.nodesOf("alice")).thenReturn(Set.of());
+
+    badges.push(user);
+
+    verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+    verify(notificationRepository, never()).countUnreadNotifications(user);
+  }
+}
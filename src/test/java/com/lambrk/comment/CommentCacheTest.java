@@ -0,0 +1,91 @@
+package com.lambrk.comment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.exception.ResourceNotFoundException;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+class CommentCacheTest {
+
+  private final CommentRepository commentRepository = mock(CommentRepository.class);
+  private final PostRepository postRepository = mock(PostRepository.class);
+  private final CommentCache cache =
+      new CommentCache(
+          new CaffeineCacheManager(CommentCache.TREES, CommentCache.COMMENTS),
+          commentRepository,
+          postRepository,
+          new CommentTreeProperties());
+
+  private final User author = new User("alice", "alice@example.com", "secret");
+  private final Post post = new Post("Title", "Body", null, Post.PostType.TEXT, author, null);
+
+  @Test
+  void doesNotCacheTreesForMissingPosts() {
+    UUID missing = UUID.randomUUID();
+    when(commentRepository.findTreeByPostId(eq(missing), anyInt(), anyInt(), anyInt()))
+        .thenReturn(List.of());
+    when(postRepository.existsById(missing)).thenReturn(false);
+
+    assertThatThrownBy(() -> cache.tree(missing)).isInstanceOf(ResourceNotFoundException.class);
+    assertThatThrownBy(() -> cache.tree(missing)).isInstanceOf(ResourceNotFoundException.class);
+
+    verify(postRepository, times(2)).existsById(missing);
+  }
+
+  @Test
+  void cachesEmptyTreesForPostsThatExist() {
+    when(commentRepository.findTreeByPostId(eq(post.getId()), anyInt(), anyInt(), anyInt()))
+        .thenReturn(List.of());
+    when(postRepository.existsById(post.getId())).thenReturn(true);
+
+    assertThat(cache.tree(post.getId()).rootCount()).isZero();
+    assertThat(cache.tree(post.getId()).rootCount()).isZero();
+
+    verify(postRepository, times(1)).existsById(post.getId());
+  }
+
+  @Test
+  void skipsTheCommentLookupWhenNoTreeIsCached() {
+    Comment root = new Comment("first", author, post, null);
+
+    cache.onCommentChanged(CommentChangedEvent.of(root, ContentChangeType.UPDATED));
+
+    verify(commentRepository, never()).findWithAuthorById(any());
+  }
+
+  @Test
+  void patchesACachedTreeWithTheCommittedComment() {
+    Comment root = new Comment("first", author, post, null);
+    when(commentRepository.findTreeByPostId(eq(post.getId()), anyInt(), anyInt(), anyInt()))
+        .thenReturn(List.of(root));
+    cache.tree(post.getId());
+
+    Comment reply = new Comment("second", author, post, root);
+    when(commentRepository.findWithAuthorById(reply.getId())).thenReturn(Optional.of(reply));
+    cache.onCommentChanged(CommentChangedEvent.of(reply, ContentChangeType.CREATED));
+
+    CommentTree tree = cache.tree(post.getId()).page(0, 10, 3);
+    assertThat(tree.roots().get(0).replyCount()).isEqualTo(1);
+    assertThat(tree.commentIds()).containsExactly(root.getId(), reply.getId());
+  }
+}
@@ -0,0 +1,62 @@
+package com.lambrk.comment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.exception.InvalidRequestException;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+class CommentCursorTest {
+
+  private final User author = new User("alice", "alice@example.com", "secret");
+  private final Post post = new Post("Title", "Body", null, Post.PostType.TEXT, author, null);
+
+  @Test
+  void resumesAfterTheLastCommentsSortKeyAndId() {
+    Comment root = new Comment("root", author, post, null);
+    Comment last = new Comment("reply", author, post, root);
+    last.setLikeCount(7);
+    last.setDislikeCount(2);
+
+    String token = CommentCursor.after(CommentSort.BEST, post.getId(), root.getId(), last).encode();
+    KeysetScrollPosition position =
+        CommentCursor.decode(token).resume(CommentSort.BEST, post.getId(), root.getId());
+
+    assertThat(position.getKeys())
+        .containsEntry("bestScore", last.getBestScore())
+        .containsEntry("id", last.getId());
+    assertThat(position.scrollsForward()).isTrue();
+  }
+
+  @Test
+  void roundTripsTimestampsForTopLevelLists() {
+    Comment last = new Comment("root", author, post, null);
+
+    CommentCursor cursor =
+        CommentCursor.decode(
+            CommentCursor.after(CommentSort.NEW, post.getId(), null, last).encode());
+
+    assertThat(cursor.parentId()).isNull();
+    assertThat(cursor.sortKey()).isEqualTo(last.getCreatedAt());
+  }
+
+  @Test
+  void rejectsForeignOrMalformedTokens() {
+    Comment last = new Comment("root", author, post, null);
+    CommentCursor cursor =
+        CommentCursor.decode(
+            CommentCursor.after(CommentSort.TOP, post.getId(), null, last).encode());
+
+    assertThatThrownBy(() -> cursor.resume(CommentSort.NEW, post.getId(), null))
+        .isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> cursor.resume(CommentSort.TOP, post.getId(), UUID.randomUUID()))
+        .isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> CommentCursor.decode("not a token"))
+        .isInstanceOf(InvalidRequestException.class);
+  }
+}
@@ -0,0 +1,127 @@
+package com.lambrk.comment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.dto.CommentResponse;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CommentTreeSnapshotTest {
+
+  private final User author = new User("alice", "alice@example.com", "secret");
+  private final Post post = new Post("Title", "Body", null, Post.PostType.TEXT, author, null);
+
+  @Test
+  void appendsRepliesUnderTheirParentAndBumpsItsReplyCount() {
+    Comment root = comment(null, 5);
+    CommentTreeSnapshot snapshot = CommentTreeSnapshot.of(List.of(root), 2, 3);
+
+    Comment reply = comment(root, 0);
+    CommentTreeSnapshot updated = snapshot.withComment(CommentResponse.from(reply));
+
+    CommentResponse rendered = updated.page(0, 10, 3).roots().get(0);
+    assertThat(rendered.replyCount()).isEqualTo(1);
+    assertThat(rendered.replies()).extracting(CommentResponse::id).containsExactly(reply.getId());
+    assertThat(snapshot.page(0, 10, 3).roots().get(0).replies()).isEmpty();
+  }
+
+  @Test
+  void reapplyingAKnownCommentReplacesItInsteadOfAppending() {
+    Comment root = comment(null, 0);
+    Comment reply = comment(root, 0);
+    CommentTreeSnapshot snapshot = CommentTreeSnapshot.of(List.of(root, reply), 2, 3);
+
+    CommentTreeSnapshot updated = snapshot.withComment(CommentResponse.from(reply));
+
+    assertThat(updated.size()).isEqualTo(2);
+    assertThat(updated.page(0, 10, 3).roots().get(0).replyCount()).isZero();
+  }
+
+  @Test
+  void scoreChangesReorderSiblings() {
+    Comment first = comment(null, 10);
+    Comment second = comment(null, 1);
+    CommentTreeSnapshot snapshot = CommentTreeSnapshot.of(List.of(first, second), 2, 3);
+
+    second.setScore(20);
+    second.setLikeCount(20);
+    CommentTreeSnapshot updated = snapshot.withComment(CommentResponse.from(second));
+
+    assertThat(updated.page(0, 10, 3).roots())
+        .extracting(CommentResponse::id)
+        .containsExactly(second.getId(), first.getId());
+    assertThat(updated.page(1, 1, 3).roots())
+        .extracting(CommentResponse::id)
+        .containsExactly(first.getId());
+  }
+
+  @Test
+  void repliesBelowTheCachedDepthOnlyCountTowardsTheirParent() {
+    Comment root = comment(null, 0);
+    Comment reply = comment(root, 0);
+    CommentTreeSnapshot snapshot = CommentTreeSnapshot.of(List.of(root, reply), 1, 3);
+
+    CommentTreeSnapshot updated = snapshot.withComment(CommentResponse.from(comment(reply, 0)));
+
+    assertThat(updated.size()).isEqualTo(2);
+    assertThat(updated.page(0, 10, 3).roots().get(0).replies().get(0).replyCount()).isEqualTo(1);
+  }
+
+  @Test
+  void keepsOnlyTheBestRepliesOfEachComment() {
+    Comment root = comment(null, 0);
+    Comment best = comment(root, 9);
+    Comment second = comment(root, 5);
+    Comment dropped = comment(root, 1);
+    Comment underDropped = comment(dropped, 0);
+    CommentTreeSnapshot snapshot =
+        CommentTreeSnapshot.of(List.of(root, best, second, dropped, underDropped), 2, 2);
+
+    assertThat(snapshot.size()).isEqualTo(3);
+    assertThat(snapshot.page(0, 10, 3).roots().get(0).replies())
+        .extracting(CommentResponse::id)
+        .containsExactly(best.getId(), second.getId());
+  }
+
+  @Test
+  void aNewReplyOutsideTheBestIsCountedButNotKept() {
+    Comment root = comment(null, 0);
+    Comment best = comment(root, 9);
+    CommentTreeSnapshot snapshot = CommentTreeSnapshot.of(List.of(root, best), 2, 1);
+
+    CommentTreeSnapshot updated = snapshot.withComment(CommentResponse.from(comment(root, 0)));
+
+    CommentResponse rendered = updated.page(0, 10, 3).roots().get(0);
+    assertThat(rendered.replyCount()).isEqualTo(1);
+    assertThat(rendered.replies()).extracting(CommentResponse::id).containsExactly(best.getId());
+    assertThat(updated.size()).isEqualTo(2);
+  }
+
+  @Test
+  void aVotedUpReplyReplacesTheWorstCachedOneWithoutCountingAsNew() {
+    Comment root = comment(null, 0);
+    Comment best = comment(root, 9);
+    Comment worst = comment(root, 5);
+    CommentTreeSnapshot snapshot = CommentTreeSnapshot.of(List.of(root, best, worst), 2, 2);
+
+    Comment risen = comment(root, 7);
+    CommentTreeSnapshot updated = snapshot.withChanged(CommentResponse.from(risen));
+
+    CommentResponse rendered = updated.page(0, 10, 3).roots().get(0);
+    assertThat(rendered.replyCount()).isZero();
+    assertThat(rendered.replies())
+        .extracting(CommentResponse::id)
+        .containsExactly(best.getId(), risen.getId());
+    assertThat(updated.size()).isEqualTo(3);
+  }
+
+  private Comment comment(Comment parent, int score) {
+    Comment comment = new Comment("text", author, post, parent);
+    comment.setScore(score);
+    comment.setLikeCount(score);
+    return comment;
+  }
+}
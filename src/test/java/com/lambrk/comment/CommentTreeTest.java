@@ -0,0 +1,85 @@
+package com.lambrk.comment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.dto.CommentResponse;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class CommentTreeTest {
+
+  private final User author = new User("alice", "alice@example.com", "secret");
+  private final Post post = new Post("Title", "Body", null, Post.PostType.TEXT, author, null);
+
+  @Test
+  void pathsSortDepthFirst() {
+    Comment root = comment(null, 0);
+    Comment reply = comment(root, 0);
+    Comment nested = comment(reply, 0);
+    Comment sibling = comment(root, 0);
+
+    List<Comment> byPath =
+        Stream.of(sibling, nested, root, reply)
+            .sorted(Comparator.comparing(Comment::getPath))
+            .toList();
+
+    // Siblings created in the same millisecond may sort either way; subtrees stay contiguous
+    assertThat(byPath.get(0)).isEqualTo(root);
+    assertThat(byPath.indexOf(nested)).isEqualTo(byPath.indexOf(reply) + 1);
+    assertThat(nested.getPath()).startsWith(reply.getPath()).hasSize(96);
+    assertThat(sibling.getPath()).isLessThan(Comment.subtreeEnd(root.getPath()));
+  }
+
+  @Test
+  void keepsBestRepliesPerNodeAndDropsTheirTrimmedSubtrees() {
+    Comment root = comment(null, 10);
+    Comment low = comment(root, 1);
+    Comment high = comment(root, 9);
+    Comment middle = comment(root, 5);
+    Comment underLow = comment(low, 100);
+    Comment underHigh = comment(high, 3);
+
+    CommentTree tree =
+        CommentTree.assemble(
+            List.of(root), byPath(low, high, middle, underLow, underHigh), 2, CommentSort.BEST);
+
+    CommentResponse response = tree.roots().get(0);
+    assertThat(response.replies())
+        .extracting(CommentResponse::id)
+        .containsExactly(high.getId(), middle.getId());
+    assertThat(response.replies().get(0).replies())
+        .extracting(CommentResponse::id)
+        .containsExactly(underHigh.getId());
+    assertThat(tree.commentIds())
+        .containsExactly(root.getId(), high.getId(), underHigh.getId(), middle.getId());
+  }
+
+  @Test
+  void overlaysViewerVotesWithoutChangingTheSharedTree() {
+    Comment root = comment(null, 0);
+    Comment reply = comment(root, 0);
+    CommentTree tree = CommentTree.assemble(List.of(root), List.of(reply), 3, CommentSort.BEST);
+
+    List<CommentResponse> voted = tree.withVotes(Map.of(reply.getId(), "LIKE"));
+
+    assertThat(voted.get(0).replies().get(0).userVote()).isEqualTo("LIKE");
+    assertThat(tree.roots().get(0).replies().get(0).userVote()).isNull();
+  }
+
+  private Comment comment(Comment parent, int score) {
+    Comment comment = new Comment("text", author, post, parent);
+    comment.setScore(score);
+    comment.setLikeCount(score);
+    return comment;
+  }
+
+  private static List<Comment> byPath(Comment... comments) {
+    return Stream.of(comments).sorted(Comparator.comparing(Comment::getPath)).toList();
+  }
+}
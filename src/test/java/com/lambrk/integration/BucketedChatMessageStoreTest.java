@@ -0,0 +1,160 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lambrk.config.MongoConfig;
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.domain.message.ChatMessageBucket;
+import com.lambrk.message.BucketedChatMessageStore;
+import com.lambrk.message.ChatBucketMigrator;
+import com.lambrk.message.ChatCursor;
+import com.lambrk.message.ChatStorageProperties;
+import com.lambrk.repository.mongo.ChatMessageRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@DataMongoTest(
+    properties = {"lambrk.chat.storage.layout=buckets", "lambrk.chat.storage.bucket-size=3"})
+@Import({MongoConfig.class, ChatStorageProperties.class, BucketedChatMessageStore.class})
+@Testcontainers(disabledWithoutDocker = true)
+class BucketedChatMessageStoreTest {
+
+  @Container
+  static GenericContainer<?> mongo =
+      new GenericContainer<>(DockerImageName.parse("mongo:7")).withExposedPorts(27017);
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add(
+        "spring.data.mongodb.uri",
+        () -> "mongodb://" + mongo.getHost() + ":" + mongo.getMappedPort(27017) + "/lambrk_test");
+  }
+
+  @Autowired private BucketedChatMessageStore store;
+  @Autowired private ChatStorageProperties properties;
+  @Autowired private ChatMessageRepository messageRepository;
+  @Autowired private MongoTemplate mongoTemplate;
+
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+
+  @Test
+  void appendsIntoBucketsAndPagesAcrossThem() {
+    String conversationId = alice + "_" + bob;
+    List<String> sent = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      sent.add(store.append(message(conversationId, "message " + i)).getId());
+    }
+
+    assertThat(buckets(conversationId)).hasSize(3);
+    List<String> scrolledBack = new ArrayList<>();
+    List<ChatMessage> page = store.latest(conversationId, 2);
+    while (!page.isEmpty()) {
+      page.forEach(m -> scrolledBack.add(m.getId()));
+      page = store.before(conversationId, ChatCursor.of(page.get(page.size() - 1)), 2);
+    }
+    assertThat(scrolledBack).containsExactlyElementsOf(sent.reversed());
+
+    ChatMessage third = store.findById(sent.get(2)).orElseThrow();
+    assertThat(third.getSenderUsername()).isEqualTo("alice");
+    assertThat(third.getRecipientUsername()).isEqualTo("bob");
+    assertThat(store.after(conversationId, ChatCursor.of(third), 10))
+        .extracting(ChatMessage::getId)
+        .containsExactlyElementsOf(sent.subList(3, 7));
+  }
+
+  @Test
+  void marksReadAndDeletedInsideBuckets() {
+    String conversationId = alice + "_" + bob;
+    List<ChatMessage> sent = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      sent.add(store.append(message(conversationId, "message " + i)));
+    }
+
+    assertThat(store.markDeleted(sent.get(4).getId(), Instant.now())).isTrue();
+    assertThat(store.markDeleted(sent.get(4).getId(), Instant.now())).isFalse();
+    assertThat(store.countUnread(bob)).isEqualTo(4);
+
+    long marked =
+        store.markReadUpTo(conversationId, bob, sent.get(2).getCreatedAt(), Instant.now());
+    assertThat(marked).isEqualTo(3);
+    assertThat(store.markReadUpTo(conversationId, bob, sent.get(2).getCreatedAt(), Instant.now()))
+        .isZero();
+    assertThat(store.countUnread(bob)).isEqualTo(1);
+    assertThat(store.findById(sent.get(2).getId()).orElseThrow().isRead()).isTrue();
+    assertThat(store.findById(sent.get(3).getId()).orElseThrow().isRead()).isFalse();
+    assertThat(store.latest(conversationId, 10)).hasSize(4);
+  }
+
+  @Test
+  void migrationCopiesDocumentsAndCatchesUpWhenRerun() {
+    String conversationId = alice + "_" + bob;
+    for (int i = 0; i < 5; i++) {
+      messageRepository.save(message(conversationId, "message " + i));
+    }
+    ChatBucketMigrator migrator = new ChatBucketMigrator(mongoTemplate, properties);
+
+    assertThat(migrator.migrate(conversationId)).isEqualTo(5);
+    messageRepository.save(message(conversationId, "late"));
+    assertThat(migrator.migrate(conversationId)).isEqualTo(1);
+    assertThat(migrator.migrate(conversationId)).isZero();
+
+    assertThat(store.latest(conversationId, 10))
+        .extracting(ChatMessage::getContent)
+        .containsExactly("late", "message 4", "message 3", "message 2", "message 1", "message 0");
+  }
+
+  @Test
+  void migrationCopiesOlderMessagesAfterNewSendsExactlyOnce() {
+    String conversationId = alice + "_" + bob;
+    List<ChatMessage> old = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      old.add(messageRepository.save(message(conversationId, "old " + i)));
+    }
+    store.append(message(conversationId, "new"));
+    ChatBucketMigrator migrator = new ChatBucketMigrator(mongoTemplate, properties);
+
+    assertThat(migrator.migrate(conversationId)).isEqualTo(3);
+    assertThat(migrator.migrate(conversationId)).isZero();
+
+    List<String> scrolledBack = new ArrayList<>();
+    List<ChatMessage> page = store.latest(conversationId, 2);
+    while (!page.isEmpty()) {
+      page.forEach(m -> scrolledBack.add(m.getContent()));
+      page = store.before(conversationId, ChatCursor.of(page.get(page.size() - 1)), 2);
+    }
+    assertThat(scrolledBack).containsExactly("new", "old 2", "old 1", "old 0");
+
+    ChatMessageBucket copy =
+        new ChatMessageBucket(conversationId, properties.sliceStart(old.get(0).getCreatedAt()));
+    copy.add(old.get(0));
+    assertThatThrownBy(() -> mongoTemplate.insert(copy)).isInstanceOf(DuplicateKeyException.class);
+  }
+
+  private List<ChatMessageBucket> buckets(String conversationId) {
+    return mongoTemplate.find(
+        Query.query(Criteria.where("conversationId").is(conversationId)), ChatMessageBucket.class);
+  }
+
+  private ChatMessage message(String conversationId, String content) {
+    return new ChatMessage(
+        conversationId, alice, "alice", null, bob, "bob", content, null, null, null);
+  }
+}
@@ -0,0 +1,115 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.config.MongoConfig;
+import com.lambrk.domain.message.ChatConversation;
+import com.lambrk.repository.mongo.ChatConversationRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@DataMongoTest
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ChatConversationConcurrencyTest {
+
+  @Container
+  static GenericContainer<?> mongo =
+      new GenericContainer<>(DockerImageName.parse("mongo:7")).withExposedPorts(27017);
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add(
+        "spring.data.mongodb.uri",
+        () -> "mongodb://" + mongo.getHost() + ":" + mongo.getMappedPort(27017) + "/lambrk_test");
+  }
+
+  @Autowired private ChatConversationRepository conversationRepository;
+
+  @Test
+  void concurrentSendersDoNotLoseUnreadCounts() throws Exception {
+    UUID alice = UUID.randomUUID();
+    UUID bob = UUID.randomUUID();
+    String conversationId = ChatConversation.buildConversationId(alice, bob);
+    int threads = 16;
+    int messagesPerThread = 25;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> senders = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      boolean fromAlice = t % 2 == 0;
+      senders.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i < messagesPerThread; i++) {
+                  conversationRepository.recordMessage(
+                      conversationId,
+                      fromAlice ? alice : bob,
+                      fromAlice ? "alice" : "bob",
+                      fromAlice ? bob : alice,
+                      fromAlice ? "bob" : "alice",
+                      "hi",
+                      Instant.now());
+                }
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> sender : senders) {
+      sender.get();
+    }
+    executor.shutdown();
+
+    ChatConversation conversation =
+        conversationRepository.findByConversationId(conversationId).orElseThrow();
+    int perRecipient = threads / 2 * messagesPerThread;
+    assertThat(conversation.getUnreadCount(alice)).isEqualTo(perRecipient);
+    assertThat(conversation.getUnreadCount(bob)).isEqualTo(perRecipient);
+    assertThat(conversation.getParticipantIds()).containsExactlyInAnyOrder(alice, bob);
+    assertThat(conversationRepository.count()).isEqualTo(1);
+
+    Instant lastMessageAt = conversation.getLastMessageAt();
+    conversationRepository.advanceReadCursor(
+        conversationId, alice, lastMessageAt.minusSeconds(60), 10);
+    conversationRepository.advanceReadCursor(conversationId, bob, lastMessageAt, 1);
+    conversation = conversationRepository.findByConversationId(conversationId).orElseThrow();
+    assertThat(conversation.getUnreadCount(alice)).isEqualTo(perRecipient - 10);
+    assertThat(conversation.getUnreadCount(bob)).isZero();
+    assertThat(conversation.getReadUpTo(bob)).isEqualTo(lastMessageAt);
+  }
+
+  @Test
+  void readCursorNeverMovesBack() {
+    UUID alice = UUID.randomUUID();
+    UUID bob = UUID.randomUUID();
+    String conversationId = ChatConversation.buildConversationId(alice, bob);
+    Instant sentAt = Instant.parse("2026-01-01T12:00:00Z");
+    conversationRepository.recordMessage(conversationId, alice, "alice", bob, "bob", "hi", sentAt);
+
+    conversationRepository.advanceReadCursor(conversationId, bob, sentAt, 1);
+    conversationRepository.advanceReadCursor(conversationId, bob, sentAt.minusSeconds(5), 0);
+
+    ChatConversation conversation =
+        conversationRepository.findByConversationId(conversationId).orElseThrow();
+    assertThat(conversation.getReadUpTo(bob)).isEqualTo(sentAt);
+    assertThat(conversation.getUnreadCount(bob)).isZero();
+  }
+}
@@ -0,0 +1,88 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.config.MongoConfig;
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.message.ChatCursor;
+import com.lambrk.repository.mongo.ChatMessageRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@DataMongoTest
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ChatMessageHistoryTest {
+
+  @Container
+  static GenericContainer<?> mongo =
+      new GenericContainer<>(DockerImageName.parse("mongo:7")).withExposedPorts(27017);
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add(
+        "spring.data.mongodb.uri",
+        () -> "mongodb://" + mongo.getHost() + ":" + mongo.getMappedPort(27017) + "/lambrk_test");
+  }
+
+  @Autowired private ChatMessageRepository messageRepository;
+
+  @Test
+  void keysetPagesCoverEveryMessageOnceIncludingTimestampTies() {
+    String conversationId = UUID.randomUUID() + "_" + UUID.randomUUID();
+    Instant tie = Instant.parse("2026-06-07T13:00:00Z");
+    List<String> saved = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      ChatMessage message =
+          new ChatMessage(
+              conversationId,
+              UUID.randomUUID(),
+              "alice",
+              null,
+              UUID.randomUUID(),
+              "bob",
+              "message " + i,
+              null,
+              null,
+              null);
+      ChatMessage stored = messageRepository.save(message);
+      // Several messages share a timestamp, so only the ObjectId tells them apart
+      stored.setCreatedAt(tie.plusSeconds(i / 3));
+      saved.add(messageRepository.save(stored).getId());
+    }
+
+    List<String> scrolledBack = new ArrayList<>();
+    List<ChatMessage> page =
+        messageRepository.findByConversationIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(
+            conversationId, Limit.of(2));
+    while (!page.isEmpty()) {
+      page.forEach(m -> scrolledBack.add(m.getId()));
+      ChatCursor cursor = ChatCursor.of(page.get(page.size() - 1));
+      page =
+          messageRepository.findBefore(
+              conversationId, cursor.createdAt(), cursor.id(), Limit.of(2));
+    }
+    assertThat(scrolledBack).containsExactlyElementsOf(saved.reversed());
+
+    ChatMessage third = messageRepository.findById(saved.get(2)).orElseThrow();
+    ChatCursor since = ChatCursor.of(third);
+    assertThat(
+            messageRepository.findAfter(
+                conversationId, since.createdAt(), since.id(), Limit.of(10)))
+        .extracting(ChatMessage::getId)
+        .containsExactlyElementsOf(saved.subList(3, 7));
+  }
+}
@@ -0,0 +1,108 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.comment.CommentSort;
+import com.lambrk.domain.Comment;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.repository.CommentRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/** The per-parent reply cut of uncached comment pages, run against Postgres. */
+@DataJpaTest(
+    properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.flyway.enabled=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class CommentReplyTreeQueryTest {
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+          .withDatabaseName("lambrk_test")
+          .withUsername("test")
+          .withPassword("test");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private TestEntityManager entityManager;
+  @Autowired private CommentRepository commentRepository;
+
+  private User author;
+  private Post post;
+
+  @BeforeEach
+  void setUp() {
+    author = entityManager.persist(new User("alice", "alice@example.com", "secret"));
+    post = entityManager.persist(new Post("Title", "Body", null, Post.PostType.TEXT, author, null));
+  }
+
+  @Test
+  void keepsTheFirstRepliesOfEachParentAndNothingUnderTheCutOnes() {
+    Comment root = comment(null, 10);
+    Comment low = comment(root, 1);
+    Comment high = comment(root, 9);
+    Comment middle = comment(root, 5);
+    comment(low, 100);
+    Comment underHigh = comment(high, 3);
+    Comment tooDeep = comment(underHigh, 7);
+    Comment otherRoot = comment(null, 50);
+    comment(otherRoot, 4);
+    entityManager.flush();
+
+    List<UUID> ids =
+        commentRepository.findReplyIds(post.getId(), List.of(root.getId()), CommentSort.TOP, 2, 2);
+
+    assertThat(ids).containsExactlyInAnyOrder(high.getId(), middle.getId(), underHigh.getId());
+    assertThat(ids).doesNotContain(tooDeep.getId());
+  }
+
+  @Test
+  void readsRepliesInTheRequestedOrder() {
+    Instant now = Instant.now();
+    Comment root = comment(null, 0, now);
+    Comment first = comment(root, 1, now.plusSeconds(1));
+    Comment second = comment(root, 5, now.plusSeconds(2));
+    Comment third = comment(root, 9, now.plusSeconds(3));
+    entityManager.flush();
+
+    assertThat(
+            commentRepository.findReplyIds(
+                post.getId(), List.of(root.getId()), CommentSort.OLD, 1, 2))
+        .containsExactlyInAnyOrder(first.getId(), second.getId());
+    assertThat(
+            commentRepository.findReplyIds(
+                post.getId(), List.of(root.getId()), CommentSort.NEW, 1, 2))
+        .containsExactlyInAnyOrder(third.getId(), second.getId());
+  }
+
+  private Comment comment(Comment parent, int score) {
+    return comment(parent, score, Instant.now());
+  }
+
+  private Comment comment(Comment parent, int score, Instant createdAt) {
+    Comment comment = new Comment("text", author, post, parent);
+    comment.setScore(score);
+    comment.setCreatedAt(createdAt);
+    return entityManager.persist(comment);
+  }
+}
@@ -0,0 +1,162 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.domain.Notification;
+import com.lambrk.domain.User;
+import com.lambrk.repository.NotificationBatchRepository.UpsertedAggregate;
+import com.lambrk.repository.NotificationRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/** The aggregate upsert against Postgres, with the index and actor table from the migrations. */
+@DataJpaTest(
+    properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.flyway.enabled=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql({
+  "classpath:db/migration/V22__Add_notification_aggregation.sql",
+  "classpath:db/migration/V23__Add_notification_aggregate_actors.sql"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationAggregationTest {
+
+  private static final String KEY = "POST_LIKE:" + UUID.randomUUID();
+  private static final long BUCKET = 42;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+          .withDatabaseName("lambrk_test")
+          .withUsername("test")
+          .withPassword("test");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private TestEntityManager entityManager;
+  @Autowired private NotificationRepository notificationRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private User recipient;
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+  private final UUID carol = UUID.randomUUID();
+
+  @BeforeEach
+  void setUp() {
+    recipient = entityManager.persist(new User("dave", "dave@example.com", "secret"));
+    entityManager.flush();
+  }
+
+  @Test
+  void foldsDistinctActorsIntoOneRow() {
+    UpsertedAggregate first = like(alice, "alice", BUCKET).orElseThrow();
+    UpsertedAggregate second = like(bob, "bob", BUCKET).orElseThrow();
+
+    assertThat(first.becameUnread()).isTrue();
+    assertThat(second.id()).isEqualTo(first.id());
+    assertThat(second.becameUnread()).isFalse();
+    assertThat(actorCount(first.id())).isEqualTo(2);
+    assertThat(message(first.id())).isEqualTo("bob and 1 other liked your post");
+  }
+
+  @Test
+  void countsEachActorOnceEvenOutsideTheSample() {
+    UUID id = like(alice, "alice", BUCKET).orElseThrow().id();
+    like(bob, "bob", BUCKET);
+    like(carol, "carol", BUCKET);
+
+    // Sample size is 1, so only alice is in sample_actor_ids
+    assertThat(like(carol, "carol", BUCKET)).isEmpty();
+    assertThat(like(bob, "bob", BUCKET)).isEmpty();
+    assertThat(like(alice, "alice", BUCKET)).isEmpty();
+
+    assertThat(actorCount(id)).isEqualTo(3);
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT cardinality(sample_actor_ids) FROM notifications WHERE id = ?",
+                Integer.class,
+                id))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void startsANewRowInTheNextBucket() {
+    UUID first = like(alice, "alice", BUCKET).orElseThrow().id();
+    like(bob, "bob", BUCKET);
+
+    UpsertedAggregate next = like(alice, "alice", BUCKET + 1).orElseThrow();
+
+    assertThat(next.id()).isNotEqualTo(first);
+    assertThat(next.becameUnread()).isTrue();
+    assertThat(actorCount(next.id())).isEqualTo(1);
+    assertThat(actorCount(first)).isEqualTo(2);
+  }
+
+  @Test
+  void purgesActorsOfClosedBuckets() {
+    like(alice, "alice", BUCKET);
+    like(bob, "bob", BUCKET + 1);
+
+    int deleted =
+        notificationRepository.deleteAggregateActorsBefore(Instant.now().plus(Duration.ofHours(1)));
+
+    assertThat(deleted).isEqualTo(2);
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM notification_aggregate_actors", Integer.class))
+        .isZero();
+  }
+
+  private Optional<UpsertedAggregate> like(UUID actorId, String actorName, long bucket) {
+    Instant now = Instant.now();
+    Notification notification =
+        new Notification(
+            UUID.randomUUID(),
+            Notification.NotificationType.POST_LIKE,
+            recipient,
+            "New like",
+            actorName + " liked your post",
+            UUID.randomUUID(),
+            null,
+            actorId,
+            "/posts/1",
+            "View post",
+            false,
+            now,
+            now,
+            null);
+    return notificationRepository.upsertAggregate(
+        notification, KEY, bucket, actorName, "liked your post", 1);
+  }
+
+  private int actorCount(UUID id) {
+    return jdbcTemplate.queryForObject(
+        "SELECT actor_count FROM notifications WHERE id = ?", Integer.class, id);
+  }
+
+  private String message(UUID id) {
+    return jdbcTemplate.queryForObject(
+        "SELECT message FROM notifications WHERE id = ?", String.class, id);
+  }
+}
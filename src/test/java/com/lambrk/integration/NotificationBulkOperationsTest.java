@@ -0,0 +1,184 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.lambrk.badge.BadgeService;
+import com.lambrk.config.CacheConfig;
+import com.lambrk.domain.Notification;
+import com.lambrk.domain.User;
+import com.lambrk.notification.NotificationAggregationProperties;
+import com.lambrk.notification.NotificationHydrator;
+import com.lambrk.notification.NotificationPublisher;
+import com.lambrk.notification.NotificationPushDebouncer;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.NotificationRepository;
+import com.lambrk.repository.PostRepository;
+import com.lambrk.repository.UserRepository;
+import com.lambrk.service.CustomMetrics;
+import com.lambrk.service.NotificationService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Mark-all-read and delete-all through the service proxy, with more rows than fit in one chunk. The
+ * bulk methods commit chunk by chunk, so the test runs outside a transaction and cleans up.
+ */
+@DataJpaTest(
+    properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.flyway.enabled=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CacheConfig.class, NotificationBulkOperationsTest.ServiceConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationBulkOperationsTest {
+
+  // Two full chunks of NotificationService.BULK_CHUNK_SIZE (1,000) and a partial one
+  private static final int ROWS = 2_500;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+          .withDatabaseName("lambrk_test")
+          .withUsername("test")
+          .withPassword("test");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private NotificationService notificationService;
+  @Autowired private NotificationRepository notificationRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private User recipient;
+  private User bystander;
+  private Cache cache;
+
+  @BeforeEach
+  void setUp() {
+    recipient = userRepository.save(new User("alice", "alice@example.com", "secret"));
+    bystander = userRepository.save(new User("bob", "bob@example.com", "secret"));
+    notificationRepository.insertAll(notifications(recipient, ROWS));
+    notificationRepository.insertAll(notifications(bystander, 3));
+    cache = cacheManager.getCache("notifications");
+    cache.put(recipient.getId(), "first page");
+    cache.put(recipient.getId() + "-unread", "first unread page");
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("DELETE FROM notifications");
+    userRepository.deleteAll();
+    cache.clear();
+  }
+
+  @Test
+  void marksEveryUnreadNotificationRead() {
+    int updated = notificationService.markAllNotificationsAsRead(recipient.getId());
+
+    assertThat(updated).isEqualTo(ROWS);
+    assertThat(notificationRepository.countUnreadNotifications(recipient.getId())).isZero();
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM notifications WHERE recipient_id = ?"
+                    + " AND (read_at IS NULL OR updated_at <> read_at)",
+                Integer.class,
+                recipient.getId()))
+        .isZero();
+    assertThat(notificationRepository.countUnreadNotifications(bystander.getId())).isEqualTo(3);
+    assertThat(cache.get(recipient.getId())).isNull();
+    assertThat(cache.get(recipient.getId() + "-unread")).isNull();
+  }
+
+  @Test
+  void deletesEveryNotification() {
+    int deleted = notificationService.deleteAllNotifications(recipient.getId());
+
+    assertThat(deleted).isEqualTo(ROWS);
+    assertThat(count(recipient)).isZero();
+    assertThat(count(bystander)).isEqualTo(3);
+    assertThat(cache.get(recipient.getId())).isNull();
+    assertThat(cache.get(recipient.getId() + "-unread")).isNull();
+  }
+
+  private int count(User user) {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM notifications WHERE recipient_id = ?", Integer.class, user.getId());
+  }
+
+  private static List<Notification> notifications(User recipient, int count) {
+    Instant now = Instant.now();
+    List<Notification> notifications = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      notifications.add(
+          new Notification(
+              UUID.randomUUID(),
+              Notification.NotificationType.COMMENT_REPLY,
+              recipient,
+              "New reply",
+              "Reply " + i,
+              UUID.randomUUID(),
+              UUID.randomUUID(),
+              UUID.randomUUID(),
+              "/posts/1",
+              "View reply",
+              false,
+              now,
+              now,
+              null));
+    }
+    return notifications;
+  }
+
+  @TestConfiguration
+  static class ServiceConfig {
+
+    @Bean
+    NotificationService notificationService(
+        NotificationRepository notificationRepository,
+        UserRepository userRepository,
+        CommentRepository commentRepository,
+        PostRepository postRepository,
+        CacheManager cacheManager) {
+      return new NotificationService(
+          notificationRepository,
+          userRepository,
+          commentRepository,
+          postRepository,
+          mock(NotificationPublisher.class),
+          mock(CustomMetrics.class),
+          mock(NotificationHydrator.class),
+          mock(NotificationPushDebouncer.class),
+          new NotificationAggregationProperties(),
+          cacheManager,
+          mock(BadgeService.class));
+    }
+  }
+}
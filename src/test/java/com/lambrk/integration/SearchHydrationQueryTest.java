@@ -0,0 +1,123 @@
+package com.lambrk.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.domain.Comment;
+import com.lambrk.domain.Community;
+import com.lambrk.domain.Post;
+import com.lambrk.domain.User;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import com.lambrk.search.CommentSearchRow;
+import com.lambrk.search.PostSearchRow;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/** Search hydration must build result rows without reading post or comment bodies. */
+@DataJpaTest(
+    properties = {
+      "spring.jpa.hibernate.ddl-auto=create-drop",
+      "spring.flyway.enabled=false",
+      "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+          + "com.lambrk.integration.SearchHydrationQueryTest$RecordingInspector"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class SearchHydrationQueryTest {
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+          .withDatabaseName("lambrk_test")
+          .withUsername("test")
+          .withPassword("test");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private TestEntityManager entityManager;
+  @Autowired private PostRepository postRepository;
+  @Autowired private CommentRepository commentRepository;
+
+  private Post post;
+  private Comment reply;
+
+  @BeforeEach
+  void setUp() {
+    User author = entityManager.persist(new User("alice", "alice@example.com", "secret"));
+    Community community = entityManager.persist(new Community("java", "Java", author));
+    post =
+        entityManager.persist(
+            new Post(
+                "Virtual threads", "a long body", null, Post.PostType.TEXT, author, community));
+    Comment parent = entityManager.persist(new Comment("first", author, post, null));
+    reply = entityManager.persist(new Comment("second", author, post, parent));
+    entityManager.flush();
+    entityManager.clear();
+    RecordingInspector.statements.clear();
+  }
+
+  @Test
+  void loadsPostRowsWithoutTheContentColumn() {
+    List<PostSearchRow> rows = postRepository.findSearchRowsByIdIn(List.of(post.getId()));
+
+    assertThat(rows)
+        .singleElement()
+        .satisfies(
+            row -> {
+              assertThat(row.title()).isEqualTo("Virtual threads");
+              assertThat(row.author().getUsername()).isEqualTo("alice");
+              assertThat(row.community().getName()).isEqualTo("java");
+              assertThat(row.toResponse(List.of()).content()).isNull();
+            });
+    assertThat(RecordingInspector.statements)
+        .isNotEmpty()
+        .noneSatisfy(sql -> assertThat(sql).containsIgnoringCase("content"));
+  }
+
+  @Test
+  void loadsCommentRowsWithoutTheContentColumn() {
+    List<CommentSearchRow> rows = commentRepository.findSearchRowsByIdIn(List.of(reply.getId()));
+
+    assertThat(rows)
+        .singleElement()
+        .satisfies(
+            row -> {
+              assertThat(row.postId()).isEqualTo(post.getId());
+              assertThat(row.parentId()).isNotNull();
+              assertThat(row.depthLevel()).isEqualTo(1);
+              assertThat(row.toResponse().content()).isNull();
+            });
+    assertThat(RecordingInspector.statements)
+        .isNotEmpty()
+        .noneSatisfy(sql -> assertThat(sql).containsIgnoringCase("content"));
+  }
+
+  public static class RecordingInspector implements StatementInspector {
+
+    static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      statements.add(sql);
+      return sql;
+    }
+  }
+}
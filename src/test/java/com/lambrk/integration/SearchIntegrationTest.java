@@ -68,7 +68,8 @@ class SearchIntegrationTest {
             null,
             null,
             0,
-            20);
+            20,
+            false);
 
     mockMvc
         .perform(
@@ -0,0 +1,27 @@
+package com.lambrk.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lambrk.exception.InvalidRequestException;
+import java.time.Instant;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class ChatCursorTest {
+
+  @Test
+  void roundTripsTheTimestampAndId() {
+    ChatCursor cursor = new ChatCursor(Instant.parse("2026-06-07T13:00:00.123Z"), new ObjectId());
+
+    assertThat(ChatCursor.decode(cursor.encode())).isEqualTo(cursor);
+  }
+
+  @Test
+  void rejectsTamperedTokens() {
+    assertThatThrownBy(() -> ChatCursor.decode("not a cursor"))
+        .isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ChatCursor.decode("MjAyNi0wNi0wN1QxMzowMDowMFp8eHl6"))
+        .isInstanceOf(InvalidRequestException.class);
+  }
+}
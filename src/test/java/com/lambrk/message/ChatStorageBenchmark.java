@@ -0,0 +1,148 @@
+package com.lambrk.message;
+
+import com.lambrk.config.MongoConfig;
+import com.lambrk.domain.message.ChatConversation;
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.domain.message.ChatMessageBucket;
+import com.lambrk.repository.mongo.ChatMessageRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Compares one document per message with bucketed storage on the same synthetic traffic: write
+ * throughput, data and index size, and the latency of scrolling back through history. Opt in with
+ * {@code mvn test -Dtest=ChatStorageBenchmark -Dbenchmark=true}; needs Docker.
+ */
+@DataMongoTest
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ChatStorageBenchmark {
+
+  private static final int CONVERSATIONS = 100;
+  private static final int MESSAGES = 100_000;
+  private static final int WRITERS = 8;
+  private static final int PAGE_SIZE = 50;
+  private static final int PAGES_PER_SCROLL = 5;
+  private static final int SCROLLS = 200;
+
+  @Container
+  static GenericContainer<?> mongo =
+      new GenericContainer<>(DockerImageName.parse("mongo:7")).withExposedPorts(27017);
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add(
+        "spring.data.mongodb.uri",
+        () -> "mongodb://" + mongo.getHost() + ":" + mongo.getMappedPort(27017) + "/lambrk_bench");
+  }
+
+  @Autowired private ChatMessageRepository messageRepository;
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Test
+  void compareDocumentAndBucketLayouts() throws Exception {
+    List<UUID[]> pairs = new ArrayList<>();
+    for (int i = 0; i < CONVERSATIONS; i++) {
+      pairs.add(new UUID[] {UUID.randomUUID(), UUID.randomUUID()});
+    }
+
+    run("documents", new DocumentChatMessageStore(messageRepository), pairs, "chat_messages");
+    run(
+        "buckets",
+        new BucketedChatMessageStore(mongoTemplate, new ChatStorageProperties()),
+        pairs,
+        mongoTemplate.getCollectionName(ChatMessageBucket.class));
+  }
+
+  private void run(String layout, ChatMessageStore store, List<UUID[]> pairs, String collection)
+      throws Exception {
+    ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+    long writeStart = System.nanoTime();
+    List<Future<?>> done = new ArrayList<>();
+    for (int w = 0; w < WRITERS; w++) {
+      int writer = w;
+      done.add(
+          writers.submit(
+              () -> {
+                Random random = new Random(writer);
+                for (int i = writer; i < MESSAGES; i += WRITERS) {
+                  UUID[] pair = pairs.get(random.nextInt(pairs.size()));
+                  store.append(message(pair, random));
+                }
+              }));
+    }
+    for (Future<?> writer : done) {
+      writer.get();
+    }
+    writers.shutdown();
+    double writeSeconds = (System.nanoTime() - writeStart) / 1e9;
+
+    Document stats = mongoTemplate.executeCommand(new Document("collStats", collection));
+    System.out.printf(
+        "%s: %,.0f messages/s, %d documents, %.1f MB data, %.1f MB indexes%n",
+        layout,
+        MESSAGES / writeSeconds,
+        ((Number) stats.get("count")).longValue(),
+        ((Number) stats.get("size")).doubleValue() / 1e6,
+        ((Number) stats.get("totalIndexSize")).doubleValue() / 1e6);
+
+    Random random = new Random(42);
+    long pageNanos = 0;
+    int pages = 0;
+    for (int s = 0; s < SCROLLS; s++) {
+      UUID[] pair = pairs.get(random.nextInt(pairs.size()));
+      String conversationId = conversationId(pair);
+      long start = System.nanoTime();
+      List<ChatMessage> page = store.latest(conversationId, PAGE_SIZE);
+      pages++;
+      for (int p = 1; p < PAGES_PER_SCROLL && !page.isEmpty(); p++) {
+        page = store.before(conversationId, ChatCursor.of(page.get(page.size() - 1)), PAGE_SIZE);
+        pages++;
+      }
+      pageNanos += System.nanoTime() - start;
+    }
+    System.out.printf(
+        "%s: %.2f ms per history page of %d (%d pages)%n",
+        layout, pageNanos / 1e6 / pages, PAGE_SIZE, pages);
+  }
+
+  private static ChatMessage message(UUID[] pair, Random random) {
+    boolean forward = random.nextBoolean();
+    UUID sender = forward ? pair[0] : pair[1];
+    UUID recipient = forward ? pair[1] : pair[0];
+    return new ChatMessage(
+        conversationId(pair),
+        sender,
+        "user_" + sender.toString().substring(0, 8),
+        "https://cdn.lambrk.com/avatars/" + sender + ".jpg",
+        recipient,
+        "user_" + recipient.toString().substring(0, 8),
+        "message " + random.nextInt(1_000_000) + " with some ordinary chat text in it",
+        ChatMessage.MessageType.TEXT,
+        null,
+        null);
+  }
+
+  private static String conversationId(UUID[] pair) {
+    return ChatConversation.buildConversationId(pair[0], pair[1]);
+  }
+}
@@ -0,0 +1,93 @@
+package com.lambrk.notification;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.lambrk.config.UserPrincipal;
+import com.lambrk.domain.Notification;
+import com.lambrk.domain.User;
+import com.lambrk.dto.NotificationResponse;
+import com.lambrk.websocket.LocalUserSessions;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+class InMemoryNotificationStreamTest {
+
+  private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+  private final LocalUserSessions sessions = new LocalUserSessions();
+  private final NotificationPublisher publisher =
+      new NotificationPublisher(
+          new InMemoryNotificationStream(
+              new RealtimeNotificationRouter(sessions, messagingTemplate),
+              new NotificationRealtimeProperties()));
+
+  private final User alice = new User("alice", "alice@example.com", "secret");
+  private final User bob = new User("bob", "bob@example.com", "secret");
+
+  @Test
+  void deliversOnlyToRecipientsConnectedToThisNode() {
+    UsernamePasswordAuthenticationToken auth =
+        new UsernamePasswordAuthenticationToken(
+            new UserPrincipal(alice.getId(), "alice", "", List.of()), null, List.of());
+    sessions.onConnected(new SessionConnectedEvent(this, message("s1", auth), auth));
+
+    Notification toAlice = notification(alice);
+    publisher.publishAll(List.of(toAlice, notification(bob)));
+
+    verify(messagingTemplate)
+        .convertAndSendToUser(
+            eq("alice"),
+            eq("/queue/notifications"),
+            argThat((Object o) -> ((NotificationResponse) o).id().equals(toAlice.getId())));
+    verify(messagingTemplate, never()).convertAndSendToUser(eq("bob"), anyString(), any());
+
+    sessions.onDisconnect(
+        new SessionDisconnectEvent(this, message("s1", auth), "s1", CloseStatus.NORMAL, auth));
+    publisher.publish(notification(alice));
+    verify(messagingTemplate).convertAndSendToUser(eq("alice"), anyString(), any());
+  }
+
+  private static org.springframework.messaging.Message<byte[]> message(
+      String sessionId, UsernamePasswordAuthenticationToken user) {
+    SimpMessageHeaderAccessor accessor =
+        SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+    accessor.setSessionId(sessionId);
+    accessor.setUser(user);
+    accessor.setSessionAttributes(Map.of());
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Notification notification(User recipient) {
+    return new Notification(
+        UUID.randomUUID(),
+        Notification.NotificationType.USER_FOLLOW,
+        recipient,
+        "New follower",
+        "carol started following you",
+        null,
+        null,
+        null,
+        null,
+        null,
+        false,
+        Instant.now(),
+        Instant.now(),
+        null);
+  }
+}
@@ -0,0 +1,154 @@
+package com.lambrk.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.badge.BadgeKind;
+import com.lambrk.badge.BadgeService;
+import com.lambrk.domain.Notification;
+import com.lambrk.domain.User;
+import com.lambrk.event.ContentCreatedEvent;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.NotificationRepository;
+import com.lambrk.repository.PostRepository;
+import com.lambrk.repository.UserRepository;
+import com.lambrk.service.CustomMetrics;
+import com.lambrk.service.NotificationService;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class MentionProcessorTest {
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+  private final NotificationPublisher publisher = mock(NotificationPublisher.class);
+  private final BadgeService badgeService = mock(BadgeService.class);
+  private final NotificationService notificationService =
+      new NotificationService(
+          notificationRepository,
+          userRepository,
+          mock(CommentRepository.class),
+          mock(PostRepository.class),
+          publisher,
+          mock(CustomMetrics.class),
+          mock(NotificationHydrator.class),
+          mock(NotificationPushDebouncer.class),
+          new NotificationAggregationProperties(),
+          new ConcurrentMapCacheManager("notifications"),
+          badgeService);
+  private final MentionProperties properties = new MentionProperties();
+  private final MentionProcessor processor =
+      new MentionProcessor(userRepository, notificationService, properties);
+
+  private final UUID postId = UUID.randomUUID();
+  private final UUID commentId = UUID.randomUUID();
+  private final UUID authorId = UUID.randomUUID();
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+
+  @Test
+  void parsesDistinctLowerCasedMentionsAndIgnoresEmailAddresses() {
+    assertThat(
+            MentionProcessor.parse("@Alice thanks, cc @bob_2 and @alice (mail me@example.com)", 20))
+        .containsExactly("alice", "bob_2");
+  }
+
+  @Test
+  void stopsAtTheLimitAndHandlesContentWithoutMentions() {
+    assertThat(MentionProcessor.parse("@a @b @c @d", 2)).containsExactly("a", "b");
+    assertThat(MentionProcessor.parse("no mentions here", 20)).isEmpty();
+    assertThat(MentionProcessor.parse(null, 20)).isEmpty();
+  }
+
+  @Test
+  void resolvesEveryMentionInOneQueryAndInsertsOneBatch() {
+    when(userRepository.findIdsByUsernameIn(Set.of("alice", "bob", "ghost")))
+        .thenReturn(List.of(alice, bob));
+    stubReferences();
+
+    processor.onContentCreated(
+        new ContentCreatedEvent(
+            postId, commentId, authorId, "carol", "@Alice @bob @ghost and @ALICE again, @carol"));
+
+    verify(userRepository, times(1)).findIdsByUsernameIn(anyCollection());
+    List<Notification> inserted = insertedNotifications();
+    assertThat(inserted)
+        .extracting(n -> n.getRecipient().getId())
+        .containsExactlyInAnyOrder(alice, bob);
+    assertThat(inserted)
+        .allSatisfy(
+            n -> {
+              assertThat(n.getType()).isEqualTo(Notification.NotificationType.COMMENT_MENTION);
+              assertThat(n.getRelatedUserId()).isEqualTo(authorId);
+              assertThat(n.getActionUrl()).isEqualTo("/posts/" + postId + "#comment-" + commentId);
+            });
+    verify(badgeService).adjust(alice, BadgeKind.NOTIFICATIONS, 1);
+    verify(badgeService).adjust(bob, BadgeKind.NOTIFICATIONS, 1);
+    verify(publisher).publishAll(inserted);
+  }
+
+  @Test
+  void skipsTheInsertWhenNoMentionedUserExists() {
+    when(userRepository.findIdsByUsernameIn(Set.of("ghost"))).thenReturn(List.of());
+
+    processor.onContentCreated(new ContentCreatedEvent(postId, null, authorId, "carol", "@ghost"));
+
+    verify(notificationRepository, never()).insertAll(any());
+    verify(publisher, never()).publishAll(any());
+  }
+
+  @Test
+  void doesNotLookUpSelfMentions() {
+    processor.onContentCreated(
+        new ContentCreatedEvent(postId, null, authorId, "Carol", "note to self @carol"));
+
+    verify(userRepository, never()).findIdsByUsernameIn(anyCollection());
+    verify(notificationRepository, never()).insertAll(any());
+  }
+
+  @Test
+  void dropsDuplicateIdsAndTheAuthorFromTheBatch() {
+    stubReferences();
+
+    notificationService.createMentionNotification(
+        "@alice @bob", postId, null, List.of(alice, bob, alice, authorId), authorId, "carol");
+
+    List<Notification> inserted = insertedNotifications();
+    assertThat(inserted)
+        .extracting(n -> n.getRecipient().getId())
+        .containsExactlyInAnyOrder(alice, bob);
+    assertThat(inserted)
+        .allSatisfy(
+            n -> {
+              assertThat(n.getType()).isEqualTo(Notification.NotificationType.POST_MENTION);
+              assertThat(n.getActionUrl()).isEqualTo("/posts/" + postId);
+            });
+  }
+
+  private void stubReferences() {
+    when(userRepository.getReferenceById(any()))
+        .thenAnswer(
+            invocation -> {
+              User user = new User("user", "user@example.com", "secret");
+              user.setId(invocation.getArgument(0));
+              return user;
+            });
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Notification> insertedNotifications() {
+    ArgumentCaptor<List<Notification>> batch = ArgumentCaptor.forClass(List.class);
+    verify(notificationRepository, times(1)).insertAll(batch.capture());
+    return batch.getValue();
+  }
+}
@@ -0,0 +1,77 @@
+package com.lambrk.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lambrk.domain.Notification;
+import com.lambrk.domain.User;
+import com.lambrk.dto.NotificationResponse;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class NotificationCodecTest {
+
+  private final User recipient = new User("alice", "alice@example.com", "secret");
+
+  @Test
+  void roundTripsEveryCarriedFieldAndIsSmallerThanJson() throws Exception {
+    Instant createdAt = Instant.parse("2026-05-02T10:00:00.123Z");
+    Notification notification =
+        new Notification(
+            UUID.randomUUID(),
+            Notification.NotificationType.POST_LIKE,
+            recipient,
+            "Your post received a like",
+            "bob liked your post \"Hello\"",
+            UUID.randomUUID(),
+            null,
+            UUID.randomUUID(),
+            "/posts/1",
+            null,
+            false,
+            createdAt,
+            createdAt,
+            null);
+
+    byte[] encoded = NotificationCodec.encode(notification);
+    NotificationResponse decoded = NotificationCodec.decode(encoded);
+
+    assertThat(decoded).isEqualTo(NotificationResponse.from(notification));
+    String json =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .writeValueAsString(NotificationResponse.from(notification));
+    assertThat(encoded.length).isLessThan(json.length() / 2);
+  }
+
+  @Test
+  void rejectsTruncatedAndForeignPayloads() {
+    byte[] encoded =
+        NotificationCodec.encode(
+            new Notification(
+                UUID.randomUUID(),
+                Notification.NotificationType.USER_FOLLOW,
+                recipient,
+                "New follower",
+                "bob started following you",
+                null,
+                null,
+                null,
+                null,
+                null,
+                true,
+                Instant.now(),
+                Instant.now(),
+                Instant.now()));
+
+    assertThatThrownBy(() -> NotificationCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)))
+        .isInstanceOf(IllegalArgumentException.class);
+    encoded[0] = 9;
+    assertThatThrownBy(() -> NotificationCodec.decode(encoded))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,97 @@
+package com.lambrk.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.config.CacheConfig;
+import com.lambrk.domain.Notification;
+import com.lambrk.domain.User;
+import com.lambrk.dto.NotificationResponse;
+import com.lambrk.repository.CommentRepository;
+import com.lambrk.repository.PostRepository;
+import com.lambrk.repository.UserRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class NotificationHydratorTest {
+
+  private final PostRepository postRepository = mock(PostRepository.class);
+  private final CommentRepository commentRepository = mock(CommentRepository.class);
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final NotificationHydrator hydrator =
+      new NotificationHydrator(
+          new CacheConfig().caffeineCacheManager(),
+          postRepository,
+          commentRepository,
+          userRepository);
+  private final User recipient = new User("alice", "alice@example.com", "secret");
+
+  @Test
+  void resolvesEachKindForTheWholePageInOneQueryAndCachesIt() {
+    UUID post = UUID.randomUUID();
+    UUID comment = UUID.randomUUID();
+    UUID actor = UUID.randomUUID();
+    when(postRepository.findTitlesByIdIn(anyCollection()))
+        .thenReturn(List.of(label(post, "Hello")));
+    when(commentRepository.findContentPrefixesByIdIn(anyCollection(), anyInt()))
+        .thenReturn(List.of(label(comment, "x".repeat(101))));
+    when(userRepository.findUsernamesByIdIn(anyCollection()))
+        .thenReturn(List.of(label(actor, "bob")));
+    List<Notification> page =
+        List.of(
+            notification(post, comment, actor),
+            notification(post, null, actor),
+            notification(null, null, null));
+
+    List<NotificationResponse> first = hydrator.hydrate(page);
+    List<NotificationResponse> second = hydrator.hydrate(page);
+
+    assertThat(first).isEqualTo(second);
+    assertThat(first.get(0).relatedPostTitle()).isEqualTo("Hello");
+    assertThat(first.get(0).relatedCommentPreview()).isEqualTo("x".repeat(100) + "...");
+    assertThat(first.get(1).relatedUsername()).isEqualTo("bob");
+    assertThat(first.get(2).relatedPostTitle()).isNull();
+    verify(postRepository, times(1)).findTitlesByIdIn(anyCollection());
+    verify(commentRepository, times(1)).findContentPrefixesByIdIn(anyCollection(), anyInt());
+    verify(userRepository, times(1)).findUsernamesByIdIn(anyCollection());
+  }
+
+  private Notification notification(UUID post, UUID comment, UUID actor) {
+    return new Notification(
+        UUID.randomUUID(),
+        Notification.NotificationType.COMMENT_REPLY,
+        recipient,
+        "title",
+        "message",
+        post,
+        comment,
+        actor,
+        null,
+        null,
+        false,
+        Instant.now(),
+        Instant.now(),
+        null);
+  }
+
+  private static RelatedLabel label(UUID id, String label) {
+    return new RelatedLabel() {
+      @Override
+      public UUID getId() {
+        return id;
+      }
+
+      @Override
+      public String getLabel() {
+        return label;
+      }
+    };
+  }
+}
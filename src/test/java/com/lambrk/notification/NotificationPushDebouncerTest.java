@@ -0,0 +1,47 @@
+package com.lambrk.notification;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.domain.Notification;
+import com.lambrk.repository.NotificationRepository;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class NotificationPushDebouncerTest {
+
+  private final NotificationRepository repository = mock(NotificationRepository.class);
+  private final NotificationPublisher publisher = mock(NotificationPublisher.class);
+  private final NotificationPushDebouncer debouncer =
+      new NotificationPushDebouncer(repository, publisher, new NotificationAggregationProperties());
+
+  @Test
+  void pushesTheFirstChangeAtOnceAndCoalescesTheRestUntilTheNextTick() {
+    UUID recipient = UUID.randomUUID();
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    Notification row = mock(Notification.class);
+    when(repository.findAllById(Set.of(first))).thenReturn(List.of(row));
+    when(repository.findAllById(Set.of(second))).thenReturn(List.of(row, row));
+
+    debouncer.submit(recipient, first);
+    verify(publisher).publishAll(List.of(row));
+
+    debouncer.submit(recipient, second);
+    debouncer.submit(recipient, second);
+    verify(repository, never()).findAllById(Set.of(second));
+
+    debouncer.flush();
+    verify(repository).findAllById(Set.of(second));
+    verify(publisher).publishAll(List.of(row, row));
+
+    debouncer.flush();
+    verify(publisher, times(2)).publishAll(anyList());
+  }
+}
@@ -0,0 +1,143 @@
+package com.lambrk.presence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import com.lambrk.websocket.OutboundSessionQueues;
+import com.lambrk.websocket.UserNodeRegistry;
+import com.lambrk.websocket.WebSocketClusterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+
+class PresenceServiceTest {
+
+  private final ClusterMessagingTemplate messagingTemplate = mock(ClusterMessagingTemplate.class);
+  private final UserNodeRegistry registry = mock(UserNodeRegistry.class);
+  private final OutboundSessionQueues outboundQueues = mock(OutboundSessionQueues.class);
+  private final WebSocketClusterProperties clusterProperties = new WebSocketClusterProperties();
+  private final PresenceProperties properties = new PresenceProperties();
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final PresenceService presence =
+      new PresenceService(
+          messagingTemplate,
+          registry,
+          outboundQueues,
+          clusterProperties,
+          properties,
+          new SimpleMeterRegistry(),
+          now::get);
+
+  @Test
+  void staysOnlineUntilTheLastSessionCloses() {
+    presence.connected("s1", "alice");
+    presence.connected("s2", "alice");
+
+    presence.disconnected("s1");
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.ONLINE);
+    presence.disconnected("s2");
+
+    assertThat(presence.isOnline("alice")).isFalse();
+    InOrder order = inOrder(messagingTemplate);
+    order
+        .verify(messagingTemplate)
+        .convertAndSend("/topic/user-status/alice", PresenceStatus.ONLINE);
+    order
+        .verify(messagingTemplate)
+        .convertAndSend("/topic/user-status/alice", PresenceStatus.OFFLINE);
+  }
+
+  @Test
+  void turnsAwayWhenOnlyHeartbeatsArriveAndBackOnActivity() {
+    presence.connected("s1", "alice");
+
+    now.addAndGet(properties.getAwayAfterMs() + 1);
+    presence.seen("s1", "alice", false);
+    presence.sweep();
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.AWAY);
+
+    presence.seen("s1", "alice", true);
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.ONLINE);
+    verify(messagingTemplate).convertAndSend("/topic/user-status/alice", PresenceStatus.AWAY);
+  }
+
+  @Test
+  void dropsSessionsThatStopSendingHeartbeats() {
+    presence.connected("s1", "alice");
+    presence.connected("s2", "bob");
+
+    now.addAndGet(properties.getSessionTimeoutMs() + 1);
+    presence.seen("s2", "bob", false);
+    presence.sweep();
+
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.OFFLINE);
+    assertThat(presence.status("bob")).isEqualTo(PresenceStatus.ONLINE);
+    verify(outboundQueues).closeSession("s1", CloseStatus.SESSION_NOT_RELIABLE);
+    verify(outboundQueues, never()).closeSession(eq("s2"), any());
+  }
+
+  @Test
+  void aDroppedSessionThatResumesComesBackOnline() {
+    presence.connected("s1", "alice");
+    now.addAndGet(properties.getSessionTimeoutMs() + 1);
+    presence.sweep();
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.OFFLINE);
+
+    presence.seen("s1", "alice", false);
+
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.ONLINE);
+    now.addAndGet(properties.getSweepIntervalMs());
+    presence.sweep();
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.ONLINE);
+    InOrder order = inOrder(messagingTemplate);
+    order
+        .verify(messagingTemplate)
+        .convertAndSend("/topic/user-status/alice", PresenceStatus.OFFLINE);
+    order
+        .verify(messagingTemplate)
+        .convertAndSend("/topic/user-status/alice", PresenceStatus.ONLINE);
+  }
+
+  @Test
+  void staysOnlineWhileAnotherNodeHoldsASession() {
+    when(registry.nodesOf("alice")).thenReturn(Set.of("local", "node-2"));
+    presence.connected("s1", "alice");
+
+    presence.disconnected("s1");
+
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.ONLINE);
+    verify(messagingTemplate, never())
+        .convertAndSend("/topic/user-status/alice", PresenceStatus.OFFLINE);
+  }
+
+  @Test
+  void ignoresThisNodesOwnRegistryEntryOnceItsSessionsAreGone() {
+    when(registry.nodesOf("alice")).thenReturn(Set.of("local"));
+    presence.connected("s1", "alice");
+
+    presence.disconnected("s1");
+
+    assertThat(presence.status("alice")).isEqualTo(PresenceStatus.OFFLINE);
+    verify(messagingTemplate).convertAndSend("/topic/user-status/alice", PresenceStatus.OFFLINE);
+  }
+
+  @Test
+  void asksTheRegistryAboutUsersOnOtherNodes() {
+    when(registry.nodesOf("carol")).thenReturn(Set.of("node-2"));
+
+    assertThat(presence.status("carol")).isEqualTo(PresenceStatus.ONLINE);
+    assertThat(presence.status("dave")).isEqualTo(PresenceStatus.OFFLINE);
+    verify(messagingTemplate, never()).convertAndSend(anyString(), any());
+  }
+}
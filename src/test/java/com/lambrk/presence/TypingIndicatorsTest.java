@@ -0,0 +1,89 @@
+package com.lambrk.presence;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.domain.message.ChatConversation;
+import com.lambrk.dto.message.ChatMessageWebSocketPayload;
+import com.lambrk.repository.mongo.ChatConversationRepository;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TypingIndicatorsTest {
+
+  private final ChatConversationRepository conversationRepository =
+      mock(ChatConversationRepository.class);
+  private final ClusterMessagingTemplate messagingTemplate = mock(ClusterMessagingTemplate.class);
+  private final PresenceService presence = mock(PresenceService.class);
+  private final PresenceProperties properties = new PresenceProperties();
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+  private final String conversationId = alice + "_" + bob;
+
+  @BeforeEach
+  void setUp() {
+    ChatConversation conversation =
+        new ChatConversation(conversationId, alice, "alice", bob, "bob");
+    when(conversationRepository.findByConversationId(conversationId))
+        .thenReturn(Optional.of(conversation));
+    when(presence.isOnline("bob")).thenReturn(true);
+  }
+
+  @Test
+  void forwardsOneIndicatorPerIntervalFromCachedParticipants() {
+    TypingIndicators typing = typingIndicators();
+
+    for (int i = 0; i < 5; i++) {
+      typing.typing(alice, conversationId);
+    }
+    typing.typing(bob, conversationId);
+
+    verify(messagingTemplate, times(1))
+        .convertAndSendToUser(
+            eq("bob"), eq("/queue/messages"), any(ChatMessageWebSocketPayload.class));
+    verify(conversationRepository, times(1)).findByConversationId(conversationId);
+  }
+
+  @Test
+  void forwardsAgainOnceTheIntervalHasPassed() throws Exception {
+    properties.setTypingIntervalMs(20);
+    TypingIndicators typing = typingIndicators();
+
+    typing.typing(alice, conversationId);
+    Thread.sleep(50);
+    typing.typing(alice, conversationId);
+
+    verify(messagingTemplate, times(2)).convertAndSendToUser(eq("bob"), anyString(), any());
+  }
+
+  @Test
+  void skipsRecipientsWhoAreOffline() {
+    when(presence.isOnline("bob")).thenReturn(false);
+
+    typingIndicators().typing(alice, conversationId);
+
+    verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+  }
+
+  @Test
+  void rejectsUsersOutsideTheConversation() {
+    assertThatThrownBy(() -> typingIndicators().typing(UUID.randomUUID(), conversationId))
+        .isInstanceOf(SecurityException.class);
+  }
+
+  private TypingIndicators typingIndicators() {
+    return new TypingIndicators(
+        conversationRepository, messagingTemplate, presence, properties, new SimpleMeterRegistry());
+  }
+}
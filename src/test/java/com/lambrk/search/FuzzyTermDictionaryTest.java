@@ -0,0 +1,62 @@
+package com.lambrk.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FuzzyTermDictionaryTest {
+
+  private final FuzzyTermDictionary dictionary =
+      FuzzyTermDictionary.build(
+          Map.of(
+              "kubernetes", 40,
+              "kotlin", 25,
+              "java", 100,
+              "jsva", 1,
+              "javascript", 60,
+              "john_doe", 5),
+          100,
+          2,
+          7);
+
+  @Test
+  void correctsSubstitutionsInsertionsAndTranspositions() {
+    assertThat(terms(dictionary.lookup("kubernets", 2, 1))).containsExactly("kubernetes");
+    assertThat(terms(dictionary.lookup("kotiln", 2, 1))).containsExactly("kotlin");
+    assertThat(terms(dictionary.lookup("jonh_doe", 2, 1))).containsExactly("john_doe");
+    assertThat(terms(dictionary.lookup("javascirpt", 2, 1))).containsExactly("javascript");
+  }
+
+  @Test
+  void prefersCloserThenMoreFrequentTerms() {
+    assertThat(terms(dictionary.lookup("jave", 1, 5))).containsExactly("java");
+    assertThat(terms(dictionary.lookup("jxva", 1, 5))).containsExactly("java", "jsva");
+  }
+
+  @Test
+  void respectsDistanceLimitAndExactMembership() {
+    assertThat(dictionary.lookup("kuberxxxes", 2, 5)).isEmpty();
+    assertThat(dictionary.contains("java")).isTrue();
+    assertThat(dictionary.contains("jav")).isFalse();
+  }
+
+  @Test
+  void keepsOnlyTheMostFrequentTerms() {
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 1_000; i++) {
+      counts.put("term" + i, i);
+    }
+    FuzzyTermDictionary bounded = FuzzyTermDictionary.build(counts, 100, 2, 7);
+
+    assertThat(bounded.size()).isEqualTo(100);
+    assertThat(bounded.contains("term999")).isTrue();
+    assertThat(bounded.contains("term1")).isFalse();
+  }
+
+  private static List<String> terms(List<FuzzyTermDictionary.Correction> corrections) {
+    return corrections.stream().map(FuzzyTermDictionary.Correction::term).toList();
+  }
+}
@@ -0,0 +1,144 @@
+package com.lambrk.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class InvertedIndexTest {
+
+  private static final Instant NOW = Instant.parse("2026-06-01T12:00:00Z");
+
+  @Test
+  void postingListRoundTripsVarintGaps() {
+    PostingList list = new PostingList();
+    int[] docIds = {0, 1, 127, 128, 20_000, 3_000_000};
+    for (int docId : docIds) {
+      list.append(docId, docId % 7 + 1);
+    }
+
+    List<int[]> decoded = new ArrayList<>();
+    list.forEach((docId, tf) -> decoded.add(new int[] {docId, tf}));
+
+    assertThat(decoded).hasSize(docIds.length);
+    for (int i = 0; i < docIds.length; i++) {
+      assertThat(decoded.get(i)).containsExactly(docIds[i], docIds[i] % 7 + 1);
+    }
+    assertThat(list.sizeInBytes()).isLessThan(docIds.length * 8);
+  }
+
+  @Test
+  void ranksTitleMatchesAndFreshDocumentsHigher() {
+    InvertedIndex index = new InvertedIndex();
+    UUID titleMatch = post(index, "Virtual threads in Java", "notes", "java", NOW);
+    UUID bodyMatch = post(index, "Weekly notes", "a short mention of threads", "java", NOW);
+    UUID stale =
+        post(index, "Virtual threads in Java", "notes", "java", NOW.minus(Duration.ofDays(60)));
+
+    assertThat(index.search(query("virtual threads", DocumentKind.POST, Set.of())))
+        .containsExactly(titleMatch, stale, bodyMatch);
+  }
+
+  @Test
+  void filtersByKindCommunityAndTime() {
+    InvertedIndex index = new InvertedIndex();
+    UUID inJava = post(index, "Spring tips", "", "java", NOW);
+    post(index, "Spring tips", "", "gardening", NOW);
+    UUID comment = UUID.randomUUID();
+    index.add(new IndexedDocument(comment, "spring tips from a comment", NOW));
+
+    assertThat(index.search(query("spring", DocumentKind.POST, Set.of("java"))))
+        .containsExactly(inJava);
+    assertThat(index.search(query("spring", DocumentKind.COMMENT, Set.of())))
+        .containsExactly(comment);
+  }
+
+  @Test
+  void updatesReplaceAndCompactionDropsTombstones() throws Exception {
+    InvertedIndex index = new InvertedIndex();
+    UUID id = post(index, "Kafka basics", "", null, NOW);
+    index.add(new IndexedDocument(id, "Redis basics", "", null, NOW));
+    UUID removed = post(index, "Redis cluster", "", null, NOW);
+    index.remove(removed);
+
+    assertThat(index.search(query("kafka", DocumentKind.POST, Set.of()))).isEmpty();
+    assertThat(index.deletedRatio()).isGreaterThan(0);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    index.writeTo(new DataOutputStream(bytes));
+    InvertedIndex restored =
+        InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(restored.size()).isEqualTo(1);
+    assertThat(restored.deletedRatio()).isZero();
+    assertThat(restored.search(query("redis", DocumentKind.POST, Set.of()))).containsExactly(id);
+  }
+
+  @Test
+  void keepsTheNewestCopyOfEachDocumentAndRemembersRemovals() {
+    InvertedIndex index = new InvertedIndex();
+    UUID id = UUID.randomUUID();
+
+    assertThat(index.apply(copy(id, "Kafka streams", NOW.plusSeconds(2)))).isTrue();
+    assertThat(index.apply(copy(id, "Kafka basics", NOW.plusSeconds(1)))).isFalse();
+    assertThat(index.search(query("streams", DocumentKind.POST, Set.of()))).containsExactly(id);
+
+    assertThat(index.apply(IndexedDocument.tombstone(id, DocumentKind.POST, NOW.plusSeconds(3))))
+        .isTrue();
+    assertThat(index.apply(copy(id, "Kafka streams", NOW.plusSeconds(2)))).isFalse();
+    assertThat(index.size()).isZero();
+
+    index.forgetRemovalsBefore(NOW.plusSeconds(4).toEpochMilli());
+    assertThat(index.apply(copy(id, "Kafka streams", NOW.plusSeconds(2)))).isTrue();
+  }
+
+  @Test
+  void snapshotsKeepDocumentVersions() throws Exception {
+    InvertedIndex index = new InvertedIndex();
+    UUID id = UUID.randomUUID();
+    index.apply(copy(id, "Kafka streams", NOW.plusSeconds(2)));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    index.writeTo(new DataOutputStream(bytes));
+    InvertedIndex restored =
+        InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(restored.apply(copy(id, "Kafka basics", NOW.plusSeconds(1)))).isFalse();
+    assertThat(restored.search(query("streams", DocumentKind.POST, Set.of()))).containsExactly(id);
+  }
+
+  private static IndexedDocument copy(UUID id, String title, Instant updatedAt) {
+    return new IndexedDocument(id, DocumentKind.POST, title, "", null, NOW, updatedAt, false);
+  }
+
+  private static UUID post(
+      InvertedIndex index, String title, String body, String community, Instant createdAt) {
+    UUID id = UUID.randomUUID();
+    index.add(new IndexedDocument(id, title, body, community, createdAt));
+    return id;
+  }
+
+  private static InvertedIndex.Query query(
+      String text, DocumentKind kind, Set<String> communities) {
+    return new InvertedIndex.Query(
+        SearchTokenizer.tokenize(text),
+        kind,
+        communities,
+        Long.MIN_VALUE,
+        false,
+        0,
+        20,
+        NOW.toEpochMilli(),
+        0.5,
+        Duration.ofDays(7).toMillis());
+  }
+}
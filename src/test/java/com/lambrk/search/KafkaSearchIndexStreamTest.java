@@ -0,0 +1,51 @@
+package com.lambrk.search;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.Instant;
+import java.util.UUID;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+class KafkaSearchIndexStreamTest {
+
+  @SuppressWarnings("unchecked")
+  private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+
+  private final EmbeddedSearchIndex index = mock(EmbeddedSearchIndex.class);
+  private final EmbeddedSearchProperties properties = new EmbeddedSearchProperties();
+  private final KafkaSearchIndexStream stream =
+      new KafkaSearchIndexStream(
+          kafkaTemplate,
+          index,
+          properties,
+          new ObjectMapper().registerModule(new JavaTimeModule()));
+
+  @Test
+  void sendsChangesKeyedByDocumentAndAppliesThemOnReceipt() {
+    Instant now = Instant.parse("2026-06-01T12:00:00Z");
+    IndexedDocument post =
+        new IndexedDocument(
+            UUID.randomUUID(), DocumentKind.POST, "Title", "Body", "java", now, now, false);
+    IndexedDocument tombstone =
+        IndexedDocument.tombstone(UUID.randomUUID(), DocumentKind.COMMENT, now);
+
+    for (IndexedDocument change : new IndexedDocument[] {post, tombstone}) {
+      stream.send(change);
+
+      ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+      verify(kafkaTemplate)
+          .send(eq("search.index-changes"), eq(change.id().toString()), payload.capture());
+      stream.onRecord(
+          new ConsumerRecord<>(
+              "search.index-changes", 0, 0, change.id().toString(), payload.getValue()));
+      verify(index).apply(change);
+    }
+  }
+}
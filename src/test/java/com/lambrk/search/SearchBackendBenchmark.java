@@ -0,0 +1,159 @@
+package com.lambrk.search;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Compares the SQL search path ({@code LOWER(..) LIKE '%q%'} over posts, as in {@code
+ * PostRepository.searchPosts}) with the embedded inverted index on the same synthetic corpus. Opt
+ * in with {@code mvn test -Dtest=SearchBackendBenchmark -Dbenchmark=true}; needs Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SearchBackendBenchmark {
+
+  private static final int DOCUMENTS = 50_000;
+  private static final int WORDS_PER_DOCUMENT = 60;
+  private static final int QUERIES = 200;
+  private static final Instant NOW = Instant.now();
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+          .withDatabaseName("lambrk_bench")
+          .withUsername("bench")
+          .withPassword("bench");
+
+  private static final InvertedIndex index = new InvertedIndex();
+  private static List<String> queries;
+  private static Connection connection;
+
+  @BeforeAll
+  static void loadCorpus() throws Exception {
+    connection =
+        DriverManager.getConnection(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TABLE posts (id UUID PRIMARY KEY, title TEXT, content TEXT, score INT,"
+              + " is_archived BOOLEAN, created_at TIMESTAMPTZ)");
+    }
+
+    Random random = new Random(42);
+    String[] vocabulary = new String[5_000];
+    for (int i = 0; i < vocabulary.length; i++) {
+      vocabulary[i] = "term" + Integer.toString(i, 36);
+    }
+
+    long indexNanos = 0;
+    connection.setAutoCommit(false);
+    try (PreparedStatement insert =
+        connection.prepareStatement("INSERT INTO posts VALUES (?, ?, ?, ?, false, ?)")) {
+      for (int i = 0; i < DOCUMENTS; i++) {
+        String title = words(random, vocabulary, 6);
+        String content = words(random, vocabulary, WORDS_PER_DOCUMENT);
+        Instant createdAt = NOW.minus(Duration.ofMinutes(random.nextInt(60 * 24 * 90)));
+        UUID id = UUID.randomUUID();
+        insert.setObject(1, id);
+        insert.setString(2, title);
+        insert.setString(3, content);
+        insert.setInt(4, random.nextInt(1000));
+        insert.setTimestamp(5, Timestamp.from(createdAt));
+        insert.addBatch();
+
+        long start = System.nanoTime();
+        index.add(new IndexedDocument(id, title, content, null, createdAt));
+        indexNanos += System.nanoTime() - start;
+      }
+      insert.executeBatch();
+    }
+    connection.commit();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("ANALYZE posts");
+    }
+
+    queries = random.ints(QUERIES, 0, 2_000).mapToObj(i -> vocabulary[i]).toList();
+    System.out.printf(
+        "corpus: %d posts, index build %d ms, %d terms, %.1f MB of postings%n",
+        DOCUMENTS, indexNanos / 1_000_000, index.termCount(), index.postingBytes() / 1e6);
+  }
+
+  @AfterAll
+  static void close() throws Exception {
+    if (connection != null) {
+      connection.close();
+    }
+  }
+
+  @Test
+  void compareQueryLatency() throws Exception {
+    String sql =
+        "SELECT id FROM posts WHERE (LOWER(title) LIKE LOWER(CONCAT('%', ?, '%')) OR"
+            + " LOWER(content) LIKE LOWER(CONCAT('%', ?, '%'))) AND is_archived = false"
+            + " ORDER BY score DESC LIMIT 20";
+    long sqlNanos = 0;
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (String query : queries) {
+        long start = System.nanoTime();
+        statement.setString(1, query);
+        statement.setString(2, query);
+        try (ResultSet rows = statement.executeQuery()) {
+          while (rows.next()) {
+            rows.getObject(1);
+          }
+        }
+        sqlNanos += System.nanoTime() - start;
+      }
+    }
+
+    long indexNanos = 0;
+    for (String query : queries) {
+      long start = System.nanoTime();
+      index.search(
+          new InvertedIndex.Query(
+              SearchTokenizer.tokenize(query),
+              DocumentKind.POST,
+              Set.of(),
+              Long.MIN_VALUE,
+              false,
+              0,
+              20,
+              NOW.toEpochMilli(),
+              0.5,
+              Duration.ofDays(7).toMillis()));
+      indexNanos += System.nanoTime() - start;
+    }
+
+    System.out.printf(
+        "sql LIKE: %.2f ms/query, embedded index: %.3f ms/query (%d queries)%n",
+        sqlNanos / 1e6 / QUERIES, indexNanos / 1e6 / QUERIES, QUERIES);
+  }
+
+  private static String words(Random random, String[] vocabulary, int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      // Skewed towards the head of the vocabulary, like natural language
+      int rank = (int) Math.min(vocabulary.length - 1, Math.abs(random.nextGaussian()) * 800);
+      text.append(vocabulary[rank]).append(' ');
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,77 @@
+package com.lambrk.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.dto.SearchRequest;
+import com.lambrk.dto.SearchRequest.SearchType;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchCacheKeyTest {
+
+  @Test
+  void sharesAnEntryAcrossCaseSpacingAndFilterOrder() {
+    SearchCacheKey a = key(" Spring  Boot ", List.of("java", "kotlin"), List.of("Help"));
+    SearchCacheKey b = key("spring boot", List.of("kotlin", " java", "java", ""), List.of("Help"));
+
+    assertThat(a).isEqualTo(b).hasSameHashCodeAs(b);
+    assertThat(a.query()).isEqualTo("spring boot");
+    assertThat(a.communities()).containsExactly("java", "kotlin");
+  }
+
+  @Test
+  void keepsDifferentSearchesApart() {
+    SearchCacheKey base = key("spring", List.of("java"), List.of());
+
+    assertThat(key("spring", List.of("kotlin"), List.of())).isNotEqualTo(base);
+    assertThat(key("spring", List.of("java"), List.of("Help"))).isNotEqualTo(base);
+    assertThat(key("springs", List.of("java"), List.of())).isNotEqualTo(base);
+    assertThat(SearchCacheKey.from(request("spring", SearchType.POSTS, List.of("java"), 1)))
+        .isNotEqualTo(base);
+  }
+
+  @Test
+  void coversCommunitiesItFiltersOnOrAllWhenUnfiltered() {
+    assertThat(key("spring", List.of(), List.of()).coversCommunity("java")).isTrue();
+    assertThat(key("spring", List.of("java"), List.of()).coversCommunity("java")).isTrue();
+    assertThat(key("spring", List.of("java"), List.of()).coversCommunity("kotlin")).isFalse();
+    assertThat(key("spring", List.of("java"), List.of()).coversCommunity(null)).isFalse();
+  }
+
+  static SearchCacheKey key(String query, List<String> communities, List<String> flairs) {
+    return SearchCacheKey.from(
+        new SearchRequest(
+            query,
+            SearchType.ALL,
+            null,
+            null,
+            communities,
+            flairs,
+            false,
+            false,
+            null,
+            null,
+            null,
+            0,
+            20,
+            false));
+  }
+
+  static SearchRequest request(String query, SearchType type, List<String> communities, int page) {
+    return new SearchRequest(
+        query,
+        type,
+        null,
+        null,
+        communities,
+        null,
+        false,
+        false,
+        null,
+        null,
+        null,
+        page,
+        20,
+        false);
+  }
+}
@@ -0,0 +1,21 @@
+package com.lambrk.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SearchHighlighterTest {
+
+  @Test
+  void buildsPrefixQueryFromTokens() {
+    assertThat(SearchHighlighter.toPrefixQuery("Spring  boot's spring!"))
+        .isEqualTo("spring:* | boot:*");
+    assertThat(SearchHighlighter.toPrefixQuery("&& !")).isEmpty();
+  }
+
+  @Test
+  void escapesContentAndMarksMatches() {
+    assertThat(SearchHighlighter.toHtml("use \u0002<Spring>\u0003 & \"boot\""))
+        .isEqualTo("use <mark>&lt;Spring&gt;</mark> &amp; &quot;boot&quot;");
+  }
+}
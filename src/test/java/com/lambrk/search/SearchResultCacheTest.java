@@ -0,0 +1,111 @@
+package com.lambrk.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lambrk.dto.SearchRequest.SearchType;
+import com.lambrk.event.CommentChangedEvent;
+import com.lambrk.event.ContentChangeType;
+import com.lambrk.event.PostChangedEvent;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class SearchResultCacheTest {
+
+  private final SearchResultCache cache =
+      new SearchResultCache(new ConcurrentMapCacheManager(SearchResultCache.CACHE_NAME));
+  private final Map<SearchCacheKey, Integer> loads = new HashMap<>();
+
+  private final SearchCacheKey javaPosts =
+      SearchCacheKey.from(
+          SearchCacheKeyTest.request("spring", SearchType.POSTS, List.of("java"), 0));
+  private final SearchCacheKey kotlinPosts =
+      SearchCacheKey.from(
+          SearchCacheKeyTest.request("spring", SearchType.POSTS, List.of("kotlin"), 0));
+  private final SearchCacheKey allPosts =
+      SearchCacheKey.from(SearchCacheKeyTest.request("spring", SearchType.POSTS, List.of(), 0));
+  private final SearchCacheKey comments =
+      SearchCacheKey.from(SearchCacheKeyTest.request("spring", SearchType.COMMENTS, List.of(), 0));
+  private final SearchCacheKey users =
+      SearchCacheKey.from(SearchCacheKeyTest.request("spring", SearchType.USERS, List.of(), 0));
+
+  @Test
+  void servesRepeatSearchesFromTheCache() {
+    warm();
+    warm();
+
+    assertThat(loads).containsOnlyKeys(javaPosts, kotlinPosts, allPosts, comments, users);
+    assertThat(loads.values()).containsOnly(1);
+  }
+
+  @Test
+  void aPostChangeRefreshesOnlySearchesCoveringItsCommunity() {
+    warm();
+
+    cache.onPostChanged(post("java", ContentChangeType.CREATED));
+    warm();
+
+    assertThat(loads)
+        .containsEntry(javaPosts, 2)
+        .containsEntry(allPosts, 2)
+        .containsEntry(kotlinPosts, 1)
+        .containsEntry(comments, 1)
+        .containsEntry(users, 1);
+  }
+
+  @Test
+  void aCommentChangeRefreshesOnlyCommentSearches() {
+    warm();
+
+    cache.onCommentChanged(comment(ContentChangeType.UPDATED));
+    warm();
+
+    assertThat(loads)
+        .containsEntry(comments, 2)
+        .containsEntry(javaPosts, 1)
+        .containsEntry(allPosts, 1)
+        .containsEntry(users, 1);
+  }
+
+  @Test
+  void deletionsLeaveEntriesInPlace() {
+    warm();
+
+    cache.onPostChanged(post("java", ContentChangeType.DELETED));
+    cache.onCommentChanged(comment(ContentChangeType.DELETED));
+    warm();
+
+    assertThat(loads.values()).containsOnly(1);
+  }
+
+  private void warm() {
+    for (SearchCacheKey key : List.of(javaPosts, kotlinPosts, allPosts, comments, users)) {
+      cache.get(
+          key,
+          k -> {
+            loads.merge(k, 1, Integer::sum);
+            return new SearchResultIds(List.of(), List.of(), List.of(), List.of());
+          });
+    }
+  }
+
+  private static PostChangedEvent post(String community, ContentChangeType changeType) {
+    return new PostChangedEvent(
+        UUID.randomUUID(),
+        UUID.randomUUID(),
+        community,
+        "title",
+        "body",
+        Instant.now(),
+        changeType);
+  }
+
+  private static CommentChangedEvent comment(ContentChangeType changeType) {
+    return new CommentChangedEvent(
+        UUID.randomUUID(), UUID.randomUUID(), null, "text", Instant.now(), changeType);
+  }
+}
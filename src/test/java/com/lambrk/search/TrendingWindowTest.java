@@ -0,0 +1,98 @@
+package com.lambrk.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TrendingWindowTest {
+
+  @Test
+  void countMinSketchNeverUnderCountsAndMerges() {
+    CountMinSketch left = new CountMinSketch(4, 256);
+    CountMinSketch right = new CountMinSketch(4, 256);
+    for (int i = 0; i < 1000; i++) {
+      left.add("term-" + (i % 50), 1);
+      right.add("term-" + (i % 25), 1);
+    }
+
+    assertThat(left.estimate("term-7")).isGreaterThanOrEqualTo(20);
+    left.merge(right);
+    assertThat(left.estimate("term-7")).isGreaterThanOrEqualTo(60);
+    assertThat(left.totalCount()).isEqualTo(2000);
+    assertThatThrownBy(() -> left.merge(new CountMinSketch(2, 256)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void spaceSavingKeepsHeavyHittersWithinCapacity() {
+    SpaceSavingTopK topK = new SpaceSavingTopK(10);
+    for (int i = 0; i < 5000; i++) {
+      topK.offer(i % 5 == 0 ? "java" : "noise-" + i, 1);
+    }
+
+    assertThat(topK.size()).isEqualTo(10);
+    List<SpaceSavingTopK.Entry> top = topK.top(1);
+    assertThat(top.get(0).item()).isEqualTo("java");
+    assertThat(top.get(0).count() - top.get(0).error()).isLessThanOrEqualTo(1000);
+    assertThat(top.get(0).count()).isGreaterThanOrEqualTo(1000);
+  }
+
+  @Test
+  void trendingFavoursGrowthOverRawVolume() {
+    TrendingWindow window = new TrendingWindow(4, 512, 32, 4);
+    double decay = 0.9;
+    for (long epoch = 0; epoch < 40; epoch++) {
+      for (int i = 0; i < 50; i++) {
+        window.record(epoch, "weather");
+      }
+      window.advanceTo(epoch, decay);
+    }
+    for (long epoch = 40; epoch < 44; epoch++) {
+      for (int i = 0; i < 50; i++) {
+        window.record(epoch, "weather");
+      }
+      for (int i = 0; i < 20; i++) {
+        window.record(epoch, "virtual threads");
+      }
+      window.advanceTo(epoch, decay);
+    }
+
+    List<TrendingTerm> trending = window.trending(5, 3, 1.0);
+    assertThat(trending).isNotEmpty();
+    assertThat(trending.get(0).term()).isEqualTo("virtual threads");
+    assertThat(trending).noneMatch(term -> term.term().equals("weather"));
+  }
+
+  @Test
+  void windowsSurviveSnapshotRoundTripAndMergeAcrossNodes() throws Exception {
+    TrendingWindow nodeA = new TrendingWindow(4, 256, 16, 6);
+    TrendingWindow nodeB = new TrendingWindow(4, 256, 16, 6);
+    for (int i = 0; i < 5; i++) {
+      nodeA.record(100, "kubernetes");
+      nodeB.record(100, "kubernetes");
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    nodeB.writeTo(new DataOutputStream(bytes));
+    TrendingWindow restored =
+        TrendingWindow.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    nodeA.merge(restored);
+    nodeA.advanceTo(100, 0.9);
+    assertThat(nodeA.trending(1, 1, 0))
+        .singleElement()
+        .satisfies(term -> assertThat(term.count()).isEqualTo(10));
+  }
+
+  @Test
+  void normalizerFoldsCaseAndWhitespace() {
+    assertThat(SearchQueryNormalizer.normalize("  Spring\tBOOT  ")).isEqualTo("spring boot");
+    assertThat(SearchQueryNormalizer.normalize(null)).isEmpty();
+  }
+}
@@ -0,0 +1,200 @@
+package com.lambrk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lambrk.badge.BadgeKind;
+import com.lambrk.badge.BadgeService;
+import com.lambrk.domain.message.ChatConversation;
+import com.lambrk.domain.message.ChatMessage;
+import com.lambrk.dto.message.ChatHistoryResponse;
+import com.lambrk.dto.message.ChatMessageResponse;
+import com.lambrk.dto.message.ChatMessageWebSocketPayload;
+import com.lambrk.dto.message.SendMessageRequest;
+import com.lambrk.exception.InvalidRequestException;
+import com.lambrk.message.ChatCursor;
+import com.lambrk.message.ChatMessageStore;
+import com.lambrk.repository.mongo.ChatConversationRepository;
+import com.lambrk.user.UserIdentity;
+import com.lambrk.user.UserIdentityCache;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class ChatMessageServiceTest {
+
+  private final ChatMessageStore messageStore = mock(ChatMessageStore.class);
+  private final ChatConversationRepository conversationRepository =
+      mock(ChatConversationRepository.class);
+  private final ClusterMessagingTemplate messagingTemplate = mock(ClusterMessagingTemplate.class);
+  private final BadgeService badgeService = mock(BadgeService.class);
+  private final UserIdentityCache identities = mock(UserIdentityCache.class);
+  private final ChatMessageService service =
+      new ChatMessageService(
+          messageStore, conversationRepository, identities, messagingTemplate, badgeService);
+
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+  private final String conversationId = ChatConversation.buildConversationId(alice, bob);
+  private final Instant lastMessageAt = Instant.parse("2026-01-01T12:00:00Z");
+
+  @Test
+  void sendsFromCachedIdentities() {
+    when(identities.byId(alice)).thenReturn(Optional.of(identity(alice, "alice", true)));
+    when(identities.byUsername("bob")).thenReturn(Optional.of(identity(bob, "bob", true)));
+    when(messageStore.append(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    service.sendMessage(alice, new SendMessageRequest("bob", "hi", null, null, null));
+
+    ArgumentCaptor<ChatMessage> saved = ArgumentCaptor.forClass(ChatMessage.class);
+    verify(messageStore).append(saved.capture());
+    assertThat(saved.getValue().getSenderAvatarUrl()).isEqualTo("https://cdn/alice.png");
+    assertThat(saved.getValue().getRecipientId()).isEqualTo(bob);
+    verify(messagingTemplate).convertAndSendToUser(eq("bob"), eq("/queue/messages"), any());
+  }
+
+  @Test
+  void rejectsMessagesToDeactivatedUsers() {
+    when(identities.byId(alice)).thenReturn(Optional.of(identity(alice, "alice", true)));
+    when(identities.byUsername("bob")).thenReturn(Optional.of(identity(bob, "bob", false)));
+
+    assertThatThrownBy(
+            () -> service.sendMessage(alice, new SendMessageRequest("bob", "hi", null, null, null)))
+        .isInstanceOf(IllegalArgumentException.class);
+    verify(messageStore, never()).append(any());
+  }
+
+  @Test
+  void readsAWholeConversationWithOneUpdateAndOneReceipt() {
+    givenConversation(null);
+    when(messageStore.markReadUpTo(eq(conversationId), eq(bob), eq(lastMessageAt), any()))
+        .thenReturn(2000L);
+
+    assertThat(service.markConversationAsRead(bob, conversationId)).isEqualTo(2000);
+
+    verify(conversationRepository).advanceReadCursor(conversationId, bob, lastMessageAt, 2000);
+    verify(badgeService).adjust(bob, BadgeKind.MESSAGES, -2000);
+    ArgumentCaptor<ChatMessageWebSocketPayload> receipt =
+        ArgumentCaptor.forClass(ChatMessageWebSocketPayload.class);
+    verify(messagingTemplate, times(1))
+        .convertAndSendToUser(eq("alice"), eq("/queue/messages"), receipt.capture());
+    assertThat(receipt.getValue().eventType())
+        .isEqualTo(ChatMessageWebSocketPayload.EventType.READ_RECEIPT);
+    assertThat(receipt.getValue().readUpTo()).isEqualTo(lastMessageAt);
+    assertThat(receipt.getValue().actorUsername()).isEqualTo("bob");
+  }
+
+  @Test
+  void neverMovesTheCursorPastTheLastMessageOrBack() {
+    givenConversation(null);
+    service.markConversationAsRead(bob, conversationId, lastMessageAt.plusSeconds(60));
+    verify(messageStore).markReadUpTo(eq(conversationId), eq(bob), eq(lastMessageAt), any());
+
+    givenConversation(lastMessageAt);
+    assertThat(service.markConversationAsRead(bob, conversationId, lastMessageAt.minusSeconds(5)))
+        .isZero();
+    verify(messageStore, times(1)).markReadUpTo(any(), any(), any(), any());
+  }
+
+  @Test
+  void sendsNoReceiptWhenNothingWasUnread() {
+    givenConversation(null);
+    when(messageStore.markReadUpTo(any(), any(), any(), any())).thenReturn(0L);
+
+    assertThat(service.markConversationAsRead(bob, conversationId)).isZero();
+
+    verify(conversationRepository).advanceReadCursor(conversationId, bob, lastMessageAt, 0);
+    verify(badgeService, never()).adjust(any(), any(), anyLong());
+    verify(messagingTemplate, never()).convertAndSendToUser(any(), any(), any());
+  }
+
+  @Test
+  void pagesBackByCursorAndDerivesReadStateFromTheReadCursor() {
+    givenConversation(lastMessageAt.minusSeconds(2));
+    ChatMessage newest = message(lastMessageAt);
+    ChatMessage middle = message(lastMessageAt.minusSeconds(2));
+    ChatMessage oldest = message(lastMessageAt.minusSeconds(4));
+    when(messageStore.latest(conversationId, 3)).thenReturn(List.of(newest, middle, oldest));
+
+    ChatHistoryResponse latest = service.getMessages(bob, conversationId, null, null, 2);
+
+    assertThat(latest.messages())
+        .extracting(ChatMessageResponse::id)
+        .containsExactly(newest.getId(), middle.getId());
+    assertThat(latest.messages())
+        .extracting(ChatMessageResponse::isRead)
+        .containsExactly(false, true);
+    assertThat(latest.hasMore()).isTrue();
+    assertThat(ChatCursor.decode(latest.olderToken())).isEqualTo(ChatCursor.of(middle));
+    assertThat(ChatCursor.decode(latest.newerToken())).isEqualTo(ChatCursor.of(newest));
+
+    when(messageStore.before(conversationId, ChatCursor.of(middle), 3)).thenReturn(List.of(oldest));
+    ChatHistoryResponse older =
+        service.getMessages(bob, conversationId, latest.olderToken(), null, 2);
+
+    assertThat(older.messages())
+        .extracting(ChatMessageResponse::id)
+        .containsExactly(oldest.getId());
+    assertThat(older.hasMore()).isFalse();
+    assertThat(older.olderToken()).isNull();
+  }
+
+  @Test
+  void syncKeepsTheCursorWhenNothingIsNew() {
+    givenConversation(null);
+    String since = ChatCursor.of(message(lastMessageAt)).encode();
+    when(messageStore.after(any(), any(), anyInt())).thenReturn(List.of());
+
+    ChatHistoryResponse sync = service.syncMessages(bob, conversationId, since, 100);
+
+    assertThat(sync.messages()).isEmpty();
+    assertThat(sync.newerToken()).isEqualTo(since);
+    assertThat(sync.hasMore()).isFalse();
+  }
+
+  @Test
+  void rejectsCursorsInBothDirections() {
+    String cursor = ChatCursor.of(message(lastMessageAt)).encode();
+
+    assertThatThrownBy(() -> service.getMessages(bob, conversationId, cursor, cursor, 30))
+        .isInstanceOf(InvalidRequestException.class);
+  }
+
+  private static UserIdentity identity(UUID id, String username, boolean active) {
+    return new UserIdentity(id, username, null, "https://cdn/" + username + ".png", active);
+  }
+
+  private ChatMessage message(Instant createdAt) {
+    ChatMessage message =
+        new ChatMessage(conversationId, alice, "alice", null, bob, "bob", "hi", null, null, null);
+    message.setId(new ObjectId().toHexString());
+    message.setCreatedAt(createdAt);
+    return message;
+  }
+
+  private void givenConversation(Instant bobReadUpTo) {
+    ChatConversation conversation =
+        new ChatConversation(conversationId, alice, "alice", bob, "bob");
+    conversation.setLastMessageAt(lastMessageAt);
+    if (bobReadUpTo != null) {
+      conversation.setReadUpToMap(Map.of(bob.toString(), bobReadUpTo));
+    }
+    when(conversationRepository.findByConversationId(conversationId))
+        .thenReturn(Optional.of(conversation));
+  }
+}
@@ -0,0 +1,89 @@
+package com.lambrk.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambrk.event.UserChangedEvent;
+import com.lambrk.repository.UserRepository;
+import com.lambrk.websocket.ClusterEvent;
+import com.lambrk.websocket.ClusterMessagingTemplate;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class UserIdentityCacheTest {
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final ClusterMessagingTemplate cluster = mock(ClusterMessagingTemplate.class);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final UserIdentityCache identities =
+      new UserIdentityCache(
+          userRepository,
+          new ConcurrentMapCacheManager(UserIdentityCache.CACHE_NAME),
+          cluster,
+          objectMapper);
+  private final UserIdentity alice =
+      new UserIdentity(UUID.randomUUID(), "alice", "Alice", "https://cdn/alice.png", true);
+
+  @Test
+  void cachesUnderBothKeysAfterOneLoad() {
+    when(userRepository.findIdentityById(alice.id())).thenReturn(Optional.of(alice));
+
+    assertThat(identities.byId(alice.id())).contains(alice);
+    assertThat(identities.byId(alice.id())).contains(alice);
+    assertThat(identities.byUsername("alice")).contains(alice);
+
+    verify(userRepository).findIdentityById(alice.id());
+    verifyNoMoreInteractions(userRepository);
+  }
+
+  @Test
+  void reloadsAfterTheUserChanges() {
+    UserIdentity banned =
+        new UserIdentity(alice.id(), "alice", "Alice", "https://cdn/alice.png", false);
+    when(userRepository.findIdentityByUsername("alice"))
+        .thenReturn(Optional.of(alice))
+        .thenReturn(Optional.of(banned));
+    identities.byUsername("alice");
+
+    identities.onUserChanged(new UserChangedEvent(alice.id(), "alice"));
+
+    assertThat(identities.byUsername("alice")).contains(banned);
+    assertThat(identities.byId(alice.id())).contains(banned);
+    verify(userRepository, times(2)).findIdentityByUsername("alice");
+  }
+
+  @Test
+  void relaysChangesAndEvictsOnChangesFromOtherNodes() throws Exception {
+    UserChangedEvent change = new UserChangedEvent(alice.id(), "alice");
+    when(userRepository.findIdentityByUsername("alice")).thenReturn(Optional.of(alice));
+    identities.byUsername("alice");
+
+    identities.onUserChanged(change);
+    verify(cluster).publishEvent(UserIdentityCache.USER_CHANGED, change);
+
+    identities.byUsername("alice");
+    identities.onClusterEvent(
+        new ClusterEvent(UserIdentityCache.USER_CHANGED, objectMapper.writeValueAsBytes(change)));
+    identities.onClusterEvent(new ClusterEvent("something-else", new byte[0]));
+    identities.byUsername("alice");
+
+    verify(userRepository, times(3)).findIdentityByUsername("alice");
+  }
+
+  @Test
+  void doesNotCacheUnknownUsers() {
+    when(userRepository.findIdentityByUsername("bob"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(alice));
+
+    assertThat(identities.byUsername("bob")).isEmpty();
+    assertThat(identities.byUsername("bob")).isPresent();
+  }
+}
@@ -0,0 +1,30 @@
+package com.lambrk.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class CommentRankingTest {
+
+  @Test
+  void bestPrefersAProvenRatioOverAFewLuckyVotes() {
+    assertThat(CommentRanking.best(0, 0)).isZero();
+    assertThat(CommentRanking.best(1, 0)).isCloseTo(0.2065, within(1e-4));
+    assertThat(CommentRanking.best(90, 10)).isCloseTo(0.8256, within(1e-4));
+
+    assertThat(CommentRanking.best(90, 10)).isGreaterThan(CommentRanking.best(5, 0));
+    assertThat(CommentRanking.best(600, 400)).isGreaterThan(CommentRanking.best(6, 4));
+  }
+
+  @Test
+  void controversyRewardsEvenSplitsAndVolume() {
+    assertThat(CommentRanking.controversy(10, 0)).isZero();
+    assertThat(CommentRanking.controversy(50, 50)).isEqualTo(100);
+
+    assertThat(CommentRanking.controversy(50, 50))
+        .isGreaterThan(CommentRanking.controversy(90, 10));
+    assertThat(CommentRanking.controversy(500, 500))
+        .isGreaterThan(CommentRanking.controversy(5, 5));
+  }
+}
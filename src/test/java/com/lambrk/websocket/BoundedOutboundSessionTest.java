@@ -0,0 +1,136 @@
+package com.lambrk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.lambrk.websocket.WebSocketBrokerProperties.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+class BoundedOutboundSessionTest {
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final WebSocketBrokerProperties properties = new WebSocketBrokerProperties();
+  private final StubWebSocketSession client = new StubWebSocketSession("s1", true).blocked();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void dropsOldestFramesWhenFull() {
+    BoundedOutboundSession session = open(OverflowPolicy.DROP_OLDEST);
+    sendAndWaitForWriter(session, frame("/user/queue/messages", "0"));
+    for (int i = 1; i <= 4; i++) {
+      session.sendMessage(frame("/user/queue/messages", String.valueOf(i)));
+    }
+
+    client.unblock();
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> client.sentCount() == 4);
+    assertThat(bodies()).containsExactly("0", "2", "3", "4");
+    assertThat(dropped(OverflowPolicy.DROP_OLDEST)).isEqualTo(1);
+  }
+
+  @Test
+  void coalescesFramesForStateDestinations() {
+    properties.setCoalesceDestinations(List.of("/user/queue/badges"));
+    BoundedOutboundSession session = open(OverflowPolicy.COALESCE);
+    sendAndWaitForWriter(session, frame("/user/queue/messages", "m0"));
+    session.sendMessage(frame("/user/queue/badges", "b1"));
+    session.sendMessage(frame("/user/queue/messages", "m1"));
+    session.sendMessage(frame("/user/queue/messages", "m2"));
+    session.sendMessage(frame("/user/queue/badges", "b2"));
+
+    client.unblock();
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> client.sentCount() == 4);
+    assertThat(bodies()).containsExactly("m0", "b2", "m1", "m2");
+    assertThat(dropped(OverflowPolicy.COALESCE)).isEqualTo(1);
+  }
+
+  @Test
+  void disconnectsWhenFull() {
+    BoundedOutboundSession session = open(OverflowPolicy.DISCONNECT);
+    sendAndWaitForWriter(session, frame("/user/queue/messages", "0"));
+    for (int i = 1; i <= 4; i++) {
+      session.sendMessage(frame("/user/queue/messages", String.valueOf(i)));
+    }
+
+    await()
+        .atMost(Duration.ofSeconds(5))
+        .until(() -> CloseStatus.SESSION_NOT_RELIABLE.equals(client.closeStatus()));
+    assertThat(session.queued()).isZero();
+    assertThat(meterRegistry.counter("websocket.outbound.disconnected").count()).isEqualTo(1);
+    assertThat(meterRegistry.get("websocket.outbound.queued").gauge().value()).isZero();
+    client.unblock();
+  }
+
+  @Test
+  void sendsBinaryMessagesOnceTheSessionPicksABinaryFormat() {
+    StubWebSocketSession mobile = new StubWebSocketSession("s2", true);
+    BoundedOutboundSession session =
+        new OutboundSessionQueues(properties, meterRegistry, executor).open(mobile);
+    byte[] cbor =
+        "MESSAGE\ndestination:/user/queue/messages\n\n\u00a2\0".getBytes(StandardCharsets.UTF_8);
+
+    session.sendMessage(new TextMessage("\n"));
+    session.payloadFormat(PayloadFormat.CBOR);
+    session.sendMessage(new TextMessage(cbor));
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> mobile.sentCount() == 2);
+    assertThat(mobile.sent().get(0)).isInstanceOf(TextMessage.class);
+    assertThat(mobile.sent().get(1)).isInstanceOf(BinaryMessage.class);
+    assertThat(((BinaryMessage) mobile.sent().get(1)).getPayload().array()).isEqualTo(cbor);
+  }
+
+  @Test
+  void readsTheDestinationHeaderOfAStompFrame() {
+    assertThat(BoundedOutboundSession.destination(frame("/topic/posts/42", "{}")))
+        .isEqualTo("/topic/posts/42");
+    assertThat(BoundedOutboundSession.destination(new TextMessage("\n"))).isNull();
+  }
+
+  private BoundedOutboundSession open(OverflowPolicy policy) {
+    properties.setQueueCapacity(3);
+    properties.setOverflowPolicy(policy);
+    return new OutboundSessionQueues(properties, meterRegistry, executor).open(client);
+  }
+
+  /** Sends a frame and waits until the writer has taken it and is stuck on the client. */
+  private static void sendAndWaitForWriter(
+      BoundedOutboundSession session, WebSocketMessage<?> frame) {
+    session.sendMessage(frame);
+    await().atMost(Duration.ofSeconds(5)).until(() -> session.queued() == 0);
+  }
+
+  private List<String> bodies() {
+    return client.sent().stream()
+        .map(m -> ((TextMessage) m).getPayload())
+        .map(p -> p.substring(p.indexOf("\n\n") + 2, p.length() - 1))
+        .toList();
+  }
+
+  private double dropped(OverflowPolicy policy) {
+    return meterRegistry
+        .counter("websocket.outbound.dropped", "policy", policy.name().toLowerCase())
+        .count();
+  }
+
+  private static TextMessage frame(String destination, String body) {
+    return new TextMessage(
+        "MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n\n" + body + "\0");
+  }
+}
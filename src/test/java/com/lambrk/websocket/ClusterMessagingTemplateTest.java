@@ -0,0 +1,213 @@
+package com.lambrk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+class ClusterMessagingTemplateTest {
+
+  private final Map<String, RelayBatchRouter> bus = new ConcurrentHashMap<>();
+  private final SharedRegistry registry = new SharedRegistry();
+  private final Node nodeA = new Node("a");
+  private final Node nodeB = new Node("b");
+
+  @Test
+  void deliversToLocalSessionsWithoutRelaying() {
+    nodeA.cluster.connected("alice", "s1");
+
+    nodeA.cluster.convertAndSendToUser("alice", "/queue/messages", Map.of("text", "hi"));
+    nodeA.cluster.flush();
+
+    assertThat(nodeA.destinations()).containsExactly("/user/alice/queue/messages");
+    assertThat(nodeB.sent).isEmpty();
+    assertThat(nodeA.meterRegistry.get("websocket.relay.batches").counter().count()).isZero();
+  }
+
+  @Test
+  void relaysToTheNodeHoldingTheUserOnFlush() {
+    nodeB.cluster.connected("bob", "s1");
+
+    nodeA.cluster.convertAndSendToUser("bob", "/queue/messages", Map.of("text", "hi"));
+    assertThat(nodeB.sent).isEmpty();
+    nodeA.cluster.flush();
+
+    assertThat(nodeA.sent).isEmpty();
+    assertThat(nodeB.destinations()).containsExactly("/user/bob/queue/messages");
+    assertThat(new String((byte[]) nodeB.sent.getFirst().getPayload(), StandardCharsets.UTF_8))
+        .isEqualTo("{\"text\":\"hi\"}");
+  }
+
+  @Test
+  void sendsAFullBatchWithoutWaitingForFlush() {
+    nodeB.cluster.connected("bob", "s1");
+
+    for (int i = 0; i < 3; i++) {
+      nodeA.cluster.convertAndSendToUser("bob", "/queue/messages", i);
+    }
+
+    assertThat(nodeB.sent).hasSize(2);
+    nodeA.cluster.flush();
+    assertThat(nodeB.sent).hasSize(3);
+    assertThat(nodeA.meterRegistry.get("websocket.relay.batches").counter().count()).isEqualTo(2);
+  }
+
+  @Test
+  void deliversBroadcastsOnceOnEveryNode() {
+    nodeA.cluster.convertAndSend("/topic/announcements", "maintenance");
+    nodeA.cluster.flush();
+
+    assertThat(nodeA.destinations()).containsExactly("/topic/announcements");
+    assertThat(nodeB.destinations()).containsExactly("/topic/announcements");
+  }
+
+  @Test
+  void sendsToListedNodesOnly() {
+    Node nodeC = new Node("c");
+
+    nodeA.cluster.convertAndSendToNodes(Set.of("b"), "/topic/posts/1/live", "diff");
+    nodeA.cluster.flush();
+
+    assertThat(nodeA.sent).isEmpty();
+    assertThat(nodeB.destinations()).containsExactly("/topic/posts/1/live");
+    assertThat(nodeC.sent).isEmpty();
+  }
+
+  @Test
+  void publishesClusterEventsOnOtherNodesInsteadOfTheBroker() {
+    nodeA.cluster.publishEvent("user-changed", Map.of("username", "bob"));
+    nodeA.cluster.flush();
+
+    assertThat(nodeA.events).isEmpty();
+    assertThat(nodeA.sent).isEmpty();
+    assertThat(nodeB.sent).isEmpty();
+    assertThat(nodeB.events)
+        .singleElement()
+        .isInstanceOfSatisfying(
+            ClusterEvent.class,
+            event -> {
+              assertThat(event.topic()).isEqualTo("user-changed");
+              assertThat(new String(event.payload(), StandardCharsets.UTF_8))
+                  .isEqualTo("{\"username\":\"bob\"}");
+            });
+  }
+
+  @Test
+  void stopsRelayingOnceTheLastSessionCloses() {
+    nodeB.cluster.connected("bob", "s1");
+    nodeB.cluster.connected("bob", "s2");
+    nodeB.cluster.disconnected("bob", "s1");
+    assertThat(registry.nodesOf("bob")).containsExactly("b");
+
+    nodeB.cluster.disconnected("bob", "s2");
+    nodeA.cluster.convertAndSendToUser("bob", "/queue/messages", "hi");
+    nodeA.cluster.flush();
+
+    assertThat(registry.nodesOf("bob")).isEmpty();
+    assertThat(nodeB.sent).isEmpty();
+  }
+
+  @Test
+  void roundTripsRelayBatches() {
+    RelayBatch batch =
+        new RelayBatch(
+            "a",
+            List.of(
+                new RelayFrame("bob", "/queue/messages", "application/json", new byte[] {1, 2}),
+                new RelayFrame(null, "/topic/announcements", "text/plain", new byte[0])));
+
+    RelayBatch decoded = RelayBatch.decode(batch.encode());
+
+    assertThat(decoded.origin()).isEqualTo("a");
+    assertThat(decoded.frames())
+        .usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyElementsOf(batch.frames());
+  }
+
+  private final class Node {
+
+    final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+    final List<Object> events = new CopyOnWriteArrayList<>();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final ClusterMessagingTemplate cluster;
+
+    Node(String nodeId) {
+      WebSocketClusterProperties properties = new WebSocketClusterProperties();
+      properties.setNodeId(nodeId);
+      properties.setBatchMaxFrames(2);
+      SimpMessagingTemplate messagingTemplate =
+          new SimpMessagingTemplate(
+              (message, timeout) -> {
+                sent.add(message);
+                return true;
+              });
+      messagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+      RelayBatchRouter router =
+          new RelayBatchRouter(messagingTemplate, events::add, properties, meterRegistry);
+      cluster =
+          new ClusterMessagingTemplate(
+              messagingTemplate,
+              router,
+              new InMemoryWebSocketRelay(nodeId, router, bus),
+              registry.forNode(nodeId),
+              properties,
+              meterRegistry);
+    }
+
+    List<String> destinations() {
+      return sent.stream()
+          .map(message -> SimpMessageHeaderAccessor.getDestination(message.getHeaders()))
+          .toList();
+    }
+  }
+
+  /** Stands in for the Redis registry that all nodes share. */
+  private static final class SharedRegistry {
+
+    private final Map<String, Set<String>> nodes = new ConcurrentHashMap<>();
+
+    Set<String> nodesOf(String username) {
+      return Set.copyOf(nodes.getOrDefault(username, Set.of()));
+    }
+
+    UserNodeRegistry forNode(String nodeId) {
+      return new UserNodeRegistry() {
+        @Override
+        public void add(String username) {
+          nodes.computeIfAbsent(username, name -> ConcurrentHashMap.newKeySet()).add(nodeId);
+        }
+
+        @Override
+        public void remove(String username) {
+          nodes.computeIfPresent(
+              username,
+              (name, ids) -> {
+                ids.remove(nodeId);
+                return ids.isEmpty() ? null : ids;
+              });
+        }
+
+        @Override
+        public void refresh(Collection<String> usernames) {
+          usernames.forEach(this::add);
+        }
+
+        @Override
+        public Set<String> nodesOf(String username) {
+          return SharedRegistry.this.nodesOf(username);
+        }
+      };
+    }
+  }
+}
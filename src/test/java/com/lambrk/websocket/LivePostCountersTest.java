@@ -0,0 +1,146 @@
+package com.lambrk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambrk.dto.PostCountersDiff;
+import com.lambrk.event.PostCountersChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class LivePostCountersTest {
+
+  private final ClusterMessagingTemplate messagingTemplate = mock(ClusterMessagingTemplate.class);
+  private final WebSocketClusterProperties properties = new WebSocketClusterProperties();
+  private final PostViewerRegistry registry = mock(PostViewerRegistry.class);
+  private final UUID postId = UUID.randomUUID();
+
+  @Test
+  void sendsOneFramePerPostPerTick() throws Exception {
+    LivePostCounters counters = counters();
+    counters.subscribed("s1", "sub-0", LivePostCounters.destination(postId));
+
+    counters.onCountersChanged(PostCountersChangedEvent.votes(postId, 1, 1, 0));
+    counters.onCountersChanged(PostCountersChangedEvent.votes(postId, 2, 1, -1));
+    counters.onCountersChanged(PostCountersChangedEvent.comments(postId, 1));
+    counters.tick();
+    counters.tick();
+
+    ArgumentCaptor<PostCountersDiff> diff = ArgumentCaptor.forClass(PostCountersDiff.class);
+    verify(messagingTemplate, times(1))
+        .convertAndSend(eq(LivePostCounters.destination(postId)), diff.capture());
+    assertThat(diff.getValue()).isEqualTo(new PostCountersDiff(postId, 3, 2, -1, 1));
+  }
+
+  @Test
+  void leavesUnchangedCountersOutOfTheFrame() throws Exception {
+    String json = new ObjectMapper().writeValueAsString(new PostCountersDiff(postId, 2, 2, 0, 0));
+
+    assertThat(json).isEqualTo("{\"postId\":\"" + postId + "\",\"score\":2,\"likes\":2}");
+  }
+
+  @Test
+  void skipsPostsWithoutViewersOnASingleNode() {
+    LivePostCounters counters = counters();
+    counters.subscribed("s1", "sub-0", LivePostCounters.destination(postId));
+    counters.subscribed("s1", "sub-1", "/topic/posts/" + postId);
+
+    counters.onCountersChanged(PostCountersChangedEvent.votes(UUID.randomUUID(), 1, 1, 0));
+    counters.tick();
+
+    verify(messagingTemplate, never()).convertAndSend(anyString(), any());
+  }
+
+  @Test
+  void skipsChangesThatCancelOut() {
+    LivePostCounters counters = counters();
+    counters.subscribed("s1", "sub-0", LivePostCounters.destination(postId));
+
+    counters.onCountersChanged(PostCountersChangedEvent.votes(postId, 1, 1, 0));
+    counters.onCountersChanged(PostCountersChangedEvent.votes(postId, -1, -1, 0));
+    counters.tick();
+
+    verify(messagingTemplate, never()).convertAndSend(anyString(), any());
+  }
+
+  @Test
+  void stopsOnceTheLastViewerLeaves() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LivePostCounters counters =
+        new LivePostCounters(messagingTemplate, registry, properties, meterRegistry);
+    counters.subscribed("s1", "sub-0", LivePostCounters.destination(postId));
+    counters.subscribed("s2", "sub-0", LivePostCounters.destination(postId));
+
+    counters.unsubscribed("s1", "sub-0");
+    counters.onCountersChanged(PostCountersChangedEvent.comments(postId, 1));
+    counters.unsubscribed("s2", "sub-0");
+    counters.onCountersChanged(PostCountersChangedEvent.comments(postId, 1));
+    counters.tick();
+
+    verify(messagingTemplate, never()).convertAndSend(anyString(), any());
+    assertThat(meterRegistry.get("websocket.live.posts").gauge().value()).isZero();
+  }
+
+  @Test
+  void sendsEveryChangedPostWhenViewersMayBeOnOtherNodes() {
+    properties.setRelay("redis");
+    LivePostCounters counters = counters();
+
+    counters.onCountersChanged(PostCountersChangedEvent.comments(postId, 1));
+    counters.tick();
+
+    verify(messagingTemplate)
+        .convertAndSend(
+            LivePostCounters.destination(postId), new PostCountersDiff(postId, 0, 0, 0, 1));
+  }
+
+  @Test
+  void relaysOnlyToNodesWithViewersWhenTheRegistryIsShared() {
+    properties.setRelay("redis");
+    properties.setRegistry("redis");
+    when(registry.nodesOf(postId)).thenReturn(Set.of("node-b"));
+    LivePostCounters counters = counters();
+
+    counters.onCountersChanged(PostCountersChangedEvent.comments(postId, 1));
+    counters.onCountersChanged(PostCountersChangedEvent.comments(UUID.randomUUID(), 1));
+    counters.tick();
+
+    verify(messagingTemplate)
+        .convertAndSendToNodes(
+            Set.of("node-b"),
+            LivePostCounters.destination(postId),
+            new PostCountersDiff(postId, 0, 0, 0, 1));
+    verify(messagingTemplate, never()).convertAndSend(anyString(), any());
+    verifyNoMoreInteractions(messagingTemplate);
+  }
+
+  @Test
+  void registersTheNodeWhileThePostHasViewers() {
+    LivePostCounters counters = counters();
+
+    counters.subscribed("s1", "sub-0", LivePostCounters.destination(postId));
+    counters.subscribed("s2", "sub-0", LivePostCounters.destination(postId));
+    counters.unsubscribed("s1", "sub-0");
+    verify(registry, times(1)).add(postId);
+    verify(registry, never()).remove(postId);
+
+    counters.unsubscribed("s2", "sub-0");
+    verify(registry).remove(postId);
+  }
+
+  private LivePostCounters counters() {
+    return new LivePostCounters(messagingTemplate, registry, properties, new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,144 @@
+package com.lambrk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORParser;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+class PayloadEncodingsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final WebSocketPayloadProperties properties = new WebSocketPayloadProperties();
+  private final OutboundSessionQueues sessions =
+      new OutboundSessionQueues(new WebSocketBrokerProperties(), meterRegistry, Runnable::run);
+  private final PayloadEncodings encodings =
+      new PayloadEncodings(sessions, properties, meterRegistry);
+  private final UUID id = UUID.fromString("3f2b8c1e-7d4a-4e2b-9c1f-5a6b7c8d9e0f");
+  private final byte[] json =
+      ("{\"id\":\"" + id + "\",\"content\":\"hi\",\"tags\":[\"A\",\"B\"],\"edited\":false}")
+          .getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void negotiatesTheFormatNamedAtConnect() {
+    sessions.open(new StubWebSocketSession("s1", false));
+    sessions.open(new StubWebSocketSession("s2", false));
+
+    assertThat(encodings.negotiate(connect("s1", "CBOR"))).isEqualTo(PayloadFormat.CBOR);
+    assertThat(encodings.negotiate(connect("s2", "protobuf"))).isEqualTo(PayloadFormat.JSON);
+    assertThat(sessions.payloadFormat("s1")).isEqualTo(PayloadFormat.CBOR);
+    assertThat(sessions.payloadFormat("s2")).isEqualTo(PayloadFormat.JSON);
+  }
+
+  @Test
+  void keepsJsonForSockJsAndDisallowedFormats() {
+    properties.setFormats(List.of(PayloadFormat.JSON, PayloadFormat.CBOR));
+    SockJsSession sockJs = mock(SockJsSession.class);
+    when(sockJs.getId()).thenReturn("s1");
+    sessions.open(sockJs);
+    sessions.open(new StubWebSocketSession("s2", false));
+
+    assertThat(encodings.negotiate(connect("s1", "cbor"))).isEqualTo(PayloadFormat.JSON);
+    assertThat(encodings.negotiate(connect("s2", "smile"))).isEqualTo(PayloadFormat.JSON);
+    assertThat(sessions.payloadFormat("s1")).isEqualTo(PayloadFormat.JSON);
+  }
+
+  @Test
+  void reEncodesJsonBodiesOnceAcrossAFanOut() {
+    sessions.open(new StubWebSocketSession("s1", false));
+    sessions.open(new StubWebSocketSession("s2", false));
+    sessions.open(new StubWebSocketSession("s3", false));
+    encodings.negotiate(connect("s1", "smile"));
+    encodings.negotiate(connect("s2", "smile"));
+
+    Message<?> first = encodings.preSend(message("s1", json, MimeTypeUtils.APPLICATION_JSON), null);
+    Message<?> second =
+        encodings.preSend(message("s2", json, MimeTypeUtils.APPLICATION_JSON), null);
+    Message<?> third = encodings.preSend(message("s3", json, MimeTypeUtils.APPLICATION_JSON), null);
+
+    assertThat(SimpMessageHeaderAccessor.wrap(first).getContentType())
+        .isEqualTo(PayloadFormat.SMILE.contentType());
+    assertThat(second.getPayload()).isSameAs(first.getPayload());
+    assertThat(third.getPayload()).isSameAs(json);
+    assertThat(meterRegistry.get("websocket.payload.size").tag("format", "smile").summary().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void leavesNonJsonBodiesAlone() {
+    sessions.open(new StubWebSocketSession("s1", false));
+    encodings.negotiate(connect("s1", "cbor"));
+    byte[] text = "maintenance".getBytes(StandardCharsets.UTF_8);
+
+    Message<?> sent = encodings.preSend(message("s1", text, MimeTypeUtils.TEXT_PLAIN), null);
+
+    assertThat(sent.getPayload()).isSameAs(text);
+  }
+
+  @Test
+  void transcodesWithoutLosingAnything() throws Exception {
+    JsonNode expected = new ObjectMapper().readTree(json);
+
+    byte[] smile = PayloadEncodings.transcode(json, PayloadFormat.SMILE, true);
+    byte[] cbor = PayloadEncodings.transcode(json, PayloadFormat.CBOR, false);
+
+    assertThat(new SmileMapper().readTree(smile)).isEqualTo(expected);
+    assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor)).isEqualTo(expected);
+    assertThat(smile.length).isLessThan(json.length);
+    assertThat(cbor.length).isLessThan(json.length);
+  }
+
+  @Test
+  void writesUuidsAsTaggedBytesInCbor() throws Exception {
+    byte[] cbor = PayloadEncodings.transcode(json, PayloadFormat.CBOR, true);
+
+    try (CBORParser parser = new CBORFactory().createParser(cbor)) {
+      assertThat(parser.nextToken()).isEqualTo(JsonToken.START_OBJECT);
+      assertThat(parser.nextFieldName()).isEqualTo("id");
+      assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_EMBEDDED_OBJECT);
+      assertThat(parser.getCurrentTag()).isEqualTo(PayloadEncodings.UUID_TAG);
+      ByteBuffer bytes = ByteBuffer.wrap(parser.getBinaryValue());
+      assertThat(new UUID(bytes.getLong(), bytes.getLong())).isEqualTo(id);
+      assertThat(parser.nextFieldName()).isEqualTo("content");
+      assertThat(parser.nextTextValue()).isEqualTo("hi");
+    }
+    assertThat(cbor.length)
+        .isLessThan(PayloadEncodings.transcode(json, PayloadFormat.CBOR, false).length);
+  }
+
+  private static StompHeaderAccessor connect(String sessionId, String format) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+    accessor.setSessionId(sessionId);
+    accessor.setNativeHeader(PayloadFormat.HEADER, format);
+    return accessor;
+  }
+
+  private static Message<byte[]> message(String sessionId, byte[] payload, MimeType contentType) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setSessionId(sessionId);
+    accessor.setDestination("/topic/announcements");
+    accessor.setContentType(contentType);
+    accessor.setLeaveMutable(true);
+    return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+  }
+}
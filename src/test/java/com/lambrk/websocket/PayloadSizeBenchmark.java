@@ -0,0 +1,214 @@
+package com.lambrk.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.lambrk.domain.Notification.NotificationType;
+import com.lambrk.domain.message.ChatMessage.MessageType;
+import com.lambrk.dto.NotificationResponse;
+import com.lambrk.dto.PostCountersDiff;
+import com.lambrk.dto.message.ChatMessageResponse;
+import com.lambrk.dto.message.ChatMessageWebSocketPayload;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Body sizes of typical pushes in each {@link PayloadFormat}, as {@link PayloadEncodings} produces
+ * them, raw and after permessage-deflate: per frame with no context takeover, and over a session's
+ * stream of frames with it, which is what browsers negotiate by default. Also the time to encode a
+ * payload: converting it to JSON, and re-encoding that JSON for the binary formats. Opt in with
+ * {@code mvn test -Dtest=PayloadSizeBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PayloadSizeBenchmark {
+
+  private static final int FRAMES = 2_000;
+  private static final int ENCODE_ROUNDS = 50;
+
+  /** permessage-deflate drops the trailing empty block every sync flush ends with. */
+  private static final int SYNC_FLUSH_TRAILER = 4;
+
+  private final ObjectMapper mapper =
+      JsonMapper.builder()
+          .findAndAddModules()
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+  private final Random random = new Random(42);
+  private final List<String> usernames = new ArrayList<>();
+
+  @Test
+  void compareFrameSizes() throws Exception {
+    for (int i = 0; i < 50; i++) {
+      usernames.add("user_" + Integer.toString(random.nextInt(1 << 20), 36));
+    }
+    System.out.printf(
+        "%-22s %-6s %8s %8s %10s %9s%n",
+        "payload", "format", "raw", "deflate", "deflate-ctx", "encode-ns");
+    report("chat message", i -> ChatMessageWebSocketPayload.ofNewMessage(chatMessage()));
+    report(
+        "read receipt",
+        i ->
+            ChatMessageWebSocketPayload.ofReadReceipt(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                username(),
+                Instant.now()));
+    report(
+        "typing",
+        i -> ChatMessageWebSocketPayload.ofTyping(UUID.randomUUID().toString(), username()));
+    report("notification", i -> notification());
+    report(
+        "live counters",
+        i -> new PostCountersDiff(UUID.randomUUID(), random.nextInt(5) - 2, 1, 0, i % 3));
+  }
+
+  private void report(String name, IntFunction<Object> payloads) throws Exception {
+    List<Object> objects = new ArrayList<>(FRAMES);
+    List<byte[]> json = new ArrayList<>(FRAMES);
+    for (int i = 0; i < FRAMES; i++) {
+      objects.add(payloads.apply(i));
+      json.add(mapper.writeValueAsBytes(objects.getLast()));
+    }
+    for (PayloadFormat format : PayloadFormat.values()) {
+      List<byte[]> bodies = new ArrayList<>(FRAMES);
+      encodeAll(objects, json, format, bodies);
+      long encodeStart = System.nanoTime();
+      for (int round = 0; round < ENCODE_ROUNDS; round++) {
+        encodeAll(objects, json, format, bodies);
+      }
+      long encodeNanos = (System.nanoTime() - encodeStart) / ((long) ENCODE_ROUNDS * FRAMES);
+
+      long raw = 0;
+      long perFrame = 0;
+      long stream = 0;
+      Deflater session = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      for (byte[] body : bodies) {
+        raw += body.length;
+        Deflater single = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        perFrame += deflate(single, body);
+        single.end();
+        stream += deflate(session, body);
+      }
+      session.end();
+      System.out.printf(
+          "%-22s %-6s %8.1f %8.1f %10.1f %9d%n",
+          name,
+          format.name().toLowerCase(),
+          raw / (double) FRAMES,
+          perFrame / (double) FRAMES,
+          stream / (double) FRAMES,
+          encodeNanos);
+    }
+  }
+
+  /** JSON is the broker's own conversion; the binary formats are re-encoded from it. */
+  private void encodeAll(
+      List<Object> objects, List<byte[]> json, PayloadFormat format, List<byte[]> bodies)
+      throws Exception {
+    bodies.clear();
+    for (int i = 0; i < FRAMES; i++) {
+      bodies.add(
+          format.binary()
+              ? PayloadEncodings.transcode(json.get(i), format, true)
+              : mapper.writeValueAsBytes(objects.get(i)));
+    }
+  }
+
+  private static int deflate(Deflater deflater, byte[] body) {
+    deflater.setInput(body);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+    byte[] buffer = new byte[1024];
+    int n;
+    do {
+      n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+      out.write(buffer, 0, n);
+    } while (n == buffer.length);
+    return out.size() - SYNC_FLUSH_TRAILER;
+  }
+
+  private ChatMessageResponse chatMessage() {
+    String sender = username();
+    return new ChatMessageResponse(
+        UUID.randomUUID().toString(),
+        UUID.randomUUID().toString(),
+        UUID.randomUUID(),
+        sender,
+        "https://cdn.lambrk.com/avatars/" + sender + ".png",
+        UUID.randomUUID(),
+        username(),
+        sentence(3 + random.nextInt(20)),
+        MessageType.TEXT,
+        null,
+        null,
+        false,
+        null,
+        false,
+        Instant.now());
+  }
+
+  private NotificationResponse notification() {
+    String actor = username();
+    UUID postId = UUID.randomUUID();
+    return new NotificationResponse(
+        UUID.randomUUID(),
+        NotificationType.COMMENT_REPLY,
+        UUID.randomUUID(),
+        "New reply",
+        actor + " replied to your comment",
+        postId,
+        sentence(4 + random.nextInt(8)),
+        UUID.randomUUID(),
+        sentence(6 + random.nextInt(10)),
+        UUID.randomUUID(),
+        actor,
+        "/posts/" + postId,
+        "View reply",
+        false,
+        Instant.now(),
+        null,
+        1 + random.nextInt(4),
+        List.of(UUID.randomUUID()));
+  }
+
+  private String username() {
+    return usernames.get(random.nextInt(usernames.size()));
+  }
+
+  private String sentence(int words) {
+    String[] vocabulary = {
+      "the",
+      "post",
+      "thread",
+      "really",
+      "good",
+      "point",
+      "agree",
+      "not",
+      "sure",
+      "about",
+      "this",
+      "link",
+      "thanks",
+      "for",
+      "sharing",
+      "see",
+      "you",
+      "tomorrow",
+      "lol",
+      "nice"
+    };
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      text.append(i == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+    }
+    return text.toString();
+  }
+}
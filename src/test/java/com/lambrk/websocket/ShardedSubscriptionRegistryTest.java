@@ -0,0 +1,79 @@
+package com.lambrk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+class ShardedSubscriptionRegistryTest {
+
+  private final ShardedSubscriptionRegistry registry = new ShardedSubscriptionRegistry(4);
+
+  @Test
+  void findsExactAndPatternSubscribers() {
+    registry.registerSubscription(subscribe("s1", "sub-1", "/topic/posts/42"));
+    registry.registerSubscription(subscribe("s1", "sub-2", "/topic/posts/42"));
+    registry.registerSubscription(subscribe("s2", "sub-1", "/topic/posts/*"));
+    registry.registerSubscription(subscribe("s3", "sub-1", "/topic/posts/43"));
+
+    var found = registry.findSubscriptions(publish("/topic/posts/42"));
+
+    assertThat(found.keySet()).containsExactlyInAnyOrder("s1", "s2");
+    assertThat(found.get("s1")).containsExactlyInAnyOrder("sub-1", "sub-2");
+    assertThat(found.get("s2")).containsExactly("sub-1");
+  }
+
+  @Test
+  void unsubscribeRemovesOnlyThatSubscription() {
+    registry.registerSubscription(subscribe("s1", "sub-1", "/topic/announcements"));
+    registry.registerSubscription(subscribe("s1", "sub-2", "/queue/messages-users1"));
+
+    registry.unregisterSubscription(unsubscribe("s1", "sub-1"));
+
+    assertThat(registry.findSubscriptions(publish("/topic/announcements"))).isEmpty();
+    assertThat(registry.findSubscriptions(publish("/queue/messages-users1")).get("s1"))
+        .isEqualTo(List.of("sub-2"));
+  }
+
+  @Test
+  void disconnectRemovesEverySubscriptionOfTheSession() {
+    registry.registerSubscription(subscribe("s1", "sub-1", "/topic/announcements"));
+    registry.registerSubscription(subscribe("s1", "sub-2", "/topic/communities/*"));
+    registry.registerSubscription(subscribe("s2", "sub-1", "/topic/announcements"));
+
+    registry.unregisterAllSubscriptions("s1");
+
+    assertThat(registry.findSubscriptions(publish("/topic/announcements")).keySet())
+        .containsExactly("s2");
+    assertThat(registry.findSubscriptions(publish("/topic/communities/7"))).isEmpty();
+    assertThat(registry.sessionCount()).isEqualTo(1);
+  }
+
+  private static Message<byte[]> subscribe(
+      String sessionId, String subscriptionId, String destination) {
+    SimpMessageHeaderAccessor accessor =
+        SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+    accessor.setSessionId(sessionId);
+    accessor.setSubscriptionId(subscriptionId);
+    accessor.setDestination(destination);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+    SimpMessageHeaderAccessor accessor =
+        SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+    accessor.setSessionId(sessionId);
+    accessor.setSubscriptionId(subscriptionId);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> publish(String destination) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setDestination(destination);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+}
@@ -0,0 +1,227 @@
+package com.lambrk.websocket;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * In-JVM load generator for the broker setup in {@link WebSocketConfig}: the simple broker with a
+ * {@link ShardedSubscriptionRegistry}, inline outbound sends and a {@link BoundedOutboundSession}
+ * per client, with one client in a hundred on a slow link. Each session subscribes to the
+ * announcements topic, one of 1,000 post topics and its own user queue. Also compares subscription
+ * lookups against Spring's default registry. Opt in with {@code mvn test
+ * -Dtest=StompBrokerLoadBenchmark -Dbenchmark=true}; {@code -Dsessions=N} changes the default of
+ * 100,000.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StompBrokerLoadBenchmark {
+
+  private static final int SESSIONS = Integer.getInteger("sessions", 100_000);
+  private static final int POST_TOPICS = 1_000;
+  private static final int SLOW_EVERY = 100;
+  private static final int PUBLISHERS = 16;
+  private static final int DIRECT_MESSAGES = 200_000;
+  private static final int POST_UPDATES = 5_000;
+  private static final int ANNOUNCEMENTS = 5;
+  private static final int LOOKUPS = 2_000;
+
+  private final StompEncoder encoder = new StompEncoder();
+
+  @Test
+  void fanOutToManySessions() throws Exception {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    WebSocketBrokerProperties properties = new WebSocketBrokerProperties();
+    properties.setQueueCapacity(16);
+    ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    OutboundSessionQueues queues =
+        new OutboundSessionQueues(properties, meterRegistry, virtualThreads);
+
+    Map<String, BoundedOutboundSession> sessions = new ConcurrentHashMap<>();
+    ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+    ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+    ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+    brokerChannel.addInterceptor(new BrokerFanOutTimer(meterRegistry));
+    clientOutbound.subscribe(message -> deliver(sessions, message));
+    SimpleBrokerMessageHandler broker =
+        new SimpleBrokerMessageHandler(
+            clientInbound, clientOutbound, brokerChannel, List.of("/topic", "/queue"));
+    ShardedSubscriptionRegistry registry = new ShardedSubscriptionRegistry(properties.getShards());
+    broker.setSubscriptionRegistry(registry);
+    broker.start();
+
+    long heapBefore = usedHeap();
+    long started = System.nanoTime();
+    for (int i = 0; i < SESSIONS; i++) {
+      String id = "s" + i;
+      StubWebSocketSession client = new StubWebSocketSession(id, false);
+      if (i % SLOW_EVERY == 0) {
+        client.slow(200);
+      }
+      sessions.put(id, queues.open(client));
+      broker.handleMessage(connect(id));
+      broker.handleMessage(subscribe(id, "sub-0", "/topic/announcements"));
+      broker.handleMessage(subscribe(id, "sub-1", "/topic/posts/" + (i % POST_TOPICS)));
+      broker.handleMessage(subscribe(id, "sub-2", "/queue/messages-user" + id));
+    }
+    System.out.printf(
+        "Connected and subscribed %,d sessions in %d ms, ~%d MB heap%n",
+        SESSIONS,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+        (usedHeap() - heapBefore) / (1024 * 1024));
+
+    long frames =
+        (long) DIRECT_MESSAGES
+            + (long) POST_UPDATES * (SESSIONS / POST_TOPICS)
+            + (long) ANNOUNCEMENTS * SESSIONS;
+    started = System.nanoTime();
+    List<Future<?>> publishers = new ArrayList<>();
+    for (int p = 0; p < PUBLISHERS; p++) {
+      int publisher = p;
+      publishers.add(
+          virtualThreads.submit(
+              () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = publisher; i < DIRECT_MESSAGES; i += PUBLISHERS) {
+                  brokerChannel.send(
+                      publish("/queue/messages-users" + random.nextInt(SESSIONS), i));
+                }
+                for (int i = publisher; i < POST_UPDATES; i += PUBLISHERS) {
+                  brokerChannel.send(publish("/topic/posts/" + random.nextInt(POST_TOPICS), i));
+                }
+                for (int i = publisher; i < ANNOUNCEMENTS; i += PUBLISHERS) {
+                  brokerChannel.send(publish("/topic/announcements", i));
+                }
+              }));
+    }
+    for (Future<?> publisher : publishers) {
+      publisher.get();
+    }
+    long publishNanos = System.nanoTime() - started;
+    long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+    while (queues.queuedFrames() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    long drainNanos = System.nanoTime() - started;
+
+    System.out.printf(
+        "Fanned out %,d frames in %d ms (%,.0f frames/s); all written after %d ms, %,d still"
+            + " queued%n",
+        frames,
+        TimeUnit.NANOSECONDS.toMillis(publishNanos),
+        frames / (publishNanos / 1e9),
+        TimeUnit.NANOSECONDS.toMillis(drainNanos),
+        queues.queuedFrames());
+    printTimer(meterRegistry.get("websocket.broker.fanout").timer(), "Broker fan-out per publish");
+    printTimer(
+        meterRegistry.get("websocket.outbound.latency").timer(), "Queued to written per frame");
+    System.out.printf(
+        "Dropped %,.0f frames for slow sessions%n",
+        meterRegistry.get("websocket.outbound.dropped").counters().stream()
+            .mapToDouble(c -> c.count())
+            .sum());
+
+    DefaultSubscriptionRegistry springDefault = new DefaultSubscriptionRegistry();
+    for (int i = 0; i < SESSIONS; i++) {
+      String id = "s" + i;
+      springDefault.registerSubscription(subscribe(id, "sub-0", "/topic/announcements"));
+      springDefault.registerSubscription(
+          subscribe(id, "sub-1", "/topic/posts/" + (i % POST_TOPICS)));
+      springDefault.registerSubscription(subscribe(id, "sub-2", "/queue/messages-user" + id));
+    }
+    printLookups("Sharded registry", registry);
+    printLookups("Spring default registry", springDefault);
+
+    broker.stop();
+    virtualThreads.shutdownNow();
+  }
+
+  private void deliver(Map<String, BoundedOutboundSession> sessions, Message<?> message) {
+    BoundedOutboundSession session =
+        sessions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+    if (session == null
+        || SimpMessageHeaderAccessor.getMessageType(message.getHeaders())
+            != SimpMessageType.MESSAGE) {
+      return;
+    }
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+    accessor.updateStompCommandAsServerMessage();
+    byte[] frame = encoder.encode(accessor.getMessageHeaders(), (byte[]) message.getPayload());
+    session.sendMessage(new TextMessage(frame));
+  }
+
+  private static void printLookups(String name, SubscriptionRegistry registry) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long started = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      registry.findSubscriptions(publish("/queue/messages-users" + random.nextInt(SESSIONS), i));
+    }
+    System.out.printf(
+        "%s: %.1f us per user-queue lookup%n", name, (System.nanoTime() - started) / 1e3 / LOOKUPS);
+  }
+
+  private static void printTimer(Timer timer, String name) {
+    StringBuilder percentiles = new StringBuilder();
+    for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+      percentiles.append(
+          String.format(
+              " p%.0f=%.2f ms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+    }
+    System.out.printf("%s: %,d samples,%s%n", name, timer.count(), percentiles);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    runtime.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static Message<byte[]> connect(String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+    accessor.setSessionId(sessionId);
+    accessor.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[] {0, 0});
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> subscribe(
+      String sessionId, String subscriptionId, String destination) {
+    SimpMessageHeaderAccessor accessor =
+        SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+    accessor.setSessionId(sessionId);
+    accessor.setSubscriptionId(subscriptionId);
+    accessor.setDestination(destination);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> publish(String destination, int sequence) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setDestination(destination);
+    accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+    return MessageBuilder.createMessage(
+        ("{\"sequence\":" + sequence + ",\"text\":\"benchmark payload\"}").getBytes(),
+        accessor.getMessageHeaders());
+  }
+}
@@ -0,0 +1,158 @@
+package com.lambrk.websocket;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/** An in-memory session that optionally records frames and can be made slow or blocked. */
+class StubWebSocketSession implements WebSocketSession {
+
+  private final String id;
+  private final boolean recording;
+  private final List<WebSocketMessage<?>> sent = new CopyOnWriteArrayList<>();
+  private final AtomicLong sentCount = new AtomicLong();
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private volatile long writeDelayMs;
+  private volatile CountDownLatch gate;
+  private volatile CloseStatus closeStatus;
+
+  StubWebSocketSession(String id, boolean recording) {
+    this.id = id;
+    this.recording = recording;
+  }
+
+  /** Makes every write wait this long, like a client on a slow link. */
+  StubWebSocketSession slow(long writeDelayMs) {
+    this.writeDelayMs = writeDelayMs;
+    return this;
+  }
+
+  /** Makes writes wait until {@link #unblock()}. */
+  StubWebSocketSession blocked() {
+    this.gate = new CountDownLatch(1);
+    return this;
+  }
+
+  void unblock() {
+    gate.countDown();
+  }
+
+  List<WebSocketMessage<?>> sent() {
+    return sent;
+  }
+
+  long sentCount() {
+    return sentCount.get();
+  }
+
+  CloseStatus closeStatus() {
+    return closeStatus;
+  }
+
+  @Override
+  public void sendMessage(WebSocketMessage<?> message) {
+    try {
+      CountDownLatch blocker = gate;
+      if (blocker != null) {
+        blocker.await();
+      }
+      if (writeDelayMs > 0) {
+        Thread.sleep(writeDelayMs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (recording) {
+      sent.add(message);
+    }
+    sentCount.incrementAndGet();
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public URI getUri() {
+    return URI.create("ws://localhost/ws");
+  }
+
+  @Override
+  public HttpHeaders getHandshakeHeaders() {
+    return new HttpHeaders();
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public Principal getPrincipal() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return null;
+  }
+
+  @Override
+  public String getAcceptedProtocol() {
+    return "v12.stomp";
+  }
+
+  @Override
+  public void setTextMessageSizeLimit(int messageSizeLimit) {}
+
+  @Override
+  public int getTextMessageSizeLimit() {
+    return 64 * 1024;
+  }
+
+  @Override
+  public void setBinaryMessageSizeLimit(int messageSizeLimit) {}
+
+  @Override
+  public int getBinaryMessageSizeLimit() {
+    return 64 * 1024;
+  }
+
+  @Override
+  public List<WebSocketExtension> getExtensions() {
+    return List.of();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return closeStatus == null;
+  }
+
+  @Override
+  public void close() {
+    close(CloseStatus.NORMAL);
+  }
+
+  @Override
+  public void close(CloseStatus status) {
+    closeStatus = status;
+  }
+}